@@ -0,0 +1,70 @@
+package com.google.impactdashboard.benchmarks;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class describing how a fake API server answers: how long each call takes, how many items
+ * a page holds at most and how often a call fails with a quota error. It also counts the
+ * calls made to each method of the API and the errors returned.
+ */
+public class FakeApiBehavior {
+
+  private final long latencyMillis;
+  private final int maxPageSize;
+  private final double errorRate;
+  private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+  private final LongAdder errors = new LongAdder();
+
+  /**
+   * @param latencyMillis The time each call takes before it is answered.
+   * @param maxPageSize The largest number of items returned in a page, whatever page size is
+   *     requested.
+   * @param errorRate The fraction of calls, between 0 and 1, that fail with a quota error.
+   */
+  public FakeApiBehavior(long latencyMillis, int maxPageSize, double errorRate) {
+    this.latencyMillis = latencyMillis;
+    this.maxPageSize = maxPageSize;
+    this.errorRate = errorRate;
+  }
+
+  /** Returns the size of the page to answer a request for {@code requestedPageSize} items. */
+  public int getPageSize(int requestedPageSize) {
+    return requestedPageSize <= 0 ? maxPageSize : Math.min(requestedPageSize, maxPageSize);
+  }
+
+  /**
+   * Counts a call to {@code method} and waits for the latency of the API.
+   * @return true if the call should fail with a quota error.
+   */
+  public boolean handleCall(String method) {
+    calls.computeIfAbsent(method, key -> new LongAdder()).increment();
+    if (latencyMillis > 0) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+      errors.increment();
+      return true;
+    }
+    return false;
+  }
+
+  /** Returns the number of calls made to each method so far, by method name. */
+  public Map<String, Long> getCallCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    calls.forEach((method, count) -> counts.put(method, count.sum()));
+    return counts;
+  }
+
+  /** Returns the number of calls that failed with a quota error so far. */
+  public long getErrorCount() {
+    return errors.sum();
+  }
+}
@@ -0,0 +1,109 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.impactdashboard.configuration.Configuration;
+import com.sun.net.httpserver.HttpServer;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that runs fakes of the Logging, Recommender, IAM and Cloud Resource Manager APIs
+ * serving a FakeFleet on local ports, and points the dashboard's API clients at them through
+ * the endpoint overrides of Configuration. The gRPC APIs are served by one gRPC server and
+ * the REST APIs by one HTTP server, each answering with the latency, page size and error rate
+ * given, and every call is counted.
+ */
+public class FakeApiServers implements AutoCloseable {
+
+  private final Map<String, FakeApiBehavior> behaviors = new LinkedHashMap<>();
+  private final Server grpcServer;
+  private final HttpServer httpServer;
+  private final ExecutorService httpExecutor;
+  private String roleCatalogFile = Configuration.roleCatalogFile;
+
+  /**
+   * Starts the fake servers.
+   * @param latencyMillis The time each call takes before it is answered.
+   * @param maxPageSize The largest number of items returned in a page.
+   * @param errorRate The fraction of calls, between 0 and 1, that fail with a quota error.
+   */
+  public FakeApiServers(FakeFleet fleet, long latencyMillis, int maxPageSize,
+      double errorRate) throws IOException {
+    FakeApiBehavior logging = new FakeApiBehavior(latencyMillis, maxPageSize, errorRate);
+    FakeApiBehavior recommender = new FakeApiBehavior(latencyMillis, maxPageSize, errorRate);
+    FakeApiBehavior iam = new FakeApiBehavior(latencyMillis, maxPageSize, errorRate);
+    FakeApiBehavior resourceManager =
+        new FakeApiBehavior(latencyMillis, maxPageSize, errorRate);
+    behaviors.put("Logging", logging);
+    behaviors.put("Recommender", recommender);
+    behaviors.put("IAM", iam);
+    behaviors.put("Resource Manager", resourceManager);
+
+    grpcServer = ServerBuilder.forPort(0)
+        .addService(new FakeLoggingService(fleet, logging))
+        .addService(new FakeRecommenderService(fleet, recommender))
+        .build().start();
+
+    httpExecutor = Executors.newCachedThreadPool();
+    httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    httpServer.createContext("/iam/", new FakeIamHandler(fleet, iam));
+    httpServer.createContext("/resourcemanager/",
+        new FakeResourceManagerHandler(fleet, resourceManager));
+    httpServer.setExecutor(httpExecutor);
+    httpServer.start();
+  }
+
+  /**
+   * Points the API clients created from now on at the fake servers. The role catalog they
+   * serve is not cached on disk, where it would be taken for the catalog of the IAM API.
+   */
+  public void configureClients() {
+    roleCatalogFile = Configuration.roleCatalogFile;
+    String grpcEndpoint = "localhost:" + grpcServer.getPort();
+    String httpRoot = "http://localhost:" + httpServer.getAddress().getPort();
+    Configuration.loggingEndpoint = grpcEndpoint;
+    Configuration.recommenderEndpoint = grpcEndpoint;
+    Configuration.iamRootUrl = httpRoot + "/iam/";
+    Configuration.resourceManagerRootUrl = httpRoot + "/resourcemanager/";
+    Configuration.roleCatalogFile = "";
+  }
+
+  /**
+   * Returns the number of calls made to each method of the fake APIs so far, by API and
+   * method name, for example "Logging ListLogEntries".
+   */
+  public Map<String, Long> getCallCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    behaviors.forEach((api, behavior) -> behavior.getCallCounts()
+        .forEach((method, count) -> counts.put(api + " " + method, count)));
+    return counts;
+  }
+
+  /** Returns the number of calls that failed with a quota error so far, by API. */
+  public Map<String, Long> getErrorCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    behaviors.forEach((api, behavior) -> counts.put(api, behavior.getErrorCount()));
+    return counts;
+  }
+
+  /** Stops the servers, clears the endpoint overrides and caches the role catalog again. */
+  @Override
+  public void close() throws InterruptedException {
+    Configuration.loggingEndpoint = "";
+    Configuration.recommenderEndpoint = "";
+    Configuration.iamRootUrl = "";
+    Configuration.resourceManagerRootUrl = "";
+    Configuration.roleCatalogFile = roleCatalogFile;
+    httpServer.stop(0);
+    httpExecutor.shutdownNow();
+    grpcServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+}
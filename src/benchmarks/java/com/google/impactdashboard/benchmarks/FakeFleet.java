@@ -0,0 +1,130 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.api.services.iam.v1.model.Role;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.logging.v2.LogEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Class holding the synthetic fleet served by the fake API servers: the projects and their
+ * organizations, the role catalog, and the audit logs and accepted recommendations of every
+ * project over the last {@code DAYS} days. The same seed always generates the same fleet.
+ */
+public class FakeFleet {
+
+  /** The number of days of logs generated for every project. */
+  public static final int DAYS = 30;
+
+  /** The number of roles bound in the policy of a project. */
+  private static final int ROLES_PER_POLICY = 10;
+
+  private final List<ProjectIdentification> projects;
+  private final List<OrganizationIdentification> organizations;
+  private final Map<String, OrganizationIdentification> projectOrganizations = new HashMap<>();
+  private final List<Role> predefinedRoles;
+  private final List<Role> customRoles;
+  private final Map<String, List<LogEntry>> auditLogs = new HashMap<>();
+  private final Map<String, List<LogEntry>> recommendationLogs = new HashMap<>();
+  private final Map<String, com.google.cloud.recommender.v1.Recommendation> recommendations =
+      new HashMap<>();
+
+  /**
+   * Generates a fleet of {@code projectCount} projects spread over
+   * {@code organizationCount} organizations. Each project has {@code auditLogsPerProject}
+   * SetIamPolicy audit logs and {@code recommendationsPerProject} accepted recommendations,
+   * spread evenly over the last {@code DAYS} days.
+   * @param predefinedRoleCount The number of predefined roles in the catalog.
+   * @param customRoleCount The number of custom roles of every project and organization.
+   */
+  public FakeFleet(long seed, int projectCount, int organizationCount,
+      int auditLogsPerProject, int recommendationsPerProject, int predefinedRoleCount,
+      int customRoleCount) {
+    FleetGenerator generator = new FleetGenerator(seed);
+    Random random = new Random(seed);
+    projects = generator.createProjects(projectCount);
+    organizations = generator.createOrganizations(organizationCount);
+    predefinedRoles = generator.createRoleCatalog("roles/role", predefinedRoleCount);
+    customRoles = generator.createRoleCatalog("custom", customRoleCount);
+
+    Instant end = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    Instant start = end.minus(DAYS, ChronoUnit.DAYS);
+    Duration auditLogInterval = Duration.ofDays(DAYS).dividedBy(auditLogsPerProject + 1);
+    Duration recommendationInterval =
+        Duration.ofDays(DAYS).dividedBy(recommendationsPerProject + 1);
+    for (int i = 0; i < projects.size(); i++) {
+      String projectId = projects.get(i).getProjectId();
+      projectOrganizations.put(projectId, organizations.get(i % organizationCount));
+
+      auditLogs.put(projectId, generator.createAuditLogs(projectId,
+          generator.createPolicyHistory(predefinedRoles, ROLES_PER_POLICY, auditLogsPerProject),
+          start.plus(auditLogInterval), auditLogInterval));
+
+      List<LogEntry> logs = new ArrayList<>();
+      for (int j = 0; j < recommendationsPerProject; j++) {
+        String name = "projects/" + projects.get(i).getProjectNumber() +
+            "/locations/global/recommenders/google.iam.policy.Recommender/recommendations/" +
+            "recommendation-" + j;
+        String previousRole = predefinedRoles.get(random.nextInt(predefinedRoles.size()))
+            .getName();
+        String newRole = random.nextBoolean() ? "" :
+            predefinedRoles.get(random.nextInt(predefinedRoles.size())).getName();
+        recommendations.put(name, FleetGenerator.createRecommenderRecommendation(name,
+            "user:member" + j + "@example.com", previousRole, newRole));
+        logs.add(FleetGenerator.createRecommendationLog(projectId, name, "admin@example.com",
+            start.plus(recommendationInterval.multipliedBy(j + 1))));
+      }
+      Collections.reverse(logs);
+      recommendationLogs.put(projectId, logs);
+    }
+  }
+
+  public List<ProjectIdentification> getProjects() {
+    return projects;
+  }
+
+  public List<OrganizationIdentification> getOrganizations() {
+    return organizations;
+  }
+
+  /** Returns the organization of {@code projectId}, or null if there is no such project. */
+  public OrganizationIdentification getOrganization(String projectId) {
+    return projectOrganizations.get(projectId);
+  }
+
+  public List<Role> getPredefinedRoles() {
+    return predefinedRoles;
+  }
+
+  /**
+   * Returns the custom roles of every project and organization. Their names are relative
+   * to the project or organization, for example "custom0".
+   */
+  public List<Role> getCustomRoles() {
+    return customRoles;
+  }
+
+  /** Returns the audit logs of {@code projectId}, newest first. */
+  public List<LogEntry> getAuditLogs(String projectId) {
+    return auditLogs.getOrDefault(projectId, Collections.emptyList());
+  }
+
+  /** Returns the accepted recommendation logs of {@code projectId}, newest first. */
+  public List<LogEntry> getRecommendationLogs(String projectId) {
+    return recommendationLogs.getOrDefault(projectId, Collections.emptyList());
+  }
+
+  /** Returns the recommendation named {@code name}, or null if there is no such one. */
+  public com.google.cloud.recommender.v1.Recommendation getRecommendation(String name) {
+    return recommendations.get(name);
+  }
+}
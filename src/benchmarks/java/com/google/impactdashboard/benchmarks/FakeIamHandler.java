@@ -0,0 +1,61 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.services.iam.v1.model.ListRolesResponse;
+import com.google.api.services.iam.v1.model.Role;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fake of the IAM API that serves the role catalog of a FakeFleet: the predefined roles, and
+ * the same custom roles for every project and organization.
+ */
+class FakeIamHandler extends FakeRestHandler {
+
+  private static final String PREDEFINED_ROLES_PATH = "v1/roles";
+
+  private final FakeFleet fleet;
+
+  FakeIamHandler(FakeFleet fleet, FakeApiBehavior behavior) {
+    super(behavior);
+    this.fleet = fleet;
+  }
+
+  @Override
+  protected String getMethodName(String httpMethod, String path) {
+    return path.endsWith("/roles") ? "roles.list" : "roles.get";
+  }
+
+  @Override
+  protected GenericJson handle(String httpMethod, String path, Map<String, String> query) {
+    if (path.equals(PREDEFINED_ROLES_PATH)) {
+      return listRoles(fleet.getPredefinedRoles(), query);
+    }
+    if (path.endsWith("/roles")) {
+      // The roles of "v1/projects/[PROJECT_ID]/roles" or "v1/organizations/[ORG_ID]/roles".
+      String parent = path.substring("v1/".length(), path.length() - "/roles".length());
+      return listRoles(fleet.getCustomRoles().stream()
+          .map(role -> role.clone().setName(parent + "/roles/" + role.getName()))
+          .collect(Collectors.toList()), query);
+    }
+    String name = path.substring("v1/".length());
+    return fleet.getPredefinedRoles().stream()
+        .filter(role -> role.getName().equals(name))
+        .findFirst().orElse(null);
+  }
+
+  /** Returns the page of {@code roles} starting at the offset in the page token. */
+  private ListRolesResponse listRoles(List<Role> roles, Map<String, String> query) {
+    String pageToken = query.get("pageToken");
+    int start = pageToken == null || pageToken.isEmpty() ? 0 : Integer.parseInt(pageToken);
+    int end = Math.min(roles.size(), start + getPageSize(query.get("pageSize")));
+    ListRolesResponse response = new ListRolesResponse()
+        .setRoles(roles.subList(Math.min(start, end), end));
+    if (end < roles.size()) {
+      response.setNextPageToken(String.valueOf(end));
+    }
+    return response;
+  }
+}
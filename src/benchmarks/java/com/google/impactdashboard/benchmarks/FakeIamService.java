@@ -0,0 +1,52 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.iam.v1.Iam;
+import com.google.api.services.iam.v1.model.ListRolesResponse;
+import com.google.api.services.iam.v1.model.Role;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class that creates IAM API clients answering from a generated role catalog in memory, so
+ * that the benchmarks measure the dashboard's own work instead of the network.
+ */
+public class FakeIamService {
+
+  private FakeIamService() {}
+
+  /**
+   * Returns an IAM client that lists {@code predefinedRoles} as the predefined roles,
+   * {@code projectRoles} as the custom roles of every project and
+   * {@code organizationRoles} as the custom roles of every organization.
+   */
+  public static Iam create(List<Role> predefinedRoles, List<Role> projectRoles,
+      List<Role> organizationRoles) throws IOException {
+    String predefinedJson = toJson(predefinedRoles);
+    String projectJson = toJson(projectRoles);
+    String organizationJson = toJson(organizationRoles);
+
+    MockHttpTransport transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        String json = url.contains("/projects/") ? projectJson :
+            url.contains("/organizations/") ? organizationJson : predefinedJson;
+        return new MockLowLevelHttpRequest(url).setResponse(new MockLowLevelHttpResponse()
+            .setContentType("application/json").setContent(json));
+      }
+    };
+    return new Iam.Builder(transport, JacksonFactory.getDefaultInstance(), null)
+        .setApplicationName("Recommendation Impact Dashboard Benchmarks")
+        .build();
+  }
+
+  /** Returns the response of a roles list request that returns {@code roles}. */
+  private static String toJson(List<Role> roles) throws IOException {
+    return JacksonFactory.getDefaultInstance().toString(new ListRolesResponse().setRoles(roles));
+  }
+}
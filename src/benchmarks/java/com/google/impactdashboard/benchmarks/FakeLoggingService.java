@@ -0,0 +1,95 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.common.base.Strings;
+import com.google.logging.v2.ListLogEntriesRequest;
+import com.google.logging.v2.ListLogEntriesResponse;
+import com.google.logging.v2.LogEntry;
+import com.google.logging.v2.LoggingServiceV2Grpc;
+import com.google.protobuf.util.Timestamps;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Fake of the Cloud Logging API that serves the audit logs and recommendation logs of a
+ * FakeFleet. It understands the filters built by LogRetriever: the kind of log, from
+ * whether the filter mentions SetIamPolicy, and the bounds on the timestamp.
+ */
+public class FakeLoggingService extends LoggingServiceV2Grpc.LoggingServiceV2ImplBase {
+
+  /** Matches a bound on the timestamp in a filter, capturing the comparison and the time. */
+  private static final Pattern TIME_BOUND = Pattern.compile("timestamp ([<>]) \"([^\"]+)\"");
+
+  private static final String PROJECT_PREFIX = "projects/";
+
+  private static final Comparator<LogEntry> NEWEST_FIRST = Comparator.comparing(
+      LogEntry::getTimestamp, Timestamps.comparator()).reversed();
+
+  private final FakeFleet fleet;
+  private final FakeApiBehavior behavior;
+
+  public FakeLoggingService(FakeFleet fleet, FakeApiBehavior behavior) {
+    this.fleet = fleet;
+    this.behavior = behavior;
+  }
+
+  /**
+   * Returns the page of entries starting at the offset in the page token, of the projects
+   * in the resource names, that match the filter, newest first.
+   */
+  @Override
+  public void listLogEntries(ListLogEntriesRequest request,
+      StreamObserver<ListLogEntriesResponse> responseObserver) {
+    if (behavior.handleCall("ListLogEntries")) {
+      responseObserver.onError(Status.RESOURCE_EXHAUSTED
+          .withDescription("Quota exceeded for ReadRequestsPerMinutePerProject")
+          .asRuntimeException());
+      return;
+    }
+
+    String filter = request.getFilter();
+    boolean auditLogs = filter.contains("SetIamPolicy");
+    Instant after = Instant.MIN;
+    Instant before = Instant.MAX;
+    Matcher bound = TIME_BOUND.matcher(filter);
+    while (bound.find()) {
+      if (bound.group(1).equals(">")) {
+        after = Instant.parse(bound.group(2));
+      } else {
+        before = Instant.parse(bound.group(2));
+      }
+    }
+    Instant from = after;
+    Instant to = before;
+
+    List<LogEntry> entries = request.getResourceNamesList().stream()
+        .filter(resourceName -> resourceName.startsWith(PROJECT_PREFIX))
+        .map(resourceName -> resourceName.substring(PROJECT_PREFIX.length()))
+        .flatMap(projectId -> (auditLogs ? fleet.getAuditLogs(projectId) :
+            fleet.getRecommendationLogs(projectId)).stream())
+        .filter(entry -> {
+          Instant time = Instant.ofEpochSecond(entry.getTimestamp().getSeconds(),
+              entry.getTimestamp().getNanos());
+          return time.isAfter(from) && time.isBefore(to);
+        })
+        .sorted(NEWEST_FIRST)
+        .collect(Collectors.toList());
+
+    int start = Strings.isNullOrEmpty(request.getPageToken()) ?
+        0 : Integer.parseInt(request.getPageToken());
+    int end = Math.min(entries.size(), start + behavior.getPageSize(request.getPageSize()));
+    ListLogEntriesResponse.Builder response = ListLogEntriesResponse.newBuilder()
+        .addAllEntries(entries.subList(Math.min(start, end), end));
+    if (end < entries.size()) {
+      response.setNextPageToken(String.valueOf(end));
+    }
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+}
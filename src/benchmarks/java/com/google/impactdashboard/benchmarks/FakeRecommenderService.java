@@ -0,0 +1,40 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.cloud.recommender.v1.GetRecommendationRequest;
+import com.google.cloud.recommender.v1.Recommendation;
+import com.google.cloud.recommender.v1.RecommenderGrpc;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+/** Fake of the Recommender API that serves the recommendations of a FakeFleet. */
+public class FakeRecommenderService extends RecommenderGrpc.RecommenderImplBase {
+
+  private final FakeFleet fleet;
+  private final FakeApiBehavior behavior;
+
+  public FakeRecommenderService(FakeFleet fleet, FakeApiBehavior behavior) {
+    this.fleet = fleet;
+    this.behavior = behavior;
+  }
+
+  @Override
+  public void getRecommendation(GetRecommendationRequest request,
+      StreamObserver<Recommendation> responseObserver) {
+    if (behavior.handleCall("GetRecommendation")) {
+      responseObserver.onError(Status.RESOURCE_EXHAUSTED
+          .withDescription("Quota exceeded for RecommenderRequestsPerMinutePerProject")
+          .asRuntimeException());
+      return;
+    }
+
+    Recommendation recommendation = fleet.getRecommendation(request.getName());
+    if (recommendation == null) {
+      responseObserver.onError(Status.NOT_FOUND
+          .withDescription("Recommendation " + request.getName() + " not found")
+          .asRuntimeException());
+      return;
+    }
+    responseObserver.onNext(recommendation);
+    responseObserver.onCompleted();
+  }
+}
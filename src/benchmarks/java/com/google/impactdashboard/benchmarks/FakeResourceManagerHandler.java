@@ -0,0 +1,87 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.services.cloudresourcemanager.model.Ancestor;
+import com.google.api.services.cloudresourcemanager.model.GetAncestryResponse;
+import com.google.api.services.cloudresourcemanager.model.ListProjectsResponse;
+import com.google.api.services.cloudresourcemanager.model.Organization;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.api.services.cloudresourcemanager.model.ResourceId;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fake of the Cloud Resource Manager API that lists the projects of a FakeFleet, and
+ * answers the ancestry of each project and the names of the organizations.
+ */
+class FakeResourceManagerHandler extends FakeRestHandler {
+
+  private static final String PROJECTS_PATH = "v1/projects";
+  private static final String ANCESTRY_SUFFIX = ":getAncestry";
+  private static final String ORGANIZATIONS_PREFIX = "v1/organizations/";
+
+  private final FakeFleet fleet;
+
+  FakeResourceManagerHandler(FakeFleet fleet, FakeApiBehavior behavior) {
+    super(behavior);
+    this.fleet = fleet;
+  }
+
+  @Override
+  protected String getMethodName(String httpMethod, String path) {
+    if (path.equals(PROJECTS_PATH)) {
+      return "projects.list";
+    }
+    return path.endsWith(ANCESTRY_SUFFIX) ? "projects.getAncestry" : "organizations.get";
+  }
+
+  @Override
+  protected GenericJson handle(String httpMethod, String path, Map<String, String> query) {
+    if (path.equals(PROJECTS_PATH)) {
+      return listProjects(query);
+    }
+    if (path.endsWith(ANCESTRY_SUFFIX)) {
+      String projectId = path.substring(PROJECTS_PATH.length() + 1,
+          path.length() - ANCESTRY_SUFFIX.length());
+      OrganizationIdentification organization = fleet.getOrganization(projectId);
+      if (organization == null) {
+        return null;
+      }
+      return new GetAncestryResponse().setAncestor(Arrays.asList(
+          new Ancestor().setResourceId(new ResourceId().setType("project").setId(projectId)),
+          new Ancestor().setResourceId(new ResourceId().setType("organization")
+              .setId(organization.getId()))));
+    }
+    if (path.startsWith(ORGANIZATIONS_PREFIX)) {
+      String organizationId = path.substring(ORGANIZATIONS_PREFIX.length());
+      return fleet.getOrganizations().stream()
+          .filter(organization -> organization.getId().equals(organizationId))
+          .map(organization -> new Organization()
+              .setName("organizations/" + organization.getId())
+              .setDisplayName(organization.getName()))
+          .findFirst().orElse(null);
+    }
+    return null;
+  }
+
+  /** Returns the page of the projects of the fleet starting at the offset in the page token. */
+  private ListProjectsResponse listProjects(Map<String, String> query) {
+    String pageToken = query.get("pageToken");
+    int start = pageToken == null || pageToken.isEmpty() ? 0 : Integer.parseInt(pageToken);
+    int end = Math.min(fleet.getProjects().size(),
+        start + getPageSize(query.get("pageSize")));
+    List<Project> projects = fleet.getProjects().subList(Math.min(start, end), end).stream()
+        .map(project -> new Project().setProjectId(project.getProjectId())
+            .setName(project.getName()).setProjectNumber(project.getProjectNumber()))
+        .collect(Collectors.toList());
+    ListProjectsResponse response = new ListProjectsResponse().setProjects(projects);
+    if (end < fleet.getProjects().size()) {
+      response.setNextPageToken(String.valueOf(end));
+    }
+    return response;
+  }
+}
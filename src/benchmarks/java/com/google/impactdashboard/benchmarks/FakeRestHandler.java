@@ -0,0 +1,101 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class of the fakes of the REST APIs. It strips the context path from each request,
+ * counts and delays it as {@code behavior} says, and writes the JSON responses and errors
+ * the way the Google API clients expect them.
+ */
+abstract class FakeRestHandler implements HttpHandler {
+
+  private final FakeApiBehavior behavior;
+
+  FakeRestHandler(FakeApiBehavior behavior) {
+    this.behavior = behavior;
+  }
+
+  /**
+   * Returns the response to the request for {@code path}, relative to the root URL of the
+   * API, or null if there is no such resource.
+   */
+  protected abstract GenericJson handle(String httpMethod, String path,
+      Map<String, String> query);
+
+  /** Returns the name calls to {@code path} are counted under. */
+  protected abstract String getMethodName(String httpMethod, String path);
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    try (InputStream body = exchange.getRequestBody()) {
+      while (body.read() != -1) {
+        // The request bodies of the fake APIs are not used.
+      }
+    }
+    String path = exchange.getRequestURI().getRawPath()
+        .substring(exchange.getHttpContext().getPath().length());
+    path = URLDecoder.decode(path, StandardCharsets.UTF_8.name());
+    String httpMethod = exchange.getRequestMethod();
+
+    if (behavior.handleCall(getMethodName(httpMethod, path))) {
+      writeError(exchange, 429, "RESOURCE_EXHAUSTED", "Quota exceeded");
+      return;
+    }
+    GenericJson response = handle(httpMethod, path, parseQuery(exchange));
+    if (response == null) {
+      writeError(exchange, 404, "NOT_FOUND", "Resource " + path + " not found");
+      return;
+    }
+    write(exchange, 200, JacksonFactory.getDefaultInstance().toString(response));
+  }
+
+  /** Returns the size of the page to answer a request for {@code requestedPageSize} items. */
+  protected int getPageSize(String requestedPageSize) {
+    return behavior.getPageSize(requestedPageSize == null ? 0 :
+        Integer.parseInt(requestedPageSize));
+  }
+
+  /** Returns the parameters of the query string of the request. */
+  private static Map<String, String> parseQuery(HttpExchange exchange) throws IOException {
+    Map<String, String> query = new HashMap<>();
+    String rawQuery = exchange.getRequestURI().getRawQuery();
+    if (rawQuery == null) {
+      return query;
+    }
+    for (String parameter : rawQuery.split("&")) {
+      int separator = parameter.indexOf('=');
+      if (separator > 0) {
+        query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+            URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+      }
+    }
+    return query;
+  }
+
+  /** Writes an error response in the format of the Google APIs. */
+  private static void writeError(HttpExchange exchange, int code, String status,
+      String message) throws IOException {
+    write(exchange, code, "{\"error\": {\"code\": " + code + ", \"message\": \"" + message +
+        "\", \"status\": \"" + status + "\"}}");
+  }
+
+  private static void write(HttpExchange exchange, int code, String json) throws IOException {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(code, bytes.length);
+    try (OutputStream response = exchange.getResponseBody()) {
+      response.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,310 @@
+package com.google.impactdashboard.benchmarks;
+
+import com.google.api.MonitoredResource;
+import com.google.api.services.iam.v1.model.Role;
+import com.google.cloud.audit.AuditLog;
+import com.google.cloud.audit.AuthenticationInfo;
+import com.google.cloud.audit.RequestMetadata;
+import com.google.cloud.recommender.v1.Operation;
+import com.google.cloud.recommender.v1.OperationGroup;
+import com.google.cloud.recommender.v1.RecommendationContent;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.recommendation.IAMRecommenderMetadata;
+import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.recommendation.RecommendationAction;
+import com.google.logging.type.LogSeverity;
+import com.google.logging.v2.LogEntry;
+import com.google.protobuf.Any;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Class that generates synthetic fleets of projects, role catalogs, IAM policies, audit logs
+ * and IAM bindings rows of any size for the benchmarks. The data is random, but the same
+ * seed always generates the same fleet, so results can be compared across runs.
+ */
+public class FleetGenerator {
+
+  /** The organization every generated project belongs to. */
+  public static final OrganizationIdentification ORGANIZATION =
+      OrganizationIdentification.create("Example Organization", "123456789012");
+
+  /** The largest number of permissions in a generated role, close to that of roles/owner. */
+  private static final int MAX_PERMISSIONS = 3000;
+
+  /** The largest number of members of a role in a generated policy. */
+  private static final int MAX_MEMBERS = 50;
+
+  private final Random random;
+
+  /** Offset added to the next recommendation's timestamp to keep timestamps unique. */
+  private long nextRecommendationOffset = 0;
+
+  public FleetGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /** Returns {@code count} projects with ids "project-id-0", "project-id-1", and so on. */
+  public List<ProjectIdentification> createProjects(int count) {
+    return IntStream.range(0, count).mapToObj(i -> ProjectIdentification.create(
+        "project-" + i, "project-id-" + i, 100000000000L + i))
+        .collect(Collectors.toList());
+  }
+
+  /** Returns {@code count} organizations with ids "org-id-0", "org-id-1", and so on. */
+  public List<OrganizationIdentification> createOrganizations(int count) {
+    return IntStream.range(0, count).mapToObj(i -> OrganizationIdentification.create(
+        "Organization " + i, "org-id-" + i))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns {@code count} roles named {@code prefix} followed by a number. Like the
+   * predefined roles, most have a handful of permissions and a few have thousands.
+   */
+  public List<Role> createRoleCatalog(String prefix, int count) {
+    return IntStream.range(0, count).mapToObj(i -> {
+      int permissionCount = 1 + (int) (MAX_PERMISSIONS * Math.pow(random.nextDouble(), 4));
+      List<String> permissions = IntStream.range(0, permissionCount)
+          .mapToObj(permission -> "service" + i + ".resource.permission" + permission)
+          .collect(Collectors.toList());
+      return new Role().setName(prefix + i).setIncludedPermissions(permissions);
+    }).collect(Collectors.toList());
+  }
+
+  /**
+   * Returns a policy, as a map of roles to their number of members, binding members to
+   * {@code roleCount} distinct roles of {@code roles}.
+   */
+  public Map<String, Integer> createPolicy(List<Role> roles, int roleCount) {
+    List<Role> shuffled = new ArrayList<>(roles);
+    Collections.shuffle(shuffled, random);
+    Map<String, Integer> policy = new LinkedHashMap<>();
+    shuffled.stream().limit(roleCount).forEach(role ->
+        policy.put(role.getName(), createMemberCount()));
+    return policy;
+  }
+
+  /**
+   * Returns {@code length} policies, each set after the previous one. Like most SetIamPolicy
+   * calls, each policy adds, removes or changes the members of only one or two roles.
+   */
+  public List<Map<String, Integer>> createPolicyHistory(List<Role> roles, int roleCount,
+      int length) {
+    List<Map<String, Integer>> history = new ArrayList<>();
+    Map<String, Integer> policy = createPolicy(roles, roleCount);
+    for (int i = 0; i < length; i++) {
+      history.add(policy);
+      policy = new LinkedHashMap<>(policy);
+      int changes = 1 + random.nextInt(2);
+      for (int change = 0; change < changes; change++) {
+        String role = roles.get(random.nextInt(roles.size())).getName();
+        if (policy.containsKey(role) && random.nextBoolean()) {
+          policy.remove(role);
+        } else {
+          policy.put(role, createMemberCount());
+        }
+      }
+    }
+    return history;
+  }
+
+  /**
+   * Returns an audit log for every policy of {@code history} set on {@code projectId}, one
+   * every {@code interval} from {@code start}. The logs are returned newest first, the way
+   * the logging API returns them.
+   */
+  public List<LogEntry> createAuditLogs(String projectId, List<Map<String, Integer>> history,
+      Instant start, Duration interval) {
+    List<LogEntry> logs = new ArrayList<>();
+    for (int i = 0; i < history.size(); i++) {
+      Instant time = start.plus(interval.multipliedBy(i));
+      logs.add(LogEntry.newBuilder()
+          .setLogName("projects/" + projectId + "/logs/cloudaudit.googleapis.com%2Factivity")
+          .setTimestamp(Timestamp.newBuilder().setSeconds(time.getEpochSecond())
+              .setNanos(time.getNano()))
+          .setProtoPayload(Any.pack(createAuditLog(projectId, history.get(i))))
+          .build());
+    }
+    Collections.reverse(logs);
+    return logs;
+  }
+
+  /**
+   * Returns a SetIamPolicy audit log that sets {@code policy} on {@code projectId}, with the
+   * other fields the IAM service fills in.
+   */
+  public AuditLog createAuditLog(String projectId, Map<String, Integer> policy) {
+    Struct policyStruct = Struct.newBuilder()
+        .putFields("bindings", Value.newBuilder().setListValue(createBindings(policy)).build())
+        .putFields("etag", Value.newBuilder().setStringValue("BwWqqCyn1l4=").build())
+        .build();
+    return AuditLog.newBuilder()
+        .setServiceName("cloudresourcemanager.googleapis.com")
+        .setMethodName("SetIamPolicy")
+        .setResourceName("projects/" + projectId)
+        .setAuthenticationInfo(AuthenticationInfo.newBuilder()
+            .setPrincipalEmail("admin@example.com"))
+        .setRequestMetadata(RequestMetadata.newBuilder()
+            .setCallerIp("192.0.2.1")
+            .setCallerSuppliedUserAgent("google-cloud-sdk gcloud/300.0.0"))
+        .setRequest(Struct.newBuilder()
+            .putFields("resource", Value.newBuilder().setStringValue(projectId).build())
+            .putFields("policy", Value.newBuilder().setStructValue(policyStruct).build()))
+        .setResponse(policyStruct)
+        .build();
+  }
+
+  /**
+   * Returns {@code entriesPerDay} IAM bindings rows a day for {@code days} days from
+   * {@code start} for {@code project}, oldest first.
+   */
+  public List<IAMBindingDatabaseEntry> createBindingEntries(ProjectIdentification project,
+      Instant start, int days, int entriesPerDay) {
+    return createBindingEntries(project, ORGANIZATION, start, days, entriesPerDay);
+  }
+
+  /**
+   * Returns {@code entriesPerDay} IAM bindings rows a day for {@code days} days from
+   * {@code start} for {@code project}, which belongs to {@code organization}, oldest first.
+   */
+  public List<IAMBindingDatabaseEntry> createBindingEntries(ProjectIdentification project,
+      OrganizationIdentification organization, Instant start, int days, int entriesPerDay) {
+    List<IAMBindingDatabaseEntry> entries = new ArrayList<>();
+    long interval = ChronoUnit.DAYS.getDuration().toMillis() / entriesPerDay;
+    int bindings = 10000 + random.nextInt(10000);
+    for (int day = 0; day < days; day++) {
+      long dayStart = start.plus(day, ChronoUnit.DAYS).toEpochMilli();
+      for (int i = 0; i < entriesPerDay; i++) {
+        bindings = Math.max(0, bindings + random.nextInt(201) - 100);
+        entries.add(IAMBindingDatabaseEntry.create(project.getProjectId(), project.getName(),
+            String.valueOf(project.getProjectNumber()), organization,
+            dayStart + i * interval, bindings));
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Returns {@code rows} IAM bindings rows spread over {@code projects}, with one row a day
+   * for each project, ending yesterday.
+   */
+  public List<IAMBindingDatabaseEntry> createBindingTable(List<ProjectIdentification> projects,
+      int rows) {
+    int days = (rows + projects.size() - 1) / projects.size();
+    Instant start = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(days, ChronoUnit.DAYS);
+    return projects.stream()
+        .flatMap(project -> createBindingEntries(project, start, days, 1).stream())
+        .limit(rows)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns {@code count} accepted recommendations of {@code project}, which belongs to
+   * {@code organization}, spread over the {@code days} days from {@code start}. No two
+   * recommendations generated by this generator are accepted at the same millisecond.
+   */
+  public List<Recommendation> createRecommendations(ProjectIdentification project,
+      OrganizationIdentification organization, Instant start, int days, int count) {
+    List<Recommendation> recommendations = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      long acceptedTimestamp = start.plus(random.nextInt(days), ChronoUnit.DAYS)
+          .toEpochMilli() + nextRecommendationOffset++;
+      RecommendationAction action = random.nextBoolean() ?
+          RecommendationAction.create("user:member" + i + "@example.com", "roles/owner",
+              "roles/viewer", RecommendationAction.ActionType.REPLACE_ROLE) :
+          RecommendationAction.create("user:member" + i + "@example.com", "roles/editor", "",
+              RecommendationAction.ActionType.REMOVE_ROLE);
+      recommendations.add(Recommendation.create(project.getProjectId(), organization.getId(),
+          "admin@example.com", Arrays.asList(action),
+          Recommendation.RecommenderType.IAM_BINDING, acceptedTimestamp,
+          IAMRecommenderMetadata.create(1 + random.nextInt(MAX_PERMISSIONS))));
+    }
+    return recommendations;
+  }
+
+  /**
+   * Returns the log written when {@code actor} accepted the recommendation named
+   * {@code recommendationName} on {@code projectId} at {@code time}.
+   */
+  public static LogEntry createRecommendationLog(String projectId, String recommendationName,
+      String actor, Instant time) {
+    return LogEntry.newBuilder()
+        .setLogName("projects/" + projectId + "/logs/recommendations")
+        .setResource(MonitoredResource.newBuilder().setType("recommender")
+            .putLabels("project_id", projectId)
+            .putLabels("recommender_id", "google.iam.policy.Recommender"))
+        .setSeverity(LogSeverity.INFO)
+        .setTimestamp(Timestamp.newBuilder().setSeconds(time.getEpochSecond())
+            .setNanos(time.getNano()))
+        .setJsonPayload(Struct.newBuilder()
+            .putFields("recommendationName", stringValue(recommendationName))
+            .putFields("actor", stringValue(actor))
+            .putFields("state", stringValue("SUCCEEDED")))
+        .build();
+  }
+
+  /**
+   * Returns the recommendation named {@code name}, as the Recommender API returns it, that
+   * removes {@code member} from {@code previousRole} and grants it {@code newRole} instead,
+   * unless {@code newRole} is empty.
+   */
+  public static com.google.cloud.recommender.v1.Recommendation createRecommenderRecommendation(
+      String name, String member, String previousRole, String newRole) {
+    OperationGroup.Builder operations = OperationGroup.newBuilder()
+        .addOperations(Operation.newBuilder().setAction("remove")
+            .putPathFilters("/iamPolicy/bindings/*/role", stringValue(previousRole))
+            .putPathFilters("/iamPolicy/bindings/*/members/*", stringValue(member)));
+    if (!newRole.isEmpty()) {
+      operations.addOperations(Operation.newBuilder().setAction("add")
+          .putPathFilters("/iamPolicy/bindings/*/role", stringValue(newRole)));
+    }
+    return com.google.cloud.recommender.v1.Recommendation.newBuilder()
+        .setName(name)
+        .setRecommenderSubtype(newRole.isEmpty() ? "REMOVE_ROLE" : "REPLACE_ROLE")
+        .setContent(RecommendationContent.newBuilder().addOperationGroups(operations))
+        .build();
+  }
+
+  /** Returns {@code value} as a protobuf string value. */
+  private static Value stringValue(String value) {
+    return Value.newBuilder().setStringValue(value).build();
+  }
+
+  /** Returns the bindings of {@code policy}, in the form SetIamPolicy audit logs hold them. */
+  private static ListValue createBindings(Map<String, Integer> policy) {
+    ListValue.Builder bindings = ListValue.newBuilder();
+    policy.forEach((role, members) -> {
+      ListValue.Builder memberList = ListValue.newBuilder();
+      for (int i = 0; i < members; i++) {
+        memberList.addValues(Value.newBuilder().setStringValue("user:member" + i + "@example.com"));
+      }
+      bindings.addValues(Value.newBuilder().setStructValue(Struct.newBuilder()
+          .putFields("role", Value.newBuilder().setStringValue(role).build())
+          .putFields("members", Value.newBuilder().setListValue(memberList).build())));
+    });
+    return bindings.build();
+  }
+
+  /** Returns a number of members for a role; most roles have one or two members. */
+  private int createMemberCount() {
+    return 1 + (int) (MAX_MEMBERS * Math.pow(random.nextDouble(), 3));
+  }
+}
@@ -0,0 +1,51 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks building the query that stages IAM bindings rows, from 10k to 1M rows. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InsertValuesBenchmark {
+
+  /** The number of projects the rows are spread over, one row a day each. */
+  private static final int PROJECTS = 1000;
+
+  /** The number of rows inserted. */
+  @Param({"10000", "100000", "1000000"})
+  public int rows;
+
+  private QueryConfigurationBuilder queryConfigurationBuilder;
+  private List<IAMBindingDatabaseEntry> values;
+
+  @Setup
+  public void setup() {
+    FleetGenerator generator = new FleetGenerator(rows);
+    values = generator.createBindingTable(generator.createProjects(PROJECTS), rows);
+    queryConfigurationBuilder = QueryConfigurationBuilderImpl.getInstance();
+  }
+
+  @Benchmark
+  public QueryJobConfiguration createIAMStagingTableConfiguration() {
+    return queryConfigurationBuilder.createIAMStagingTableConfiguration(values).build();
+  }
+}
@@ -0,0 +1,163 @@
+package com.google.impactdashboard.server;
+
+import com.google.gson.Gson;
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.impactdashboard.data.DataSummaryList;
+import com.google.impactdashboard.data.organization.OrganizationGraphData;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectGraphData;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.database_manager.FakeDatabase;
+import com.google.impactdashboard.database_manager.data_read.DataReadManager;
+import com.google.impactdashboard.database_manager.data_read.DataReadManagerFake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the request path of the dashboard's read servlets against a FakeDatabase
+ * holding a year of daily data for thousands of projects, so that reading, assembling and
+ * serializing the responses can be measured without BigQuery. Run with {@code -prof gc} to
+ * also see the allocation rate of each request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadPathBenchmark {
+
+  /** The number of days of data stored for every project. */
+  private static final int DAYS = 365;
+
+  /** The number of organizations the projects are spread over. */
+  private static final int ORGANIZATIONS = 10;
+
+  /** The number of recommendations accepted on every project during the year. */
+  private static final int RECOMMENDATIONS_PER_PROJECT = 5;
+
+  /** The number of projects in the database. */
+  @Param({"1000", "5000"})
+  public int projects;
+
+  private DataReadManager readManager;
+  private DataSummaryRetriever dataSummaryRetriever;
+  private ProjectInformationRetriever projectInformationRetriever;
+  private OrganizationInformationRetriever organizationInformationRetriever;
+  private Gson gson;
+  private String projectId;
+  private String organizationId;
+  private DataSummaryList dataSummary;
+  private ProjectGraphData projectGraphData;
+  private OrganizationGraphData organizationGraphData;
+
+  @Setup
+  public void setup() {
+    FleetGenerator generator = new FleetGenerator(projects);
+    List<ProjectIdentification> fleet = generator.createProjects(projects);
+    List<OrganizationIdentification> organizations =
+        generator.createOrganizations(ORGANIZATIONS);
+    Instant start = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(DAYS, ChronoUnit.DAYS);
+    for (int i = 0; i < fleet.size(); i++) {
+      OrganizationIdentification organization = organizations.get(i % ORGANIZATIONS);
+      FakeDatabase.addIAMBindingsData(generator.createBindingEntries(fleet.get(i),
+          organization, start, DAYS, 1));
+      FakeDatabase.addRecommendations(generator.createRecommendations(fleet.get(i),
+          organization, start, DAYS, RECOMMENDATIONS_PER_PROJECT));
+    }
+
+    readManager = new DataReadManagerFake();
+    dataSummaryRetriever = new DataSummaryRetriever(readManager);
+    projectInformationRetriever = new ProjectInformationRetriever(readManager);
+    organizationInformationRetriever = new OrganizationInformationRetriever(readManager);
+    gson = new Gson();
+
+    // Ids are read back from the database, so they match however it stores projects.
+    List<ProjectIdentification> storedProjects = readManager.listProjects();
+    projectId = storedProjects.get(storedProjects.size() / 2).getProjectId();
+    organizationId = organizations.get(0).getId();
+
+    dataSummary = dataSummaryRetriever.getDataSummary();
+    projectGraphData = projectInformationRetriever.getProjectData(projectId);
+    organizationGraphData = organizationInformationRetriever.getOrganizationData(organizationId);
+  }
+
+  @Benchmark
+  public List<ProjectIdentification> listProjects() {
+    return readManager.listProjects();
+  }
+
+  @Benchmark
+  public double getAverageIAMBindingsInPastYear() {
+    return readManager.getAverageIAMBindingsInPastYear(projectId);
+  }
+
+  @Benchmark
+  public Map<Long, Integer> getOrganizationDatesToBindings() {
+    return readManager.getOrganizationDatesToBindings(organizationId);
+  }
+
+  @Benchmark
+  public DataSummaryList getDataSummary() {
+    return dataSummaryRetriever.getDataSummary();
+  }
+
+  @Benchmark
+  public ProjectGraphData getProjectData() {
+    return projectInformationRetriever.getProjectData(projectId);
+  }
+
+  @Benchmark
+  public OrganizationGraphData getOrganizationData() {
+    return organizationInformationRetriever.getOrganizationData(organizationId);
+  }
+
+  @Benchmark
+  public String serializeDataSummary() {
+    return gson.toJson(dataSummary);
+  }
+
+  @Benchmark
+  public String serializeProjectGraphData() {
+    return gson.toJson(projectGraphData);
+  }
+
+  @Benchmark
+  public String serializeOrganizationGraphData() {
+    return gson.toJson(organizationGraphData);
+  }
+
+  /** Handles a request of ListSummariesServlet, which creates its Gson per request. */
+  @Benchmark
+  public String listSummariesRequest() {
+    return new Gson().toJson(dataSummaryRetriever.getDataSummary());
+  }
+
+  /** Handles a request of GetProjectDataServlet, which creates its Gson per request. */
+  @Benchmark
+  public String getProjectDataRequest() {
+    return new Gson().toJson(projectInformationRetriever.getProjectData(projectId));
+  }
+
+  /** Handles a request of GetOrganizationDataServlet, which creates its Gson per request. */
+  @Benchmark
+  public String getOrganizationDataRequest() {
+    return new Gson().toJson(
+        organizationInformationRetriever.getOrganizationData(organizationId));
+  }
+}
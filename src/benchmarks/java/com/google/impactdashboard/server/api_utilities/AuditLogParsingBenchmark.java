@@ -0,0 +1,57 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.services.iam.v1.model.Role;
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading the members of every role from a SetIamPolicy audit log payload with
+ * the streaming extractor, against parsing the whole {@code AuditLog}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogParsingBenchmark {
+
+  /** The number of roles bound in the policy. */
+  @Param({"10", "100", "1000"})
+  public int bindings;
+
+  private ByteString payload;
+
+  @Setup
+  public void setup() {
+    FleetGenerator generator = new FleetGenerator(bindings);
+    List<Role> roles = generator.createRoleCatalog("roles/role", bindings);
+    payload = generator.createAuditLog("project-id-0", generator.createPolicy(roles, bindings))
+        .toByteString();
+  }
+
+  @Benchmark
+  public Map<String, Integer> streamingExtractor() {
+    return AuditLogBindingsExtractor.getMembersForRoles(payload);
+  }
+
+  @Benchmark
+  public Map<String, Integer> fullAuditLogParse() {
+    return FullAuditLogBindingsParser.getMembersForRoles(payload);
+  }
+}
@@ -0,0 +1,133 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.services.iam.v1.model.Role;
+import com.google.impactdashboard.benchmarks.FakeIamService;
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.logging.v2.LogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks counting the IAM bindings of a project's policies with a catalog about the size
+ * of the real one: a thousand predefined roles plus project and organization custom roles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IamBindingsBenchmark {
+
+  private static final String PROJECT_ID = "project-id-0";
+
+  /** The number of predefined roles in the catalog. */
+  private static final int PREDEFINED_ROLES = 1000;
+
+  /** The number of custom roles of the project and of the organization. */
+  private static final int CUSTOM_ROLES = 100;
+
+  /** The number of roles bound in each policy. */
+  @Param({"20", "200"})
+  public int rolesPerPolicy;
+
+  /** The number of audit logs, from a daily update to a busy project's backfill. */
+  @Param({"100", "1000"})
+  public int logs;
+
+  private IamBindingRetriever iamBindingRetriever;
+  private List<Map<String, Integer>> history;
+  private List<LogEntry> auditLogs;
+
+  @Setup
+  public void setup() throws IOException {
+    FleetGenerator generator = new FleetGenerator(rolesPerPolicy + logs);
+    List<Role> predefinedRoles = generator.createRoleCatalog("roles/role", PREDEFINED_ROLES);
+    List<Role> projectRoles = generator.createRoleCatalog(
+        "projects/" + PROJECT_ID + "/roles/custom", CUSTOM_ROLES);
+    List<Role> organizationRoles = generator.createRoleCatalog(
+        "organizations/" + FleetGenerator.ORGANIZATION.getId() + "/roles/custom", CUSTOM_ROLES);
+    List<Role> allRoles = new ArrayList<>(predefinedRoles);
+    allRoles.addAll(projectRoles);
+    allRoles.addAll(organizationRoles);
+
+    ResourceRetriever resourceRetriever = new ResourceRetriever(null) {
+      @Override
+      public String getOrganizationId(String projectId) {
+        return FleetGenerator.ORGANIZATION.getId();
+      }
+
+      @Override
+      public String getOrganizationName(String organizationId) {
+        return FleetGenerator.ORGANIZATION.getName();
+      }
+    };
+    iamBindingRetriever = new IamBindingRetriever(
+        FakeIamService.create(predefinedRoles, projectRoles, organizationRoles),
+        resourceRetriever);
+
+    history = generator.createPolicyHistory(allRoles, rolesPerPolicy, logs);
+    auditLogs = generator.createAuditLogs(PROJECT_ID, history,
+        Instant.parse("2020-01-01T00:00:00Z"), Duration.ofHours(1));
+
+    // Fetches the custom roles once, as the first policy of an update would.
+    iamBindingRetriever.getIamBindings(history.get(0), PROJECT_ID);
+  }
+
+  /** Counts the bindings of every policy from scratch. */
+  @Benchmark
+  public int recountEveryPolicy() throws IOException {
+    int total = 0;
+    for (Map<String, Integer> policy : history) {
+      total += iamBindingRetriever.getIamBindings(policy, PROJECT_ID);
+    }
+    return total;
+  }
+
+  /** Counts the bindings of every policy from the changes to the previous one. */
+  @Benchmark
+  public int incrementalCount() throws IOException {
+    IncrementalBindingsCalculator calculator = new IncrementalBindingsCalculator(
+        role -> iamBindingRetriever.getPermissionCount(role, PROJECT_ID));
+    int total = 0;
+    for (Map<String, Integer> policy : history) {
+      total += calculator.getIamBindings(policy);
+    }
+    return total;
+  }
+
+  /** Resolves the permission count of every role of the last policy. */
+  @Benchmark
+  public int resolvePermissionCounts() throws IOException {
+    int total = 0;
+    for (String role : history.get(history.size() - 1).keySet()) {
+      total += iamBindingRetriever.getPermissionCount(role, PROJECT_ID);
+    }
+    return total;
+  }
+
+  /** Parses the audit logs and counts the bindings of every policy they set. */
+  @Benchmark
+  public List<IAMBindingDatabaseEntry> listIAMBindingData() {
+    return iamBindingRetriever.listIAMBindingData(auditLogs, PROJECT_ID, PROJECT_ID,
+        "100000000000", null);
+  }
+}
@@ -0,0 +1,67 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks collapsing a project's IAM bindings entries to one entry per day. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OneEntryPerDayBenchmark {
+
+  /** The number of days of entries, from a daily update to a year long backfill. */
+  @Param({"30", "365"})
+  public int days;
+
+  /** The number of policy changes a day; busy projects change their policy hourly. */
+  @Param({"1", "24"})
+  public int entriesPerDay;
+
+  /** Whether the entries are given oldest first, as listIAMBindingData returns them. */
+  @Param({"true", "false"})
+  public boolean ordered;
+
+  private List<IAMBindingDatabaseEntry> entries;
+  private Instant timeFrom;
+  private Instant timeTo;
+
+  @Setup
+  public void setup() {
+    FleetGenerator generator = new FleetGenerator(days);
+    timeFrom = Instant.parse("2020-01-01T00:00:00Z");
+    timeTo = timeFrom.plus(days, ChronoUnit.DAYS);
+    entries = generator.createBindingEntries(generator.createProjects(1).get(0), timeFrom,
+        days, entriesPerDay);
+    if (!ordered) {
+      entries = new ArrayList<>(entries);
+      Collections.shuffle(entries, new Random(days));
+    }
+  }
+
+  @Benchmark
+  public List<IAMBindingDatabaseEntry> createListWithOneEntryPerDay() {
+    return DataUpdater.createListWithOneEntryPerDay(entries, timeFrom, timeTo);
+  }
+}
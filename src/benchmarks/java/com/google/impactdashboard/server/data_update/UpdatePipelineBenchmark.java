@@ -0,0 +1,136 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.benchmarks.FakeApiServers;
+import com.google.impactdashboard.benchmarks.FakeFleet;
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.database_manager.FakeDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole update of the database, with the real DataUpdater and API clients talking
+ * to fake Logging, Recommender, IAM and Resource Manager servers on local ports, and the
+ * local database in place of BigQuery. Each fork runs a single update from a fresh JVM, so
+ * the time includes the slow start of the rate limiters, and prints the update throughput
+ * and the number of calls made to each API method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 3, jvmArgsAppend = "-Xmx4g")
+public class UpdatePipelineBenchmark {
+
+  /** The number of organizations the projects are spread over. */
+  private static final int ORGANIZATIONS = 10;
+
+  /** The number of SetIamPolicy audit logs of every project over the last 30 days. */
+  private static final int AUDIT_LOGS_PER_PROJECT = 10;
+
+  /** The number of recommendations accepted on every project over the last 30 days. */
+  private static final int RECOMMENDATIONS_PER_PROJECT = 2;
+
+  /** The number of predefined roles in the catalog. */
+  private static final int PREDEFINED_ROLES = 1000;
+
+  /** The number of custom roles of every project and organization. */
+  private static final int CUSTOM_ROLES = 10;
+
+  /** The number of projects the credentials can access. */
+  @Param({"500", "5000"})
+  public int projects;
+
+  /**
+   * The update that is run: "manual" backfills 30 days of every project into an empty
+   * database, and "automatic" adds today's data to a database holding yesterday's.
+   */
+  @Param({"manual", "automatic"})
+  public String updater;
+
+  /** Whether the logs of many projects are retrieved with each request. */
+  @Param({"false", "true"})
+  public boolean batchedLogRetrieval;
+
+  /** The time each API call takes before it is answered. */
+  @Param({"50"})
+  public long latencyMillis;
+
+  /** The largest number of items the fake APIs return in a page. */
+  @Param({"1000"})
+  public int maxPageSize;
+
+  /** The fraction of API calls that fail with a quota error. */
+  @Param({"0.01"})
+  public double errorRate;
+
+  private FakeApiServers servers;
+  private DataUpdater dataUpdater;
+  private Map<String, Long> setupCallCounts;
+  private int updatedProjects;
+  private long updateNanos;
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration.useLocalDatabase = true;
+    Configuration.useBatchedLogRetrieval = batchedLogRetrieval;
+
+    FakeFleet fleet = new FakeFleet(projects, projects, ORGANIZATIONS, AUDIT_LOGS_PER_PROJECT,
+        RECOMMENDATIONS_PER_PROJECT, PREDEFINED_ROLES, CUSTOM_ROLES);
+    servers = new FakeApiServers(fleet, latencyMillis, maxPageSize, errorRate);
+    servers.configureClients();
+
+    if (updater.equals("automatic")) {
+      FleetGenerator generator = new FleetGenerator(projects);
+      Instant yesterday = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(1, ChronoUnit.DAYS);
+      for (ProjectIdentification project : fleet.getProjects()) {
+        FakeDatabase.addIAMBindingsData(generator.createBindingEntries(project,
+            fleet.getOrganization(project.getProjectId()), yesterday, 1, 1));
+      }
+      dataUpdater = AutomaticDataUpdater.create();
+    } else {
+      dataUpdater = ManualDataUpdater.create();
+    }
+    setupCallCounts = servers.getCallCounts();
+  }
+
+  @Benchmark
+  public int update() {
+    long start = System.nanoTime();
+    updatedProjects = dataUpdater.updateDatabase(0, 1).getProjectCount();
+    updateNanos = System.nanoTime() - start;
+    return updatedProjects;
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    double seconds = updateNanos / 1e9;
+    System.out.printf("%nUpdated %d projects in %.1f s (%.1f projects/s)%n",
+        updatedProjects, seconds, updatedProjects / seconds);
+    System.out.println("API calls during the update:");
+    servers.getCallCounts().forEach((method, count) -> System.out.printf("  %-40s %8d%n",
+        method, count - setupCallCounts.getOrDefault(method, 0L)));
+    System.out.println("Quota errors, including setup: " + servers.getErrorCounts());
+
+    servers.close();
+    Configuration.useLocalDatabase = false;
+    Configuration.useBatchedLogRetrieval = false;
+  }
+}
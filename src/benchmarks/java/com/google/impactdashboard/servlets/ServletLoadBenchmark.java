@@ -0,0 +1,261 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.impactdashboard.benchmarks.FakeApiServers;
+import com.google.impactdashboard.benchmarks.FakeFleet;
+import com.google.impactdashboard.benchmarks.FleetGenerator;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.database_manager.data_update.DataUpdateManager;
+import com.google.impactdashboard.database_manager.data_update.DataUpdateManagerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of every servlet of the dashboard against the local database. The servlets run
+ * unmodified, with the real data managers sending the Queries catalog to the
+ * LocalDatabaseAccessor, so the numbers include building the queries and parsing their
+ * results but no network. Several threads send requests for random projects and
+ * organizations at once, and JMH reports both the throughput and the distribution of
+ * request latencies. The update servlets run one update at a time, as App Engine sends
+ * them, against the fake API servers of UpdatePipelineBenchmark. The numbers are not those
+ * of BigQuery, whose query latency is left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(8)
+public class ServletLoadBenchmark {
+
+  /** The number of days of data stored for every project. */
+  private static final int DAYS = 365;
+
+  /** The number of organizations the projects are spread over. */
+  private static final int ORGANIZATIONS = 10;
+
+  /** The number of recommendations accepted on every project during the year. */
+  private static final int RECOMMENDATIONS_PER_PROJECT = 5;
+
+  /** The number of projects in the database. */
+  @Param({"100", "1000"})
+  public int projects;
+
+  private ListSummariesServlet listSummariesServlet;
+  private GetProjectDataServlet getProjectDataServlet;
+  private GetOrganizationDataServlet getOrganizationDataServlet;
+  private UpdateRunsServlet updateRunsServlet;
+  private MetricsServlet metricsServlet;
+  private TracesServlet tracesServlet;
+  private List<ProjectIdentification> fleet;
+  private List<OrganizationIdentification> organizations;
+
+  @Setup
+  public void setup() {
+    Configuration.useLocalDatabase = true;
+
+    // The data is written through the update manager, so it is parsed from the same MERGE
+    // statements the daily update sends to BigQuery.
+    FleetGenerator generator = new FleetGenerator(projects);
+    fleet = generator.createProjects(projects);
+    organizations = generator.createOrganizations(ORGANIZATIONS);
+    Instant start = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(DAYS, ChronoUnit.DAYS);
+    DataUpdateManager updateManager = new DataUpdateManagerImpl();
+    for (int i = 0; i < fleet.size(); i++) {
+      OrganizationIdentification organization = organizations.get(i % ORGANIZATIONS);
+      updateManager.updateIAMBindings(generator.createBindingEntries(fleet.get(i),
+          organization, start, DAYS, 1));
+      updateManager.updateRecommendations(generator.createRecommendations(fleet.get(i),
+          organization, start, DAYS, RECOMMENDATIONS_PER_PROJECT));
+    }
+
+    listSummariesServlet = new ListSummariesServlet();
+    listSummariesServlet.init();
+    getProjectDataServlet = new GetProjectDataServlet();
+    getProjectDataServlet.init();
+    getOrganizationDataServlet = new GetOrganizationDataServlet();
+    getOrganizationDataServlet.init();
+    updateRunsServlet = new UpdateRunsServlet();
+    updateRunsServlet.init();
+    metricsServlet = new MetricsServlet();
+    tracesServlet = new TracesServlet();
+  }
+
+  @TearDown
+  public void tearDown() {
+    Configuration.useLocalDatabase = false;
+  }
+
+  @Benchmark
+  public StringWriter listSummaries() throws IOException {
+    StringWriter body = new StringWriter();
+    listSummariesServlet.doGet(createRequest(Collections.emptyMap()), createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  public StringWriter getProjectData() throws IOException {
+    Random random = ThreadLocalRandom.current();
+    StringWriter body = new StringWriter();
+    getProjectDataServlet.doGet(
+        createRequest(fleet.get(random.nextInt(fleet.size())).getProjectId()),
+        createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  public StringWriter getOrganizationData() throws IOException {
+    Random random = ThreadLocalRandom.current();
+    StringWriter body = new StringWriter();
+    getOrganizationDataServlet.doGet(
+        createRequest(organizations.get(random.nextInt(organizations.size())).getId()),
+        createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  public StringWriter listUpdateRuns() throws IOException {
+    StringWriter body = new StringWriter();
+    updateRunsServlet.doGet(createRequest(Collections.emptyMap()), createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  public StringWriter getMetrics() throws IOException {
+    StringWriter body = new StringWriter();
+    metricsServlet.doGet(createRequest(Collections.emptyMap()), createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  public StringWriter getTraces() throws IOException {
+    StringWriter body = new StringWriter();
+    tracesServlet.doGet(createRequest(Collections.emptyMap()), createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public StringWriter updateData(UpdateServlets updateServlets) throws IOException {
+    StringWriter body = new StringWriter();
+    updateServlets.updateDataServlet.doGet(createRequest(Collections.emptyMap()),
+        createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public StringWriter updateDataShard(UpdateServlets updateServlets) throws IOException {
+    StringWriter body = new StringWriter();
+    Map<String, String> parameters = new HashMap<>();
+    parameters.put("shard", "0");
+    parameters.put("of", "2");
+    parameters.put("run", "benchmark-run");
+    updateServlets.updateDataServlet.doGet(createRequest(parameters), createResponse(body));
+    return body;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public StringWriter manualUpdate(UpdateServlets updateServlets) throws IOException {
+    StringWriter body = new StringWriter();
+    updateServlets.manualUpdateServlet.doPost(createRequest(Collections.emptyMap()),
+        createResponse(body));
+    return body;
+  }
+
+  /**
+   * The update servlets, created once the API clients point at fake servers serving a
+   * fleet of their own, so that the read benchmarks don't start them.
+   */
+  @State(Scope.Benchmark)
+  public static class UpdateServlets {
+
+    /** The number of projects the fake servers serve. */
+    private static final int PROJECTS = 100;
+
+    /** The number of SetIamPolicy audit logs of every project over the last 30 days. */
+    private static final int AUDIT_LOGS_PER_PROJECT = 10;
+
+    /** The number of predefined roles in the catalog. */
+    private static final int PREDEFINED_ROLES = 1000;
+
+    /** The number of custom roles of every project and organization. */
+    private static final int CUSTOM_ROLES = 10;
+
+    private FakeApiServers servers;
+    private UpdateDataServlet updateDataServlet;
+    private ManualUpdateServlet manualUpdateServlet;
+
+    @Setup
+    public void setup() throws IOException {
+      Configuration.useLocalDatabase = true;
+      Configuration.useLocalTaskQueue = true;
+      FakeFleet fleet = new FakeFleet(PROJECTS, PROJECTS, ORGANIZATIONS,
+          AUDIT_LOGS_PER_PROJECT, RECOMMENDATIONS_PER_PROJECT, PREDEFINED_ROLES, CUSTOM_ROLES);
+      servers = new FakeApiServers(fleet, 0, 1000, 0);
+      servers.configureClients();
+
+      updateDataServlet = new UpdateDataServlet();
+      updateDataServlet.init();
+      manualUpdateServlet = new ManualUpdateServlet();
+      manualUpdateServlet.init();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+      servers.close();
+      Configuration.useLocalTaskQueue = false;
+    }
+  }
+
+  /** Returns a request whose "id" parameter is {@code id}. */
+  private static HttpServletRequest createRequest(String id) {
+    return createRequest(Collections.singletonMap("id", id));
+  }
+
+  /** Returns a request whose parameters are {@code parameters}. */
+  private static HttpServletRequest createRequest(Map<String, String> parameters) {
+    return (HttpServletRequest) Proxy.newProxyInstance(
+        HttpServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class},
+        (proxy, method, args) -> method.getName().equals("getParameter") ?
+            parameters.get(args[0]) : null);
+  }
+
+  /** Returns a response that writes its body to {@code body}. */
+  private static HttpServletResponse createResponse(StringWriter body) {
+    PrintWriter writer = new PrintWriter(body);
+    return (HttpServletResponse) Proxy.newProxyInstance(
+        HttpServletResponse.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+        (proxy, method, args) -> method.getName().equals("getWriter") ? writer : null);
+  }
+}
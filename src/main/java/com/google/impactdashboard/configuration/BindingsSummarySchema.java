@@ -0,0 +1,25 @@
+package com.google.impactdashboard.configuration;
+
+/** A class to hold the column names and scope types of the Bindings Summary Table. */
+public class BindingsSummarySchema {
+  /** The name of the column holding whether the row is for a project or an organization. */
+  public static final String SCOPE_TYPE_COLUMN = "ScopeType";
+
+  /** The name of the column holding the project id or the organization id. */
+  public static final String SCOPE_ID_COLUMN = "ScopeId";
+
+  /** 
+   * The name of the column holding the sum of the daily bindings of the project or 
+   * organization over every day of data stored for it. 
+   */
+  public static final String BINDINGS_SUM_COLUMN = "BindingsSum";
+
+  /** The name of the column holding the number of days of data stored for it. */
+  public static final String DAY_COUNT_COLUMN = "DayCount";
+
+  /** The scope type of the rows summing the IAM Bindings table for one project. */
+  public static final String PROJECT_SCOPE = "PROJECT";
+
+  /** The scope type of the rows summing the Org Daily Bindings table for one organization. */
+  public static final String ORGANIZATION_SCOPE = "ORGANIZATION";
+}
@@ -26,4 +26,100 @@ public class Configuration {
    * the tables are empty. Takes precedence over {@code useTestDatabase}.
    */
   public static boolean useEmptyDatabase = false;
+
+  /**
+   * When set to true, a call to DatabaseAccessorFactory.create() will return a
+   * DatabaseAccessor that runs queries against an in-memory database instead of
+   * BigQuery, for load tests and for running without network access. The in-memory
+   * database emulates each query of the catalog and does not validate it.
+   */
+  public static boolean useLocalDatabase = false;
+
+  /**
+   * The number of shards that the automatic update is split into. When greater 
+   * than 1, a call to /update-data dispatches one task per shard instead of 
+   * updating every project in a single request.
+   */
+  public static int updateShardCount = 1;
+
+  /**
+   * When set to true, a call to UpdateTaskQueueFactory.create() will return a 
+   * task queue that runs shards on the current instance for testing purposes. 
+   */
+  public static boolean useLocalTaskQueue = false;
+
+  /** The Cloud Tasks queue that the shards of a sharded update are dispatched to. */
+  public static String updateTaskQueue = "default";
+
+  /** 
+   * The location of {@code updateTaskQueue}, which is the region of the App Engine 
+   * application.
+   */
+  public static String updateTaskQueueLocation = "us-central1";
+
+  /**
+   * When set to true, DataUpdater retrieves the logs of many projects with each 
+   * ListLogEntries request instead of sending one stream of requests per project. 
+   * This covers the logs of new projects, the recommendations of every project and 
+   * the latest audit log of known projects; known projects with no stored entry are 
+   * still searched one at a time.
+   */
+  public static boolean useBatchedLogRetrieval = false;
+
+  /**
+   * When set to a directory, DataUpdater reads audit logs and recommendation logs 
+   * from the log files exported to that directory by a log sink instead of calling 
+   * the logging API. Intended for large backfills.
+   */
+  public static String exportedLogsDirectory = "";
+
+  /**
+   * When set to a host and port, the Logging client connects to the gRPC server at 
+   * that address instead of the Logging API, without TLS or credentials. Intended 
+   * for load tests against local fake servers.
+   */
+  public static String loggingEndpoint = "";
+
+  /**
+   * When set to a host and port, the Recommender client connects to the gRPC server 
+   * at that address instead of the Recommender API, without TLS or credentials.
+   */
+  public static String recommenderEndpoint = "";
+
+  /**
+   * When set to a URL ending in a slash, the IAM client sends its requests to that 
+   * root URL instead of the IAM API, without credentials.
+   */
+  public static String iamRootUrl = "";
+
+  /**
+   * When set to a URL ending in a slash, the Resource Manager client sends its 
+   * requests to that root URL instead of the Cloud Resource Manager API, without 
+   * credentials.
+   */
+  public static String resourceManagerRootUrl = "";
+
+  /**
+   * The file that the catalog of predefined IAM roles is cached in, so that an instance 
+   * that finds it reads the catalog from disk instead of downloading it. The default is 
+   * on the local disk, which only keeps the catalog across restarts of a local run: 
+   * every new App Engine flex instance starts without it and downloads the catalog, 
+   * unless this points to a persistent location such as a mounted volume. When empty, 
+   * the catalog is only kept in memory and downloaded by every instance.
+   */
+  public static String roleCatalogFile = "/tmp/predefined-role-catalog.json";
+
+  /**
+   * The number of hours after which the catalog of predefined IAM roles is downloaded 
+   * again with the permissions of every role, replacing the cached one. 0 turns the 
+   * refresh off.
+   */
+  public static int roleCatalogRefreshHours = 24;
+
+  /**
+   * Where the spans of each request and update are sent: "log" writes them to standard 
+   * output for Cloud Logging, "memory" keeps the most recent ones for /traces, and any 
+   * other value turns tracing off.
+   */
+  public static String traceExporter = "memory";
 }
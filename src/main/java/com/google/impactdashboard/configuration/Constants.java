@@ -16,12 +16,33 @@ public class Constants {
   /** The name of the table holding Iam Bindings data. */
   public static final String IAM_BINDINGS_TABLE = "IAM_Bindings";
 
+  /** The name of the table holding the reports of past database updates. */
+  public static final String UPDATE_RUNS_TABLE = "Update_Runs";
+
+  /** 
+   * The name of the table holding the number of bindings of each organization on each 
+   * day, summed from the IAM Bindings table. 
+   */
+  public static final String ORG_DAILY_BINDINGS_TABLE = "Org_Daily_Bindings";
+
+  /** 
+   * The name of the table holding the sum and number of days of the bindings of each 
+   * project and organization, kept up to date as data is added and deleted. 
+   */
+  public static final String BINDINGS_SUMMARY_TABLE = "Bindings_Summary";
+
   /** The name of the empty table with the IAM Bindings schema. */
   public static final String EMPTY_IAM_BINDINGS_TABLE = "Empty_IAM_Bindings";
 
   /** The name of the empty table with the Recommendations schema. */
   public static final String EMPTY_RECOMMENDATIONS_TABLE = "Empty_Recommendations";
 
+  /** The name of the empty table with the Org Daily Bindings schema. */
+  public static final String EMPTY_ORG_DAILY_BINDINGS_TABLE = "Empty_Org_Daily_Bindings";
+
+  /** The name of the empty table with the Bindings Summary schema. */
+  public static final String EMPTY_BINDINGS_SUMMARY_TABLE = "Empty_Bindings_Summary";
+
   /** The name of the database holding the test data. */
   public static final String TEST_DATABASE = "Test_Dashboard_V2";
 
@@ -0,0 +1,16 @@
+package com.google.impactdashboard.configuration;
+
+/** A class to hold the column names in the Org Daily Bindings Table. */
+public class OrgDailyBindingsSchema {
+  /** The name of the column holding the organization id. */
+  public static final String ORGANIZATION_ID_COLUMN = "OrganizationId";
+
+  /** The name of the column holding the day, as a timestamp at midnight UTC. */
+  public static final String TIMESTAMP_COLUMN = "Timestamp";
+
+  /** 
+   * The name of the column holding the number of bindings summed across every project 
+   * of the organization on that day. 
+   */
+  public static final String TOTAL_BINDINGS_COLUMN = "TotalBindings";
+}
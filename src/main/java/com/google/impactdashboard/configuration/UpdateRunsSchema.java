@@ -0,0 +1,22 @@
+package com.google.impactdashboard.configuration;
+
+/** A class to hold the column names in the Update Runs Table. */
+public class UpdateRunsSchema {
+  /** The name of the column holding the time the update started. */
+  public static final String START_TIMESTAMP_COLUMN = "StartTimestamp";
+
+  /** The name of the column holding the shard of the update. */
+  public static final String SHARD_COLUMN = "Shard";
+
+  /** The name of the column holding the number of shards of the update. */
+  public static final String SHARD_COUNT_COLUMN = "ShardCount";
+
+  /** The name of the column holding the report of the update, as JSON. */
+  public static final String REPORT_COLUMN = "Report";
+
+  /** 
+   * The name of the column holding the id of the sharded update, or the empty string 
+   * for an update that was not sharded. 
+   */
+  public static final String RUN_ID_COLUMN = "RunId";
+}
@@ -0,0 +1,31 @@
+package com.google.impactdashboard.data.update;
+
+import com.google.auto.value.AutoValue;
+
+/** The status of one shard of a sharded database update. */
+@AutoValue
+public abstract class ShardStatus {
+
+  public abstract int getShard();
+  public abstract int getShardCount();
+  public abstract int getProjectCount();
+  public abstract State getState();
+  public abstract String getMessage();
+
+  public enum State {
+    DISPATCHED,
+    COMPLETED,
+    FAILED
+  }
+
+  /** 
+   * Creates a {@code ShardStatus} for shard {@code shard} out of {@code shardCount}, 
+   * which covers {@code projectCount} projects and is in state {@code state}. 
+   * {@code message} holds any detail about the state, such as the cause of a 
+   * failure, or the empty string if there is none.
+   */
+  public static ShardStatus create(int shard, int shardCount, int projectCount, 
+      State state, String message) {
+    return new AutoValue_ShardStatus(shard, shardCount, projectCount, state, message);
+  }
+}
@@ -0,0 +1,103 @@
+package com.google.impactdashboard.data.update;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Strings;
+import com.google.gson.Gson;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A report of one run of a database update, or of one shard of a sharded update: how
+ * long each phase and the slowest projects took, which API calls were made and what
+ * was written to the database.
+ */
+@AutoValue
+public abstract class UpdateRunReport {
+
+  private static final Gson GSON = new Gson();
+
+  /**
+   * The id of the sharded update that the shard belongs to, or the empty string if the
+   * update was not dispatched by {@code ShardedUpdateCoordinator}.
+   */
+  public abstract String getRunId();
+
+  public abstract long getStartTimestamp();
+  public abstract long getEndTimestamp();
+  public abstract int getShard();
+  public abstract int getShardCount();
+  public abstract int getProjectCount();
+
+  /** The duration of each phase of the run in milliseconds, in the order they ran. */
+  public abstract Map<String, Long> getPhaseMillis();
+
+  /**
+   * The time spent retrieving the data of the slowest projects in milliseconds, by
+   * project id, slowest first.
+   */
+  public abstract Map<String, Long> getSlowestProjectMillis();
+
+  /** The number of attempted API calls, by API and method, such as "IAM roles.get". */
+  public abstract Map<String, Long> getApiCalls();
+
+  public abstract int getRecommendationRowsWritten();
+  public abstract int getBindingRowsWritten();
+
+  /**
+   * The projects whose data could not be read, by project id, with the reason they
+   * were skipped.
+   */
+  public abstract Map<String, String> getSkippedProjects();
+
+  /** The cause of the failure of the run, or the empty string if it completed. */
+  public abstract String getFailure();
+
+  /**
+   * Creates a {@code UpdateRunReport} for shard {@code shard} out of {@code shardCount}
+   * of the update {@code runId} that ran from {@code startTimestamp} to
+   * {@code endTimestamp} (both in UTC milliseconds since the epoch) over
+   * {@code projectCount} projects, and failed because of {@code failure} unless it is
+   * empty. The order of the entries of the maps is kept.
+   */
+  public static UpdateRunReport create(String runId, long startTimestamp, long endTimestamp,
+      int shard, int shardCount, int projectCount, Map<String, Long> phaseMillis,
+      Map<String, Long> slowestProjectMillis, Map<String, Long> apiCalls,
+      int recommendationRowsWritten, int bindingRowsWritten,
+      Map<String, String> skippedProjects, String failure) {
+    return new AutoValue_UpdateRunReport(runId, startTimestamp, endTimestamp, shard,
+        shardCount, projectCount, copyOf(phaseMillis), copyOf(slowestProjectMillis),
+        copyOf(apiCalls), recommendationRowsWritten, bindingRowsWritten,
+        copyOf(skippedProjects), failure);
+  }
+
+  /** Returns whether the run completed, as opposed to failing. */
+  public boolean isCompleted() {
+    return getFailure().isEmpty();
+  }
+
+  /** Returns the report as the JSON stored in the Update Runs table. */
+  public String toJson() {
+    return GSON.toJson(this);
+  }
+
+  /**
+   * Returns the report stored as {@code json} by {@code toJson}. Every property is a
+   * string, a number or a map of strings to strings or numbers, so the generated class
+   * can be read back as it was written. Reports stored before runs had ids and could
+   * fail have neither, and are read as completed runs without an id.
+   */
+  public static UpdateRunReport fromJson(String json) {
+    UpdateRunReport report = GSON.fromJson(json, AutoValue_UpdateRunReport.class);
+    return create(Strings.nullToEmpty(report.getRunId()), report.getStartTimestamp(),
+        report.getEndTimestamp(), report.getShard(), report.getShardCount(),
+        report.getProjectCount(), report.getPhaseMillis(), report.getSlowestProjectMillis(),
+        report.getApiCalls(), report.getRecommendationRowsWritten(),
+        report.getBindingRowsWritten(), report.getSkippedProjects(),
+        Strings.nullToEmpty(report.getFailure()));
+  }
+
+  private static <V> Map<String, V> copyOf(Map<String, V> map) {
+    return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+  }
+}
@@ -0,0 +1,70 @@
+package com.google.impactdashboard.data.update;
+
+import com.google.auto.value.AutoValue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** A summary of a sharded database update, rolled up from the status of every shard. */
+@AutoValue
+public abstract class UpdateRunSummary {
+
+  /** The id of the update, which the reports of its shards are stored under. */
+  public abstract String getRunId();
+  public abstract long getStartTimestamp();
+  public abstract long getEndTimestamp();
+  public abstract int getProjectCount();
+  public abstract int getCompletedShards();
+  public abstract int getFailedShards();
+  public abstract List<ShardStatus> getShardStatuses();
+
+  /**
+   * Creates a {@code UpdateRunSummary} for the update {@code runId} that started at
+   * {@code startTimestamp} and finished dispatching its shards, or running the last
+   * of them, at {@code endTimestamp} (both in UTC milliseconds since the epoch), where
+   * the status of each shard is given in {@code shardStatuses}.
+   */
+  public static UpdateRunSummary create(String runId, long startTimestamp,
+      long endTimestamp, List<ShardStatus> shardStatuses) {
+    int projectCount = shardStatuses.stream().mapToInt(ShardStatus::getProjectCount).sum();
+    int completedShards = (int) shardStatuses.stream()
+        .filter(status -> status.getState() == ShardStatus.State.COMPLETED).count();
+    int failedShards = (int) shardStatuses.stream()
+        .filter(status -> status.getState() == ShardStatus.State.FAILED).count();
+    return new AutoValue_UpdateRunSummary(runId, startTimestamp, endTimestamp, projectCount,
+        completedShards, failedShards, shardStatuses);
+  }
+
+  /**
+   * Creates the {@code UpdateRunSummary} of the update {@code runId} from
+   * {@code reports}, the reports stored by its shards. Since the task queue retries a
+   * failed shard, the state of each shard is taken from its latest report. A shard
+   * without a report is still DISPATCHED, and its projects are not counted yet.
+   */
+  public static UpdateRunSummary fromReports(String runId, List<UpdateRunReport> reports) {
+    Map<Integer, UpdateRunReport> latestReports = new HashMap<>();
+    reports.forEach(report -> latestReports.merge(report.getShard(), report,
+        (first, second) ->
+            second.getStartTimestamp() >= first.getStartTimestamp() ? second : first));
+    int shardCount = reports.stream().mapToInt(UpdateRunReport::getShardCount).max().orElse(0);
+
+    List<ShardStatus> shardStatuses = new ArrayList<>();
+    for (int shard = 0; shard < shardCount; shard++) {
+      UpdateRunReport report = latestReports.get(shard);
+      if (report == null) {
+        shardStatuses.add(ShardStatus.create(shard, shardCount, 0,
+            ShardStatus.State.DISPATCHED, ""));
+      } else {
+        shardStatuses.add(ShardStatus.create(shard, shardCount, report.getProjectCount(),
+            report.isCompleted() ? ShardStatus.State.COMPLETED : ShardStatus.State.FAILED,
+            report.getFailure()));
+      }
+    }
+    long startTimestamp = reports.stream()
+        .mapToLong(UpdateRunReport::getStartTimestamp).min().orElse(0);
+    long endTimestamp = reports.stream()
+        .mapToLong(UpdateRunReport::getEndTimestamp).max().orElse(0);
+    return create(runId, startTimestamp, endTimestamp, shardStatuses);
+  }
+}
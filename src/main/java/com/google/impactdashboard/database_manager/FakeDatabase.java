@@ -1,344 +1,873 @@
 package com.google.impactdashboard.database_manager;
 
-import java.lang.Math;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import com.google.impactdashboard.configuration.BindingsSummarySchema;
 import com.google.impactdashboard.data.recommendation.*;
 import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.organization.OrganizationIdentification;
-
-import java.util.concurrent.atomic.AtomicReference;
-
-/** A class that maintains a fake database for testing purposes. */
+import com.google.impactdashboard.data.update.UpdateRunReport;
+
+/**
+ * A class that maintains a fake database in memory, for testing purposes and
+ * as a local backend for dev instances and load tests. Every table is indexed
+ * by project and by organization, with entries sorted by timestamp, and the
+ * daily bindings totals of every organization are kept up to date as data is
+ * added, so that no query has to scan the whole database. Reads may run
+ * concurrently with each other; writes are exclusive.
+ *
+ * <p>LocalDatabaseAccessor instead writes the tables one statement at a time, with
+ * the methods named after the statements of the catalog, which leave the other
+ * tables to the statements that maintain them.
+ */
 public class FakeDatabase {
   private static final long MILLISECONDS_365_DAYS = 31536000000L;
   private static final long MILLISECONDS_ONE_DAY = 86400000;
 
-  /** 
-   * Represents a database table that holds information about accepted 
-   * recommendations. 
-   */
-  private static Map<Long, Recommendation> recommendations = 
-    new HashMap<Long, Recommendation>() {
-        private static final long serialVersionUID = 1L;
-
-        {
-        put(1592486705000L, 
-          Recommendation.create("project-id-1", "org-1-id",
-            "test1@example.com", 
-            Arrays.asList(
-              RecommendationAction.create(
-                "affected1@example.com", "roles/owner", "roles/viewer", 
-                RecommendationAction.ActionType.REPLACE_ROLE)),
-            Recommendation.RecommenderType.IAM_BINDING, 1592486705000L, 
-            IAMRecommenderMetadata.create(300)));
-        put(1592486585000L, 
-          Recommendation.create("project-id-1", "org-1-id",
-            "test2@example.com", 
-            Arrays.asList(
-              RecommendationAction.create(
-                "affected2@example.com", "roles/owner", "", 
-                RecommendationAction.ActionType.REMOVE_ROLE)), 
-            Recommendation.RecommenderType.IAM_BINDING, 1592486585000L, 
-            IAMRecommenderMetadata.create(1000))); 
-        put(1591633823000L, 
-          Recommendation.create("project-id-1", "org-1-id",
-            "test3@example.com", 
-            Arrays.asList(
-              RecommendationAction.create(
-                "affected3@example.com", "roles/editor", "roles/storage.objectAdmin",
-                RecommendationAction.ActionType.REPLACE_ROLE), 
-              RecommendationAction.create(
-                "affected3@example.com", "roles/viewer", "",
-                RecommendationAction.ActionType.REMOVE_ROLE)), 
-            Recommendation.RecommenderType.IAM_BINDING, 1591633823000L, 
-            IAMRecommenderMetadata.create(1000))); 
-        put(1591704613000L, 
-          Recommendation.create("project-id-2", "org-1-id",
-            "test4@example.com", 
-            Arrays.asList(
-              RecommendationAction.create(
-                "affected4@example.com", "roles/owner", "roles/viewer",
-                RecommendationAction.ActionType.REPLACE_ROLE)),  
-            Recommendation.RecommenderType.IAM_BINDING, 1591704613000L, 
-            IAMRecommenderMetadata.create(500)));  
-        put(1593072312000L, 
-          Recommendation.create("project-id-2", "org-1-id",
-            "test5@example.com", 
-            Arrays.asList(
-              RecommendationAction.create(
-                "affected5@example.com", "roles/editor", "",
-                RecommendationAction.ActionType.REMOVE_ROLE)), 
-            Recommendation.RecommenderType.IAM_BINDING, 1593072312000L, 
-            IAMRecommenderMetadata.create(350)));    
-      }
-    };
-
-  /** 
-   * Mapping of project ids to the identification information of the organization 
-   * they belong to. 
-   */
-  private static Map<String, OrganizationIdentification> projectsToOrganizations = 
-    new HashMap<String, OrganizationIdentification>() {
-        private static final long serialVersionUID = 1L;
-      {
-        put("project-id-1", OrganizationIdentification.create("Org 1", "org-1-id"));
-        put("project-id-2", OrganizationIdentification.create("Org 1", "org-1-id"));
-      }
-  };
-
-  /** 
-   * Mapping of project ids to the identification information of the project.
-   */
-  private static Map<String, ProjectIdentification> projectsToIdentification = 
-    new HashMap<String, ProjectIdentification>() {
-        private static final long serialVersionUID = 1L;
-      {
-        put("project-id-1", 
-          ProjectIdentification.create("project-1", "project-id-1", 123456789123L));
-        put("project-id-2", 
-          ProjectIdentification.create("project-2", "project-id-2", 234567890123L));
-      }
-  };
-
-  /** Represents a database table that holds information about IAM Bindings. */
-  private static Map<ProjectIdentification, Map<Long, Integer>> iamBindings = 
-    new HashMap<ProjectIdentification, Map<Long, Integer>>() {
-        private static final long serialVersionUID = 1L;
-
-        {
-        HashMap<Long, Integer> bindingsProject1 = new HashMap<Long, Integer>();
-        AtomicReference<Long> date1 = new AtomicReference<Long>(1590883200000L);
-
-        Arrays.asList(1000, 1000, 1000, 2000, 2050, 2150, 2150, 2150, 2150, 
-        1150, 1150, 1150, 1150, 2000, 2000, 2500, 2500, 2300, 2300, 1000, 
-        1000, 1000, 1100, 1100, 1000, 1000, 1300, 1300, 1350, 1350)
-        .forEach(numberBindings -> {
-          bindingsProject1.put(date1.get(), numberBindings);
-          date1.set(date1.get() + MILLISECONDS_ONE_DAY);
-        });
+  /** Guards every table and index below. */
+  private static final ReadWriteLock lock = new ReentrantReadWriteLock();
 
-        put(ProjectIdentification.create("project-1", "project-id-1", 
-          123456789123L), bindingsProject1);
+  /** Mapping of project ids to the identification information of the project. */
+  private static final Map<String, ProjectIdentification> projectsToIdentification =
+    new LinkedHashMap<>();
 
-        HashMap<Long, Integer> bindingsProject2 = new HashMap<Long, Integer>();
-        AtomicReference<Long> date2 = new AtomicReference<Long>(1590883200000L);
+  /**
+   * Mapping of project ids to the identification information of the organization
+   * they belong to.
+   */
+  private static final Map<String, OrganizationIdentification> projectsToOrganizations =
+    new HashMap<>();
 
-        Arrays.asList(500, 500, 750, 750, 750, 750, 750, 1000, 1000, 
-        1000, 500, 500, 500, 600, 600, 600, 600, 300, 300, 1000, 
-        1000, 1000, 1100, 1100, 1000, 1000, 500, 500, 500, 500)
-        .forEach(numberBindings -> {
-          bindingsProject2.put(date2.get(), numberBindings);
-          date2.set(date2.get() + MILLISECONDS_ONE_DAY);
-        });
+  /** Mapping of organization ids to the identification information of the organization. */
+  private static final Map<String, OrganizationIdentification> organizations =
+    new LinkedHashMap<>();
 
-        put(ProjectIdentification.create("project-2", "project-id-2", 
-          234567890123L), bindingsProject2);
-      }
-  };
+  /**
+   * Represents a database table that holds information about IAM Bindings,
+   * indexed by project id.
+   */
+  private static final Map<String, BindingsSeries> projectBindings = new HashMap<>();
 
-  /** 
-   * Returns the identifying information of the projects that appear in the 
-   * IAM Bindings table representation. 
+  /** The daily bindings totals of every organization, indexed by organization id. */
+  private static final Map<String, BindingsSeries> organizationBindings = new HashMap<>();
+
+  /**
+   * Represents a database table that holds information about accepted
+   * recommendations, indexed by project id.
+   */
+  private static final Map<String, RecommendationsSeries> projectRecommendations =
+    new HashMap<>();
+
+  /** The accepted recommendations, indexed by organization id. */
+  private static final Map<String, RecommendationsSeries> organizationRecommendations =
+    new HashMap<>();
+
+  /**
+   * Represents the Bindings Summary table: the sum and number of days of the bindings
+   * of every project and organization, by scope type and then id.
+   */
+  private static final Map<String, Map<String, BindingsSummary>> bindingsSummaries =
+    new HashMap<>();
+
+  /** The reports of past updates, oldest first. */
+  private static final List<UpdateRunReport> updateRunReports = new ArrayList<>();
+
+  /** The newest timestamp in the bindings table, or -1 if it is empty. */
+  private static long maxTimestamp = -1;
+
+  static {
+    addRecommendations(Arrays.asList(
+      Recommendation.create("project-id-1", "org-1-id",
+        "test1@example.com",
+        Arrays.asList(
+          RecommendationAction.create(
+            "affected1@example.com", "roles/owner", "roles/viewer",
+            RecommendationAction.ActionType.REPLACE_ROLE)),
+        Recommendation.RecommenderType.IAM_BINDING, 1592486705000L,
+        IAMRecommenderMetadata.create(300)),
+      Recommendation.create("project-id-1", "org-1-id",
+        "test2@example.com",
+        Arrays.asList(
+          RecommendationAction.create(
+            "affected2@example.com", "roles/owner", "",
+            RecommendationAction.ActionType.REMOVE_ROLE)),
+        Recommendation.RecommenderType.IAM_BINDING, 1592486585000L,
+        IAMRecommenderMetadata.create(1000)),
+      Recommendation.create("project-id-1", "org-1-id",
+        "test3@example.com",
+        Arrays.asList(
+          RecommendationAction.create(
+            "affected3@example.com", "roles/editor", "roles/storage.objectAdmin",
+            RecommendationAction.ActionType.REPLACE_ROLE),
+          RecommendationAction.create(
+            "affected3@example.com", "roles/viewer", "",
+            RecommendationAction.ActionType.REMOVE_ROLE)),
+        Recommendation.RecommenderType.IAM_BINDING, 1591633823000L,
+        IAMRecommenderMetadata.create(1000)),
+      Recommendation.create("project-id-2", "org-1-id",
+        "test4@example.com",
+        Arrays.asList(
+          RecommendationAction.create(
+            "affected4@example.com", "roles/owner", "roles/viewer",
+            RecommendationAction.ActionType.REPLACE_ROLE)),
+        Recommendation.RecommenderType.IAM_BINDING, 1591704613000L,
+        IAMRecommenderMetadata.create(500)),
+      Recommendation.create("project-id-2", "org-1-id",
+        "test5@example.com",
+        Arrays.asList(
+          RecommendationAction.create(
+            "affected5@example.com", "roles/editor", "",
+            RecommendationAction.ActionType.REMOVE_ROLE)),
+        Recommendation.RecommenderType.IAM_BINDING, 1593072312000L,
+        IAMRecommenderMetadata.create(350))));
+
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Org 1", "org-1-id");
+    addIAMBindingsData(createDailyEntries("project-id-1", "project-1", "123456789123",
+      organization, 1590883200000L, Arrays.asList(1000, 1000, 1000, 2000, 2050, 2150, 2150,
+        2150, 2150, 1150, 1150, 1150, 1150, 2000, 2000, 2500, 2500, 2300, 2300, 1000,
+        1000, 1000, 1100, 1100, 1000, 1000, 1300, 1300, 1350, 1350)));
+    addIAMBindingsData(createDailyEntries("project-id-2", "project-2", "234567890123",
+      organization, 1590883200000L, Arrays.asList(500, 500, 750, 750, 750, 750, 750, 1000,
+        1000, 1000, 500, 500, 500, 600, 600, 600, 600, 300, 300, 1000,
+        1000, 1000, 1100, 1100, 1000, 1000, 500, 500, 500, 500)));
+  }
+
+  /**
+   * Returns the identifying information of the projects that appear in the
+   * IAM Bindings table representation.
    */
   public static List<ProjectIdentification> listProjects() {
-    List<ProjectIdentification> projects = new ArrayList<ProjectIdentification>();
-    iamBindings.forEach((project, data) -> projects.add(project));
-    return projects;
+    lock.readLock().lock();
+    try {
+      return new ArrayList<>(projectsToIdentification.values());
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
   /**
-   * Returns the identifying information of the organizations that appear in the 
-   * fake database. 
+   * Returns the identifying information of the organizations that appear in the
+   * fake database.
    */
   public static List<OrganizationIdentification> listOrganizations() {
-    Set<OrganizationIdentification> organizations = new HashSet<>();
-    projectsToOrganizations.entrySet().stream()
-      .forEach(entry -> organizations.add(entry.getValue()));
-    return organizations.stream().collect(Collectors.toList()); 
+    lock.readLock().lock();
+    try {
+      return new ArrayList<>(organizations.values());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the identifying information of the project with id {@code projectId},
+   * or null if the project does not appear in the bindings table.
+   */
+  public static ProjectIdentification getProjectIdentification(String projectId) {
+    lock.readLock().lock();
+    try {
+      return projectsToIdentification.get(projectId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the identifying information of the organization with id
+   * {@code organizationId}, or null if the organization does not appear in the
+   * bindings table.
+   */
+  public static OrganizationIdentification getOrganizationIdentification(
+    String organizationId) {
+    lock.readLock().lock();
+    try {
+      return organizations.get(organizationId);
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
-  /** 
-   * Retrieves the bindings data associated with {@code projectId} in the bindings 
-   * table. 
+  /**
+   * Retrieves the bindings data associated with {@code projectId} in the bindings
+   * table, sorted by timestamp.
    * @param projectId The id of the project that the data is for.
    */
   public static Map<Long, Integer> getDatesToBindingsForProject(String projectId) {
-    AtomicReference<Map<Long, Integer>> dailyBindings = 
-      new AtomicReference<Map<Long, Integer>>();
-    dailyBindings.set(new HashMap<>());
-    iamBindings.forEach((project, data) -> {
-      if (project.getProjectId().equals(projectId)) {
-        dailyBindings.set(data);
-      }
-    });
-    return dailyBindings.get();
+    lock.readLock().lock();
+    try {
+      return copyDailyBindings(projectBindings.get(projectId));
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
   /**
-   * Retrieves the bindings data associated with {@organizationId} in the
-   * fake database.
+   * Retrieves the bindings data associated with {@code organizationId} in the
+   * fake database, sorted by timestamp.
    * @param organizationId the id of the organization that the data is for.
    */
   public static Map<Long, Integer> getDatesToBindingsForOrganization(String organizationId) {
-    Map<Long, Integer> totalBindings = new HashMap<Long, Integer>();
-    projectsToOrganizations.entrySet().stream().forEach(entry -> {
-      if (entry.getValue().getId().equals(organizationId)) {
-        iamBindings.get(projectsToIdentification.get(entry.getKey())).entrySet().stream()
-          .forEach(bindingEntry -> {
-            Long timestamp = bindingEntry.getKey();
-            if (totalBindings.containsKey(timestamp)) {
-              totalBindings.put(timestamp, totalBindings.get(timestamp) + bindingEntry.getValue());
-            } else {
-              totalBindings.put(timestamp, bindingEntry.getValue());
-            }
-          });
-      }
-    });
-    return totalBindings;
+    lock.readLock().lock();
+    try {
+      return copyDailyBindings(organizationBindings.get(organizationId));
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
-  /** 
-   * Returns the average bindings recorded in the bindings table for a given 
-   * project, or 0 if this project does not appear in the bindings table. 
+  /**
+   * Returns the average bindings recorded in the bindings table for a given
+   * project, or 0 if this project does not appear in the bindings table.
    * @param projectId The id of the project the data is for.
    */
   public static double getAvgBindingsForProject(String projectId) {
-    Map<Long, Integer> dailyBindings = getDatesToBindingsForProject(projectId);
-
-    if (dailyBindings.size() == 0) {
-      return 0;
+    lock.readLock().lock();
+    try {
+      return getAverage(projectBindings.get(projectId));
+    } finally {
+      lock.readLock().unlock();
     }
-
-    AtomicReference<Double> averageBindings = new AtomicReference<Double>();
-    averageBindings.set(0.0);
-    dailyBindings.forEach((date, bindings) -> {
-      averageBindings.set(averageBindings.get() + bindings);
-    });
-    return averageBindings.get() / dailyBindings.size();
   }
 
-  /** 
-   * Returns the average bindings recorded in the bindings table for a given 
-   * organization, summed over all the projects belonging to that organization, 
-   * or 0 if this project does not appear in the bindings table. 
+  /**
+   * Returns the average bindings recorded in the bindings table for a given
+   * organization, summed over all the projects belonging to that organization,
+   * or 0 if this project does not appear in the bindings table.
    * @param organizationId The id of the organization the data is for.
    */
   public static double getAvgBindingsForOrganization(String organizationId) {
-    Map<Long, Integer> totalBindings = getDatesToBindingsForOrganization(organizationId);
+    lock.readLock().lock();
+    try {
+      return getAverage(organizationBindings.get(organizationId));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
 
-    if (totalBindings.size() == 0) {
-      return 0;
+  /**
+   * Returns a map of the ids of the projects with data in the bindings table to the
+   * average bindings recorded for them.
+   */
+  public static Map<String, Double> getAvgBindingsForAllProjects() {
+    lock.readLock().lock();
+    try {
+      return getAverages(projectBindings);
+    } finally {
+      lock.readLock().unlock();
     }
+  }
 
-    AtomicReference<Double> averageBindings = new AtomicReference<Double>();
-    averageBindings.set(0.0);
-    totalBindings.forEach((date, bindings) -> {
-      averageBindings.set(averageBindings.get() + bindings);
-    });
-    return averageBindings.get() / totalBindings.size();
+  /**
+   * Returns a map of the ids of the organizations with data in the bindings table to
+   * the average bindings recorded for them, summed over all their projects.
+   */
+  public static Map<String, Double> getAvgBindingsForAllOrganizations() {
+    lock.readLock().lock();
+    try {
+      return getAverages(organizationBindings);
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
   /** Returns the newest timestamp in the IAM table, or -1 if there is no data. */
   public static long getMaxTimestamp() {
-    return iamBindings.entrySet().stream()
-      .reduce(-1L, 
-        (accumulator, entry) -> 
-          Math.max(accumulator, 
-            entry.getValue().entrySet().stream()
-              .reduce(-1L, (maxTime, mapping) -> Math.max(maxTime, mapping.getKey()), Math::max)), 
-        Math::max);
-  }
-
-  /** 
-   * Returns a map of entries in the recommendations table associated with 
-   * {@code projectId}. 
+    lock.readLock().lock();
+    try {
+      return maxTimestamp;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a map of project ids to the newest entry in the bindings table for
+   * that project. Projects with no bindings data are left out.
+   */
+  public static Map<String, IAMBindingDatabaseEntry> getLatestBindingsEntries() {
+    lock.readLock().lock();
+    try {
+      Map<String, IAMBindingDatabaseEntry> latestEntries = new HashMap<>();
+      projectBindings.forEach((projectId, bindings) -> {
+        Map.Entry<Long, Integer> latest = bindings.dailyBindings.lastEntry();
+        if (latest == null) {
+          return;
+        }
+        ProjectIdentification project = projectsToIdentification.get(projectId);
+        latestEntries.put(projectId, IAMBindingDatabaseEntry.create(
+          projectId, project.getName(), String.valueOf(project.getProjectNumber()),
+          projectsToOrganizations.getOrDefault(projectId,
+            OrganizationIdentification.create("", "")),
+          latest.getKey(), latest.getValue()));
+      });
+      return latestEntries;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a map of entries in the recommendations table associated with
+   * {@code projectId}, sorted by timestamp.
    * @param projectId The id of the project the data is for.
    */
   public static Map<Long, Recommendation> getDatesToRecommendationsForProject(
     String projectId) {
-    return recommendations.entrySet().stream()
-      .filter(mapElement -> 
-        mapElement.getValue().getProjectId().equals(projectId))
-      .collect(Collectors.toMap(
-        mapElement -> mapElement.getKey(), mapElement -> mapElement.getValue()));
+    lock.readLock().lock();
+    try {
+      return copyDatesToRecommendations(projectRecommendations.get(projectId));
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
-  /** 
-   * Returns a map of entries in the recommendations table associated with 
-   * {@code organizationId}. 
+  /**
+   * Returns a map of entries in the recommendations table associated with
+   * {@code organizationId}, sorted by timestamp.
    */
   public static Map<Long, Recommendation> getDatesToRecommendationsForOrganization(
     String organizationId) {
-    return recommendations.entrySet().stream()
-      .filter(mapElement -> 
-        mapElement.getValue().getOrganizationId().equals(organizationId))
-      .collect(Collectors.toMap(
-        mapElement -> mapElement.getKey(), mapElement -> mapElement.getValue()));
+    lock.readLock().lock();
+    try {
+      return copyDatesToRecommendations(organizationRecommendations.get(organizationId));
+    } finally {
+      lock.readLock().unlock();
+    }
   }
 
-  /** 
-   * Adds {@code newRecommendations} to existing table of recommendations.
-   * @param newRecommendations A list of Recommendations to be added to 
-      the fake database. 
+  /**
+   * Adds {@code newRecommendations} to existing table of recommendations, replacing
+   * any recommendation with the same project id, accepted timestamp and actor, as
+   * the recommendations table does. Recommendations accepted at the same time by
+   * different actors are all kept.
+   * @param newRecommendations A list of Recommendations to be added to
+      the fake database.
    */
   public static void addRecommendations(List<Recommendation> newRecommendations) {
-    newRecommendations.forEach(recommendation -> {
-      recommendations.put(recommendation.getAcceptedTimestamp(), recommendation);
-    });
+    lock.writeLock().lock();
+    try {
+      newRecommendations.forEach(recommendation -> {
+        projectRecommendations.computeIfAbsent(recommendation.getProjectId(),
+          projectId -> new RecommendationsSeries()).put(recommendation);
+        organizationRecommendations.computeIfAbsent(recommendation.getOrganizationId(),
+          organizationId -> new RecommendationsSeries()).put(recommendation);
+      });
+    } finally {
+      lock.writeLock().unlock();
+    }
   }
 
-  /** 
-   * Adds data in {@code newIAMBindingsData} to existing bindings table. 
-   * @param newIAMBindingsData A list of database entries to be added to the 
+  /**
+   * Adds data in {@code newIAMBindingsData} to existing bindings table, replacing
+   * any entry of the same project at the same timestamp.
+   * @param newIAMBindingsData A list of database entries to be added to the
       fake database.
   */
   public static void addIAMBindingsData(
     List<IAMBindingDatabaseEntry> newIAMBindingsData) {
-    newIAMBindingsData.forEach(dayOfData -> {
-      ProjectIdentification project = ProjectIdentification.create(
-        dayOfData.getProjectId(), dayOfData.getProjectName(), 
-        Long.parseLong(dayOfData.getProjectNumber()));
+    lock.writeLock().lock();
+    try {
+      newIAMBindingsData.forEach(dayOfData -> {
+        int change = putBindingsRow(dayOfData);
+        String organizationId = projectsToOrganizations.get(dayOfData.getProjectId()).getId();
+        organizationBindings.computeIfAbsent(organizationId, id -> new BindingsSeries())
+          .add(dayOfData.getTimestamp(), change);
+        updateSummary(BindingsSummarySchema.PROJECT_SCOPE, dayOfData.getProjectId(),
+          projectBindings.get(dayOfData.getProjectId()));
+        updateSummary(BindingsSummarySchema.ORGANIZATION_SCOPE, organizationId,
+          organizationBindings.get(organizationId));
+      });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
 
-      if (!projectsToIdentification.containsKey(dayOfData.getProjectId())) {
-        projectsToIdentification.put(dayOfData.getProjectId(), project);
-      }
+  /**
+   * Adds {@code rows} to the bindings table, replacing any entry of the same project at
+   * the same timestamp, as the merge of staged rows into the IAM Bindings table does.
+   * Unlike {@code addIAMBindingsData}, the daily bindings totals of the organizations
+   * and the summaries are left as they were.
+   */
+  public static void mergeBindingsRows(List<IAMBindingDatabaseEntry> rows) {
+    lock.writeLock().lock();
+    try {
+      rows.forEach(FakeDatabase::putBindingsRow);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Recomputes the daily bindings totals of every organization on {@code days}, in
+   * milliseconds since the epoch, from the bindings table, as the merge of days into
+   * the Org Daily Bindings table does. Organizations that no longer have any project on
+   * one of those days lose their total for it.
+   */
+  public static void mergeOrganizationDays(Collection<Long> days) {
+    lock.writeLock().lock();
+    try {
+      Map<String, Map<Long, Integer>> recomputed = sumBindingsByOrganization(days);
+      recomputed.keySet().forEach(organizationId ->
+        organizationBindings.computeIfAbsent(organizationId, id -> new BindingsSeries()));
+      organizationBindings.forEach((organizationId, bindings) -> {
+        Map<Long, Integer> totals =
+          recomputed.getOrDefault(organizationId, new HashMap<>());
+        days.forEach(day -> {
+          if (totals.containsKey(day)) {
+            bindings.put(day, totals.get(day));
+          } else {
+            bindings.remove(day);
+          }
+        });
+      });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the change that merging {@code rows} into the bindings table makes to the
+   * summaries of their projects, as the merge of staged rows into the project rows of
+   * the Bindings Summary table does. It must be called right before
+   * {@code mergeBindingsRows} with the same rows.
+   */
+  public static void mergeRowsIntoProjectSummaries(List<IAMBindingDatabaseEntry> rows) {
+    lock.writeLock().lock();
+    try {
+      Map<String, long[]> changes = new HashMap<>();
+      rows.forEach(row -> {
+        BindingsSeries bindings = projectBindings.get(row.getProjectId());
+        Integer existing = bindings == null ? null : bindings.dailyBindings.get(row.getTimestamp());
+        long[] change = changes.computeIfAbsent(row.getProjectId(), id -> new long[2]);
+        change[0] += row.getBindingsNumber() - (existing == null ? 0 : existing);
+        change[1] += existing == null ? 1 : 0;
+      });
+      changes.forEach((projectId, change) -> applySummaryChange(
+        BindingsSummarySchema.PROJECT_SCOPE, projectId, change[0], change[1]));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the change that {@code mergeOrganizationDays} makes for {@code days} to the
+   * summaries of the organizations, as the merge of days into the organization rows of
+   * the Bindings Summary table does. It must be called right before
+   * {@code mergeOrganizationDays} with the same days.
+   */
+  public static void mergeDaysIntoOrganizationSummaries(Collection<Long> days) {
+    lock.writeLock().lock();
+    try {
+      Set<Long> distinctDays = new HashSet<>(days);
+      Map<String, Map<Long, Integer>> recomputed = sumBindingsByOrganization(days);
+      Set<String> organizationIds = new HashSet<>(recomputed.keySet());
+      organizationIds.addAll(organizationBindings.keySet());
+      organizationIds.forEach(organizationId -> {
+        Map<Long, Integer> totals = recomputed.getOrDefault(organizationId, new HashMap<>());
+        BindingsSeries stored = organizationBindings.get(organizationId);
+        long bindingsChange = 0;
+        long dayCountChange = 0;
+        for (long day : distinctDays) {
+          Integer storedTotal = stored == null ? null : stored.dailyBindings.get(day);
+          Integer recomputedTotal = totals.get(day);
+          bindingsChange += (recomputedTotal == null ? 0 : recomputedTotal)
+            - (storedTotal == null ? 0 : storedTotal);
+          if (storedTotal == null && recomputedTotal != null) {
+            dayCountChange++;
+          } else if (storedTotal != null && recomputedTotal == null) {
+            dayCountChange--;
+          }
+        }
+        if (bindingsChange != 0 || dayCountChange != 0) {
+          applySummaryChange(BindingsSummarySchema.ORGANIZATION_SCOPE, organizationId,
+            bindingsChange, dayCountChange);
+        }
+      });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
 
-      if (!projectsToOrganizations.containsKey(dayOfData.getProjectId())) {
-        projectsToOrganizations.put(dayOfData.getProjectId(), dayOfData.getIdentification());
+  /**
+   * Subtracts the data older than {@code timestamp} in the bindings table and the daily
+   * totals of the organizations from the summaries, as the statement subtracting old
+   * data from the Bindings Summary table does. It must be called right before
+   * {@code deleteRowsBefore} with the same timestamp.
+   */
+  public static void subtractRowsBeforeFromSummaries(long timestamp) {
+    lock.writeLock().lock();
+    try {
+      projectBindings.forEach((projectId, bindings) -> subtractRowsBefore(
+        BindingsSummarySchema.PROJECT_SCOPE, projectId, bindings, timestamp));
+      organizationBindings.forEach((organizationId, bindings) -> subtractRowsBefore(
+        BindingsSummarySchema.ORGANIZATION_SCOPE, organizationId, bindings, timestamp));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Deletes data in both the bindings and recommendations tables that is over
+   * 365 days older than the newest entries, if such data exists.
+   */
+  public static void deleteYearOldData() {
+    lock.writeLock().lock();
+    try {
+      long cutoff = maxTimestamp - MILLISECONDS_365_DAYS + 1;
+      deleteBindingsBefore(cutoff);
+      deleteRecommendationsBefore(cutoff);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Deletes the data in the bindings table that is older than {@code timestamp}. */
+  public static void deleteBindingsBefore(long timestamp) {
+    lock.writeLock().lock();
+    try {
+      deleteRowsBefore(timestamp);
+      projectBindings.forEach((projectId, bindings) ->
+        updateSummary(BindingsSummarySchema.PROJECT_SCOPE, projectId, bindings));
+      organizationBindings.forEach((organizationId, bindings) ->
+        updateSummary(BindingsSummarySchema.ORGANIZATION_SCOPE, organizationId, bindings));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Deletes the data in the bindings table and the daily totals of the organizations
+   * that are older than {@code timestamp}, as the statements deleting old data from the
+   * IAM Bindings and Org Daily Bindings tables do. Unlike {@code deleteBindingsBefore},
+   * the summaries are left as they were.
+   */
+  public static void deleteRowsBefore(long timestamp) {
+    lock.writeLock().lock();
+    try {
+      projectBindings.values().forEach(bindings -> bindings.removeBefore(timestamp));
+      organizationBindings.values().forEach(bindings -> bindings.removeBefore(timestamp));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the average bindings of the project or organization {@code id}, depending on
+   * {@code scopeType}, from its row of the Bindings Summary table, or 0 if it has none.
+   */
+  public static double getSummaryAverage(String scopeType, String id) {
+    lock.readLock().lock();
+    try {
+      BindingsSummary summary = bindingsSummaries
+        .getOrDefault(scopeType, new HashMap<>()).get(id);
+      return summary == null ? 0 : (double) summary.bindingsSum / summary.dayCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a map of the ids of the projects or organizations, depending on
+   * {@code scopeType}, with a row in the Bindings Summary table to their average bindings.
+   */
+  public static Map<String, Double> getSummaryAverages(String scopeType) {
+    lock.readLock().lock();
+    try {
+      Map<String, Double> averages = new HashMap<>();
+      bindingsSummaries.getOrDefault(scopeType, new HashMap<>()).forEach((id, summary) ->
+        averages.put(id, (double) summary.bindingsSum / summary.dayCount));
+      return averages;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Deletes the recommendations in the recommendations table that were accepted
+   * before {@code timestamp}.
+   */
+  public static void deleteRecommendationsBefore(long timestamp) {
+    lock.writeLock().lock();
+    try {
+      projectRecommendations.values().forEach(series -> series.removeBefore(timestamp));
+      organizationRecommendations.values().forEach(series -> series.removeBefore(timestamp));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Adds {@code report} to the update runs table. */
+  public static void addUpdateRunReport(UpdateRunReport report) {
+    lock.writeLock().lock();
+    try {
+      updateRunReports.add(report);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the {@code limit} update reports that started last, newest first, with
+   * the shards of an update in order.
+   */
+  public static List<UpdateRunReport> listUpdateRunReports(int limit) {
+    lock.readLock().lock();
+    try {
+      return updateRunReports.stream()
+        .sorted(Comparator.comparingLong(UpdateRunReport::getStartTimestamp).reversed()
+          .thenComparingInt(UpdateRunReport::getShard))
+        .limit(limit)
+        .collect(Collectors.toList());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the update reports stored by the shards of the update {@code runId}, by 
+   * shard and then oldest first.
+   */
+  public static List<UpdateRunReport> listUpdateRunReports(String runId) {
+    lock.readLock().lock();
+    try {
+      return updateRunReports.stream()
+        .filter(report -> report.getRunId().equals(runId))
+        .sorted(Comparator.comparingInt(UpdateRunReport::getShard)
+          .thenComparingLong(UpdateRunReport::getStartTimestamp))
+        .collect(Collectors.toList());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Stores {@code dayOfData} in the bindings table, replacing any entry of the same
+   * project at the same timestamp, and returns the change from the bindings it replaced.
+   */
+  private static int putBindingsRow(IAMBindingDatabaseEntry dayOfData) {
+    String projectId = dayOfData.getProjectId();
+    projectsToIdentification.computeIfAbsent(projectId,
+      id -> ProjectIdentification.create(dayOfData.getProjectName(), id,
+        Long.parseLong(dayOfData.getProjectNumber())));
+    OrganizationIdentification organization = projectsToOrganizations
+      .computeIfAbsent(projectId, id -> dayOfData.getIdentification());
+    organizations.putIfAbsent(organization.getId(), organization);
+
+    long timestamp = dayOfData.getTimestamp();
+    maxTimestamp = Math.max(maxTimestamp, timestamp);
+    return projectBindings.computeIfAbsent(projectId, id -> new BindingsSeries())
+      .put(timestamp, dayOfData.getBindingsNumber());
+  }
+
+  /**
+   * Returns the bindings of every organization on {@code days}, summed over its
+   * projects, by organization id and then day. Days with no data are left out.
+   */
+  private static Map<String, Map<Long, Integer>> sumBindingsByOrganization(
+    Collection<Long> days) {
+    Set<Long> distinctDays = new HashSet<>(days);
+    Map<String, Map<Long, Integer>> totals = new HashMap<>();
+    projectBindings.forEach((projectId, bindings) -> {
+      String organizationId = projectsToOrganizations.get(projectId).getId();
+      distinctDays.forEach(day -> {
+        Integer dayBindings = bindings.dailyBindings.get(day);
+        if (dayBindings != null) {
+          totals.computeIfAbsent(organizationId, id -> new HashMap<>())
+            .merge(day, dayBindings, Integer::sum);
+        }
+      });
+    });
+    return totals;
+  }
+
+  /**
+   * Sets the summary of the project or organization {@code id}, depending on
+   * {@code scopeType}, to the sum and number of days of {@code bindings}, or removes it
+   * if there are none.
+   */
+  private static void updateSummary(String scopeType, String id, BindingsSeries bindings) {
+    Map<String, BindingsSummary> summaries =
+      bindingsSummaries.computeIfAbsent(scopeType, type -> new HashMap<>());
+    if (bindings.dailyBindings.isEmpty()) {
+      summaries.remove(id);
+    } else {
+      summaries.put(id, new BindingsSummary(bindings.total, bindings.dailyBindings.size()));
+    }
+  }
+
+  /**
+   * Adds {@code bindingsChange} and {@code dayCountChange} to the summary of the project
+   * or organization {@code id}, depending on {@code scopeType}, removing it if it is left
+   * with no days and creating it only if days are added, as the Bindings Summary merges
+   * do.
+   */
+  private static void applySummaryChange(String scopeType, String id, long bindingsChange,
+    long dayCountChange) {
+    Map<String, BindingsSummary> summaries =
+      bindingsSummaries.computeIfAbsent(scopeType, type -> new HashMap<>());
+    BindingsSummary summary = summaries.get(id);
+    if (summary == null) {
+      if (dayCountChange > 0) {
+        summaries.put(id, new BindingsSummary(bindingsChange, dayCountChange));
       }
+    } else if (summary.dayCount + dayCountChange <= 0) {
+      summaries.remove(id);
+    } else {
+      summary.bindingsSum += bindingsChange;
+      summary.dayCount += dayCountChange;
+    }
+  }
+
+  /**
+   * Subtracts the data of {@code bindings} older than {@code timestamp} from the summary
+   * of the project or organization {@code id}, depending on {@code scopeType}.
+   */
+  private static void subtractRowsBefore(String scopeType, String id,
+    BindingsSeries bindings, long timestamp) {
+    NavigableMap<Long, Integer> old = bindings.dailyBindings.headMap(timestamp, false);
+    if (!old.isEmpty()) {
+      applySummaryChange(scopeType, id,
+        -old.values().stream().mapToLong(Integer::longValue).sum(), -old.size());
+    }
+  }
+
+  /**
+   * Creates one bindings table entry a day, starting at {@code timestamp}, for
+   * every value in {@code dailyBindings}.
+   */
+  private static List<IAMBindingDatabaseEntry> createDailyEntries(String projectId,
+    String projectName, String projectNumber, OrganizationIdentification organization,
+    long timestamp, List<Integer> dailyBindings) {
+    List<IAMBindingDatabaseEntry> entries = new ArrayList<>();
+    for (int day = 0; day < dailyBindings.size(); day++) {
+      entries.add(IAMBindingDatabaseEntry.create(projectId, projectName, projectNumber,
+        organization, timestamp + day * MILLISECONDS_ONE_DAY, dailyBindings.get(day)));
+    }
+    return entries;
+  }
+
+  /** Returns a sorted copy of the daily bindings in {@code bindings}, which may be null. */
+  private static Map<Long, Integer> copyDailyBindings(BindingsSeries bindings) {
+    return bindings == null ? new TreeMap<>() : new TreeMap<>(bindings.dailyBindings);
+  }
 
-      if (iamBindings.containsKey(project)) {
-        iamBindings.get(project).put(
-          dayOfData.getTimestamp(), dayOfData.getBindingsNumber());
-      } else {
-        HashMap<Long, Integer> dayOfDataBindingsMap = new HashMap<Long, Integer>();
-        dayOfDataBindingsMap.put(dayOfData.getTimestamp(), dayOfData.getBindingsNumber());
-        iamBindings.put(project, dayOfDataBindingsMap);
+  /** Returns the average of the daily bindings in {@code bindings}, or 0 if there are none. */
+  private static double getAverage(BindingsSeries bindings) {
+    if (bindings == null || bindings.dailyBindings.isEmpty()) {
+      return 0;
+    }
+    return (double) bindings.total / bindings.dailyBindings.size();
+  }
+
+  /** Returns the averages of the series in {@code seriesById} that hold any data. */
+  private static Map<String, Double> getAverages(Map<String, BindingsSeries> seriesById) {
+    Map<String, Double> averages = new HashMap<>();
+    seriesById.forEach((id, bindings) -> {
+      if (!bindings.dailyBindings.isEmpty()) {
+        averages.put(id, getAverage(bindings));
       }
     });
+    return averages;
   }
 
-  /** 
-   * Deletes data in both the bindings and recommendations tables that is over 
-   * 365 days older than the newest entries, if such data exists.
+  /**
+   * Returns the recommendations in {@code recommendations}, which may be null, keyed
+   * by accepted timestamp. Of the recommendations accepted at the same timestamp,
+   * the one added last is returned, as a map can only hold one of them.
    */
-  public static void deleteYearOldData() {
-    long newestTimestamp = getMaxTimestamp();
-    for (ProjectIdentification project : iamBindings.keySet()) {
-      iamBindings.put(project, iamBindings.get(project).entrySet().stream()
-        .filter(mapElement -> 
-          mapElement.getKey() > (newestTimestamp - MILLISECONDS_365_DAYS))
-        .collect(Collectors.toMap(
-          mapElement -> mapElement.getKey(), 
-          mapElement -> mapElement.getValue())));
+  private static Map<Long, Recommendation> copyDatesToRecommendations(
+    RecommendationsSeries recommendations) {
+    Map<Long, Recommendation> datesToRecommendations = new TreeMap<>();
+    if (recommendations != null) {
+      recommendations.recommendations.forEach((timestamp, sameTimestamp) ->
+        datesToRecommendations.put(timestamp, sameTimestamp.get(sameTimestamp.size() - 1)));
+    }
+    return datesToRecommendations;
+  }
+
+  /** The bindings of a project or organization by timestamp, along with their total. */
+  private static class BindingsSeries {
+    private final NavigableMap<Long, Integer> dailyBindings = new TreeMap<>();
+    private long total = 0;
+
+    /**
+     * Sets the bindings at {@code timestamp} to {@code bindings} and returns the
+     * change from the previous value.
+     */
+    private int put(long timestamp, int bindings) {
+      Integer previous = dailyBindings.put(timestamp, bindings);
+      int change = previous == null ? bindings : bindings - previous;
+      total += change;
+      return change;
+    }
+
+    /** Removes the bindings at {@code timestamp}, if there are any. */
+    private void remove(long timestamp) {
+      Integer previous = dailyBindings.remove(timestamp);
+      if (previous != null) {
+        total -= previous;
+      }
+    }
+
+    /** Adds {@code change} to the bindings at {@code timestamp}. */
+    private void add(long timestamp, int change) {
+      dailyBindings.merge(timestamp, change, Integer::sum);
+      total += change;
+    }
+
+    /** Removes every entry older than {@code timestamp}. */
+    private void removeBefore(long timestamp) {
+      NavigableMap<Long, Integer> removed = dailyBindings.headMap(timestamp, false);
+      removed.values().forEach(bindings -> total -= bindings);
+      removed.clear();
+    }
+  }
+
+  /** A row of the Bindings Summary table: the sum and number of days of bindings. */
+  private static class BindingsSummary {
+    private long bindingsSum;
+    private long dayCount;
+
+    private BindingsSummary(long bindingsSum, long dayCount) {
+      this.bindingsSum = bindingsSum;
+      this.dayCount = dayCount;
+    }
+  }
+
+  /** The recommendations of a project or organization by accepted timestamp. */
+  private static class RecommendationsSeries {
+    private final NavigableMap<Long, List<Recommendation>> recommendations = new TreeMap<>();
+
+    /**
+     * Adds {@code recommendation}, replacing one with the same project id, accepted
+     * timestamp and actor.
+     */
+    private void put(Recommendation recommendation) {
+      List<Recommendation> sameTimestamp = recommendations.computeIfAbsent(
+        recommendation.getAcceptedTimestamp(), timestamp -> new ArrayList<>(1));
+      sameTimestamp.removeIf(existing ->
+        existing.getProjectId().equals(recommendation.getProjectId())
+          && existing.getActor().equals(recommendation.getActor()));
+      sameTimestamp.add(recommendation);
+    }
+
+    /** Removes every recommendation accepted before {@code timestamp}. */
+    private void removeBefore(long timestamp) {
+      recommendations.headMap(timestamp, false).clear();
     }
   }
 }
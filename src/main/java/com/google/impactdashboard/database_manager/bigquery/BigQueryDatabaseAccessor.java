@@ -0,0 +1,279 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.BigQueryException;
+import com.google.cloud.bigquery.BigQueryOptions;
+import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobId;
+import com.google.cloud.bigquery.JobInfo;
+import com.google.cloud.bigquery.JobStatus;
+import com.google.cloud.bigquery.JobStatistics.QueryStatistics;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+import com.google.cloud.bigquery.TableResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.lang.RuntimeException;
+import java.lang.InterruptedException;
+import com.google.impactdashboard.Credentials;
+import com.google.impactdashboard.configuration.Constants;
+import com.google.impactdashboard.metrics.Metrics;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+
+/** 
+ * A class that queries the database in BigQuery. Identical reads share their job and 
+ * result, as described in {@code QueryResultCache}, and name their job after the query, 
+ * its parameters, the time and when the tables it reads were last modified, so that 
+ * identical reads made by other instances at about the same time find the job already 
+ * created and wait for it instead of starting one, but not once any instance updated 
+ * those tables. 
+ */
+public class BigQueryDatabaseAccessor implements DatabaseAccessor {
+
+  /** The HTTP status of the error returned when creating a job whose id already exists. */
+  private static final int ALREADY_EXISTS = 409;
+
+  /** Matches the fully qualified name of a table, capturing its dataset and table names. */
+  private static final Pattern TABLE_NAME = Pattern.compile(
+      "`?" + Pattern.quote(Constants.PROJECT_ID) + "\\.(\\w+)\\.(\\w+)`?");
+
+  /** How long the time a table was last modified at is used before it is read again. */
+  private static final long TABLE_VERSION_TTL_SECONDS = 30;
+
+  /** 
+   * The number of times an update is attempted when its transaction is aborted by a 
+   * concurrent update of the same tables, such as another shard of the same update.
+   */
+  private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+  /** The limits of the random backoff before an aborted update is attempted again. */
+  private static final long BASE_UPDATE_BACKOFF_MILLIS = 1000;
+  private static final long MAX_UPDATE_BACKOFF_MILLIS = 16000;
+
+  /** Part of the message BigQuery fails a transaction with when it conflicts with another. */
+  private static final String CONCURRENT_UPDATE = "concurrent update";
+
+  private BigQuery bigquery;
+  private final Random random = new Random();
+  private final Tracer tracer = Tracer.getInstance();
+  private final QueryResultCache resultCache = new QueryResultCache();
+  private final Cache<TableId, Long> tableVersions = CacheBuilder.newBuilder()
+      .expireAfterWrite(TABLE_VERSION_TTL_SECONDS, TimeUnit.SECONDS).build();
+  private static final BigQueryDatabaseAccessor INSTANCE = new BigQueryDatabaseAccessor();
+
+  public static BigQueryDatabaseAccessor getInstance() {
+    return INSTANCE;
+  }
+
+  /** 
+   * Creates a {@code DatabaseAccesor} instance that contains an instance of 
+   * {@code BigQuery}.
+   * @throws RuntimeException if the credentials to access the database cannot 
+      be established.
+   */
+  private BigQueryDatabaseAccessor() {
+      bigquery = BigQueryOptions.newBuilder()
+      .setCredentials(Credentials.getCredentials()).build().getService();
+  }
+
+  /** 
+   * Queries the database with {@code query} and returns the table resulting from 
+   * the query. Only the first page of the table is read before returning; the pages 
+   * after it are fetched in spans of their own while the table is iterated over. The 
+   * result may be shared with identical reads.
+   * @param query The SQl query to be applied to the database.
+   * @return The table that is the result of querying {@code table} 
+      with {@code query}.
+   * @throws RuntimeException If there is a problem accessing the database. 
+   */ 
+  @Override
+  public TableResult readDatabase(QueryJobConfiguration query) {
+    try (Span span = tracer.startSpan("BigQuery.read")) {
+      return resultCache.read(query, key -> readResult(query, key, span), reuse -> {
+        String reuseLabel = reuse.name().toLowerCase();
+        span.setAttribute("reuse", reuseLabel);
+        Metrics.DATABASE_READS.increment("bigquery", reuseLabel);
+      });
+    }
+  }
+
+  /** 
+   * Runs {@code query} in a job named after {@code key}, the key of the query in the 
+   * result cache, and returns its result.
+   */
+  private TableResult readResult(QueryJobConfiguration query, String key, Span span) {
+    Job queryJob = runQuery(query, "read", span, getReadJobId(query, key, span));
+
+    try (Span resultsSpan = tracer.startSpan("BigQuery.getQueryResults")) {
+      TableResult result = queryJob.getQueryResults();
+      resultsSpan.setAttribute("total_rows", result.getTotalRows());
+      return new TableResult(result.getSchema(), result.getTotalRows(),
+          new TracedPage<>(result, queryJob.getJobId().getJob()));
+    } catch (InterruptedException interruptedException) {
+      span.recordError(interruptedException);
+      throw new RuntimeException("Query Interrupted! " + interruptedException.getMessage());
+    }
+  }
+
+  /** 
+   * Returns the id of the job of {@code query}, whose key is {@code key}, which is the same 
+   * for identical reads made within the same period of {@code QueryResultCache.TTL_MILLIS}
+   * while the tables they read are unchanged. If the tables can't be looked up, the job 
+   * gets a random id and isn't shared.
+   */
+  private JobId getReadJobId(QueryJobConfiguration query, String key, Span span) {
+    long period = System.currentTimeMillis() / QueryResultCache.TTL_MILLIS;
+    long version;
+    try {
+      version = getDatabaseVersion(query);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      span.setAttribute("table_lookup_error", e.getCause().getMessage());
+      return JobId.of(UUID.randomUUID().toString());
+    }
+    return JobId.of("dashboard_read_" + Hashing.sha256().hashString(
+        period + ":" + version + ":" + key, StandardCharsets.UTF_8));
+  }
+
+  /** 
+   * Returns the latest time, in milliseconds since the epoch, that any of the tables read by
+   * {@code query} was modified at, by this instance or any other. The time of each table is 
+   * looked up at most once every {@code TABLE_VERSION_TTL_SECONDS} seconds, and again after
+   * each update made through this accessor.
+   */
+  private long getDatabaseVersion(QueryJobConfiguration query) throws ExecutionException {
+    long version = 0;
+    Matcher tableName = TABLE_NAME.matcher(query.getQuery());
+    while (tableName.find()) {
+      TableId tableId = TableId.of(Constants.PROJECT_ID, tableName.group(1), 
+          tableName.group(2));
+      version = Math.max(version, tableVersions.get(tableId, () -> {
+        try (Span span = tracer.startSpan("BigQuery.getTable")) {
+          Table table = bigquery.getTable(tableId, 
+              BigQuery.TableOption.fields(BigQuery.TableField.LAST_MODIFIED_TIME));
+          return table == null || table.getLastModifiedTime() == null ? 
+              0L : table.getLastModifiedTime();
+        }
+      }));
+    }
+    return version;
+  }
+
+  /**
+   * Updates the database with {@code query}, with side effects. Since an aborted 
+   * transaction changes nothing, one aborted by a concurrent update of the same tables 
+   * is attempted again after a random backoff, up to {@code MAX_UPDATE_ATTEMPTS} times, 
+   * and then measures its changes to the summaries against the rows the other update 
+   * left.
+   * @param query The SQL query to be applied to the database. This query should 
+      not have any expected output.
+   * @throws RuntimeException If there is a problem accessing the database.  
+   */
+  @Override
+  public void updateDatabase(QueryJobConfiguration query) {
+    try (Span span = tracer.startSpan("BigQuery.update")) {
+      for (int attempt = 1; ; attempt++) {
+        span.setAttribute("attempts", attempt);
+        try {
+          runQuery(query, "update", span, JobId.of(UUID.randomUUID().toString()));
+          return;
+        } catch (RuntimeException e) {
+          if (attempt == MAX_UPDATE_ATTEMPTS || e.getMessage() == null || 
+              !e.getMessage().contains(CONCURRENT_UPDATE)) {
+            throw e;
+          }
+        }
+        long limit = Math.min(MAX_UPDATE_BACKOFF_MILLIS, 
+            BASE_UPDATE_BACKOFF_MILLIS << (attempt - 1));
+        try {
+          Thread.sleep((long) (random.nextDouble() * limit));
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException("Query Interrupted! " + interruptedException.getMessage());
+        }
+      }
+    } finally {
+      tableVersions.invalidateAll();
+      resultCache.invalidate();
+    }
+  }
+
+  /**
+   * Attempts to run {@code query}, recording how long the job took and the bytes it 
+   * processed, with a span for creating the job and one for waiting for it. If a job 
+   * with id {@code jobId} already exists, that job is waited for instead, unless it 
+   * failed, in which case the query is run again in a job with a random id.
+   * @param query The query to be run.
+   * @param type The kind of query, "read" or "update", that the job is recorded under.
+   * @param span The span of the query, which the job id and statistics are added to.
+   * @param jobId The id of the job to create.
+   * @return The complete job.
+   * @throws RuntimeException If running the query fails. 
+   */
+  private Job runQuery(QueryJobConfiguration query, String type, Span span, JobId jobId) {
+    long start = System.nanoTime();
+    span.setAttribute("job_id", jobId.getJob());
+    Job queryJob;
+    try (Span createSpan = tracer.startSpan("BigQuery.createJob")) {
+      try {
+        queryJob = bigquery.create(JobInfo.newBuilder(query).setJobId(jobId).build());
+      } catch (BigQueryException e) {
+        if (e.getCode() != ALREADY_EXISTS) {
+          throw e;
+        }
+        queryJob = bigquery.getJob(jobId);
+        if (queryJob == null || 
+            (queryJob.getStatus().getState() == JobStatus.State.DONE && 
+                queryJob.getStatus().getError() != null)) {
+          jobId = JobId.of(UUID.randomUUID().toString());
+          span.setAttribute("job_id", jobId.getJob());
+          queryJob = bigquery.create(JobInfo.newBuilder(query).setJobId(jobId).build());
+        } else {
+          createSpan.setAttribute("existing_job", true);
+        }
+      }
+    }
+    
+    try (Span waitSpan = tracer.startSpan("BigQuery.waitForJob")) {
+      queryJob = queryJob.waitFor();
+    } catch (InterruptedException interruptedException) {
+      Metrics.DATABASE_JOB_ERRORS.increment("bigquery", type);
+      span.recordError(interruptedException);
+      throw new RuntimeException("Query Interrupted! " + interruptedException.getMessage());
+    }
+
+    RuntimeException jobError = null;
+    if (queryJob == null) {
+      jobError = new RuntimeException("Job no longer exists!");
+    } else if (queryJob.getStatus().getError() != null) {
+      jobError = new RuntimeException("Query Error! " + 
+          queryJob.getStatus().getError().toString());
+    }
+    if (jobError != null) {
+      Metrics.DATABASE_JOB_ERRORS.increment("bigquery", type);
+      span.recordError(jobError);
+      throw jobError;
+    }
+
+    QueryStatistics statistics = queryJob.getStatistics();
+    boolean cacheHit = statistics != null && Boolean.TRUE.equals(statistics.getCacheHit());
+    Metrics.DATABASE_JOB_DURATION.observeSince(start, "bigquery", type, String.valueOf(cacheHit));
+    span.setAttribute("cache_hit", cacheHit);
+    if (statistics != null && statistics.getTotalBytesProcessed() != null) {
+      Metrics.BIGQUERY_BYTES_PROCESSED.add(statistics.getTotalBytesProcessed(), type);
+      span.setAttribute("bytes_processed", statistics.getTotalBytesProcessed());
+    }
+    return queryJob;
+  }
+  
+}
@@ -0,0 +1,23 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.impactdashboard.configuration.Configuration;
+
+/** 
+ * Class for returning either an accessor of the database in BigQuery or of a 
+ * local database, depending on configuration flags. 
+ */
+public class DatabaseAccessorFactory {
+
+  /** 
+   * If {@code Configuration.useLocalDatabase} is set to true, returns a 
+   * DatabaseAccessor that runs queries against an in-memory database, otherwise 
+   * returns one that runs them in BigQuery. 
+   */
+  public static DatabaseAccessor create() {
+    if (Configuration.useLocalDatabase) {
+      return LocalDatabaseAccessor.getInstance();
+    } else {
+      return BigQueryDatabaseAccessor.getInstance();
+    }
+  }
+}
@@ -0,0 +1,502 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.cloud.PageImpl;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldValue;
+import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.LegacySQLTypeName;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.TableResult;
+import com.google.impactdashboard.configuration.BindingsSummarySchema;
+import com.google.impactdashboard.configuration.Constants;
+import com.google.impactdashboard.configuration.IAMBindingsSchema;
+import com.google.impactdashboard.configuration.RecommendationsSchema;
+import com.google.impactdashboard.configuration.UpdateRunsSchema;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.recommendation.IAMRecommenderMetadata;
+import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.recommendation.RecommendationAction;
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.impactdashboard.database_manager.FakeDatabase;
+import com.google.impactdashboard.metrics.Metrics;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A stand-in for BigQuery that runs the statements of the Queries catalog against
+ * the in-memory FakeDatabase, so that the real data read and update managers can
+ * be run end to end without network access. Statements are recognized by their
+ * text with the table names left out, so queries built for any dataset reach the
+ * same in-memory tables. The catalog relies on features only BigQuery has, such as
+ * merging from an UNNEST of STRUCT arrays and repeated record columns, so each
+ * statement is implemented here rather than translated to another SQL dialect.
+ *
+ * <p>The stand-in does not validate query semantics. A statement is only matched by its
+ * text and emulated by hand, so a query that is wrong in BigQuery, such as one with a bad
+ * column, join or filter, can still produce the expected results here, and the emulation
+ * only covers the behavior the dashboard relies on. Results from it say nothing about
+ * whether the queries are correct or how fast BigQuery runs them.
+ *
+ * <p>It is a scoped-down replacement for running the catalog on an embedded SQL engine
+ * through a dialect shim: the shim would have had to rewrite the same BigQuery-only
+ * features by hand, so it would not have validated the catalog either. The queries are
+ * only checked by running them on BigQuery, for example on the test dataset of
+ * {@code Configuration.useTestDatabase}.
+ */
+public class LocalDatabaseAccessor implements DatabaseAccessor {
+  private static final LocalDatabaseAccessor INSTANCE = new LocalDatabaseAccessor();
+
+  /** Matches the fully qualified name of a table, with or without quotes. */
+  private static final Pattern TABLE_NAME = Pattern.compile(
+    "`?" + Pattern.quote(Constants.PROJECT_ID) + "\\.\\w+\\.\\w+`?");
+
+  /** Matches a timestamp staged by QueryConfigurationBuilder, capturing its seconds. */
+  private static final String STAGED_TIMESTAMP =
+    "TIMESTAMP_ADD\\('1970-01-01 00:00:00 UTC', INTERVAL (-?\\d+) SECOND\\)";
+
+  /** Matches a staged row of the IAM Bindings table. */
+  private static final Pattern STAGED_IAM_ROW = Pattern.compile(
+    "STRUCT\\('([^']*)', '([^']*)', '([^']*)', '([^']*)', '([^']*)', " +
+      STAGED_TIMESTAMP + ", (-?\\d+)\\)");
+
+  /** Matches a staged row of the Recommendations table. */
+  private static final Pattern STAGED_RECOMMENDATION_ROW = Pattern.compile(
+    "STRUCT\\('([^']*)', '([^']*)', '([^']*)', '([^']*)', \\[(.*?)\\], " +
+      STAGED_TIMESTAMP + ", (-?\\d+)\\)");
+
+  /** Matches a staged recommendation action. */
+  private static final Pattern STAGED_ACTION = Pattern.compile(
+    "STRUCT\\('([^']*)', '([^']*)', '([^']*)'\\)");
+
+  private static final Field ACTIONS_FIELD = Field.newBuilder(
+    RecommendationsSchema.ACTIONS_COLUMN, LegacySQLTypeName.RECORD,
+    Field.of(RecommendationsSchema.ACCOUNT_AFFECTED_FIELD, LegacySQLTypeName.STRING),
+    Field.of(RecommendationsSchema.PREVIOUS_ROLE_FIELD, LegacySQLTypeName.STRING),
+    Field.of(RecommendationsSchema.NEW_ROLE_FIELD, LegacySQLTypeName.STRING))
+    .setMode(Field.Mode.REPEATED).build();
+
+  private static final Schema BINDINGS_ROW_SCHEMA = Schema.of(
+    Field.of(IAMBindingsSchema.IAM_PROJECT_ID_COLUMN, LegacySQLTypeName.STRING),
+    Field.of(IAMBindingsSchema.PROJECT_NAME_COLUMN, LegacySQLTypeName.STRING),
+    Field.of(IAMBindingsSchema.PROJECT_NUMBER_COLUMN, LegacySQLTypeName.STRING),
+    Field.of(IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN, LegacySQLTypeName.STRING),
+    Field.of(IAMBindingsSchema.ORGANIZATION_NAME_COLUMN, LegacySQLTypeName.STRING),
+    Field.of(IAMBindingsSchema.TIMESTAMP_COLUMN, LegacySQLTypeName.TIMESTAMP),
+    Field.of(IAMBindingsSchema.NUMBER_BINDINGS_COLUMN, LegacySQLTypeName.INTEGER));
+
+  private static final Schema RECOMMENDATION_ROW_SCHEMA = Schema.of(
+    Field.of(RecommendationsSchema.RECOMMENDATIONS_PROJECT_ID_COLUMN, LegacySQLTypeName.STRING),
+    Field.of(RecommendationsSchema.RECOMMENDATIONS_ORGANIZATION_ID_COLUMN,
+      LegacySQLTypeName.STRING),
+    Field.of(RecommendationsSchema.ACCEPTED_TIMESTAMP_COLUMN, LegacySQLTypeName.TIMESTAMP),
+    Field.of(RecommendationsSchema.ACTOR_COLUMN, LegacySQLTypeName.STRING),
+    ACTIONS_FIELD,
+    Field.of(RecommendationsSchema.IAM_IMPACT_COLUMN, LegacySQLTypeName.INTEGER));
+
+  /** The read queries of the catalog, by their text without table names. */
+  private final Map<String, Function<Map<String, QueryParameterValue>, TableResult>> reads;
+
+  /**
+   * The update statements of the catalog, by the start of their text without table
+   * names, before any staged values.
+   */
+  private final Map<String, BiConsumer<String, Map<String, QueryParameterValue>>> updates;
+
+  /** The rows of the temporary table Staging of the transaction being run. */
+  private List<IAMBindingDatabaseEntry> stagedBindingsRows = new ArrayList<>();
+
+  /** Returns the only instance of the class. */
+  public static LocalDatabaseAccessor getInstance() {
+    return INSTANCE;
+  }
+
+  private LocalDatabaseAccessor() {
+    reads = new HashMap<>();
+    reads.put(withoutTableNames(Queries.GET_PROJECT_IDS),
+      parameters -> getProjectIds());
+    reads.put(withoutTableNames(Queries.GET_ORGANIZATION_IDS),
+      parameters -> getOrganizationIds());
+    reads.put(withoutTableNames(Queries.GET_PROJECT_IDENTIFICATION_INFORMATION),
+      parameters -> getProjectIdentification(getParameter(parameters, "projectId")));
+    reads.put(withoutTableNames(Queries.GET_ORGANIZATION_IDENTIFICATION_INFORMATION),
+      parameters -> getOrganizationName(getParameter(parameters, "organizationId")));
+    reads.put(withoutTableNames(Queries.GET_AVERAGE_BINDINGS),
+      parameters -> getAverageBindings(FakeDatabase.getSummaryAverage(
+        BindingsSummarySchema.PROJECT_SCOPE, getParameter(parameters, "projectId"))));
+    reads.put(withoutTableNames(Queries.GET_ORGANIZATION_AVERAGE_BINDINGS),
+      parameters -> getAverageBindings(FakeDatabase.getSummaryAverage(
+        BindingsSummarySchema.ORGANIZATION_SCOPE, getParameter(parameters, "organizationId"))));
+    reads.put(withoutTableNames(Queries.GET_ALL_AVERAGE_BINDINGS),
+      parameters -> getAllAverageBindings());
+    reads.put(withoutTableNames(Queries.GET_DATES_TO_BINDINGS),
+      parameters -> getDatesToBindings(IAMBindingsSchema.NUMBER_BINDINGS_COLUMN,
+        FakeDatabase.getDatesToBindingsForProject(getParameter(parameters, "projectId"))));
+    reads.put(withoutTableNames(Queries.GET_ORGANIZATION_DATES_TO_BINDINGS),
+      parameters -> getDatesToBindings("TotalBindings",
+        FakeDatabase.getDatesToBindingsForOrganization(
+          getParameter(parameters, "organizationId"))));
+    reads.put(withoutTableNames(Queries.GET_DATES_TO_IAM_RECOMMENDATIONS),
+      parameters -> getRecommendations(FakeDatabase.getDatesToRecommendationsForProject(
+        getParameter(parameters, "projectId"))));
+    reads.put(withoutTableNames(Queries.GET_ORGANIZATION_DATES_TO_RECOMMENDATIONS),
+      parameters -> getRecommendations(FakeDatabase.getDatesToRecommendationsForOrganization(
+        getParameter(parameters, "organizationId"))));
+    reads.put(withoutTableNames(Queries.GET_MOST_RECENT_TIMESTAMP),
+      parameters -> getMostRecentTimestamp());
+    reads.put(withoutTableNames(Queries.GET_LATEST_BINDINGS_PER_PROJECT),
+      parameters -> getLatestBindings());
+    reads.put(withoutTableNames(Queries.GET_RECENT_UPDATE_RUNS),
+      parameters -> getUpdateRuns(FakeDatabase.listUpdateRunReports(
+        Integer.parseInt(getParameter(parameters, "limit")))));
+    reads.put(withoutTableNames(Queries.GET_UPDATE_RUN_REPORTS),
+      parameters -> getUpdateRuns(FakeDatabase.listUpdateRunReports(
+        getParameter(parameters, "runId"))));
+
+    updates = new LinkedHashMap<>();
+    updates.put(Queries.BEGIN_TRANSACTION,
+      (statement, parameters) -> runTransaction(statement, parameters));
+    updates.put(stagingPrefix(Queries.CREATE_IAM_STAGING_TABLE),
+      (statement, parameters) -> stagedBindingsRows = parseBindingsRows(statement));
+    updates.put(withoutTableNames(Queries.MERGE_STAGING_INTO_IAM_TABLE),
+      (statement, parameters) -> FakeDatabase.mergeBindingsRows(stagedBindingsRows));
+    updates.put(stagingPrefix(Queries.MERGE_VALUES_INTO_RECOMMENDATIONS_TABLE),
+      (statement, parameters) ->
+        FakeDatabase.addRecommendations(parseRecommendationRows(statement)));
+    // Deleting old data from the Org Daily Bindings table is the same statement as 
+    // deleting it from the IAM Bindings table once table names are left out, so both 
+    // are handled here.
+    updates.put(withoutTableNames(Queries.DELETE_OLD_DATA_FROM_IAM_TABLE),
+      (statement, parameters) -> FakeDatabase.deleteRowsBefore(
+        Long.parseLong(getParameter(parameters, "cutoff"))));
+    updates.put(withoutTableNames(Queries.MERGE_DAYS_INTO_ORG_DAILY_BINDINGS_TABLE),
+      (statement, parameters) -> FakeDatabase.mergeOrganizationDays(getDays(parameters)));
+    updates.put(withoutTableNames(Queries.MERGE_STAGING_INTO_PROJECT_SUMMARIES),
+      (statement, parameters) ->
+        FakeDatabase.mergeRowsIntoProjectSummaries(stagedBindingsRows));
+    updates.put(withoutTableNames(Queries.MERGE_DAYS_INTO_ORGANIZATION_SUMMARIES),
+      (statement, parameters) ->
+        FakeDatabase.mergeDaysIntoOrganizationSummaries(getDays(parameters)));
+    updates.put(withoutTableNames(Queries.SUBTRACT_OLD_DATA_FROM_SUMMARIES),
+      (statement, parameters) -> FakeDatabase.subtractRowsBeforeFromSummaries(
+        Long.parseLong(getParameter(parameters, "cutoff"))));
+    updates.put(withoutTableNames(Queries.DELETE_OLD_DATA_FROM_RECOMMENDATIONS_TABLE),
+      (statement, parameters) -> FakeDatabase.deleteRecommendationsBefore(
+        Long.parseLong(getParameter(parameters, "cutoff"))));
+    updates.put(withoutTableNames(Queries.INSERT_UPDATE_RUN),
+      (statement, parameters) -> FakeDatabase.addUpdateRunReport(
+        UpdateRunReport.fromJson(getParameter(parameters, "report"))));
+  }
+
+  /**
+   * Runs {@code query} against the in-memory tables and returns the resulting table.
+   * @throws RuntimeException If {@code query} is not a read query of the catalog.
+   */
+  @Override
+  public TableResult readDatabase(QueryJobConfiguration query) {
+    long start = System.nanoTime();
+    try (Span span = Tracer.getInstance().startSpan("LocalDatabase.read")) {
+      Function<Map<String, QueryParameterValue>, TableResult> read =
+        reads.get(withoutTableNames(query.getQuery()));
+      if (read == null) {
+        Metrics.DATABASE_JOB_ERRORS.increment("local", "read");
+        RuntimeException error = new RuntimeException(
+          "Query Error! Not a query of the catalog: " + query.getQuery());
+        span.recordError(error);
+        throw error;
+      }
+      TableResult result = read.apply(query.getNamedParameters());
+      span.setAttribute("total_rows", result.getTotalRows());
+      Metrics.DATABASE_JOB_DURATION.observeSince(start, "local", "read", "false");
+      return result;
+    }
+  }
+
+  /**
+   * Applies the update statement {@code query} to the in-memory tables.
+   * @throws RuntimeException If {@code query} is not an update statement of the catalog.
+   */
+  @Override
+  public void updateDatabase(QueryJobConfiguration query) {
+    long start = System.nanoTime();
+    try (Span span = Tracer.getInstance().startSpan("LocalDatabase.update")) {
+      try {
+        applyUpdate(withoutTableNames(query.getQuery()), query.getNamedParameters());
+      } catch (RuntimeException e) {
+        Metrics.DATABASE_JOB_ERRORS.increment("local", "update");
+        span.recordError(e);
+        throw e;
+      }
+      Metrics.DATABASE_JOB_DURATION.observeSince(start, "local", "update", "false");
+    }
+  }
+
+  /**
+   * Applies the update statement {@code statement}, without table names, to the 
+   * in-memory tables.
+   * @throws RuntimeException If {@code statement} is not an update statement of the catalog.
+   */
+  private void applyUpdate(String statement, Map<String, QueryParameterValue> parameters) {
+    for (Map.Entry<String, BiConsumer<String, Map<String, QueryParameterValue>>> update :
+      updates.entrySet()) {
+      if (statement.startsWith(update.getKey())) {
+        update.getValue().accept(statement, parameters);
+        return;
+      }
+    }
+    throw new RuntimeException("Query Error! Not a statement of the catalog: " + statement);
+  }
+
+  /**
+   * Applies the statements of the transaction {@code transaction} in order, one 
+   * transaction at a time, since their changes are measured against the rows they 
+   * replace. Unlike BigQuery, statements applied before one that fails are not rolled 
+   * back. The temporary table Staging only lasts until the end of the transaction.
+   */
+  private synchronized void runTransaction(String transaction,
+      Map<String, QueryParameterValue> parameters) {
+    List<String> statements =
+      Arrays.asList(transaction.split(Pattern.quote(Queries.STATEMENT_SEPARATOR)));
+    if (!statements.get(statements.size() - 1).equals(Queries.COMMIT_TRANSACTION)) {
+      throw new RuntimeException("Query Error! Transaction is not committed: " + transaction);
+    }
+    try {
+      statements.subList(1, statements.size() - 1)
+        .forEach(statement -> applyUpdate(statement, parameters));
+    } finally {
+      stagedBindingsRows = new ArrayList<>();
+    }
+  }
+
+  /** Returns {@code query} with the names of the tables it uses left out. */
+  private static String withoutTableNames(String query) {
+    return TABLE_NAME.matcher(query).replaceAll("");
+  }
+
+  /** Returns the text of the statement {@code template} before its staged values. */
+  private static String stagingPrefix(String template) {
+    String statement = withoutTableNames(template);
+    return statement.substring(0, statement.indexOf("%s"));
+  }
+
+  /**
+   * Returns the value of the parameter {@code name}.
+   * @throws RuntimeException If the query does not set the parameter.
+   */
+  private static String getParameter(Map<String, QueryParameterValue> parameters, String name) {
+    QueryParameterValue value = parameters.get(name);
+    if (value == null) {
+      throw new RuntimeException("Query Error! Missing parameter " + name);
+    }
+    return value.getValue();
+  }
+
+  /**
+   * Returns the days of the parameter {@code days}, an array of timestamps in seconds 
+   * since the epoch, in milliseconds since the epoch.
+   * @throws RuntimeException If the query does not set the parameter.
+   */
+  private static List<Long> getDays(Map<String, QueryParameterValue> parameters) {
+    QueryParameterValue days = parameters.get("days");
+    if (days == null || days.getArrayValues() == null) {
+      throw new RuntimeException("Query Error! Missing parameter days");
+    }
+    return days.getArrayValues().stream()
+      .map(day -> TimeUnit.SECONDS.toMillis(Long.parseLong(day.getValue())))
+      .collect(Collectors.toList());
+  }
+
+  private TableResult getProjectIds() {
+    return createResult(
+      Schema.of(Field.of(IAMBindingsSchema.IAM_PROJECT_ID_COLUMN, LegacySQLTypeName.STRING)),
+      FakeDatabase.listProjects().stream()
+        .map(project -> Arrays.asList(stringValue(project.getProjectId())))
+        .collect(Collectors.toList()));
+  }
+
+  private TableResult getOrganizationIds() {
+    return createResult(
+      Schema.of(Field.of(IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN, LegacySQLTypeName.STRING)),
+      FakeDatabase.listOrganizations().stream()
+        .map(organization -> Arrays.asList(stringValue(organization.getId())))
+        .collect(Collectors.toList()));
+  }
+
+  private TableResult getProjectIdentification(String projectId) {
+    ProjectIdentification project = FakeDatabase.getProjectIdentification(projectId);
+    List<List<FieldValue>> rows = new ArrayList<>();
+    if (project != null) {
+      rows.add(Arrays.asList(stringValue(project.getName()),
+        stringValue(String.valueOf(project.getProjectNumber()))));
+    }
+    return createResult(Schema.of(
+      Field.of(IAMBindingsSchema.PROJECT_NAME_COLUMN, LegacySQLTypeName.STRING),
+      Field.of(IAMBindingsSchema.PROJECT_NUMBER_COLUMN, LegacySQLTypeName.STRING)), rows);
+  }
+
+  private TableResult getOrganizationName(String organizationId) {
+    OrganizationIdentification organization =
+      FakeDatabase.getOrganizationIdentification(organizationId);
+    List<List<FieldValue>> rows = new ArrayList<>();
+    if (organization != null) {
+      rows.add(Arrays.asList(stringValue(organization.getName())));
+    }
+    return createResult(Schema.of(
+      Field.of(IAMBindingsSchema.ORGANIZATION_NAME_COLUMN, LegacySQLTypeName.STRING)), rows);
+  }
+
+  /** 
+   * Returns {@code average} as the average bindings of a row of the Bindings Summary 
+   * table. Projects and organizations with no data have an average of 0 rather than 
+   * no row, which DataReadManagerImpl reads the same way. 
+   */
+  private TableResult getAverageBindings(double average) {
+    return createResult(
+      Schema.of(Field.of("AverageBindings", LegacySQLTypeName.FLOAT)),
+      Arrays.asList(Arrays.asList(stringValue(String.valueOf(average)))));
+  }
+
+  private TableResult getAllAverageBindings() {
+    List<List<FieldValue>> rows = new ArrayList<>();
+    for (String scopeType : Arrays.asList(BindingsSummarySchema.PROJECT_SCOPE,
+      BindingsSummarySchema.ORGANIZATION_SCOPE)) {
+      FakeDatabase.getSummaryAverages(scopeType).forEach((id, average) -> rows.add(
+        Arrays.asList(stringValue(scopeType), stringValue(id),
+          stringValue(String.valueOf(average)))));
+    }
+    return createResult(Schema.of(
+      Field.of(BindingsSummarySchema.SCOPE_TYPE_COLUMN, LegacySQLTypeName.STRING),
+      Field.of(BindingsSummarySchema.SCOPE_ID_COLUMN, LegacySQLTypeName.STRING),
+      Field.of("AverageBindings", LegacySQLTypeName.FLOAT)), rows);
+  }
+
+  private TableResult getDatesToBindings(String bindingsColumn,
+    Map<Long, Integer> datesToBindings) {
+    return createResult(Schema.of(
+      Field.of(IAMBindingsSchema.TIMESTAMP_COLUMN, LegacySQLTypeName.TIMESTAMP),
+      Field.of(bindingsColumn, LegacySQLTypeName.INTEGER)),
+      datesToBindings.entrySet().stream()
+        .map(entry -> Arrays.asList(timestampValue(entry.getKey()),
+          stringValue(String.valueOf(entry.getValue()))))
+        .collect(Collectors.toList()));
+  }
+
+  private TableResult getRecommendations(Map<Long, Recommendation> datesToRecommendations) {
+    return createResult(RECOMMENDATION_ROW_SCHEMA,
+      datesToRecommendations.values().stream()
+        .map(recommendation -> Arrays.asList(
+          stringValue(recommendation.getProjectId()),
+          stringValue(recommendation.getOrganizationId()),
+          timestampValue(recommendation.getAcceptedTimestamp()),
+          stringValue(recommendation.getActor()),
+          FieldValue.of(FieldValue.Attribute.REPEATED, recommendation.getActions().stream()
+            .map(action -> FieldValue.of(FieldValue.Attribute.RECORD, FieldValueList.of(
+              Arrays.asList(stringValue(action.getAffectedAccount()),
+                stringValue(action.getPreviousRole()), stringValue(action.getNewRole())))))
+            .collect(Collectors.toList())),
+          stringValue(String.valueOf(((IAMRecommenderMetadata) recommendation.getMetadata())
+            .getImpactInIAMBindings()))))
+        .collect(Collectors.toList()));
+  }
+
+  private TableResult getMostRecentTimestamp() {
+    long timestamp = FakeDatabase.getMaxTimestamp();
+    return createResult(
+      Schema.of(Field.of("Max_Timestamp", LegacySQLTypeName.TIMESTAMP)),
+      Arrays.asList(Arrays.asList(
+        timestamp == -1 ? stringValue(null) : timestampValue(timestamp))));
+  }
+
+  private TableResult getLatestBindings() {
+    return createResult(BINDINGS_ROW_SCHEMA,
+      FakeDatabase.getLatestBindingsEntries().values().stream()
+        .map(entry -> Arrays.asList(
+          stringValue(entry.getProjectId()),
+          stringValue(entry.getProjectName()),
+          stringValue(entry.getProjectNumber()),
+          stringValue(entry.getIdentification().getId()),
+          stringValue(entry.getIdentification().getName()),
+          timestampValue(entry.getTimestamp()),
+          stringValue(String.valueOf(entry.getBindingsNumber()))))
+        .collect(Collectors.toList()));
+  }
+
+  private TableResult getUpdateRuns(List<UpdateRunReport> reports) {
+    return createResult(
+      Schema.of(Field.of(UpdateRunsSchema.REPORT_COLUMN, LegacySQLTypeName.STRING)),
+      reports.stream()
+        .map(report -> Arrays.asList(stringValue(report.toJson())))
+        .collect(Collectors.toList()));
+  }
+
+  /** Returns the rows staged by the IAM Bindings staging {@code statement}. */
+  private static List<IAMBindingDatabaseEntry> parseBindingsRows(String statement) {
+    List<IAMBindingDatabaseEntry> entries = new ArrayList<>();
+    Matcher row = STAGED_IAM_ROW.matcher(statement);
+    while (row.find()) {
+      entries.add(IAMBindingDatabaseEntry.create(row.group(1), row.group(2), row.group(3),
+        OrganizationIdentification.create(row.group(5), row.group(4)),
+        TimeUnit.SECONDS.toMillis(Long.parseLong(row.group(6))),
+        Integer.parseInt(row.group(7))));
+    }
+    return entries;
+  }
+
+  /** Returns the rows staged by the Recommendations merge {@code statement}. */
+  private static List<Recommendation> parseRecommendationRows(String statement) {
+    List<Recommendation> recommendations = new ArrayList<>();
+    Matcher row = STAGED_RECOMMENDATION_ROW.matcher(statement);
+    while (row.find()) {
+      List<RecommendationAction> actions = new ArrayList<>();
+      Matcher action = STAGED_ACTION.matcher(row.group(5));
+      while (action.find()) {
+        actions.add(RecommendationAction.create(action.group(1), action.group(2),
+          action.group(3), action.group(3).isEmpty() ?
+            RecommendationAction.ActionType.REMOVE_ROLE :
+            RecommendationAction.ActionType.REPLACE_ROLE));
+      }
+      recommendations.add(Recommendation.create(row.group(1), row.group(2), row.group(4),
+        actions, Recommendation.RecommenderType.valueOf(row.group(3)),
+        TimeUnit.SECONDS.toMillis(Long.parseLong(row.group(6))),
+        IAMRecommenderMetadata.create(Integer.parseInt(row.group(7)))));
+    }
+    return recommendations;
+  }
+
+  /** Returns a table with schema {@code schema} holding {@code rows}. */
+  private static TableResult createResult(Schema schema, List<List<FieldValue>> rows) {
+    List<FieldValueList> values = rows.stream()
+      .map(row -> FieldValueList.of(row, schema.getFields()))
+      .collect(Collectors.toList());
+    return new TableResult(schema, values.size(), new PageImpl<>(null, null, values));
+  }
+
+  /** Returns {@code value} as a field value, which is NULL if {@code value} is null. */
+  private static FieldValue stringValue(String value) {
+    return FieldValue.of(FieldValue.Attribute.PRIMITIVE, value);
+  }
+
+  /**
+   * Returns {@code timestamp}, in milliseconds since the epoch, as a timestamp field
+   * value, which BigQuery encodes in seconds.
+   */
+  private static FieldValue timestampValue(long timestamp) {
+    return stringValue(BigDecimal.valueOf(timestamp, 3).toPlainString());
+  }
+}
@@ -20,6 +20,27 @@ public class Queries {
   private static final String RECOMMENDATIONS_TABLE = Constants.PROJECT_ID + "." + 
     Constants.DATABASE + "." + Constants.RECOMMENDATIONS_TABLE;
 
+  /** 
+   * Based on system Configuration flags, set to the value of the org daily 
+   * bindings table in the database that should be queried. 
+   */
+  private static final String ORG_DAILY_BINDINGS_TABLE = Constants.PROJECT_ID + "." + 
+    Constants.DATABASE + "." + Constants.ORG_DAILY_BINDINGS_TABLE;
+
+  /** 
+   * Based on system Configuration flags, set to the value of the bindings 
+   * summary table in the database that should be queried. 
+   */
+  private static final String BINDINGS_SUMMARY_TABLE = Constants.PROJECT_ID + "." + 
+    Constants.DATABASE + "." + Constants.BINDINGS_SUMMARY_TABLE;
+
+  /** 
+   * Based on system Configuration flags, set to the value of the update runs 
+   * table in the database that should be queried. 
+   */
+  private static final String UPDATE_RUNS_TABLE = Constants.PROJECT_ID + "." + 
+    Constants.DATABASE + "." + Constants.UPDATE_RUNS_TABLE;
+
   /** Retrieves all project ids from the database. */
   public static final String GET_PROJECT_IDS = 
     "SELECT DISTINCT " + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN +
@@ -53,15 +74,22 @@ public class Queries {
       " WHERE " + IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + " = @organizationId" +
       " LIMIT 1";
 
+  /** The average number of bindings of a row of the Bindings Summary table. */
+  private static final String SUMMARY_AVERAGE_BINDINGS = 
+    "SAFE_DIVIDE(" + 
+      BindingsSummarySchema.BINDINGS_SUM_COLUMN + ", " + 
+      BindingsSummarySchema.DAY_COUNT_COLUMN + ") AS AverageBindings";
+
   /** 
    * Retrieves the average number of bindings for {@code projectId} for every 
-   * entry in the table. 
+   * entry in the IAM Bindings table, from its row of the Bindings Summary table. 
    */
   public static final String GET_AVERAGE_BINDINGS = 
-    "SELECT AVG(" + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + ") AS AverageBindings" +
-      " FROM " + IAM_TABLE + 
-      " GROUP BY " + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN +
-      " HAVING " + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + " = @projectId";
+    "SELECT " + SUMMARY_AVERAGE_BINDINGS + 
+      " FROM `" + BINDINGS_SUMMARY_TABLE + "`" +
+      " WHERE " + BindingsSummarySchema.SCOPE_TYPE_COLUMN + 
+        " = '" + BindingsSummarySchema.PROJECT_SCOPE + "'" +
+      " AND " + BindingsSummarySchema.SCOPE_ID_COLUMN + " = @projectId";
 
   /** 
    * Retrieves all (timestamp, number of bindings) data in the table for 
@@ -75,28 +103,39 @@ public class Queries {
       " WHERE " + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + " = @projectId";
 
   /**
-   * Retrieves all (timestamp, total bindings) data in the IAM Bindings table, 
-   * where 'total bindings' represents the sum of bindings across all projects
-   * belonging to {@code organizationId} on 'timestamp'. 
+   * Retrieves all (timestamp, total bindings) data in the Org Daily Bindings 
+   * table for {@code organizationId}, where 'total bindings' represents the sum 
+   * of bindings across all projects belonging to the organization on 'timestamp'. 
    */
   public static final String GET_ORGANIZATION_DATES_TO_BINDINGS = 
-    " SELECT " + 
-      IAMBindingsSchema.TIMESTAMP_COLUMN + ", " + 
-      " SUM(" + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + ") AS TotalBindings" + 
-      " FROM " + IAM_TABLE + 
-      " GROUP BY " + 
-        IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + ", " + 
-        IAMBindingsSchema.TIMESTAMP_COLUMN + 
-      " HAVING " + IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + " = @organizationId";
+    "SELECT " + 
+      OrgDailyBindingsSchema.TIMESTAMP_COLUMN + ", " + 
+      OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN + 
+      " FROM `" + ORG_DAILY_BINDINGS_TABLE + "`" + 
+      " WHERE " + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + " = @organizationId";
 
   /**
-   * Retrieves the average number of bindings over all the days in the table
-   * summed over all the projects belonging to the organization with id
-   * {@code organizationId}.
+   * Retrieves the average number of bindings over all the days in the Org Daily 
+   * Bindings table summed over all the projects belonging to the organization 
+   * with id {@code organizationId}, from its row of the Bindings Summary table.
    */
   public static final String GET_ORGANIZATION_AVERAGE_BINDINGS = 
-    "SELECT AVG(TotalBindings) AS AverageBindings" + 
-      " FROM (" + GET_ORGANIZATION_DATES_TO_BINDINGS + ")";
+    "SELECT " + SUMMARY_AVERAGE_BINDINGS + 
+      " FROM `" + BINDINGS_SUMMARY_TABLE + "`" +
+      " WHERE " + BindingsSummarySchema.SCOPE_TYPE_COLUMN + 
+        " = '" + BindingsSummarySchema.ORGANIZATION_SCOPE + "'" +
+      " AND " + BindingsSummarySchema.SCOPE_ID_COLUMN + " = @organizationId";
+
+  /** 
+   * Retrieves the scope type, id and average number of bindings of every project 
+   * and organization in the Bindings Summary table. 
+   */
+  public static final String GET_ALL_AVERAGE_BINDINGS = 
+    "SELECT " + 
+      BindingsSummarySchema.SCOPE_TYPE_COLUMN + ", " + 
+      BindingsSummarySchema.SCOPE_ID_COLUMN + ", " + 
+      SUMMARY_AVERAGE_BINDINGS + 
+      " FROM `" + BINDINGS_SUMMARY_TABLE + "`";
 
   /** 
    * Retrieves all (timestamp, recommendation) data in the table for 
@@ -134,34 +173,331 @@ public class Queries {
       " AND " + RecommendationsSchema.RECOMMENDER_COLUMN + 
         " = '" + Recommendation.RecommenderType.IAM_BINDING + "'";
 
+  /** The type of a single staged row of the Recommendations table. */
+  private static final String RECOMMENDATIONS_ROW_TYPE = 
+    "STRUCT<" + 
+      RecommendationsSchema.RECOMMENDATIONS_PROJECT_ID_COLUMN + " STRING, " +
+      RecommendationsSchema.RECOMMENDATIONS_ORGANIZATION_ID_COLUMN + " STRING, " +
+      RecommendationsSchema.RECOMMENDER_COLUMN + " STRING, " +
+      RecommendationsSchema.ACTOR_COLUMN + " STRING, " +
+      RecommendationsSchema.ACTIONS_COLUMN + " ARRAY<STRUCT<" + 
+        RecommendationsSchema.ACCOUNT_AFFECTED_FIELD + " STRING, " +
+        RecommendationsSchema.PREVIOUS_ROLE_FIELD + " STRING, " +
+        RecommendationsSchema.NEW_ROLE_FIELD + " STRING>>, " +
+      RecommendationsSchema.ACCEPTED_TIMESTAMP_COLUMN + " TIMESTAMP, " +
+      RecommendationsSchema.IAM_IMPACT_COLUMN + " INT64>";
+
+  /** The type of a single staged row of the IAM Bindings table. */
+  private static final String IAM_ROW_TYPE = 
+    "STRUCT<" + 
+      IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + " STRING, " +
+      IAMBindingsSchema.PROJECT_NAME_COLUMN + " STRING, " +
+      IAMBindingsSchema.PROJECT_NUMBER_COLUMN + " STRING, " +
+      IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + " STRING, " +
+      IAMBindingsSchema.ORGANIZATION_NAME_COLUMN + " STRING, " +
+      IAMBindingsSchema.TIMESTAMP_COLUMN + " TIMESTAMP, " +
+      IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + " INT64>";
+
   /** 
-   * Inserts values (which will need to be concatenated to this string) into the 
-   * Recommendations table. 
+   * Upserts staged values (a comma separated list of structs which will need 
+   * to be formatted into this string) into the Recommendations table. Rows are 
+   * keyed on (ProjectId, AcceptedTimestamp, Actor), so staging the same 
+   * recommendation twice leaves a single row in the table. 
    */
-  public static final String INSERT_VALUES_INTO_RECOMMENDATIONS_TABLE = 
-    "INSERT INTO `" + RECOMMENDATIONS_TABLE + "` VALUES "; 
+  public static final String MERGE_VALUES_INTO_RECOMMENDATIONS_TABLE = 
+    "MERGE `" + RECOMMENDATIONS_TABLE + "` AS Target" +
+      " USING (SELECT * FROM UNNEST(ARRAY<" + RECOMMENDATIONS_ROW_TYPE + ">[%s])) AS Staging" +
+      " ON Target." + RecommendationsSchema.RECOMMENDATIONS_PROJECT_ID_COLUMN + 
+        " = Staging." + RecommendationsSchema.RECOMMENDATIONS_PROJECT_ID_COLUMN +
+      " AND Target." + RecommendationsSchema.ACCEPTED_TIMESTAMP_COLUMN + 
+        " = Staging." + RecommendationsSchema.ACCEPTED_TIMESTAMP_COLUMN +
+      " AND Target." + RecommendationsSchema.ACTOR_COLUMN + 
+        " = Staging." + RecommendationsSchema.ACTOR_COLUMN +
+      " WHEN MATCHED THEN UPDATE SET " + 
+        RecommendationsSchema.RECOMMENDATIONS_ORGANIZATION_ID_COLUMN + 
+          " = Staging." + RecommendationsSchema.RECOMMENDATIONS_ORGANIZATION_ID_COLUMN + ", " +
+        RecommendationsSchema.RECOMMENDER_COLUMN + 
+          " = Staging." + RecommendationsSchema.RECOMMENDER_COLUMN + ", " +
+        RecommendationsSchema.ACTIONS_COLUMN + 
+          " = Staging." + RecommendationsSchema.ACTIONS_COLUMN + ", " +
+        RecommendationsSchema.IAM_IMPACT_COLUMN + 
+          " = Staging." + RecommendationsSchema.IAM_IMPACT_COLUMN +
+      " WHEN NOT MATCHED THEN INSERT ROW"; 
 
   /** 
-   * Inserts values (which will need to be concatenated to this string) into the 
-   * IAM Bindings table. 
+   * Creates the temporary table Staging from staged values (a comma separated list 
+   * of structs of the IAM Bindings table which will need to be formatted into this 
+   * string), so that the statements of a transaction that merge them read the values 
+   * from it instead of each inlining them. 
    */
-  public static final String INSERT_VALUES_INTO_IAM_TABLE = 
-    "INSERT INTO `" + IAM_TABLE + "` VALUES ";
+  public static final String CREATE_IAM_STAGING_TABLE = 
+    "CREATE TEMP TABLE Staging AS SELECT * FROM UNNEST(ARRAY<" + IAM_ROW_TYPE + ">[%s])";
+
+  /** 
+   * Upserts the rows of the temporary table created by {@code CREATE_IAM_STAGING_TABLE}, 
+   * in the same transaction, into the IAM Bindings table. Rows are keyed on 
+   * (ProjectId, Timestamp), so staging the same day of data twice leaves a single 
+   * row in the table. 
+   */
+  public static final String MERGE_STAGING_INTO_IAM_TABLE = 
+    "MERGE `" + IAM_TABLE + "` AS Target" +
+      " USING Staging" +
+      " ON Target." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + 
+        " = Staging." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN +
+      " AND Target." + IAMBindingsSchema.TIMESTAMP_COLUMN + 
+        " = Staging." + IAMBindingsSchema.TIMESTAMP_COLUMN +
+      " WHEN MATCHED THEN UPDATE SET " + 
+        IAMBindingsSchema.PROJECT_NAME_COLUMN + 
+          " = Staging." + IAMBindingsSchema.PROJECT_NAME_COLUMN + ", " +
+        IAMBindingsSchema.PROJECT_NUMBER_COLUMN + 
+          " = Staging." + IAMBindingsSchema.PROJECT_NUMBER_COLUMN + ", " +
+        IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + 
+          " = Staging." + IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + ", " +
+        IAMBindingsSchema.ORGANIZATION_NAME_COLUMN + 
+          " = Staging." + IAMBindingsSchema.ORGANIZATION_NAME_COLUMN + ", " +
+        IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + 
+          " = Staging." + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN +
+      " WHEN NOT MATCHED THEN INSERT ROW";
+
+  /** 
+   * Recomputes the rows of the Org Daily Bindings table for the days 
+   * {@code days} (an array of timestamps in seconds since the epoch) from the 
+   * rows of the IAM Bindings table on those days only. Organizations that no 
+   * longer have any project on one of those days lose their row for it. 
+   */
+  public static final String MERGE_DAYS_INTO_ORG_DAILY_BINDINGS_TABLE = 
+    "MERGE `" + ORG_DAILY_BINDINGS_TABLE + "` AS Target" +
+      " USING (SELECT " + 
+        IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + " AS " + 
+          OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + ", " +
+        IAMBindingsSchema.TIMESTAMP_COLUMN + " AS " + 
+          OrgDailyBindingsSchema.TIMESTAMP_COLUMN + ", " +
+        "SUM(" + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + ") AS " + 
+          OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN +
+        " FROM `" + IAM_TABLE + "`" +
+        " WHERE UNIX_SECONDS(" + IAMBindingsSchema.TIMESTAMP_COLUMN + ") IN UNNEST(@days)" +
+        " GROUP BY " + 
+          IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + ", " + 
+          IAMBindingsSchema.TIMESTAMP_COLUMN + ") AS Source" +
+      " ON Target." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + 
+        " = Source." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN +
+      " AND Target." + OrgDailyBindingsSchema.TIMESTAMP_COLUMN + 
+        " = Source." + OrgDailyBindingsSchema.TIMESTAMP_COLUMN +
+      " WHEN MATCHED THEN UPDATE SET " + 
+        OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN + 
+          " = Source." + OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN +
+      " WHEN NOT MATCHED BY TARGET THEN INSERT ROW" +
+      " WHEN NOT MATCHED BY SOURCE" + 
+        " AND UNIX_SECONDS(Target." + OrgDailyBindingsSchema.TIMESTAMP_COLUMN + 
+          ") IN UNNEST(@days) THEN DELETE";
+
+  /** 
+   * The clauses of a merge into the Bindings Summary table that add the changes 
+   * BindingsChange and DayCountChange of each Source row to the row with its scope 
+   * type and id, dropping rows that are left with no days. 
+   */
+  private static final String APPLY_SUMMARY_CHANGES = 
+    " ON Target." + BindingsSummarySchema.SCOPE_TYPE_COLUMN + 
+      " = Source." + BindingsSummarySchema.SCOPE_TYPE_COLUMN +
+    " AND Target." + BindingsSummarySchema.SCOPE_ID_COLUMN + 
+      " = Source." + BindingsSummarySchema.SCOPE_ID_COLUMN +
+    " WHEN MATCHED AND Target." + BindingsSummarySchema.DAY_COUNT_COLUMN + 
+      " + Source.DayCountChange <= 0 THEN DELETE" +
+    " WHEN MATCHED THEN UPDATE SET " + 
+      BindingsSummarySchema.BINDINGS_SUM_COLUMN + " = Target." + 
+        BindingsSummarySchema.BINDINGS_SUM_COLUMN + " + Source.BindingsChange, " +
+      BindingsSummarySchema.DAY_COUNT_COLUMN + " = Target." + 
+        BindingsSummarySchema.DAY_COUNT_COLUMN + " + Source.DayCountChange" +
+    " WHEN NOT MATCHED AND Source.DayCountChange > 0 THEN INSERT (" + 
+      BindingsSummarySchema.SCOPE_TYPE_COLUMN + ", " + 
+      BindingsSummarySchema.SCOPE_ID_COLUMN + ", " + 
+      BindingsSummarySchema.BINDINGS_SUM_COLUMN + ", " + 
+      BindingsSummarySchema.DAY_COUNT_COLUMN + ")" +
+      " VALUES (Source." + BindingsSummarySchema.SCOPE_TYPE_COLUMN + 
+        ", Source." + BindingsSummarySchema.SCOPE_ID_COLUMN + 
+        ", Source.BindingsChange, Source.DayCountChange)";
+
+  /** 
+   * Adds the change that upserting the rows of the temporary table created by 
+   * {@code CREATE_IAM_STAGING_TABLE} into the IAM Bindings table makes to the project 
+   * rows of the Bindings Summary table. It must run right before 
+   * {@code MERGE_STAGING_INTO_IAM_TABLE}, in the same transaction, since the change is 
+   * measured against the rows the staged values replace. 
+   */
+  public static final String MERGE_STAGING_INTO_PROJECT_SUMMARIES = 
+    "MERGE `" + BINDINGS_SUMMARY_TABLE + "` AS Target" +
+      " USING (SELECT '" + BindingsSummarySchema.PROJECT_SCOPE + "' AS " + 
+          BindingsSummarySchema.SCOPE_TYPE_COLUMN + ", " +
+        "Staging." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + " AS " + 
+          BindingsSummarySchema.SCOPE_ID_COLUMN + ", " +
+        "SUM(Staging." + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + 
+          " - IFNULL(Existing." + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + 
+          ", 0)) AS BindingsChange, " +
+        "COUNTIF(Existing." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + 
+          " IS NULL) AS DayCountChange" +
+        " FROM Staging" +
+        " LEFT JOIN `" + IAM_TABLE + "` AS Existing" +
+        " ON Existing." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + 
+          " = Staging." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN +
+        " AND Existing." + IAMBindingsSchema.TIMESTAMP_COLUMN + 
+          " = Staging." + IAMBindingsSchema.TIMESTAMP_COLUMN +
+        " GROUP BY Staging." + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + ") AS Source" +
+      APPLY_SUMMARY_CHANGES;
+
+  /** 
+   * Adds the change that recomputing the rows of the Org Daily Bindings table for 
+   * the days {@code days} (an array of timestamps in seconds since the epoch) makes 
+   * to the organization rows of the Bindings Summary table. It must run right before 
+   * {@code MERGE_DAYS_INTO_ORG_DAILY_BINDINGS_TABLE} with the same days, in the same 
+   * transaction, since the change is measured against the rows that merge replaces. 
+   */
+  public static final String MERGE_DAYS_INTO_ORGANIZATION_SUMMARIES = 
+    "MERGE `" + BINDINGS_SUMMARY_TABLE + "` AS Target" +
+      " USING (SELECT '" + BindingsSummarySchema.ORGANIZATION_SCOPE + "' AS " + 
+          BindingsSummarySchema.SCOPE_TYPE_COLUMN + ", " +
+        "IFNULL(Recomputed." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + 
+          ", Stored." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + ") AS " + 
+          BindingsSummarySchema.SCOPE_ID_COLUMN + ", " +
+        "SUM(IFNULL(Recomputed." + OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN + ", 0)" + 
+          " - IFNULL(Stored." + OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN + 
+          ", 0)) AS BindingsChange, " +
+        "COUNTIF(Stored." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + " IS NULL)" + 
+          " - COUNTIF(Recomputed." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + 
+          " IS NULL) AS DayCountChange" +
+        " FROM (SELECT " + 
+          IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + " AS " + 
+            OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + ", " +
+          IAMBindingsSchema.TIMESTAMP_COLUMN + " AS " + 
+            OrgDailyBindingsSchema.TIMESTAMP_COLUMN + ", " +
+          "SUM(" + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + ") AS " + 
+            OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN +
+          " FROM `" + IAM_TABLE + "`" +
+          " WHERE UNIX_SECONDS(" + IAMBindingsSchema.TIMESTAMP_COLUMN + ") IN UNNEST(@days)" +
+          " GROUP BY " + 
+            IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN + ", " + 
+            IAMBindingsSchema.TIMESTAMP_COLUMN + ") AS Recomputed" +
+        " FULL OUTER JOIN (SELECT * FROM `" + ORG_DAILY_BINDINGS_TABLE + "`" +
+          " WHERE UNIX_SECONDS(" + OrgDailyBindingsSchema.TIMESTAMP_COLUMN + 
+            ") IN UNNEST(@days)) AS Stored" +
+        " ON Recomputed." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + 
+          " = Stored." + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN +
+        " AND Recomputed." + OrgDailyBindingsSchema.TIMESTAMP_COLUMN + 
+          " = Stored." + OrgDailyBindingsSchema.TIMESTAMP_COLUMN +
+        " GROUP BY " + BindingsSummarySchema.SCOPE_ID_COLUMN + ") AS Source" +
+      APPLY_SUMMARY_CHANGES;
+
+  /** 
+   * Subtracts the rows of the IAM Bindings and Org Daily Bindings tables from before 
+   * {@code cutoff}, in UTC milliseconds since the epoch, from the Bindings Summary 
+   * table. It must run in the same transaction as the statements deleting those rows, 
+   * so that they are subtracted exactly once. 
+   */
+  public static final String SUBTRACT_OLD_DATA_FROM_SUMMARIES = 
+    "MERGE `" + BINDINGS_SUMMARY_TABLE + "` AS Target" +
+      " USING (SELECT '" + BindingsSummarySchema.PROJECT_SCOPE + "' AS " + 
+          BindingsSummarySchema.SCOPE_TYPE_COLUMN + ", " +
+        IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + " AS " + 
+          BindingsSummarySchema.SCOPE_ID_COLUMN + ", " +
+        "-SUM(" + IAMBindingsSchema.NUMBER_BINDINGS_COLUMN + ") AS BindingsChange, " +
+        "-COUNT(*) AS DayCountChange" +
+        " FROM `" + IAM_TABLE + "`" +
+        " WHERE " + IAMBindingsSchema.TIMESTAMP_COLUMN + " < TIMESTAMP_MILLIS(@cutoff)" +
+        " GROUP BY " + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN +
+        " UNION ALL SELECT '" + BindingsSummarySchema.ORGANIZATION_SCOPE + "', " +
+        OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + ", " +
+        "-SUM(" + OrgDailyBindingsSchema.TOTAL_BINDINGS_COLUMN + "), " +
+        "-COUNT(*)" +
+        " FROM `" + ORG_DAILY_BINDINGS_TABLE + "`" +
+        " WHERE " + OrgDailyBindingsSchema.TIMESTAMP_COLUMN + " < TIMESTAMP_MILLIS(@cutoff)" +
+        " GROUP BY " + OrgDailyBindingsSchema.ORGANIZATION_ID_COLUMN + ") AS Source" +
+      APPLY_SUMMARY_CHANGES;
+
+  /** 
+   * Separates the statements of a transaction. No statement of the catalog contains 
+   * a line break, so a transaction can be split back into its statements. 
+   */
+  public static final String STATEMENT_SEPARATOR = ";\n";
+
+  /** Starts a transaction of several statements of the catalog. */
+  public static final String BEGIN_TRANSACTION = "BEGIN TRANSACTION";
+
+  /** Commits the transaction started by {@code BEGIN_TRANSACTION}. */
+  public static final String COMMIT_TRANSACTION = "COMMIT TRANSACTION";
 
   /** Retrieves the most recent timestamp from the IAM Bindings Table. */
   public static final String GET_MOST_RECENT_TIMESTAMP = 
     "SELECT MAX(" + IAMBindingsSchema.TIMESTAMP_COLUMN + ") AS Max_Timestamp" + 
       " FROM " + IAM_TABLE;
 
-  /** Deletes 365-day-old data from the IAM bindings table. */
+  /** 
+   * Retrieves the newest row in the IAM Bindings table for every project, with 
+   * every column of the table. 
+   */
+  public static final String GET_LATEST_BINDINGS_PER_PROJECT = 
+    "SELECT * EXCEPT(RowNumber) FROM (" +
+      "SELECT *, ROW_NUMBER() OVER (" +
+        "PARTITION BY " + IAMBindingsSchema.IAM_PROJECT_ID_COLUMN + 
+        " ORDER BY " + IAMBindingsSchema.TIMESTAMP_COLUMN + " DESC) AS RowNumber" +
+      " FROM `" + IAM_TABLE + "`)" +
+      " WHERE RowNumber = 1";
+
+  /** 
+   * Deletes the data from before {@code cutoff}, in UTC milliseconds since the 
+   * epoch, from the IAM bindings table. 
+   */
   public static final String DELETE_OLD_DATA_FROM_IAM_TABLE = 
     "DELETE FROM `" + IAM_TABLE + "`" +
-      " WHERE " + IAMBindingsSchema.TIMESTAMP_COLUMN + " < " + 
-        " TIMESTAMP_SUB(CURRENT_TIMESTAMP(), INTERVAL 365 DAY)";
+      " WHERE " + IAMBindingsSchema.TIMESTAMP_COLUMN + " < TIMESTAMP_MILLIS(@cutoff)";
 
-  /** Deletes 365-day-old data from the recommendations table. */
+  /** 
+   * Deletes the data from before {@code cutoff}, in UTC milliseconds since the 
+   * epoch, from the Org Daily Bindings table. Apart from the table name, the 
+   * statement is the same as {@code DELETE_OLD_DATA_FROM_IAM_TABLE}. 
+   */
+  public static final String DELETE_OLD_DATA_FROM_ORG_DAILY_BINDINGS_TABLE = 
+    "DELETE FROM `" + ORG_DAILY_BINDINGS_TABLE + "`" +
+      " WHERE " + OrgDailyBindingsSchema.TIMESTAMP_COLUMN + " < TIMESTAMP_MILLIS(@cutoff)";
+
+  /** 
+   * Deletes the recommendations accepted before {@code cutoff}, in UTC milliseconds 
+   * since the epoch, from the recommendations table. 
+   */
   public static final String DELETE_OLD_DATA_FROM_RECOMMENDATIONS_TABLE = 
     "DELETE FROM `" + RECOMMENDATIONS_TABLE + "`" +
-      " WHERE " + RecommendationsSchema.ACCEPTED_TIMESTAMP_COLUMN + " < " + 
-        " TIMESTAMP_SUB(CURRENT_TIMESTAMP(), INTERVAL 365 DAY)";
+      " WHERE " + RecommendationsSchema.ACCEPTED_TIMESTAMP_COLUMN + 
+        " < TIMESTAMP_MILLIS(@cutoff)";
+
+  /** 
+   * Inserts the report {@code report}, as JSON, of the update of shard {@code shard} 
+   * out of {@code shardCount} of the update {@code runId} that started at 
+   * {@code startTimestamp}, in UTC milliseconds since the epoch, into the update runs 
+   * table. 
+   */
+  public static final String INSERT_UPDATE_RUN = 
+    "INSERT INTO `" + UPDATE_RUNS_TABLE + "` (" +
+      UpdateRunsSchema.START_TIMESTAMP_COLUMN + ", " +
+      UpdateRunsSchema.SHARD_COLUMN + ", " +
+      UpdateRunsSchema.SHARD_COUNT_COLUMN + ", " +
+      UpdateRunsSchema.REPORT_COLUMN + ", " +
+      UpdateRunsSchema.RUN_ID_COLUMN + ")" +
+      " VALUES (TIMESTAMP_MILLIS(@startTimestamp), @shard, @shardCount, @report, @runId)";
+
+  /** Retrieves the reports of the {@code limit} most recent updates, newest first. */
+  public static final String GET_RECENT_UPDATE_RUNS = 
+    "SELECT " + UpdateRunsSchema.REPORT_COLUMN + 
+      " FROM `" + UPDATE_RUNS_TABLE + "`" +
+      " ORDER BY " + UpdateRunsSchema.START_TIMESTAMP_COLUMN + " DESC, " + 
+        UpdateRunsSchema.SHARD_COLUMN +
+      " LIMIT @limit";
+
+  /** 
+   * Retrieves the reports stored by the shards of the sharded update {@code runId}, 
+   * by shard and then oldest first. 
+   */
+  public static final String GET_UPDATE_RUN_REPORTS = 
+    "SELECT " + UpdateRunsSchema.REPORT_COLUMN + 
+      " FROM `" + UPDATE_RUNS_TABLE + "`" +
+      " WHERE " + UpdateRunsSchema.RUN_ID_COLUMN + " = @runId" +
+      " ORDER BY " + UpdateRunsSchema.SHARD_COLUMN + ", " + 
+        UpdateRunsSchema.START_TIMESTAMP_COLUMN;
 }
@@ -1,10 +1,14 @@
 package com.google.impactdashboard.database_manager.bigquery;
 
 import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.recommendation.*;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 /** 
  * A class for building query configuration builder objects and storing them, 
  * so that they only need to be built once. 
@@ -21,11 +25,22 @@ public class QueryConfigurationBuilder {
   private final QueryJobConfiguration.Builder getOrganizationDatesToBindingsConfiguration;
   private final QueryJobConfiguration.Builder getDatesToIAMRecommendationsConfiguration;
   private final QueryJobConfiguration.Builder getOrganizationDatesToRecommendationsConfiguration;
-  private final String insertValuesIAMTableConfiguration;
+  private final String createIAMStagingTableConfiguration;
+  private final String mergeStagingIntoIAMTableConfiguration;
   private final String insertValuesRecommendationsTableConfiguration;
   private final QueryJobConfiguration.Builder deleteOldDataIAMTableConfiguration;
   private final QueryJobConfiguration.Builder deleteOldDataRecommendationsTableConfiguration;
   private final QueryJobConfiguration.Builder getMostRecentTimestampConfiguration;
+  private final QueryJobConfiguration.Builder getLatestBindingsConfiguration;
+  private final QueryJobConfiguration.Builder insertUpdateRunConfiguration;
+  private final QueryJobConfiguration.Builder getRecentUpdateRunsConfiguration;
+  private final QueryJobConfiguration.Builder getUpdateRunReportsConfiguration;
+  private final String mergeDaysIntoOrgDailyBindingsConfiguration;
+  private final QueryJobConfiguration.Builder deleteOldDataOrgDailyBindingsConfiguration;
+  private final String mergeStagingIntoProjectSummariesConfiguration;
+  private final String mergeDaysIntoOrganizationSummariesConfiguration;
+  private final QueryJobConfiguration.Builder subtractOldDataFromSummariesConfiguration;
+  private final QueryJobConfiguration.Builder getAllAverageBindingsConfiguration;
 
   protected QueryConfigurationBuilder(
     QueryJobConfiguration.Builder getProjectIdsConfiguration, 
@@ -38,11 +53,22 @@ public class QueryConfigurationBuilder {
     QueryJobConfiguration.Builder getOrganizationDatesToBindingsConfiguration, 
     QueryJobConfiguration.Builder getDatesToIAMRecommendationsConfiguration, 
     QueryJobConfiguration.Builder getOrganizationDatesToRecommendationsConfiguration, 
-    String insertValuesIAMTableConfiguration, 
+    String createIAMStagingTableConfiguration, 
+    String mergeStagingIntoIAMTableConfiguration, 
     String insertValuesRecommendationsTableConfiguration, 
     QueryJobConfiguration.Builder deleteOldDataIAMTableConfiguration, 
     QueryJobConfiguration.Builder deleteOldDataRecommendationsTableConfiguration, 
-    QueryJobConfiguration.Builder getMostRecentTimestampConfiguration) {
+    QueryJobConfiguration.Builder getMostRecentTimestampConfiguration,
+    QueryJobConfiguration.Builder getLatestBindingsConfiguration,
+    QueryJobConfiguration.Builder insertUpdateRunConfiguration,
+    QueryJobConfiguration.Builder getRecentUpdateRunsConfiguration,
+    QueryJobConfiguration.Builder getUpdateRunReportsConfiguration,
+    String mergeDaysIntoOrgDailyBindingsConfiguration,
+    QueryJobConfiguration.Builder deleteOldDataOrgDailyBindingsConfiguration,
+    String mergeStagingIntoProjectSummariesConfiguration,
+    String mergeDaysIntoOrganizationSummariesConfiguration,
+    QueryJobConfiguration.Builder subtractOldDataFromSummariesConfiguration,
+    QueryJobConfiguration.Builder getAllAverageBindingsConfiguration) {
 
     this.getProjectIdsConfiguration = getProjectIdsConfiguration;
     this.getOrganizationIdsConfiguration = getOrganizationIdsConfiguration;
@@ -56,13 +82,28 @@ public class QueryConfigurationBuilder {
     this.getDatesToIAMRecommendationsConfiguration = getDatesToIAMRecommendationsConfiguration;
     this.getOrganizationDatesToRecommendationsConfiguration = 
       getOrganizationDatesToRecommendationsConfiguration;
-    this.insertValuesIAMTableConfiguration = insertValuesIAMTableConfiguration;
+    this.createIAMStagingTableConfiguration = createIAMStagingTableConfiguration;
+    this.mergeStagingIntoIAMTableConfiguration = mergeStagingIntoIAMTableConfiguration;
     this.insertValuesRecommendationsTableConfiguration = 
       insertValuesRecommendationsTableConfiguration;
     this.deleteOldDataIAMTableConfiguration = deleteOldDataIAMTableConfiguration;
     this.deleteOldDataRecommendationsTableConfiguration = 
       deleteOldDataRecommendationsTableConfiguration;
     this.getMostRecentTimestampConfiguration = getMostRecentTimestampConfiguration;
+    this.getLatestBindingsConfiguration = getLatestBindingsConfiguration;
+    this.insertUpdateRunConfiguration = insertUpdateRunConfiguration;
+    this.getRecentUpdateRunsConfiguration = getRecentUpdateRunsConfiguration;
+    this.getUpdateRunReportsConfiguration = getUpdateRunReportsConfiguration;
+    this.mergeDaysIntoOrgDailyBindingsConfiguration = 
+      mergeDaysIntoOrgDailyBindingsConfiguration;
+    this.deleteOldDataOrgDailyBindingsConfiguration = 
+      deleteOldDataOrgDailyBindingsConfiguration;
+    this.mergeStagingIntoProjectSummariesConfiguration = 
+      mergeStagingIntoProjectSummariesConfiguration;
+    this.mergeDaysIntoOrganizationSummariesConfiguration = 
+      mergeDaysIntoOrganizationSummariesConfiguration;
+    this.subtractOldDataFromSummariesConfiguration = subtractOldDataFromSummariesConfiguration;
+    this.getAllAverageBindingsConfiguration = getAllAverageBindingsConfiguration;
   }
 
   /** 
@@ -99,7 +140,8 @@ public class QueryConfigurationBuilder {
 
   /** 
    * Retrieves parameterized query job configuration that retrieves the 
-   * average number of bindings for a single project for every entry in the table. 
+   * average number of bindings for a single project for every entry in the table,
+   * from the Bindings Summary table. 
    */
   public QueryJobConfiguration.Builder getAverageBindingsConfiguration() {
     return getAverageBindingsConfiguration;
@@ -114,6 +156,14 @@ public class QueryConfigurationBuilder {
     return getAverageOrganizationBindingsConfiguration;
   }
 
+  /**
+   * Retrieves query job configuration that retrieves the average number of bindings 
+   * of every project and organization from the Bindings Summary table.
+   */
+  public QueryJobConfiguration.Builder getAllAverageBindingsConfiguration() {
+    return getAllAverageBindingsConfiguration;
+  }
+
   /**
    * Retrieves parameterized query job configuration that retrieves all 
    * (timestamp, number of bindings) data in the table for a single project. 
@@ -124,9 +174,9 @@ public class QueryConfigurationBuilder {
 
   /**
    * Retrieves parameterized query job configuration that retrieves all 
-   * (timestamp, total bindings) data in the IAM table such that 'total bindings'
-   * is the sum of bindings across all projects belonging to a particular
-   * organization on 'timestamp'.
+   * (timestamp, total bindings) data in the Org Daily Bindings table such that 
+   * 'total bindings' is the sum of bindings across all projects belonging to a 
+   * particular organization on 'timestamp'.
    */
   public QueryJobConfiguration.Builder getOrganizationDatesToBindingsConfiguration() {
     return getOrganizationDatesToBindingsConfiguration;
@@ -151,36 +201,59 @@ public class QueryConfigurationBuilder {
   }
 
   /**
-   * Retrieves query job configuration that inserts {@code values} into the 
-   * IAM Bindings table.
+   * Retrieves query job configuration that stages {@code values} in a temporary 
+   * table, which the statements of {@code mergeStagingIntoProjectSummariesConfiguration} 
+   * and {@code mergeStagingIntoIAMTableConfiguration} that follow it in the same 
+   * transaction read. If several values share a (project id, timestamp) key, only the 
+   * last of them is staged.
    * @param values The data to be inserted. 
    */
   public QueryJobConfiguration.Builder 
-    insertValuesIAMTableConfiguration(List<IAMBindingDatabaseEntry> values) {
-    String sqlFormattedValues = values.stream()
-      .map(bindingData -> String.format(
-        "('%s', '%s', '%s', '%s', '%s', " + 
-        "TIMESTAMP_ADD('1970-01-01 00:00:00 UTC', INTERVAL %s SECOND), %s)", 
-        bindingData.getProjectId(), bindingData.getProjectName(), 
-        bindingData.getProjectNumber(), bindingData.getIdentification().getId(),
-        bindingData.getIdentification().getName(), bindingData.getTimestamp() / 1000, 
-        bindingData.getBindingsNumber()))
-      .collect(Collectors.joining(", "));
+    createIAMStagingTableConfiguration(List<IAMBindingDatabaseEntry> values) {
+    return QueryJobConfiguration
+      .newBuilder(String.format(createIAMStagingTableConfiguration, getStagedIAMValues(values)))
+      .setUseLegacySql(false);
+  }
 
+  /**
+   * Retrieves query job configuration that upserts the values staged by 
+   * {@code createIAMStagingTableConfiguration} into the IAM Bindings table. 
+   */
+  public QueryJobConfiguration.Builder mergeStagingIntoIAMTableConfiguration() {
     return QueryJobConfiguration
-      .newBuilder(insertValuesIAMTableConfiguration + sqlFormattedValues).setUseLegacySql(false);
+      .newBuilder(mergeStagingIntoIAMTableConfiguration)
+      .setUseLegacySql(false);
   }
 
   /**
-   * Retrieves query job configuration that inserts {@code values} into the 
-   * Recommendations table. 
+   * Retrieves query job configuration that adds the change that upserting the values 
+   * staged by {@code createIAMStagingTableConfiguration} into the IAM Bindings table 
+   * makes to the sums and day counts of their projects in the Bindings Summary table. 
+   * It must run right before the statement of {@code mergeStagingIntoIAMTableConfiguration}, 
+   * in the same transaction.
+   */
+  public QueryJobConfiguration.Builder mergeStagingIntoProjectSummariesConfiguration() {
+    return QueryJobConfiguration
+      .newBuilder(mergeStagingIntoProjectSummariesConfiguration)
+      .setUseLegacySql(false);
+  }
+
+  /**
+   * Retrieves query job configuration that upserts {@code values} into the 
+   * Recommendations table. If several values share a (project id, accepted 
+   * timestamp, actor) key, only the last of them is written.
    * @param values The recommendations to be inserted.
    */
   public QueryJobConfiguration.Builder 
     insertValuesRecommendationsTableConfiguration(List<Recommendation> values) {
-    String sqlFormattedValues = values.stream()
+    Map<String, Recommendation> valuesByKey = new LinkedHashMap<>();
+    values.forEach(recommendation -> valuesByKey.put(
+      recommendation.getProjectId() + "/" + recommendation.getAcceptedTimestamp() / 1000 + 
+        "/" + recommendation.getActor(), recommendation));
+
+    String sqlFormattedValues = valuesByKey.values().stream()
       .map(recommendation -> String.format(
-        "('%s', '%s', '%s', '%s', [%s], " + 
+        "STRUCT('%s', '%s', '%s', '%s', [%s], " + 
           "TIMESTAMP_ADD('1970-01-01 00:00:00 UTC', INTERVAL %s SECOND), %s)",
         recommendation.getProjectId(), recommendation.getOrganizationId(),
         recommendation.getRecommender(), recommendation.getActor(), 
@@ -190,21 +263,21 @@ public class QueryConfigurationBuilder {
       .collect(Collectors.joining(", "));
 
     return QueryJobConfiguration
-      .newBuilder(insertValuesRecommendationsTableConfiguration + sqlFormattedValues)
+      .newBuilder(String.format(insertValuesRecommendationsTableConfiguration, sqlFormattedValues))
       .setUseLegacySql(false);
   }
   
   /** 
-   * Retrieves query job configuration that deletes 365-day-old data from the 
-   * IAM bindings table.
+   * Retrieves parameterized query job configuration that deletes data from before 
+   * a cutoff from the IAM bindings table.
    */
   public QueryJobConfiguration.Builder deleteOldDataIAMTableConfiguration() {
     return deleteOldDataIAMTableConfiguration;
   }
 
   /**
-   * Retrieves query job configuration that deletes 365-day-old data from the 
-   * Recommendations table.
+   * Retrieves parameterized query job configuration that deletes the recommendations 
+   * accepted before a cutoff from the Recommendations table.
    */
   public QueryJobConfiguration.Builder deleteOldDataRecommendationsTableConfiguration() {
     return deleteOldDataRecommendationsTableConfiguration;
@@ -218,6 +291,141 @@ public class QueryConfigurationBuilder {
     return getMostRecentTimestampConfiguration;
   }
 
+  /**
+   * Retrieves query job configuration that gets the newest entry of every 
+   * project in the IAM Bindings Table.
+   */
+  public QueryJobConfiguration.Builder getLatestBindingsConfiguration() {
+    return getLatestBindingsConfiguration;
+  }
+
+  /**
+   * Retrieves parameterized query job configuration that inserts the report of 
+   * one update into the Update Runs table.
+   */
+  public QueryJobConfiguration.Builder insertUpdateRunConfiguration() {
+    return insertUpdateRunConfiguration;
+  }
+
+  /**
+   * Retrieves parameterized query job configuration that retrieves the reports 
+   * of the most recent updates from the Update Runs table.
+   */
+  public QueryJobConfiguration.Builder getRecentUpdateRunsConfiguration() {
+    return getRecentUpdateRunsConfiguration;
+  }
+
+  /**
+   * Retrieves parameterized query job configuration that retrieves the reports 
+   * stored by the shards of a single sharded update from the Update Runs table.
+   */
+  public QueryJobConfiguration.Builder getUpdateRunReportsConfiguration() {
+    return getUpdateRunReportsConfiguration;
+  }
+
+  /**
+   * Retrieves query job configuration that recomputes the rows of the Org Daily 
+   * Bindings table for every day that one of {@code values} is on, from the rows 
+   * of the IAM Bindings table on those days.
+   * @param values The data that was just stored in the IAM Bindings table.
+   */
+  public QueryJobConfiguration.Builder 
+    mergeDaysIntoOrgDailyBindingsConfiguration(List<IAMBindingDatabaseEntry> values) {
+    return QueryJobConfiguration
+      .newBuilder(mergeDaysIntoOrgDailyBindingsConfiguration)
+      .addNamedParameter("days", QueryParameterValue.array(getDays(values), Long.class))
+      .setUseLegacySql(false);
+  }
+
+  /**
+   * Retrieves query job configuration that adds the change that recomputing the 
+   * Org Daily Bindings table for every day that one of {@code values} is on makes to 
+   * the sums and day counts of the organizations in the Bindings Summary table. It 
+   * must run right before the statement of {@code mergeDaysIntoOrgDailyBindingsConfiguration}
+   * for the same values, in the same transaction.
+   * @param values The data that was just stored in the IAM Bindings table.
+   */
+  public QueryJobConfiguration.Builder 
+    mergeDaysIntoOrganizationSummariesConfiguration(List<IAMBindingDatabaseEntry> values) {
+    return QueryJobConfiguration
+      .newBuilder(mergeDaysIntoOrganizationSummariesConfiguration)
+      .addNamedParameter("days", QueryParameterValue.array(getDays(values), Long.class))
+      .setUseLegacySql(false);
+  }
+
+  /**
+   * Retrieves parameterized query job configuration that deletes data from before 
+   * a cutoff from the Org Daily Bindings table.
+   */
+  public QueryJobConfiguration.Builder deleteOldDataOrgDailyBindingsConfiguration() {
+    return deleteOldDataOrgDailyBindingsConfiguration;
+  }
+
+  /**
+   * Retrieves parameterized query job configuration that subtracts the IAM Bindings 
+   * and Org Daily Bindings rows from before a cutoff from the Bindings Summary table. 
+   * It must run in the same transaction as the statements deleting those rows.
+   */
+  public QueryJobConfiguration.Builder subtractOldDataFromSummariesConfiguration() {
+    return subtractOldDataFromSummariesConfiguration;
+  }
+
+  /**
+   * Returns query job configuration that runs {@code statements} in order in a 
+   * single transaction, with the parameters of all of them, so that either all of 
+   * them are applied or none is. Statements that set the same parameter must set it 
+   * to the same value.
+   */
+  public QueryJobConfiguration.Builder transactionConfiguration(
+    List<QueryJobConfiguration> statements) {
+    Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+    statements.forEach(statement -> parameters.putAll(statement.getNamedParameters()));
+
+    String script = Stream.of(
+        Stream.of(Queries.BEGIN_TRANSACTION),
+        statements.stream().map(QueryJobConfiguration::getQuery),
+        Stream.of(Queries.COMMIT_TRANSACTION))
+      .flatMap(stream -> stream)
+      .collect(Collectors.joining(Queries.STATEMENT_SEPARATOR));
+
+    return QueryJobConfiguration
+      .newBuilder(script)
+      .setNamedParameters(parameters)
+      .setUseLegacySql(false);
+  }
+
+  /** 
+   * Returns {@code values} formatted as a list of SQL structs of the IAM Bindings 
+   * table. If several values share a (project id, timestamp) key, only the last of 
+   * them is kept.
+   */
+  private String getStagedIAMValues(List<IAMBindingDatabaseEntry> values) {
+    Map<String, IAMBindingDatabaseEntry> valuesByKey = new LinkedHashMap<>();
+    values.forEach(bindingData -> valuesByKey.put(
+      bindingData.getProjectId() + "/" + bindingData.getTimestamp() / 1000, bindingData));
+
+    return valuesByKey.values().stream()
+      .map(bindingData -> String.format(
+        "STRUCT('%s', '%s', '%s', '%s', '%s', " + 
+        "TIMESTAMP_ADD('1970-01-01 00:00:00 UTC', INTERVAL %s SECOND), %s)", 
+        bindingData.getProjectId(), bindingData.getProjectName(), 
+        bindingData.getProjectNumber(), bindingData.getIdentification().getId(),
+        bindingData.getIdentification().getName(), bindingData.getTimestamp() / 1000, 
+        bindingData.getBindingsNumber()))
+      .collect(Collectors.joining(", "));
+  }
+
+  /** 
+   * Returns the distinct days of {@code values}, as timestamps in seconds since the 
+   * epoch. 
+   */
+  private static Long[] getDays(List<IAMBindingDatabaseEntry> values) {
+    return values.stream()
+      .map(bindingData -> bindingData.getTimestamp() / 1000)
+      .distinct()
+      .toArray(Long[]::new);
+  }
+
   /** Returns {@code actions} formatted as a list of SQL structs. */
   private String getFormattedActionsList(List<RecommendationAction> actions) {
     return actions.stream()
@@ -32,11 +32,11 @@ public class QueryConfigurationBuilderEmpty extends QueryConfigurationBuilder {
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_AVERAGE_BINDINGS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
-        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE))
+        .replace(Constants.BINDINGS_SUMMARY_TABLE, Constants.EMPTY_BINDINGS_SUMMARY_TABLE))
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_ORGANIZATION_AVERAGE_BINDINGS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
-        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE))
+        .replace(Constants.BINDINGS_SUMMARY_TABLE, Constants.EMPTY_BINDINGS_SUMMARY_TABLE))
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_DATES_TO_BINDINGS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
@@ -44,7 +44,7 @@ public class QueryConfigurationBuilderEmpty extends QueryConfigurationBuilder {
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_ORGANIZATION_DATES_TO_BINDINGS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
-        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE))
+        .replace(Constants.ORG_DAILY_BINDINGS_TABLE, Constants.EMPTY_ORG_DAILY_BINDINGS_TABLE))
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_DATES_TO_IAM_RECOMMENDATIONS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
@@ -54,10 +54,11 @@ public class QueryConfigurationBuilderEmpty extends QueryConfigurationBuilder {
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
         .replace(Constants.RECOMMENDATIONS_TABLE, Constants.EMPTY_RECOMMENDATIONS_TABLE))
         .setUseLegacySql(false),
-      Queries.INSERT_VALUES_INTO_IAM_TABLE
+      Queries.CREATE_IAM_STAGING_TABLE,
+      Queries.MERGE_STAGING_INTO_IAM_TABLE
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
         .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE),
-      Queries.INSERT_VALUES_INTO_RECOMMENDATIONS_TABLE
+      Queries.MERGE_VALUES_INTO_RECOMMENDATIONS_TABLE
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
         .replace(Constants.RECOMMENDATIONS_TABLE, Constants.EMPTY_RECOMMENDATIONS_TABLE),
       QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_IAM_TABLE
@@ -71,6 +72,46 @@ public class QueryConfigurationBuilderEmpty extends QueryConfigurationBuilder {
       QueryJobConfiguration.newBuilder(Queries.GET_MOST_RECENT_TIMESTAMP
         .replace(Constants.DATABASE, Constants.TEST_DATABASE)
         .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_LATEST_BINDINGS_PER_PROJECT
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.INSERT_UPDATE_RUN
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_RECENT_UPDATE_RUNS
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_UPDATE_RUN_REPORTS
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      Queries.MERGE_DAYS_INTO_ORG_DAILY_BINDINGS_TABLE
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE)
+        .replace(Constants.ORG_DAILY_BINDINGS_TABLE, Constants.EMPTY_ORG_DAILY_BINDINGS_TABLE),
+      QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_ORG_DAILY_BINDINGS_TABLE
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.ORG_DAILY_BINDINGS_TABLE, Constants.EMPTY_ORG_DAILY_BINDINGS_TABLE))
+        .setUseLegacySql(false),
+      Queries.MERGE_STAGING_INTO_PROJECT_SUMMARIES
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE)
+        .replace(Constants.BINDINGS_SUMMARY_TABLE, Constants.EMPTY_BINDINGS_SUMMARY_TABLE),
+      Queries.MERGE_DAYS_INTO_ORGANIZATION_SUMMARIES
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE)
+        .replace(Constants.ORG_DAILY_BINDINGS_TABLE, Constants.EMPTY_ORG_DAILY_BINDINGS_TABLE)
+        .replace(Constants.BINDINGS_SUMMARY_TABLE, Constants.EMPTY_BINDINGS_SUMMARY_TABLE),
+      QueryJobConfiguration.newBuilder(Queries.SUBTRACT_OLD_DATA_FROM_SUMMARIES
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.IAM_BINDINGS_TABLE, Constants.EMPTY_IAM_BINDINGS_TABLE)
+        .replace(Constants.ORG_DAILY_BINDINGS_TABLE, Constants.EMPTY_ORG_DAILY_BINDINGS_TABLE)
+        .replace(Constants.BINDINGS_SUMMARY_TABLE, Constants.EMPTY_BINDINGS_SUMMARY_TABLE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_ALL_AVERAGE_BINDINGS
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE)
+        .replace(Constants.BINDINGS_SUMMARY_TABLE, Constants.EMPTY_BINDINGS_SUMMARY_TABLE))
         .setUseLegacySql(false));
   }
 
@@ -43,9 +43,10 @@ public class QueryConfigurationBuilderFake extends QueryConfigurationBuilder {
       QueryJobConfiguration.newBuilder(Queries.GET_ORGANIZATION_DATES_TO_RECOMMENDATIONS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE))
         .setUseLegacySql(false),
-      Queries.INSERT_VALUES_INTO_IAM_TABLE
+      Queries.CREATE_IAM_STAGING_TABLE,
+      Queries.MERGE_STAGING_INTO_IAM_TABLE
         .replace(Constants.DATABASE, Constants.TEST_DATABASE),
-      Queries.INSERT_VALUES_INTO_RECOMMENDATIONS_TABLE
+      Queries.MERGE_VALUES_INTO_RECOMMENDATIONS_TABLE
         .replace(Constants.DATABASE, Constants.TEST_DATABASE),
       QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_IAM_TABLE
         .replace(Constants.DATABASE, Constants.TEST_DATABASE))
@@ -54,6 +55,33 @@ public class QueryConfigurationBuilderFake extends QueryConfigurationBuilder {
         .replace(Constants.DATABASE, Constants.TEST_DATABASE))
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_MOST_RECENT_TIMESTAMP
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_LATEST_BINDINGS_PER_PROJECT
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.INSERT_UPDATE_RUN
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_RECENT_UPDATE_RUNS
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_UPDATE_RUN_REPORTS
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      Queries.MERGE_DAYS_INTO_ORG_DAILY_BINDINGS_TABLE
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE),
+      QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_ORG_DAILY_BINDINGS_TABLE
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      Queries.MERGE_STAGING_INTO_PROJECT_SUMMARIES
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE),
+      Queries.MERGE_DAYS_INTO_ORGANIZATION_SUMMARIES
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE),
+      QueryJobConfiguration.newBuilder(Queries.SUBTRACT_OLD_DATA_FROM_SUMMARIES
+        .replace(Constants.DATABASE, Constants.TEST_DATABASE))
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_ALL_AVERAGE_BINDINGS
         .replace(Constants.DATABASE, Constants.TEST_DATABASE))
         .setUseLegacySql(false));
   }
@@ -32,13 +32,31 @@ public class QueryConfigurationBuilderImpl extends QueryConfigurationBuilder {
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_ORGANIZATION_DATES_TO_RECOMMENDATIONS)
         .setUseLegacySql(false),
-      Queries.INSERT_VALUES_INTO_IAM_TABLE,
-      Queries.INSERT_VALUES_INTO_RECOMMENDATIONS_TABLE,
+      Queries.CREATE_IAM_STAGING_TABLE,
+      Queries.MERGE_STAGING_INTO_IAM_TABLE,
+      Queries.MERGE_VALUES_INTO_RECOMMENDATIONS_TABLE,
       QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_IAM_TABLE)
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_RECOMMENDATIONS_TABLE)
         .setUseLegacySql(false),
       QueryJobConfiguration.newBuilder(Queries.GET_MOST_RECENT_TIMESTAMP)
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_LATEST_BINDINGS_PER_PROJECT)
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.INSERT_UPDATE_RUN)
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_RECENT_UPDATE_RUNS)
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_UPDATE_RUN_REPORTS)
+        .setUseLegacySql(false),
+      Queries.MERGE_DAYS_INTO_ORG_DAILY_BINDINGS_TABLE,
+      QueryJobConfiguration.newBuilder(Queries.DELETE_OLD_DATA_FROM_ORG_DAILY_BINDINGS_TABLE)
+        .setUseLegacySql(false),
+      Queries.MERGE_STAGING_INTO_PROJECT_SUMMARIES,
+      Queries.MERGE_DAYS_INTO_ORGANIZATION_SUMMARIES,
+      QueryJobConfiguration.newBuilder(Queries.SUBTRACT_OLD_DATA_FROM_SUMMARIES)
+        .setUseLegacySql(false),
+      QueryJobConfiguration.newBuilder(Queries.GET_ALL_AVERAGE_BINDINGS)
         .setUseLegacySql(false));
   }
 
@@ -0,0 +1,122 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.TableResult;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Shares the results of read queries between the requests that make them. A read that 
+ * is made while an identical one (same query text and parameters) is running waits for 
+ * its result instead of starting a job of its own, and the result is reused until the 
+ * database is updated through the same accessor, or for at most {@code TTL_MILLIS} in 
+ * case it was updated by another instance. Each update starts a new generation of 
+ * results, which only exists on this instance, so the key that jobs are named after 
+ * leaves it out.
+ */
+class QueryResultCache {
+
+  /** How long a result is reused, in milliseconds, if the database isn't updated. */
+  static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  /** The maximum number of results kept. */
+  private static final long MAX_RESULTS = 1000;
+
+  /** How the result of a read was obtained, as recorded in the metrics and spans. */
+  enum Reuse {
+    /** The result was read by a new job. */
+    NONE,
+    /** The result of a read of the same generation was reused. */
+    CACHED,
+    /** The read waited for an identical read that was already running. */
+    COALESCED
+  }
+
+  private final AtomicLong generation = new AtomicLong();
+  private final ConcurrentMap<String, CompletableFuture<TableResult>> pendingReads =
+      new ConcurrentHashMap<>();
+  private final Cache<String, TableResult> results;
+
+  QueryResultCache() {
+    this(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  QueryResultCache(Ticker ticker) {
+    results = CacheBuilder.newBuilder().maximumSize(MAX_RESULTS)
+        .expireAfterWrite(TTL_MILLIS, TimeUnit.MILLISECONDS).ticker(ticker).build();
+  }
+
+  /**
+   * Returns the result of {@code query}, reused or shared if possible, or else read by 
+   * {@code read}, which is given the key of the query to name its job after.
+   * @param onReuse Told how the result was obtained.
+   * @throws RuntimeException If {@code read} fails, including when it was run for an 
+   *     identical read that this one waited for.
+   */
+  TableResult read(QueryJobConfiguration query, Function<String, TableResult> read, 
+      Consumer<Reuse> onReuse) {
+    String queryKey = getQueryKey(query);
+    String key = generation.get() + ":" + queryKey;
+    TableResult cached = results.getIfPresent(key);
+    if (cached != null) {
+      onReuse.accept(Reuse.CACHED);
+      return cached;
+    }
+
+    CompletableFuture<TableResult> pending = new CompletableFuture<>();
+    CompletableFuture<TableResult> running = pendingReads.putIfAbsent(key, pending);
+    if (running != null) {
+      onReuse.accept(Reuse.COALESCED);
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() :
+            new RuntimeException(e.getCause());
+      }
+    }
+
+    onReuse.accept(Reuse.NONE);
+    try {
+      TableResult result = read.apply(queryKey);
+      results.put(key, result);
+      pending.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      pending.completeExceptionally(e);
+      throw e;
+    } finally {
+      pendingReads.remove(key, pending);
+    }
+  }
+
+  /** 
+   * Starts a new generation after the database was updated, so that no result read 
+   * before is reused. Reads already running are not shared with the reads made after. 
+   */
+  void invalidate() {
+    generation.incrementAndGet();
+    results.invalidateAll();
+  }
+
+  /** 
+   * Returns a string that is the same for queries with the same text and parameters, 
+   * whatever the order their named parameters were set in. 
+   */
+  @VisibleForTesting
+  static String getQueryKey(QueryJobConfiguration query) {
+    return query.getQuery() + "\n" + new TreeMap<>(query.getNamedParameters()) + "\n" + 
+        query.getPositionalParameters();
+  }
+}
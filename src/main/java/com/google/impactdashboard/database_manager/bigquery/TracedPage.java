@@ -0,0 +1,79 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.api.gax.paging.Page;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Page of query results that fetches the pages after it in a span each, as part of the 
+ * span current when they are fetched, so that the time spent paging through a large 
+ * result with {@code iterateAll} shows up in the trace of the read.
+ */
+class TracedPage<T> implements Page<T> {
+  private final Page<T> page;
+  private final String jobId;
+
+  /** Creates a page of the results of the job {@code jobId} that wraps {@code page}. */
+  TracedPage(Page<T> page, String jobId) {
+    this.page = page;
+    this.jobId = jobId;
+  }
+
+  @Override
+  public boolean hasNextPage() {
+    return page.hasNextPage();
+  }
+
+  @Override
+  public String getNextPageToken() {
+    return page.getNextPageToken();
+  }
+
+  @Override
+  public TracedPage<T> getNextPage() {
+    if (!page.hasNextPage()) {
+      return null;
+    }
+    try (Span span = Tracer.getInstance().startSpan("BigQuery.fetchPage")) {
+      span.setAttribute("job_id", jobId);
+      try {
+        return new TracedPage<>(page.getNextPage(), jobId);
+      } catch (RuntimeException e) {
+        span.recordError(e);
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Iterable<T> iterateAll() {
+    return () -> new Iterator<T>() {
+      private TracedPage<T> current = TracedPage.this;
+      private Iterator<T> values = page.getValues().iterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!values.hasNext() && current.hasNextPage()) {
+          current = current.getNextPage();
+          values = current.getValues().iterator();
+        }
+        return values.hasNext();
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return values.next();
+      }
+    };
+  }
+
+  @Override
+  public Iterable<T> getValues() {
+    return page.getValues();
+  }
+}
@@ -1,8 +1,10 @@
 package com.google.impactdashboard.database_manager.data_read;
 
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.organization.OrganizationIdentification;
 import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +37,20 @@ public interface DataReadManager {
    */
   public double getOrganizationAvgBindingsInPastYear(String organizationId);
 
+  /**
+   * Returns a map of the ids of the projects in the IAM Bindings table to the 
+   * average number of IAM bindings they had per day, as returned by 
+   * {@code getAverageIAMBindingsInPastYear}.
+   */
+  public Map<String, Double> listAverageIAMBindingsInPastYear();
+
+  /**
+   * Returns a map of the ids of the organizations in the IAM Bindings table to the 
+   * average number of bindings summed across their projects per day, as returned by 
+   * {@code getOrganizationAvgBindingsInPastYear}.
+   */
+  public Map<String, Double> listOrganizationAvgBindingsInPastYear();
+
   /**
    *  Returns a map of dates (as timestamps in UTC milliseconds since the epoch) 
    *  to the Recommendation applied on that date to the project with id {@code projectId}.
@@ -69,4 +85,22 @@ public interface DataReadManager {
    * nothing in the table, returns -1.
    */
   public long getMostRecentTimestamp();
+
+  /**
+   * Returns a map of project ids to the newest entry stored for that project 
+   * in the IAM Bindings table.
+   */
+  public Map<String, IAMBindingDatabaseEntry> getLatestIAMBindingsEntries();
+
+  /**
+   * Returns the reports of the {@code limit} most recent database updates, newest 
+   * first. A sharded update has one report per shard.
+   */
+  public List<UpdateRunReport> listUpdateRunReports(int limit);
+
+  /**
+   * Returns the reports stored by the shards of the sharded update {@code runId}, by 
+   * shard and then oldest first. A shard has one report per attempt at it.
+   */
+  public List<UpdateRunReport> listUpdateRunReports(String runId);
 }
@@ -11,13 +11,13 @@ public class DataReadManagerFactory {
   /** 
    * If {@code useFakeDataReadManager} is set to true, then returns a fake DataReadManager 
    * for testing purposes, otherwise returns a real DataReadManager that actually
-   * accesses the database. 
+   * accesses the database, with a span for each read. 
    */
   public static DataReadManager create() {
     if (Configuration.useFakeDataReadManager) {
       return new DataReadManagerFake();
     } else {
-      return new DataReadManagerImpl();
+      return new TracedDataReadManager(new DataReadManagerImpl());
     }
   }
 }
@@ -1,8 +1,10 @@
 package com.google.impactdashboard.database_manager.data_read;
 
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.organization.OrganizationIdentification;
 import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.database_manager.FakeDatabase;
 
 import java.util.List;
@@ -48,6 +50,26 @@ public class DataReadManagerFake implements DataReadManager {
     return FakeDatabase.getAvgBindingsForOrganization(organizationId);
   }
 
+  /**
+   * Returns a map of the ids of the projects in the IAM Bindings table to the 
+   * average number of IAM bindings they had per day, as returned by 
+   * {@code getAverageIAMBindingsInPastYear}.
+   */
+  @Override
+  public Map<String, Double> listAverageIAMBindingsInPastYear() {
+    return FakeDatabase.getAvgBindingsForAllProjects();
+  }
+
+  /**
+   * Returns a map of the ids of the organizations in the IAM Bindings table to the 
+   * average number of bindings summed across their projects per day, as returned by 
+   * {@code getOrganizationAvgBindingsInPastYear}.
+   */
+  @Override
+  public Map<String, Double> listOrganizationAvgBindingsInPastYear() {
+    return FakeDatabase.getAvgBindingsForAllOrganizations();
+  }
+
   /**
    *  Returns a map of dates (as timestamps in UTC milliseconds since the epoch) 
    *  to the Recommendation applied on that date to the project with id {@code projectId}.
@@ -94,4 +116,26 @@ public class DataReadManagerFake implements DataReadManager {
   public long getMostRecentTimestamp() {
     return FakeDatabase.getMaxTimestamp();
   }
+
+  /**
+   * Returns a map of project ids to the newest entry stored for that project 
+   * in the IAM Bindings table.
+   */
+  public Map<String, IAMBindingDatabaseEntry> getLatestIAMBindingsEntries() {
+    return FakeDatabase.getLatestBindingsEntries();
+  }
+
+  /**
+   * Returns the reports of the {@code limit} most recent database updates, newest 
+   * first. A sharded update has one report per shard.
+   */
+  @Override
+  public List<UpdateRunReport> listUpdateRunReports(int limit) {
+    return FakeDatabase.listUpdateRunReports(limit);
+  }
+
+  @Override
+  public List<UpdateRunReport> listUpdateRunReports(String runId) {
+    return FakeDatabase.listUpdateRunReports(runId);
+  }
 }
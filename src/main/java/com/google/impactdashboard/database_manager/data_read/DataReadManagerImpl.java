@@ -1,8 +1,10 @@
 package com.google.impactdashboard.database_manager.data_read;
 
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.organization.OrganizationIdentification;
 import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.recommendation.*;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.configuration.*;
 import com.google.impactdashboard.database_manager.bigquery.*;
 import java.util.List;
@@ -24,7 +26,7 @@ public class DataReadManagerImpl implements DataReadManager {
   QueryConfigurationBuilder queryConfigurationBuilder;
 
   public DataReadManagerImpl() {
-    database = DatabaseAccessor.getInstance(); 
+    database = DatabaseAccessorFactory.create();
     queryConfigurationBuilder = QueryConfigurationBuilderFactory.create();
   }
   
@@ -93,6 +95,48 @@ public class DataReadManagerImpl implements DataReadManager {
 
   }
 
+  /**
+   * Returns a map of the ids of the projects in the IAM Bindings table to the 
+   * average number of IAM bindings they had per day, as returned by 
+   * {@code getAverageIAMBindingsInPastYear}.
+   */
+  @Override
+  public Map<String, Double> listAverageIAMBindingsInPastYear() {
+    return listAverageBindings(BindingsSummarySchema.PROJECT_SCOPE);
+  }
+
+  /**
+   * Returns a map of the ids of the organizations in the IAM Bindings table to the 
+   * average number of bindings summed across their projects per day, as returned by 
+   * {@code getOrganizationAvgBindingsInPastYear}.
+   */
+  @Override
+  public Map<String, Double> listOrganizationAvgBindingsInPastYear() {
+    return listAverageBindings(BindingsSummarySchema.ORGANIZATION_SCOPE);
+  }
+
+  /**
+   * Returns a map of the ids of every project or organization, as {@code scopeType} 
+   * says, in the Bindings Summary table to their average number of bindings. Both 
+   * scope types are read with the same query, so that the reads of one page share a 
+   * single scan of the table.
+   */
+  private Map<String, Double> listAverageBindings(String scopeType) {
+    QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
+      .getAllAverageBindingsConfiguration().build();
+    TableResult results = database.readDatabase(queryConfiguration);
+
+    Map<String, Double> averageBindings = new HashMap<>();
+    results.iterateAll().forEach(row -> {
+      if (row.get(BindingsSummarySchema.SCOPE_TYPE_COLUMN).getStringValue().equals(scopeType)
+        && !row.get("AverageBindings").isNull()) {
+        averageBindings.put(row.get(BindingsSummarySchema.SCOPE_ID_COLUMN).getStringValue(),
+          row.get("AverageBindings").getDoubleValue());
+      }
+    });
+    return averageBindings;
+  }
+
   /**
    * Returns the number contained in the 'AverageBindings' field that 
    * {@code queryConfiguration} returns, or 0.0 if that field doesn't exist.
@@ -229,6 +273,68 @@ public class DataReadManagerImpl implements DataReadManager {
     }
   }
 
+  /**
+   * Returns a map of project ids to the newest entry stored for that project 
+   * in the IAM Bindings table.
+   */
+  @Override
+  public Map<String, IAMBindingDatabaseEntry> getLatestIAMBindingsEntries() {
+    QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
+      .getLatestBindingsConfiguration()
+      .build();
+    TableResult results = database.readDatabase(queryConfiguration);
+
+    Map<String, IAMBindingDatabaseEntry> latestEntries = new HashMap<>();
+    results.iterateAll().forEach(row -> {
+      String projectId = row.get(IAMBindingsSchema.IAM_PROJECT_ID_COLUMN).getStringValue();
+      latestEntries.put(projectId, IAMBindingDatabaseEntry.create(projectId,
+        row.get(IAMBindingsSchema.PROJECT_NAME_COLUMN).getStringValue(),
+        row.get(IAMBindingsSchema.PROJECT_NUMBER_COLUMN).getStringValue(),
+        OrganizationIdentification.create(
+          row.get(IAMBindingsSchema.ORGANIZATION_NAME_COLUMN).getStringValue(),
+          row.get(IAMBindingsSchema.IAM_ORGANIZATION_ID_COLUMN).getStringValue()),
+        row.get(IAMBindingsSchema.TIMESTAMP_COLUMN).getTimestampValue() / 1000,
+        (int) row.get(IAMBindingsSchema.NUMBER_BINDINGS_COLUMN).getLongValue()));
+    });
+    return latestEntries;
+  }
+
+  /**
+   * Returns the reports of the {@code limit} most recent database updates, newest 
+   * first. A sharded update has one report per shard.
+   */
+  @Override
+  public List<UpdateRunReport> listUpdateRunReports(int limit) {
+    QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
+      .getRecentUpdateRunsConfiguration()
+      .addNamedParameter("limit", QueryParameterValue.int64(limit))
+      .build();
+    TableResult results = database.readDatabase(queryConfiguration);
+
+    return getUpdateRunReports(results);
+  }
+
+  /**
+   * Returns the reports stored by the shards of the sharded update {@code runId}, by 
+   * shard and then oldest first.
+   */
+  @Override
+  public List<UpdateRunReport> listUpdateRunReports(String runId) {
+    QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
+      .getUpdateRunReportsConfiguration()
+      .addNamedParameter("runId", QueryParameterValue.string(runId))
+      .build();
+    return getUpdateRunReports(database.readDatabase(queryConfiguration));
+  }
+
+  /** Returns the reports held, as JSON, by the rows of {@code results}. */
+  private static List<UpdateRunReport> getUpdateRunReports(TableResult results) {
+    List<UpdateRunReport> reports = new ArrayList<>();
+    results.iterateAll().forEach(row -> reports.add(UpdateRunReport.fromJson(
+      row.get(UpdateRunsSchema.REPORT_COLUMN).getStringValue())));
+    return reports;
+  }
+
   /**
    * Queries the IAM database for information about the project with id 
    * {@code projectId}, and returns a {@code ProjectIdentification} object 
@@ -0,0 +1,125 @@
+package com.google.impactdashboard.database_manager.data_read;
+
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/** 
+ * DataReadManager that starts a span for each call to another DataReadManager, so that
+ * the queries it runs are grouped by the read they were made for.
+ */
+class TracedDataReadManager implements DataReadManager {
+  private final DataReadManager readManager;
+  private final Tracer tracer = Tracer.getInstance();
+
+  TracedDataReadManager(DataReadManager readManager) {
+    this.readManager = readManager;
+  }
+
+  @Override
+  public List<ProjectIdentification> listProjects() {
+    return trace("listProjects", null, null, readManager::listProjects);
+  }
+
+  @Override
+  public List<OrganizationIdentification> listOrganizations() {
+    return trace("listOrganizations", null, null, readManager::listOrganizations);
+  }
+
+  @Override
+  public double getAverageIAMBindingsInPastYear(String projectId) {
+    return trace("getAverageIAMBindingsInPastYear", "project_id", projectId,
+        () -> readManager.getAverageIAMBindingsInPastYear(projectId));
+  }
+
+  @Override
+  public double getOrganizationAvgBindingsInPastYear(String organizationId) {
+    return trace("getOrganizationAvgBindingsInPastYear", "organization_id", organizationId,
+        () -> readManager.getOrganizationAvgBindingsInPastYear(organizationId));
+  }
+
+  @Override
+  public Map<String, Double> listAverageIAMBindingsInPastYear() {
+    return trace("listAverageIAMBindingsInPastYear", null, null,
+        readManager::listAverageIAMBindingsInPastYear);
+  }
+
+  @Override
+  public Map<String, Double> listOrganizationAvgBindingsInPastYear() {
+    return trace("listOrganizationAvgBindingsInPastYear", null, null,
+        readManager::listOrganizationAvgBindingsInPastYear);
+  }
+
+  @Override
+  public Map<Long, Recommendation> getMapOfDatesToRecommendationTaken(String projectId) {
+    return trace("getMapOfDatesToRecommendationTaken", "project_id", projectId,
+        () -> readManager.getMapOfDatesToRecommendationTaken(projectId));
+  }
+
+  @Override
+  public Map<Long, Recommendation> getOrganizationDatesToRecommendations(
+      String organizationId) {
+    return trace("getOrganizationDatesToRecommendations", "organization_id", organizationId,
+        () -> readManager.getOrganizationDatesToRecommendations(organizationId));
+  }
+
+  @Override
+  public Map<Long, Integer> getMapOfDatesToIAMBindings(String projectId) {
+    return trace("getMapOfDatesToIAMBindings", "project_id", projectId,
+        () -> readManager.getMapOfDatesToIAMBindings(projectId));
+  }
+
+  @Override
+  public Map<Long, Integer> getOrganizationDatesToBindings(String organizationId) {
+    return trace("getOrganizationDatesToBindings", "organization_id", organizationId,
+        () -> readManager.getOrganizationDatesToBindings(organizationId));
+  }
+
+  @Override
+  public long getMostRecentTimestamp() {
+    return trace("getMostRecentTimestamp", null, null, readManager::getMostRecentTimestamp);
+  }
+
+  @Override
+  public Map<String, IAMBindingDatabaseEntry> getLatestIAMBindingsEntries() {
+    return trace("getLatestIAMBindingsEntries", null, null,
+        readManager::getLatestIAMBindingsEntries);
+  }
+
+  @Override
+  public List<UpdateRunReport> listUpdateRunReports(int limit) {
+    return trace("listUpdateRunReports", "limit", limit,
+        () -> readManager.listUpdateRunReports(limit));
+  }
+
+  @Override
+  public List<UpdateRunReport> listUpdateRunReports(String runId) {
+    return trace("listUpdateRunReports", "run_id", runId,
+        () -> readManager.listUpdateRunReports(runId));
+  }
+
+  /** 
+   * Returns the result of {@code read} in a span for the method {@code method}, with the
+   * attribute {@code key} set to {@code value} unless {@code key} is null. 
+   */
+  private <T> T trace(String method, String key, Object value, Supplier<T> read) {
+    try (Span span = tracer.startSpan("DataReadManager." + method)) {
+      if (key != null) {
+        span.setAttribute(key, value);
+      }
+      try {
+        return read.get();
+      } catch (RuntimeException e) {
+        span.recordError(e);
+        throw e;
+      }
+    }
+  }
+}
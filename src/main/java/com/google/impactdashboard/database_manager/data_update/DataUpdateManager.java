@@ -2,6 +2,7 @@ package com.google.impactdashboard.database_manager.data_update;
 
 import com.google.impactdashboard.data.recommendation.Recommendation;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import java.util.List;
 
 /** Interface for managing updates to the database. */
@@ -13,14 +14,22 @@ public interface DataUpdateManager {
   public void deleteYearOldData();
 
   /** 
-   * Stores inputted recommendations in the Recommendations table 
+   * Stores inputted recommendations in the Recommendations table, replacing any 
+   * row with the same project id, accepted timestamp and actor. 
    * @param recommendations A list of recommendations to be added to the database. 
    */
   public void updateRecommendations(List<Recommendation> recommendations);
 
   /** 
-   * Stores inputted IAM bindings information in the IAM Bindings table.
+   * Stores inputted IAM bindings information in the IAM Bindings table, replacing 
+   * any row with the same project id and timestamp, so that storing the same 
+   * data twice is safe.
    * @param iamBindingsData A list of Bindings table entries to be added to the database. 
    */
   public void updateIAMBindings(List<IAMBindingDatabaseEntry> iamBindingsData);
+
+  /**
+   * Stores {@code report}, the report of one database update, in the Update Runs table.
+   */
+  public void storeUpdateRunReport(UpdateRunReport report);
 }
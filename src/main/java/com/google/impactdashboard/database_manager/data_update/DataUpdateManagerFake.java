@@ -2,6 +2,7 @@ package com.google.impactdashboard.database_manager.data_update;
 
 import com.google.impactdashboard.data.recommendation.Recommendation;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.database_manager.FakeDatabase;
 import java.util.List;
 
@@ -33,4 +34,12 @@ public class DataUpdateManagerFake implements DataUpdateManager {
   public void updateIAMBindings(List<IAMBindingDatabaseEntry> iamBindingsData) {
     FakeDatabase.addIAMBindingsData(iamBindingsData);
   }
+
+  /**
+   * Stores {@code report}, the report of one database update, in the Update Runs table.
+   */
+  @Override
+  public void storeUpdateRunReport(UpdateRunReport report) {
+    FakeDatabase.addUpdateRunReport(report);
+  }
 }
@@ -1,10 +1,15 @@
 package com.google.impactdashboard.database_manager.data_update;
 
+import com.google.common.collect.Lists;
 import com.google.impactdashboard.data.recommendation.*;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.database_manager.bigquery.*;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
 
 /** Class for managing updates to the database. */
 public class DataUpdateManagerImpl implements DataUpdateManager {
@@ -12,22 +17,26 @@ public class DataUpdateManagerImpl implements DataUpdateManager {
   QueryConfigurationBuilder queryConfigurationBuilder;
 
   public DataUpdateManagerImpl() {
-    database = DatabaseAccessor.getInstance(); 
+    database = DatabaseAccessorFactory.create();
     queryConfigurationBuilder = QueryConfigurationBuilderFactory.create();
   }
 
   /** 
-   *  Deletes data from both the Recommendations and IAM Bindings tables if that 
-   *  data is over 365 days old.  
+   *  Deletes data from both the Recommendations and IAM Bindings tables, and from 
+   *  the Org Daily Bindings table summed from the latter, if that data is over 365 
+   *  days old. The deleted bindings are subtracted from the Bindings Summary table 
+   *  in the same transaction as they are deleted.
    */
   @Override
   public void deleteYearOldData() {
-    deleteYearOldDataFromIAMTable();
-    deleteYearOldDataFromRecommendationsTable();
+    long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+    deleteOldDataFromBindingsTables(cutoff);
+    deleteOldDataFromRecommendationsTable(cutoff);
   }
 
   /** 
-   * Stores inputted recommendations in the Recommendations table 
+   * Stores inputted recommendations in the Recommendations table, replacing any 
+   * row with the same project id, accepted timestamp and actor. 
    * @param recommendations A list of recommendations to be added to the database.
    */
   @Override
@@ -40,33 +49,83 @@ public class DataUpdateManagerImpl implements DataUpdateManager {
   }
 
   /** 
-   * Stores inputted IAM bindings information in the IAM Bindings table.
+   * The most rows of the IAM Bindings table staged by one transaction. The staged 
+   * values are written into the text of the transaction, which BigQuery caps at 1 MB, 
+   * and a staged row takes a few hundred bytes at most. 
+   */
+  public static final int MAX_STAGED_ROWS = 2000;
+
+  /** 
+   * Stores inputted IAM bindings information in the IAM Bindings table, replacing 
+   * any row with the same project id and timestamp, so that storing the same 
+   * data twice is safe. The Org Daily Bindings table is then recomputed for the 
+   * days of {@code iamBindingsData} only, and the change both make is added to the 
+   * Bindings Summary table. The data is stored {@code MAX_STAGED_ROWS} rows at a time, 
+   * each in one transaction that stages the rows once in a temporary table, as the 
+   * changes are measured against the rows being replaced. The accessor attempts a 
+   * transaction again if the transaction of another shard, or the deletion of old 
+   * data, aborts it.
    * @param iamBindingsData A list of Bindings table entries to be added to the database. 
    */
   @Override
   public void updateIAMBindings(List<IAMBindingDatabaseEntry> iamBindingsData) {
-    if (!iamBindingsData.isEmpty()) {
+    for (List<IAMBindingDatabaseEntry> rows : Lists.partition(iamBindingsData, MAX_STAGED_ROWS)) {
       QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
-        .insertValuesIAMTableConfiguration(iamBindingsData).build();
+        .transactionConfiguration(Arrays.asList(
+          queryConfigurationBuilder.createIAMStagingTableConfiguration(rows).build(),
+          queryConfigurationBuilder.mergeStagingIntoProjectSummariesConfiguration().build(),
+          queryConfigurationBuilder.mergeStagingIntoIAMTableConfiguration().build(),
+          queryConfigurationBuilder.mergeDaysIntoOrganizationSummariesConfiguration(rows).build(),
+          queryConfigurationBuilder.mergeDaysIntoOrgDailyBindingsConfiguration(rows).build()))
+        .build();
       database.updateDatabase(queryConfiguration);
     }
   }
 
   /**
-   * Deletes data from the IAM Bindings table that is over 365 days old.
+   * Stores {@code report}, the report of one database update, in the Update Runs table.
+   */
+  @Override
+  public void storeUpdateRunReport(UpdateRunReport report) {
+    QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
+      .insertUpdateRunConfiguration()
+      .addNamedParameter("startTimestamp", QueryParameterValue.int64(report.getStartTimestamp()))
+      .addNamedParameter("shard", QueryParameterValue.int64(report.getShard()))
+      .addNamedParameter("shardCount", QueryParameterValue.int64(report.getShardCount()))
+      .addNamedParameter("report", QueryParameterValue.string(report.toJson()))
+      .addNamedParameter("runId", QueryParameterValue.string(report.getRunId()))
+      .build();
+    database.updateDatabase(queryConfiguration);
+  }
+
+  /**
+   * Deletes data from before {@code cutoff}, in UTC milliseconds since the epoch, 
+   * from the IAM Bindings and Org Daily Bindings tables, and subtracts it from the 
+   * Bindings Summary table, in one transaction.
    */
-  private void deleteYearOldDataFromIAMTable() {
+  private void deleteOldDataFromBindingsTables(long cutoff) {
+    QueryParameterValue cutoffParameter = QueryParameterValue.int64(cutoff);
     QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
-      .deleteOldDataIAMTableConfiguration().build();
+      .transactionConfiguration(Arrays.asList(
+        queryConfigurationBuilder.subtractOldDataFromSummariesConfiguration()
+          .addNamedParameter("cutoff", cutoffParameter).build(),
+        queryConfigurationBuilder.deleteOldDataIAMTableConfiguration()
+          .addNamedParameter("cutoff", cutoffParameter).build(),
+        queryConfigurationBuilder.deleteOldDataOrgDailyBindingsConfiguration()
+          .addNamedParameter("cutoff", cutoffParameter).build()))
+      .build();
     database.updateDatabase(queryConfiguration); 
   }
 
   /**
-   * Deletes data from the Recommendations table that is over 365 days old.
+   * Deletes data from the Recommendations table from before {@code cutoff}, in UTC 
+   * milliseconds since the epoch.
    */
-  private void deleteYearOldDataFromRecommendationsTable() {
+  private void deleteOldDataFromRecommendationsTable(long cutoff) {
     QueryJobConfiguration queryConfiguration = queryConfigurationBuilder
-      .deleteOldDataRecommendationsTableConfiguration().build();
+      .deleteOldDataRecommendationsTableConfiguration()
+      .addNamedParameter("cutoff", QueryParameterValue.int64(cutoff))
+      .build();
     database.updateDatabase(queryConfiguration); 
   }
 }
@@ -0,0 +1,43 @@
+package com.google.impactdashboard.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/** A metric whose series only go up, such as a number of calls or of bytes processed. */
+public class Counter extends Metric<DoubleAdder> {
+
+  Counter(String name, String help, String... labelNames) {
+    super(name, help, Arrays.asList(labelNames), DoubleAdder::new);
+  }
+
+  /** Adds one to the series with label values {@code labelValues}. */
+  public void increment(String... labelValues) {
+    add(1, labelValues);
+  }
+
+  /**
+   * Adds {@code amount} to the series with label values {@code labelValues}.
+   * @throws IllegalArgumentException If {@code amount} is negative.
+   */
+  public void add(double amount, String... labelValues) {
+    if (amount < 0) {
+      throw new IllegalArgumentException("Counter " + getName() + " cannot decrease");
+    }
+    getSeries(labelValues).add(amount);
+  }
+
+  /** Returns the value of the series with label values {@code labelValues}. */
+  public double get(String... labelValues) {
+    return getSeries(labelValues).sum();
+  }
+
+  @Override
+  protected String getType() {
+    return "counter";
+  }
+
+  @Override
+  protected void writeSeries(StringBuilder output, String labels, DoubleAdder series) {
+    writeSample(output, getName(), labels, series.sum());
+  }
+}
@@ -0,0 +1,101 @@
+package com.google.impactdashboard.metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric that counts observations, such as latencies, in buckets of increasing upper
+ * bounds, and keeps their count and sum.
+ */
+public class Histogram extends Metric<Histogram.Series> {
+
+  /**
+   * Upper bounds, in seconds, suited to latencies from a cached BigQuery query or a fast API
+   * call up to a whole update.
+   */
+  public static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5,
+      1, 2.5, 5, 10, 30, 60, 300, 900};
+
+  private final double[] bucketBounds;
+
+  Histogram(String name, String help, double[] bucketBounds, String... labelNames) {
+    super(name, help, Arrays.asList(labelNames), () -> new Series(bucketBounds.length));
+    this.bucketBounds = bucketBounds.clone();
+  }
+
+  /** Records {@code value} in the series with label values {@code labelValues}. */
+  public void observe(double value, String... labelValues) {
+    Series series = getSeries(labelValues);
+    int bucket = 0;
+    while (bucket < bucketBounds.length && value > bucketBounds[bucket]) {
+      bucket++;
+    }
+    series.buckets[bucket].increment();
+    series.sum.add(value);
+  }
+
+  /**
+   * Records the time elapsed since {@code startNanos}, a value of {@code System.nanoTime()},
+   * in seconds, in the series with label values {@code labelValues}.
+   */
+  public void observeSince(long startNanos, String... labelValues) {
+    observe((System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1),
+        labelValues);
+  }
+
+  /** Returns the number of observations in the series with label values {@code labelValues}. */
+  public long getCount(String... labelValues) {
+    return Arrays.stream(getSeries(labelValues).buckets).mapToLong(LongAdder::sum).sum();
+  }
+
+  /** Returns the number of observations of every series, by label values. */
+  public Map<List<String>, Long> getCounts() {
+    Map<List<String>, Long> counts = new HashMap<>();
+    getAllSeries().forEach((labelValues, series) -> counts.put(labelValues,
+        Arrays.stream(series.buckets).mapToLong(LongAdder::sum).sum()));
+    return counts;
+  }
+
+  /** Returns the sum of the observations in the series with label values {@code labelValues}. */
+  public double getSum(String... labelValues) {
+    return getSeries(labelValues).sum.sum();
+  }
+
+  @Override
+  protected String getType() {
+    return "histogram";
+  }
+
+  @Override
+  protected void writeSeries(StringBuilder output, String labels, Series series) {
+    String separator = labels.isEmpty() ? "" : ",";
+    long cumulativeCount = 0;
+    for (int bucket = 0; bucket <= bucketBounds.length; bucket++) {
+      cumulativeCount += series.buckets[bucket].sum();
+      double bound = bucket < bucketBounds.length ?
+          bucketBounds[bucket] : Double.POSITIVE_INFINITY;
+      writeSample(output, getName() + "_bucket",
+          labels + separator + "le=\"" + formatValue(bound) + "\"", cumulativeCount);
+    }
+    writeSample(output, getName() + "_sum", labels, series.sum.sum());
+    writeSample(output, getName() + "_count", labels, cumulativeCount);
+  }
+
+  /** The observations of one series, counted by bucket, the last one being unbounded. */
+  static class Series {
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    private Series(int bucketCount) {
+      buckets = new LongAdder[bucketCount + 1];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.google.impactdashboard.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Base class of the metrics of the registry. A metric is a family of series, one for each
+ * combination of values of its labels.
+ * @param <S> The type of the series of the metric.
+ */
+public abstract class Metric<S> {
+
+  private final String name;
+  private final String help;
+  private final List<String> labelNames;
+  private final Map<List<String>, S> series = new ConcurrentHashMap<>();
+  private final Supplier<S> seriesFactory;
+
+  protected Metric(String name, String help, List<String> labelNames,
+      Supplier<S> seriesFactory) {
+    this.name = name;
+    this.help = help;
+    this.labelNames = Collections.unmodifiableList(labelNames);
+    this.seriesFactory = seriesFactory;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the series of the metric with label values {@code labelValues}, creating it if
+   * it doesn't exist yet.
+   * @throws IllegalArgumentException If the number of values is not the number of labels.
+   */
+  protected S getSeries(String... labelValues) {
+    if (labelValues.length != labelNames.size()) {
+      throw new IllegalArgumentException("Metric " + name + " has labels " + labelNames +
+          " but was given values " + Arrays.toString(labelValues));
+    }
+    return series.computeIfAbsent(Arrays.asList(labelValues), key -> seriesFactory.get());
+  }
+
+  /** Returns every series of the metric, by label values. */
+  protected Map<List<String>, S> getAllSeries() {
+    return Collections.unmodifiableMap(series);
+  }
+
+  /** Returns the Prometheus type of the metric, such as "counter". */
+  protected abstract String getType();
+
+  /**
+   * Appends the samples of {@code series}, whose labels are already formatted as
+   * {@code labels}, to {@code output} in the Prometheus text format.
+   */
+  protected abstract void writeSeries(StringBuilder output, String labels, S series);
+
+  /** Appends the metric and all of its series to {@code output} in the Prometheus text format. */
+  void write(StringBuilder output) {
+    output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    output.append("# TYPE ").append(name).append(' ').append(getType()).append('\n');
+    series.forEach((labelValues, values) ->
+        writeSeries(output, formatLabels(labelValues), values));
+  }
+
+  /**
+   * Returns {@code labelValues} formatted as the comma separated labels of a sample,
+   * without braces, for example {@code api="IAM",method="roles.get"}.
+   */
+  private String formatLabels(List<String> labelValues) {
+    StringBuilder labels = new StringBuilder();
+    for (int i = 0; i < labelNames.size(); i++) {
+      if (i > 0) {
+        labels.append(',');
+      }
+      labels.append(labelNames.get(i)).append("=\"")
+          .append(escape(labelValues.get(i))).append('"');
+    }
+    return labels.toString();
+  }
+
+  /** Returns {@code value} with the characters the text format requires escaped. */
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  /** Appends one sample named {@code sampleName} to {@code output}. */
+  protected static void writeSample(StringBuilder output, String sampleName, String labels,
+      double value) {
+    output.append(sampleName);
+    if (!labels.isEmpty()) {
+      output.append('{').append(labels).append('}');
+    }
+    output.append(' ').append(formatValue(value)).append('\n');
+  }
+
+  /** Returns {@code value} formatted as the text format expects it. */
+  protected static String formatValue(double value) {
+    if (value == Double.POSITIVE_INFINITY) {
+      return "+Inf";
+    }
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return String.valueOf((long) value);
+    }
+    return String.valueOf(value);
+  }
+}
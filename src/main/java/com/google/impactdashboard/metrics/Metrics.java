@@ -0,0 +1,51 @@
+package com.google.impactdashboard.metrics;
+
+/** The metrics recorded by the dashboard, all registered in the shared MetricsRegistry. */
+public class Metrics {
+
+  private static final MetricsRegistry REGISTRY = MetricsRegistry.getInstance();
+
+  /** Time from creating a query job to its completion, by kind of query and cache hit. */
+  public static final Histogram DATABASE_JOB_DURATION = REGISTRY.histogram(
+      "database_job_duration_seconds", "Time taken by database query jobs.",
+      Histogram.LATENCY_BUCKETS, "database", "type", "cache_hit");
+
+  /** Bytes processed by BigQuery jobs, as reported in their statistics. */
+  public static final Counter BIGQUERY_BYTES_PROCESSED = REGISTRY.counter(
+      "bigquery_bytes_processed_total", "Bytes processed by BigQuery query jobs.", "type");
+
+  /** 
+   * Reads of the database, by whether a new job was run ("none"), the result of an 
+   * identical read was reused ("cached") or an identical running read was waited for 
+   * ("coalesced"). 
+   */
+  public static final Counter DATABASE_READS = REGISTRY.counter(
+      "database_reads_total", "Reads of the database, by reuse of an identical read.",
+      "database", "reuse");
+
+  /** Database jobs that failed. */
+  public static final Counter DATABASE_JOB_ERRORS = REGISTRY.counter(
+      "database_job_errors_total", "Database query jobs that failed.", "database", "type");
+
+  /** Time of each attempt of an external API call, by API, method and outcome. */
+  public static final Histogram API_CALL_DURATION = REGISTRY.histogram(
+      "api_call_duration_seconds", "Time taken by each attempt of an external API call.",
+      Histogram.LATENCY_BUCKETS, "api", "method", "status");
+
+  /** Time taken to handle servlet requests, by path and response status. */
+  public static final Histogram HTTP_REQUEST_DURATION = REGISTRY.histogram(
+      "http_request_duration_seconds", "Time taken to handle servlet requests.",
+      Histogram.LATENCY_BUCKETS, "path", "status");
+
+  /** Time taken by each phase of a database update. */
+  public static final Histogram UPDATE_PHASE_DURATION = REGISTRY.histogram(
+      "update_phase_duration_seconds", "Time taken by each phase of a database update.",
+      Histogram.LATENCY_BUCKETS, "phase");
+
+  /** Time taken by each step of the warm-up of a new instance, by whether it failed. */
+  public static final Histogram WARM_UP_STEP_DURATION = REGISTRY.histogram(
+      "warm_up_step_duration_seconds", "Time taken by each step of the instance warm-up.",
+      Histogram.LATENCY_BUCKETS, "step", "status");
+
+  private Metrics() {}
+}
@@ -0,0 +1,55 @@
+package com.google.impactdashboard.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registry of the metrics of the dashboard, which it can write in the Prometheus text
+ * format. Metrics are kept in memory for the life of the instance.
+ */
+public class MetricsRegistry {
+  private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+  /** The metrics of the registry, by name. */
+  private final Map<String, Metric<?>> metrics = new TreeMap<>();
+
+  /** Returns the registry shared by the whole instance. */
+  public static MetricsRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  MetricsRegistry() {}
+
+  /**
+   * Returns a new counter named {@code name}, with labels {@code labelNames}.
+   * @throws IllegalArgumentException If a metric named {@code name} is already registered.
+   */
+  public synchronized Counter counter(String name, String help, String... labelNames) {
+    return register(new Counter(name, help, labelNames));
+  }
+
+  /**
+   * Returns a new histogram named {@code name} with buckets {@code bucketBounds}, in
+   * increasing order, and labels {@code labelNames}.
+   * @throws IllegalArgumentException If a metric named {@code name} is already registered.
+   */
+  public synchronized Histogram histogram(String name, String help, double[] bucketBounds,
+      String... labelNames) {
+    return register(new Histogram(name, help, bucketBounds, labelNames));
+  }
+
+  private <M extends Metric<?>> M register(M metric) {
+    if (metrics.containsKey(metric.getName())) {
+      throw new IllegalArgumentException("Metric " + metric.getName() + " already exists");
+    }
+    metrics.put(metric.getName(), metric);
+    return metric;
+  }
+
+  /** Returns every metric of the registry in the Prometheus text format. */
+  public synchronized String toPrometheusText() {
+    StringBuilder output = new StringBuilder();
+    metrics.values().forEach(metric -> metric.write(output));
+    return output.toString();
+  }
+}
@@ -9,8 +9,11 @@ import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.project.ProjectMetaData;
 import com.google.impactdashboard.database_manager.data_read.DataReadManager;
 import com.google.impactdashboard.database_manager.data_read.DataReadManagerFactory;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /** Retrieves the all the summary information for projects and organizations. */
@@ -35,19 +38,22 @@ public class DataSummaryRetriever {
    * @return DataSummaryList objects that contains the summaries for organization and projects.
    */
   public DataSummaryList getDataSummary() {
-    return DataSummaryList.create(listProjectInformation(), listOrganizationInformation());
+    try (Span span = Tracer.getInstance().startSpan("DataSummaryRetriever.getDataSummary")) {
+      return DataSummaryList.create(listProjectInformation(), listOrganizationInformation());
+    }
   }
 
   /**
    * Retrieves information about projects from database and compiles them into list of
-   * Project.
+   * Project. The averages of all projects are read at once.
    * @return List of Projects from database
    */
   private List<Project> listProjectInformation() {
     List<ProjectIdentification> projectIdentificationList = readManager.listProjects();
+    Map<String, Double> averageBindings = readManager.listAverageIAMBindingsInPastYear();
     return projectIdentificationList.stream().map(projectIdentification -> {
-      ProjectMetaData projectMetadata = ProjectMetaData.create(readManager.
-          getAverageIAMBindingsInPastYear(projectIdentification.getProjectId()));
+      ProjectMetaData projectMetadata = ProjectMetaData.create(averageBindings
+          .getOrDefault(projectIdentification.getProjectId(), 0.0));
       return Project.create(projectIdentification.getName(),
           projectIdentification.getProjectId(), projectIdentification.getProjectNumber(),
           projectMetadata);
@@ -56,14 +62,15 @@ public class DataSummaryRetriever {
 
   /**
    * Retrieves information about organizations from database and compiles them into list of
-   * Project.
+   * Project. The averages of all organizations are read at once.
    * @return List of organizations from database
    */
   private List<Organization> listOrganizationInformation() {
     List<OrganizationIdentification> organizationIdentificationList = readManager.listOrganizations();
+    Map<String, Double> averageBindings = readManager.listOrganizationAvgBindingsInPastYear();
     return organizationIdentificationList.stream().map(organizationIdentification -> Organization
-        .create(organizationIdentification, readManager
-            .getOrganizationAvgBindingsInPastYear(organizationIdentification.getId()))
+        .create(organizationIdentification,
+            averageBindings.getOrDefault(organizationIdentification.getId(), 0.0))
     ).collect(Collectors.toList());
   }
 }
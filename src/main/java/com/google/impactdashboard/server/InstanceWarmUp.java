@@ -0,0 +1,121 @@
+package com.google.impactdashboard.server;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.JsonObject;
+import com.google.impactdashboard.Credentials;
+import com.google.impactdashboard.database_manager.bigquery.DatabaseAccessorFactory;
+import com.google.impactdashboard.metrics.Metrics;
+import com.google.impactdashboard.server.api_utilities.ApiTransports;
+import com.google.impactdashboard.server.api_utilities.PredefinedRoleCatalog;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prepares a new instance for its first requests: loads the credentials, builds the HTTP
+ * transport and the database client, runs the summary queries so that their results are
+ * cached and downloads the predefined role catalog. The steps run once, one after the
+ * other, on a background thread. The instance is ready when every step has finished,
+ * even if some failed, since a failed step is tried again by the first request that
+ * needs it.
+ */
+public class InstanceWarmUp {
+  private static final InstanceWarmUp INSTANCE = new InstanceWarmUp(createSteps());
+
+  private final Map<String, Callable<?>> steps;
+
+  /** The status of each step: "pending", "running", "done" or "failed: " and the error. */
+  private final Map<String, String> stepStatus =
+      Collections.synchronizedMap(new LinkedHashMap<>());
+  private final AtomicBoolean started = new AtomicBoolean();
+  private volatile boolean ready = false;
+
+  /** Returns the warm-up of the whole instance. */
+  public static InstanceWarmUp getInstance() {
+    return INSTANCE;
+  }
+
+  @VisibleForTesting
+  InstanceWarmUp(Map<String, Callable<?>> steps) {
+    this.steps = steps;
+    steps.keySet().forEach(step -> stepStatus.put(step, "pending"));
+  }
+
+  /** Returns the steps of the warm-up, by name, in the order they run. */
+  private static Map<String, Callable<?>> createSteps() {
+    Map<String, Callable<?>> steps = new LinkedHashMap<>();
+    steps.put("credentials", Credentials::getCredentials);
+    steps.put("http-transport", ApiTransports::getHttpTransport);
+    steps.put("database", DatabaseAccessorFactory::create);
+    steps.put("summaries", () -> DataSummaryRetriever.create().getDataSummary());
+    steps.put("role-catalog", () -> PredefinedRoleCatalog.getInstance().getPermissionCounts());
+    return steps;
+  }
+
+  /**
+   * Starts the warm-up on a background thread, unless it has already been started. The
+   * thread does not keep the instance from shutting down.
+   */
+  public void start() {
+    if (!started.compareAndSet(false, true)) {
+      return;
+    }
+    Thread thread = new Thread(this::run, "instance-warm-up");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Runs every step in order, recording how long each took and whether it failed, then
+   * marks the instance ready.
+   */
+  @VisibleForTesting
+  void run() {
+    try (Span warmUpSpan = Tracer.getInstance().startSpan("InstanceWarmUp", null)) {
+      for (Map.Entry<String, Callable<?>> step : steps.entrySet()) {
+        runStep(step.getKey(), step.getValue());
+      }
+    } finally {
+      ready = true;
+    }
+  }
+
+  private void runStep(String name, Callable<?> step) {
+    long start = System.nanoTime();
+    stepStatus.put(name, "running");
+    try (Span span = Tracer.getInstance().startSpan("InstanceWarmUp." + name)) {
+      try {
+        step.call();
+        stepStatus.put(name, "done");
+        Metrics.WARM_UP_STEP_DURATION.observeSince(start, name, "done");
+      } catch (Exception e) {
+        span.recordError(e);
+        stepStatus.put(name, "failed: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        Metrics.WARM_UP_STEP_DURATION.observeSince(start, name, "failed");
+        System.err.println("WARNING: Warm-up step " + name + " failed: " + e.getMessage());
+      }
+    }
+  }
+
+  /** Returns whether every step of the warm-up has finished. */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /** Returns whether the instance is ready, and the status of each step, as a JSON object. */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    json.addProperty("ready", ready);
+    JsonObject stepsJson = new JsonObject();
+    synchronized (stepStatus) {
+      stepStatus.forEach(stepsJson::addProperty);
+    }
+    json.add("steps", stepsJson);
+    return json;
+  }
+}
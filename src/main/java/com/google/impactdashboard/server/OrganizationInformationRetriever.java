@@ -6,6 +6,8 @@ import com.google.impactdashboard.data.project.ProjectGraphData;
 import com.google.impactdashboard.data.recommendation.Recommendation;
 import com.google.impactdashboard.database_manager.data_read.DataReadManager;
 import com.google.impactdashboard.database_manager.data_read.DataReadManagerFactory;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
 
 import java.util.Map;
 
@@ -32,11 +34,15 @@ public class OrganizationInformationRetriever {
    * @return The OrganizationGraphData from the organizationId that was specified
    */
   public OrganizationGraphData getOrganizationData(String organizationId) {
-    Map<Long, Integer> numberIAMBindingsOnDate =
-        readManager.getOrganizationDatesToBindings(organizationId);
-    Map<Long, Recommendation> recommendationsAppliedOnDate =
-        readManager.getOrganizationDatesToRecommendations(organizationId);
-    return OrganizationGraphData.create(organizationId, numberIAMBindingsOnDate,
-        recommendationsAppliedOnDate);
+    try (Span span = Tracer.getInstance()
+        .startSpan("OrganizationInformationRetriever.getOrganizationData")) {
+      span.setAttribute("organization_id", organizationId);
+      Map<Long, Integer> numberIAMBindingsOnDate =
+          readManager.getOrganizationDatesToBindings(organizationId);
+      Map<Long, Recommendation> recommendationsAppliedOnDate =
+          readManager.getOrganizationDatesToRecommendations(organizationId);
+      return OrganizationGraphData.create(organizationId, numberIAMBindingsOnDate,
+          recommendationsAppliedOnDate);
+    }
   }
 }
@@ -8,6 +8,8 @@ import com.google.impactdashboard.data.project.ProjectMetaData;
 import com.google.impactdashboard.data.recommendation.Recommendation;
 import com.google.impactdashboard.database_manager.data_read.DataReadManager;
 import com.google.impactdashboard.database_manager.data_read.DataReadManagerFactory;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -52,11 +54,14 @@ public class ProjectInformationRetriever {
    * @return The ProjectGraphData from the projectId that was specified
    */
   public ProjectGraphData getProjectData(String projectId) {
-    Map<Long, Integer> numberIAMBindingsOnDate =
-        readManager.getMapOfDatesToIAMBindings(projectId);
-    Map<Long, Recommendation> recommendationsAppliedOnDate =
-        readManager.getMapOfDatesToRecommendationTaken(projectId);
-    return ProjectGraphData.create(projectId, numberIAMBindingsOnDate,
-        recommendationsAppliedOnDate);
+    try (Span span = Tracer.getInstance().startSpan("ProjectInformationRetriever.getProjectData")) {
+      span.setAttribute("project_id", projectId);
+      Map<Long, Integer> numberIAMBindingsOnDate =
+          readManager.getMapOfDatesToIAMBindings(projectId);
+      Map<Long, Recommendation> recommendationsAppliedOnDate =
+          readManager.getMapOfDatesToRecommendationTaken(projectId);
+      return ProjectGraphData.create(projectId, numberIAMBindingsOnDate,
+          recommendationsAppliedOnDate);
+    }
   }
 }
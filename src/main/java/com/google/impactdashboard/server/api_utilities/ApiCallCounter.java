@@ -0,0 +1,61 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.impactdashboard.tracing.Span;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the API call attempts made as part of one trace, such as the trace of an update
+ * run, by API and method. An attempt is counted by the counter of the trace of the span it
+ * is made in, so calls made for other requests on the same instance are left out.
+ */
+public class ApiCallCounter implements AutoCloseable {
+  private static final Map<String, ApiCallCounter> COUNTERS = new ConcurrentHashMap<>();
+
+  private final String traceId;
+  private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+
+  private ApiCallCounter(String traceId) {
+    this.traceId = traceId;
+  }
+
+  /**
+   * Starts counting the attempts made as part of the trace of {@code span}, until the
+   * counter is closed.
+   */
+  public static ApiCallCounter start(Span span) {
+    ApiCallCounter counter = new ApiCallCounter(span.getTraceId());
+    COUNTERS.put(counter.traceId, counter);
+    return counter;
+  }
+
+  /**
+   * Counts an attempt of {@code method} of {@code api} made as part of {@code span}, if
+   * the trace of {@code span} is being counted.
+   */
+  static void record(Span span, String api, String method) {
+    if (span == null) {
+      return;
+    }
+    ApiCallCounter counter = COUNTERS.get(span.getTraceId());
+    if (counter != null) {
+      counter.calls.computeIfAbsent(api + " " + method, key -> new LongAdder()).increment();
+    }
+  }
+
+  /** Returns the number of attempts counted so far by API and method, such as "IAM roles.get". */
+  public Map<String, Long> getCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    calls.forEach((apiMethod, count) -> counts.put(apiMethod, count.sum()));
+    return counts;
+  }
+
+  /** Stops counting the attempts of the trace. */
+  @Override
+  public void close() {
+    COUNTERS.remove(traceId, this);
+  }
+}
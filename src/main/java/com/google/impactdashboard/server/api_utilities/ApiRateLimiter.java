@@ -0,0 +1,236 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.impactdashboard.metrics.Metrics;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+
+import java.util.Random;
+
+/**
+ * Class that limits the rate of the calls made to one external API, shared by every client
+ * of that API. The rate is adjusted with additive increase, multiplicative decrease: each
+ * successful call raises it a little, up to a maximum, and each quota error (HTTP 429,
+ * RESOURCE_EXHAUSTED) halves it. Calls that fail with a quota error or because the API is
+ * unavailable (HTTP 503, UNAVAILABLE) are retried with jittered exponential backoff, but an
+ * unavailable API leaves the rate as it was, since it says nothing about the quota. The
+ * time and outcome of every attempt are recorded in the API call metrics, and as a span of
+ * the trace the call was made in, which also counts it for the ApiCallCounter of the trace.
+ */
+public class ApiRateLimiter {
+
+  /** Limiter for the Cloud Logging API, whose read quota is the smallest. */
+  public static final ApiRateLimiter LOGGING = new ApiRateLimiter("Logging", 2, 20);
+
+  /** Limiter for the Recommender API. */
+  public static final ApiRateLimiter RECOMMENDER = new ApiRateLimiter("Recommender", 10, 50);
+
+  /** Limiter for the IAM API. */
+  public static final ApiRateLimiter IAM = new ApiRateLimiter("IAM", 10, 50);
+
+  /** Limiter for the Cloud Resource Manager API. */
+  public static final ApiRateLimiter RESOURCE_MANAGER =
+      new ApiRateLimiter("Resource Manager", 5, 20);
+
+  /** The lowest rate, in calls per second, that a quota error can lower the rate to. */
+  private static final double MIN_RATE = 0.1;
+
+  /** The increase of the rate, in calls per second, per second of successful calls. */
+  private static final double ADDITIVE_INCREASE = 1.0;
+
+  /** The factor the rate is multiplied by after a quota error. */
+  private static final double MULTIPLICATIVE_DECREASE = 0.5;
+
+  /**
+   * The time after a decrease during which further quota errors don't lower the rate again,
+   * since calls that were already in flight often fail together.
+   */
+  private static final long DECREASE_INTERVAL_MILLIS = 1000;
+
+  /** The maximum number of times a call is attempted. */
+  public static final int MAX_ATTEMPTS = 6;
+
+  /** The backoff before the first retry, doubled before every further retry. */
+  private static final long BASE_BACKOFF_MILLIS = 500;
+
+  /** The longest backoff before a retry. */
+  private static final long MAX_BACKOFF_MILLIS = 32000;
+
+  /** A call to an API, which may throw a checked exception of type {@code E}. */
+  public interface ApiCall<T, E extends Exception> {
+    T call() throws E;
+  }
+
+  /** Waits before a retry. */
+  @VisibleForTesting
+  interface Sleeper {
+    void sleep(long millis) throws InterruptedException;
+  }
+
+  private final String api;
+  private final double maxRate;
+  private final RateLimiter rateLimiter;
+  private final Sleeper sleeper;
+  private final Random random;
+  private double rate;
+  private long lastDecreaseMillis = 0;
+
+  private ApiRateLimiter(String api, double initialRate, double maxRate) {
+    this(api, initialRate, maxRate, Thread::sleep, new Random());
+  }
+
+  @VisibleForTesting
+  ApiRateLimiter(String api, double initialRate, double maxRate, Sleeper sleeper,
+      Random random) {
+    this.api = api;
+    this.maxRate = maxRate;
+    this.rate = initialRate;
+    this.rateLimiter = RateLimiter.create(initialRate);
+    this.sleeper = sleeper;
+    this.random = random;
+  }
+
+  /**
+   * Makes {@code apiCall} once a permit is available, retrying it with backoff if it fails
+   * with a quota error or because the API is unavailable, up to {@code MAX_ATTEMPTS} times.
+   * @param method The name of the API method called, that the call is recorded under.
+   * @return The result of the first successful attempt.
+   * @throws E the exception thrown by the last attempt, or by the first attempt that failed
+   *     with an error that isn't retried.
+   */
+  public <T, E extends Exception> T call(String method, ApiCall<T, E> apiCall) throws E {
+    for (int attempt = 1; ; attempt++) {
+      acquire();
+      long start = System.nanoTime();
+      try {
+        T result = apiCall.call();
+        recordAttempt(method, start, null);
+        onSuccess();
+        return result;
+      } catch (Exception e) {
+        recordAttempt(method, start, e);
+        if (!isRetryable(e)) {
+          throw e;
+        }
+        if (isQuotaError(e)) {
+          onQuotaError();
+        }
+        if (attempt == MAX_ATTEMPTS) {
+          System.err.println("WARNING: " + api + " API call failed after " + attempt +
+              " attempts: " + e.getMessage());
+          throw e;
+        }
+        try {
+          sleeper.sleep(getBackoffMillis(attempt));
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Records an attempt of a call to {@code method} that started at {@code startNanos}, a
+   * value of {@code System.nanoTime()}, and failed with {@code error}, or succeeded if
+   * {@code error} is null.
+   */
+  public void recordAttempt(String method, long startNanos, Throwable error) {
+    recordAttempt(method, startNanos, error, Tracer.getInstance().getCurrentSpan());
+  }
+
+  /**
+   * Records an attempt like {@code recordAttempt(method, startNanos, error)}, as part of
+   * {@code parent}.
+   */
+  private void recordAttempt(String method, long startNanos, Throwable error, Span parent) {
+    String status = error == null ? "ok" : isQuotaError(error) ? "quota_error"
+        : isRetryable(error) ? "unavailable" : "error";
+    Metrics.API_CALL_DURATION.observeSince(startNanos, api, method, status);
+    ApiCallCounter.record(parent, api, method);
+
+    Span span = Tracer.getInstance().startDetachedSpan(api + " " + method, parent, startNanos);
+    span.setAttribute("api", api).setAttribute("method", method).setAttribute("status", status);
+    if (error != null) {
+      span.recordError(error);
+    }
+    span.end();
+  }
+
+  /** Waits until a call can be made at the current rate. */
+  public void acquire() {
+    rateLimiter.acquire();
+  }
+
+  /** Records a successful call, raising the rate a little. */
+  public synchronized void onSuccess() {
+    if (rate < maxRate) {
+      setRate(Math.min(maxRate, rate + ADDITIVE_INCREASE / rate));
+    }
+  }
+
+  /** Records a call that failed with a quota error, halving the rate. */
+  public synchronized void onQuotaError() {
+    long now = System.currentTimeMillis();
+    if (now - lastDecreaseMillis >= DECREASE_INTERVAL_MILLIS) {
+      lastDecreaseMillis = now;
+      setRate(Math.max(MIN_RATE, rate * MULTIPLICATIVE_DECREASE));
+    }
+  }
+
+  /** Returns the number of calls per second currently allowed. */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  private void setRate(double newRate) {
+    rate = newRate;
+    rateLimiter.setRate(newRate);
+  }
+
+  /**
+   * Returns the time to wait before retrying a call that failed {@code attempt} times,
+   * chosen at random up to an exponentially growing limit.
+   */
+  @VisibleForTesting
+  long getBackoffMillis(int attempt) {
+    long limit = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+    return (long) (random.nextDouble() * limit);
+  }
+
+  /** Returns true if {@code throwable}, or one of its causes, is a quota error. */
+  public static boolean isQuotaError(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ApiException) {
+        return ((ApiException) cause).getStatusCode().getCode()
+            == StatusCode.Code.RESOURCE_EXHAUSTED;
+      }
+      if (cause instanceof HttpResponseException) {
+        return ((HttpResponseException) cause).getStatusCode() == 429;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if {@code throwable}, or one of its causes, is a quota error or an error
+   * returned because the API is unavailable.
+   */
+  public static boolean isRetryable(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ApiException) {
+        StatusCode.Code code = ((ApiException) cause).getStatusCode().getCode();
+        return code == StatusCode.Code.RESOURCE_EXHAUSTED || code == StatusCode.Code.UNAVAILABLE;
+      }
+      if (cause instanceof HttpResponseException) {
+        int statusCode = ((HttpResponseException) cause).getStatusCode();
+        return statusCode == 429 || statusCode == 503;
+      }
+    }
+    return false;
+  }
+}
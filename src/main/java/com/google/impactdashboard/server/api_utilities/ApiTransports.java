@@ -0,0 +1,166 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.client.util.SslUtils;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.ExecutorProvider;
+import com.google.api.gax.core.FixedExecutorProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.api.gax.rpc.TransportChannelProvider;
+import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.impactdashboard.Credentials;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Class holding the transports shared by every Google API client of the dashboard. The
+ * REST clients (IAM and Resource Manager) share one HTTP transport whose kept-alive
+ * connections are reused across requests, and the gRPC clients (Logging and Recommender)
+ * share one pool of channels per endpoint, so creating a client for each update doesn't
+ * open new connections or repeat TLS handshakes. The endpoints can be overridden in
+ * Configuration to point the clients at local fake servers, which are connected to without
+ * TLS or credentials.
+ */
+public final class ApiTransports {
+
+  /**
+   * The number of API calls an update can have in flight at once. Projects are fanned out
+   * on the common fork join pool, and recommendations are fetched on their own executor.
+   */
+  public static final int UPDATE_CONCURRENCY = Math.max(ForkJoinPool.getCommonPoolParallelism(),
+      RecommendationRetriever.MAX_CONCURRENT_FETCHES);
+
+  /** The number of concurrent calls each gRPC channel of a pool is sized for. */
+  private static final int CALLS_PER_CHANNEL = 4;
+
+  /** The number of gRPC channels opened to each endpoint. */
+  public static final int CHANNEL_POOL_SIZE =
+      (UPDATE_CONCURRENCY + CALLS_PER_CHANNEL - 1) / CALLS_PER_CHANNEL;
+
+  /** The number of HTTP connections pooled for each host. */
+  public static final int MAX_HTTP_CONNECTIONS = 2 * UPDATE_CONCURRENCY;
+
+  /** The number of hosts the REST clients connect to, one for each of their APIs. */
+  private static final int HTTP_HOSTS = 2;
+
+  private static HttpTransport httpTransport = null;
+  private static ScheduledExecutorService backgroundExecutor = null;
+  private static final Map<String, TransportChannelProvider> channelProviders = new HashMap<>();
+
+  private ApiTransports() {}
+
+  /**
+   * Returns the HTTP transport shared by the REST clients. The transport keeps its
+   * connections in its own pool, which holds up to {@code MAX_HTTP_CONNECTIONS} connections
+   * per host, and trusts the same certificates as the Google API clients do by default.
+   */
+  public static synchronized HttpTransport getHttpTransport()
+      throws IOException, GeneralSecurityException {
+    if (httpTransport == null) {
+      SSLContext sslContext = SslUtils.getTlsSslContext();
+      SslUtils.initSslContext(sslContext, GoogleUtils.getCertificateTrustStore(),
+          SslUtils.getPkixTrustManagerFactory());
+      PoolingHttpClientConnectionManager connectionManager =
+          new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+              .register("http", PlainConnectionSocketFactory.getSocketFactory())
+              .register("https", new SSLConnectionSocketFactory(sslContext))
+              .build());
+      connectionManager.setDefaultMaxPerRoute(MAX_HTTP_CONNECTIONS);
+      connectionManager.setMaxTotal(HTTP_HOSTS * MAX_HTTP_CONNECTIONS);
+      httpTransport = new ApacheHttpTransport(ApacheHttpTransport.newDefaultHttpClientBuilder()
+          .setConnectionManager(connectionManager)
+          .build());
+    }
+    return httpTransport;
+  }
+
+  /**
+   * Returns the request initializer that authorizes the requests of a REST client with
+   * {@code scopes}, or one that sends them without credentials if {@code rootUrlOverride}
+   * is set.
+   */
+  public static HttpRequestInitializer getHttpRequestInitializer(String rootUrlOverride,
+      Collection<String> scopes) {
+    if (!rootUrlOverride.isEmpty()) {
+      return request -> {};
+    }
+    return new HttpCredentialsAdapter(Credentials.getCredentials().createScoped(scopes));
+  }
+
+  /**
+   * Returns the credentials of a gRPC client, or no credentials if {@code endpointOverride}
+   * is set.
+   */
+  public static CredentialsProvider getCredentialsProvider(String endpointOverride) {
+    if (!endpointOverride.isEmpty()) {
+      return NoCredentialsProvider.create();
+    }
+    return Credentials::getCredentials;
+  }
+
+  /**
+   * Returns a provider of the channels shared by the gRPC clients, to
+   * {@code endpointOverride} if it is set, and to {@code defaultEndpoint} otherwise. The
+   * channels are opened on the first call for each endpoint, and send {@code headers},
+   * the default headers of the clients of that endpoint, with every call.
+   */
+  public static synchronized TransportChannelProvider getChannelProvider(
+      String defaultEndpoint, String endpointOverride, Map<String, String> headers)
+      throws IOException {
+    boolean overridden = !endpointOverride.isEmpty();
+    String endpoint = overridden ? endpointOverride : defaultEndpoint;
+    TransportChannelProvider channelProvider = channelProviders.get(endpoint);
+    if (channelProvider == null) {
+      InstantiatingGrpcChannelProvider.Builder poolBuilder =
+          InstantiatingGrpcChannelProvider.newBuilder()
+              .setEndpoint(endpoint)
+              .setPoolSize(CHANNEL_POOL_SIZE);
+      if (overridden) {
+        poolBuilder.setChannelConfigurator(channelBuilder -> channelBuilder.usePlaintext());
+      }
+      TransportChannelProvider pool = poolBuilder.build();
+      if (pool.needsExecutor()) {
+        pool = pool.withExecutor(getBackgroundExecutor());
+      }
+      if (pool.needsHeaders()) {
+        pool = pool.withHeaders(headers);
+      }
+      channelProvider = FixedTransportChannelProvider.create(pool.getTransportChannel());
+      channelProviders.put(endpoint, channelProvider);
+    }
+    return channelProvider;
+  }
+
+  /** Returns a provider of the executor shared by the gRPC clients for background work. */
+  public static ExecutorProvider getExecutorProvider() {
+    return FixedExecutorProvider.create(getBackgroundExecutor());
+  }
+
+  /** Returns the executor shared by the gRPC clients and their channels. */
+  private static synchronized ScheduledExecutorService getBackgroundExecutor() {
+    if (backgroundExecutor == null) {
+      backgroundExecutor = Executors.newScheduledThreadPool(CHANNEL_POOL_SIZE,
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("api-transport-%d").build());
+    }
+    return backgroundExecutor;
+  }
+}
@@ -0,0 +1,215 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class that reads the number of members of every role in the policy set by a SetIamPolicy
+ * audit log, straight from the serialized {@code AuditLog} payload. Only the bindings in the
+ * {@code response} policy are decoded; every other field is skipped without being parsed,
+ * and no {@code AuditLog}, {@code Struct} or {@code Value} objects are built.
+ */
+public final class AuditLogBindingsExtractor {
+
+  /** The number of low bits of a tag that hold the wire type of the field. */
+  private static final int TAG_TYPE_BITS = 3;
+
+  /** Field number of {@code response} in {@code google.cloud.audit.AuditLog}. */
+  private static final int AUDIT_LOG_RESPONSE_FIELD = 17;
+
+  /** Field number of {@code fields} in {@code google.protobuf.Struct}. */
+  private static final int STRUCT_FIELDS_FIELD = 1;
+
+  /** Field numbers of the key and value of a map entry. */
+  private static final int MAP_ENTRY_KEY_FIELD = 1;
+  private static final int MAP_ENTRY_VALUE_FIELD = 2;
+
+  /** Field numbers of the {@code google.protobuf.Value} cases that are read. */
+  private static final int VALUE_STRING_FIELD = 3;
+  private static final int VALUE_STRUCT_FIELD = 5;
+  private static final int VALUE_LIST_FIELD = 6;
+
+  /** Field number of {@code values} in {@code google.protobuf.ListValue}. */
+  private static final int LIST_VALUES_FIELD = 1;
+
+  private AuditLogBindingsExtractor() {}
+
+  /**
+   * Returns a map of every role in the policy set by the audit log {@code auditLogPayload} to
+   * the number of members of that role. If a role has several bindings, the last one is used.
+   * @param auditLogPayload The serialized {@code AuditLog} held in a log entry's proto payload.
+   */
+  public static Map<String, Integer> getMembersForRoles(ByteString auditLogPayload) {
+    Map<String, Integer> membersForRoles = new HashMap<>();
+    try {
+      CodedInputStream auditLog = newInput(auditLogPayload);
+      int tag;
+      while ((tag = auditLog.readTag()) != 0) {
+        if (tag == lengthDelimitedTag(AUDIT_LOG_RESPONSE_FIELD)) {
+          ByteString bindings = getStructField(auditLog.readBytes(), "bindings");
+          if (bindings != null) {
+            readBindings(bindings, membersForRoles);
+          }
+        } else if (!auditLog.skipField(tag)) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Invalid Protocol Buffer used");
+    }
+    return membersForRoles;
+  }
+
+  /**
+   * Reads the role and member count of every binding in the serialized {@code Value}
+   * {@code bindings}, which holds a list of binding structs, into {@code membersForRoles}.
+   */
+  private static void readBindings(ByteString bindings, Map<String, Integer> membersForRoles)
+      throws IOException {
+    ByteString bindingList = getValueField(bindings, VALUE_LIST_FIELD);
+    if (bindingList == null) {
+      return;
+    }
+    CodedInputStream input = newInput(bindingList);
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == lengthDelimitedTag(LIST_VALUES_FIELD)) {
+        ByteString binding = getValueField(input.readBytes(), VALUE_STRUCT_FIELD);
+        if (binding != null) {
+          readBinding(binding, membersForRoles);
+        }
+      } else if (!input.skipField(tag)) {
+        break;
+      }
+    }
+  }
+
+  /** Reads the role and member count of the serialized binding struct {@code binding}. */
+  private static void readBinding(ByteString binding, Map<String, Integer> membersForRoles)
+      throws IOException {
+    String role = null;
+    int members = 0;
+    CodedInputStream input = newInput(binding);
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == lengthDelimitedTag(STRUCT_FIELDS_FIELD)) {
+        CodedInputStream entry = newInput(input.readBytes());
+        String key = null;
+        ByteString value = ByteString.EMPTY;
+        int entryTag;
+        while ((entryTag = entry.readTag()) != 0) {
+          if (entryTag == lengthDelimitedTag(MAP_ENTRY_KEY_FIELD)) {
+            key = entry.readStringRequireUtf8();
+          } else if (entryTag == lengthDelimitedTag(MAP_ENTRY_VALUE_FIELD)) {
+            value = entry.readBytes();
+          } else if (!entry.skipField(entryTag)) {
+            break;
+          }
+        }
+        if ("role".equals(key)) {
+          ByteString roleName = getValueField(value, VALUE_STRING_FIELD);
+          role = roleName == null ? "" : roleName.toStringUtf8();
+        } else if ("members".equals(key)) {
+          members = countListValues(getValueField(value, VALUE_LIST_FIELD));
+        }
+      } else if (!input.skipField(tag)) {
+        break;
+      }
+    }
+    if (role != null) {
+      membersForRoles.put(role, members);
+    }
+  }
+
+  /** Returns the number of values in the serialized {@code ListValue} {@code list}. */
+  private static int countListValues(ByteString list) throws IOException {
+    if (list == null) {
+      return 0;
+    }
+    int count = 0;
+    CodedInputStream input = newInput(list);
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == lengthDelimitedTag(LIST_VALUES_FIELD)) {
+        count++;
+      }
+      if (!input.skipField(tag)) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the serialized value of the field {@code name} in the serialized {@code Struct}
+   * {@code struct}, or null if there is no such field.
+   */
+  private static ByteString getStructField(ByteString struct, String name) throws IOException {
+    ByteString fieldValue = null;
+    CodedInputStream input = newInput(struct);
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == lengthDelimitedTag(STRUCT_FIELDS_FIELD)) {
+        CodedInputStream entry = newInput(input.readBytes());
+        boolean matches = false;
+        ByteString value = ByteString.EMPTY;
+        int entryTag;
+        while ((entryTag = entry.readTag()) != 0) {
+          if (entryTag == lengthDelimitedTag(MAP_ENTRY_KEY_FIELD)) {
+            matches = name.equals(entry.readStringRequireUtf8());
+          } else if (entryTag == lengthDelimitedTag(MAP_ENTRY_VALUE_FIELD)) {
+            value = entry.readBytes();
+          } else if (!entry.skipField(entryTag)) {
+            break;
+          }
+        }
+        if (matches) {
+          fieldValue = value;
+        }
+      } else if (!input.skipField(tag)) {
+        break;
+      }
+    }
+    return fieldValue;
+  }
+
+  /**
+   * Returns the contents of the length delimited case {@code field} of the serialized
+   * {@code Value} {@code value}, or null if the value holds a different case.
+   */
+  private static ByteString getValueField(ByteString value, int field) throws IOException {
+    ByteString contents = null;
+    CodedInputStream input = newInput(value);
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == lengthDelimitedTag(field)) {
+        contents = input.readBytes();
+      } else {
+        if (WireFormat.getTagFieldNumber(tag) != field) {
+          contents = null;
+        }
+        if (!input.skipField(tag)) {
+          break;
+        }
+      }
+    }
+    return contents;
+  }
+
+  /** Returns an input reading {@code bytes} that shares their buffer instead of copying it. */
+  private static CodedInputStream newInput(ByteString bytes) {
+    CodedInputStream input = bytes.newCodedInput();
+    input.enableAliasing(true);
+    return input;
+  }
+
+  /** Returns the tag of the length delimited field {@code field}. */
+  private static int lengthDelimitedTag(int field) {
+    return (field << TAG_TYPE_BITS) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  }
+}
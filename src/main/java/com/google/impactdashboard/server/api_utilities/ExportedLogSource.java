@@ -0,0 +1,218 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.cloud.audit.AuditLog;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.logging.v2.LogEntry;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.JsonFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Class that reads audit logs and Recommendation logs from a directory of logs exported by
+ * a log sink, such as an organization-level aggregated sink to Cloud Storage, instead of
+ * calling the logging API. Files may hold newline delimited LogEntry JSON objects, as
+ * written by sinks, or a single JSON array of them, as written by
+ * {@code gcloud logging read --format=json}. All files are read in parallel when the source
+ * is created, and the entries are filtered in memory the same way LogRetriever filters them.
+ */
+public class ExportedLogSource implements LogSource {
+
+  /** The extensions of the files in the export directory that are read. */
+  private static final List<String> LOG_FILE_EXTENSIONS =
+      Arrays.asList(".json", ".ndjson", ".jsonl");
+
+  /** Parser for exported entries, which can unpack audit log payloads. */
+  private static final JsonFormat.Parser PARSER = JsonFormat.parser()
+      .usingTypeRegistry(JsonFormat.TypeRegistry.newBuilder()
+          .add(AuditLog.getDescriptor()).build())
+      .ignoringUnknownFields();
+
+  /** Orders entries newest first. */
+  private static final Comparator<LogEntry> NEWEST_FIRST = Comparator
+      .comparing((LogEntry entry) -> toInstant(entry.getTimestamp())).reversed();
+
+  /** Map of project ids to the audit logs that set IAM policy on that project, newest first. */
+  private final Map<String, List<LogEntry>> auditLogs;
+
+  /** Map of project ids to the accepted recommendation logs of that project, newest first. */
+  private final Map<String, List<LogEntry>> recommendationLogs;
+
+  /**
+   * Static factory method for creating a new ExportedLogSource with the logs exported to
+   * {@code directory} and its subdirectories.
+   * @throws IOException if the directory or one of the log files can't be read.
+   */
+  public static ExportedLogSource create(String directory) throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get(directory))) {
+      files = paths.filter(Files::isRegularFile)
+          .filter(path -> LOG_FILE_EXTENSIONS.stream()
+              .anyMatch(extension -> path.toString().endsWith(extension)))
+          .collect(Collectors.toList());
+    }
+
+    try {
+      return new ExportedLogSource(files.parallelStream()
+          .flatMap(ExportedLogSource::readEntries)
+          .collect(Collectors.toList()));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Creates a source holding the matching entries of {@code exportedEntries}, which are
+   * entries in their exported JSON form. Entries that are neither audit logs that set IAM
+   * policy on a project nor logs of accepted IAM recommendations are dropped.
+   */
+  @VisibleForTesting
+  protected ExportedLogSource(List<JsonObject> exportedEntries) {
+    this.auditLogs = groupByProject(exportedEntries.parallelStream()
+        .filter(ExportedLogSource::isSetIamPolicyAuditLog));
+    this.recommendationLogs = groupByProject(exportedEntries.parallelStream()
+        .filter(ExportedLogSource::isAcceptedIamRecommendationLog));
+  }
+
+  @Override
+  public List<LogEntry> listAuditLogs(String projectId, String timeFrom, String timeTo) {
+    return inWindow(auditLogs, projectId, timeFrom, timeTo);
+  }
+
+  @Override
+  public List<LogEntry> getLatestAuditLog(String projectId, String timeFrom, String timeTo) {
+    return inWindow(auditLogs, projectId, timeFrom, timeTo).stream()
+        .limit(1).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<LogEntry> listRecommendationLogs(String projectId, String timeFrom,
+      String timeTo) {
+    return inWindow(recommendationLogs, projectId, timeFrom, timeTo);
+  }
+
+  @Override
+  public Map<String, List<LogEntry>> listAuditLogsForProjects(List<String> projectIds,
+      String timeFrom, String timeTo) {
+    return projectIds.stream().distinct().collect(Collectors.toMap(Function.identity(),
+        projectId -> listAuditLogs(projectId, timeFrom, timeTo)));
+  }
+
+  @Override
+  public Map<String, List<LogEntry>> listRecommendationLogsForProjects(List<String> projectIds,
+      String timeFrom, String timeTo) {
+    return projectIds.stream().distinct().collect(Collectors.toMap(Function.identity(),
+        projectId -> listRecommendationLogs(projectId, timeFrom, timeTo)));
+  }
+
+  /**
+   * Returns the entries of {@code projectId} in {@code logsByProject} that are strictly
+   * inside the time window given, newest first.
+   */
+  private static List<LogEntry> inWindow(Map<String, List<LogEntry>> logsByProject,
+      String projectId, String timeFrom, String timeTo) {
+    Instant from = timeFrom.equals("") ? Instant.MIN : Instant.parse(timeFrom);
+    Instant to = timeTo.equals("") ? Instant.MAX : Instant.parse(timeTo);
+    return logsByProject.getOrDefault(projectId, new ArrayList<>()).stream()
+        .filter(entry -> {
+          Instant timestamp = toInstant(entry.getTimestamp());
+          return timestamp.isAfter(from) && timestamp.isBefore(to);
+        }).collect(Collectors.toList());
+  }
+
+  /** Returns the parsed entries, grouped by project and sorted newest first. */
+  private static Map<String, List<LogEntry>> groupByProject(Stream<JsonObject> entries) {
+    Map<String, List<LogEntry>> logsByProject = new HashMap<>(entries
+        .map(ExportedLogSource::parseEntry)
+        .collect(Collectors.groupingByConcurrent(LogRetriever::getProjectId)));
+    logsByProject.replaceAll((projectId, logs) ->
+        logs.stream().sorted(NEWEST_FIRST).collect(Collectors.toList()));
+    return logsByProject;
+  }
+
+  /** Returns true if {@code entry} is an audit log that set IAM policy on a project. */
+  private static boolean isSetIamPolicyAuditLog(JsonObject entry) {
+    JsonObject payload = entry.getAsJsonObject("protoPayload");
+    return getString(entry.getAsJsonObject("resource"), "type").equals("project")
+        && getString(entry, "severity").equals("NOTICE")
+        && payload != null && getString(payload, "methodName").contains("SetIamPolicy");
+  }
+
+  /** Returns true if {@code entry} is the log of an accepted IAM recommendation. */
+  private static boolean isAcceptedIamRecommendationLog(JsonObject entry) {
+    JsonObject resource = entry.getAsJsonObject("resource");
+    JsonObject labels = resource == null ? null : resource.getAsJsonObject("labels");
+    return getString(resource, "type").equals("recommender")
+        && getString(labels, "recommender_id").equals("google.iam.policy.Recommender")
+        && getString(entry.getAsJsonObject("jsonPayload"), "state").equals("SUCCEEDED");
+  }
+
+  /** Returns the string {@code field} of {@code object}, or the empty string if it has none. */
+  private static String getString(JsonObject object, String field) {
+    return object == null || !object.has(field) ? "" : object.get(field).getAsString();
+  }
+
+  /**
+   * Converts an exported entry to a {@code LogEntry}. The deprecated {@code serviceData}
+   * field of audit logs is dropped, since its type isn't known to the parser and it isn't
+   * used.
+   */
+  private static LogEntry parseEntry(JsonObject entry) {
+    JsonObject copy = entry.deepCopy();
+    if (copy.has("protoPayload")) {
+      copy.getAsJsonObject("protoPayload").remove("serviceData");
+    }
+    LogEntry.Builder builder = LogEntry.newBuilder();
+    try {
+      PARSER.merge(copy.toString(), builder);
+    } catch (InvalidProtocolBufferException e) {
+      throw new RuntimeException("Invalid exported log entry: " + e.getMessage());
+    }
+    return builder.build();
+  }
+
+  /** Returns the JSON objects held in {@code file}. */
+  private static Stream<JsonObject> readEntries(Path file) {
+    String content;
+    try {
+      content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    if (content.startsWith("[")) {
+      JsonArray entries = JsonParser.parseString(content).getAsJsonArray();
+      return StreamSupport.stream(entries.spliterator(), false)
+          .map(JsonElement::getAsJsonObject);
+    }
+    return Arrays.stream(content.split("\\r?\\n"))
+        .filter(line -> !line.trim().isEmpty())
+        .map(line -> JsonParser.parseString(line).getAsJsonObject());
+  }
+
+  /** Returns {@code timestamp} as an Instant. */
+  private static Instant toInstant(Timestamp timestamp) {
+    return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+  }
+}
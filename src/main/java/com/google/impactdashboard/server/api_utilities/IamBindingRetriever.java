@@ -1,192 +1,247 @@
 package com.google.impactdashboard.server.api_utilities;
 
-import autovalue.shaded.com.google$.common.annotations.$VisibleForTesting;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.iam.v1.Iam;
 import com.google.api.services.iam.v1.IamScopes;
 import com.google.api.services.iam.v1.model.ListRolesResponse;
 import com.google.api.services.iam.v1.model.Role;
-import com.google.auth.http.HttpCredentialsAdapter;
-import com.google.cloud.audit.AuditLog;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.impactdashboard.Credentials;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.impactdashboard.configuration.Configuration;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.recommendation.RecommendationAction;
 import com.google.impactdashboard.data.organization.OrganizationIdentification;
 import com.google.logging.v2.LogEntry;
-import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Timestamp;
-import com.google.protobuf.Value;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Class that counts number of members in each IAM role and determines the total number of bindings.
  */
 public class IamBindingRetriever {
 
+  /** The number of audit logs above which their payloads are parsed in parallel. */
+  private static final int PARALLEL_PARSE_THRESHOLD = 64;
+
+  /** Orders timestamps oldest first. */
+  private static final Comparator<Timestamp> TIMESTAMP_ORDER = Comparator
+      .comparingLong(Timestamp::getSeconds).thenComparingInt(Timestamp::getNanos);
+
   private final Iam iamService;
-  private final List<Role> roles;
   private final ResourceRetriever resourceRetriever;
 
+  /** The catalog of the number of permissions in each predefined role. */
+  private final PredefinedRoleCatalog predefinedRoleCatalog;
+
+  /**
+   * The number of hours the custom roles of a project or organization are kept for, so that
+   * a role edited since they were fetched is counted correctly by the next updates.
+   */
+  private static final long CUSTOM_ROLE_EXPIRY_HOURS = 1;
+
+  /** Map of project ids to the permission counts of the custom roles of that project. */
+  private final Cache<String, Map<String, Integer>> projectCustomPermissionCounts =
+      CacheBuilder.newBuilder().expireAfterWrite(CUSTOM_ROLE_EXPIRY_HOURS, TimeUnit.HOURS)
+          .build();
+
+  /** Map of organization ids to the permission counts of the custom roles of that organization. */
+  private final Cache<String, Map<String, Integer>> organizationCustomPermissionCounts =
+      CacheBuilder.newBuilder().expireAfterWrite(CUSTOM_ROLE_EXPIRY_HOURS, TimeUnit.HOURS)
+          .build();
+
   @VisibleForTesting
   protected IamBindingRetriever(Iam iamService, ResourceRetriever resourceRetriever) throws IOException {
-    this.iamService = iamService;
-
-    roles = new ArrayList<>();
-    String pageToken = null;
-    do {
-      ListRolesResponse rolesResponse;
-      if(pageToken == null) {
-        rolesResponse = iamService.roles().list().setView("full").execute();
-      } else {
-        rolesResponse = iamService.roles().list().setView("full").setPageToken(pageToken).execute();
-      }
-      roles.addAll(rolesResponse.getRoles());
-      pageToken = rolesResponse.getNextPageToken();
-    } while(pageToken != null);
+    this(iamService, resourceRetriever, new PredefinedRoleCatalog(null, 0, () -> iamService));
+    getPredefinedPermissionCounts();
+  }
 
+  @VisibleForTesting
+  IamBindingRetriever(Iam iamService, ResourceRetriever resourceRetriever,
+      PredefinedRoleCatalog predefinedRoleCatalog) {
+    this.iamService = iamService;
     this.resourceRetriever = resourceRetriever;
+    this.predefinedRoleCatalog = predefinedRoleCatalog;
   }
 
   /**
-   * Static factory for creating a new instance of IamBindingRetriever.
+   * Static factory for creating a new instance of IamBindingRetriever. The predefined roles
+   * are read from the catalog shared by the instance, which is loaded before the retriever
+   * is returned, and every lookup reads the catalog as of its latest refresh.
    * @return new Instance of IamBindingRetriever
    */
   public static IamBindingRetriever create() throws IOException, GeneralSecurityException {
-    Iam iamService = new Iam.Builder(GoogleNetHttpTransport.newTrustedTransport(),
-        JacksonFactory.getDefaultInstance(),
-        new HttpCredentialsAdapter(Credentials.getCredentials().createScoped(Collections
-            .singleton(IamScopes.CLOUD_PLATFORM))))
-        .setApplicationName("Recommendation Impact Dashboard")
-        .build();
+    PredefinedRoleCatalog catalog = PredefinedRoleCatalog.getInstance();
+    catalog.getPermissionCounts();
+    return new IamBindingRetriever(createIamService(), ResourceRetriever.getInstance(), catalog);
+  }
 
-    return new IamBindingRetriever(iamService, ResourceRetriever.getInstance());
+  /**
+   * Returns a new IAM client. The client sends its requests to {@code Configuration.iamRootUrl}
+   * instead of the IAM API if it is set.
+   */
+  static Iam createIamService() throws IOException, GeneralSecurityException {
+    Iam.Builder iamBuilder = new Iam.Builder(ApiTransports.getHttpTransport(),
+        JacksonFactory.getDefaultInstance(),
+        ApiTransports.getHttpRequestInitializer(Configuration.iamRootUrl,
+            Collections.singleton(IamScopes.CLOUD_PLATFORM)))
+        .setApplicationName("Recommendation Impact Dashboard");
+    if (!Configuration.iamRootUrl.isEmpty()) {
+      iamBuilder.setRootUrl(Configuration.iamRootUrl);
+    }
+    return iamBuilder.build();
   }
 
   /**
    * Takes audit logs and uses the IAM API with the bindings from the audit logs to
    * calculate the IAMBindingsNumber for Each log.
    * @param logEntries List of audit logs that set IAM policy
-   * @return the Database entries of IAMBindings from the audit logs
+   * @return the Database entries of IAMBindings from the audit logs, oldest first. Of the
+   *     logs with the same timestamp, the one received last comes last, or else the one
+   *     given first, since the logging API lists logs newest first.
    */
   public List<IAMBindingDatabaseEntry> listIAMBindingData(Collection<LogEntry> logEntries,
                                       String projectId, String projectName,
                                       String projectNumber, Long timeStamp){
-    Map<Timestamp, AuditLog> timeToAuditLogMap = logEntries.stream().map(log -> {
-          AuditLog auditLog;
-          try {
-            auditLog = AuditLog.parseFrom(log.getProtoPayload().getValue());
-          } catch (InvalidProtocolBufferException e) {
-            throw new RuntimeException("Invalid Protocol Buffer used");
-          }
-          return new SimpleImmutableEntry<>(log.getTimestamp(), auditLog);
-        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    if (logEntries.isEmpty()) {
+      return new ArrayList<>();
+    }
+    List<LogEntry> logs = new ArrayList<>(logEntries);
+    // The logging API lists logs newest first, so of the logs with the same timestamp the
+    // one received last, or else listed first, is the latest.
+    Comparator<Integer> logOrder = Comparator
+        .comparing((Integer index) -> logs.get(index).getTimestamp(), TIMESTAMP_ORDER)
+        .thenComparing(index -> logs.get(index).getReceiveTimestamp(), TIMESTAMP_ORDER)
+        .thenComparing(Comparator.reverseOrder());
+    Stream<Integer> indexStream = IntStream.range(0, logs.size()).boxed().sorted(logOrder);
+    if (logs.size() >= PARALLEL_PARSE_THRESHOLD) {
+      indexStream = indexStream.parallel();
+    }
+    List<SimpleImmutableEntry<Timestamp, Map<String, Integer>>> timeToMembersForRoles =
+        indexStream.map(logs::get).map(log -> new SimpleImmutableEntry<>(log.getTimestamp(),
+            AuditLogBindingsExtractor.getMembersForRoles(log.getProtoPayload().getValue())))
+        .collect(Collectors.toList());
 
-    return timeToAuditLogMap.entrySet().stream().map(entry -> {
+    String organizationId = resourceRetriever.getOrganizationId(projectId);
+    OrganizationIdentification organization = OrganizationIdentification.create(
+        resourceRetriever.getOrganizationName(organizationId), organizationId);
+    IncrementalBindingsCalculator calculator = new IncrementalBindingsCalculator(
+        role -> getPermissionCount(role, projectId));
+
+    List<IAMBindingDatabaseEntry> entries = new ArrayList<>();
+    for (SimpleImmutableEntry<Timestamp, Map<String, Integer>> entry : timeToMembersForRoles) {
       Long secondsFromEpoch = timeStamp;
-      Map<String, Integer> membersForRoles = getMembersForRoles(entry.getValue().getResponse()
-          .getFieldsMap().get("bindings").getListValue().getValuesList());
       if(secondsFromEpoch == null){
         secondsFromEpoch = entry.getKey().getSeconds() * 1000;
       }
-      
+
       int iamBindings = 0;
       try {
-        iamBindings = getIamBindings(membersForRoles, projectId);
+        iamBindings = calculator.getIamBindings(entry.getValue());
       } catch (IOException e) {
         throw new RuntimeException("IAM Bindings not received.");
       }
-      String organizationId = resourceRetriever.getOrganizationId(projectId);
-      String organizationName = resourceRetriever.getOrganizationName(organizationId);
-      return IAMBindingDatabaseEntry.create(projectId, projectName, projectNumber,
-          OrganizationIdentification.create(organizationName,organizationId), secondsFromEpoch,
-          iamBindings);
-    }).collect(Collectors.toList());
+      entries.add(IAMBindingDatabaseEntry.create(projectId, projectName, projectNumber,
+          organization, secondsFromEpoch, iamBindings));
+    }
+    return entries;
   }
 
   /**
-   * Takes in a map of protobuf value to value and updates the mapRoleToNumberOfMembers field with the new
-   * role and the number of members in the role.
-   * @param bindings protoBuf map for a binding map from AuditLogs
+   * Calls IAM API to get all roles for a project and then calculate the IAM bindings for the given map.
+   * @param membersForRoles map of membersPerRole to calculate the number of total bindings.
+   * @return Total number of IAMBindings for the given map
    */
-  private Map<String, Integer> getMembersForRoles(List<Value> bindings) {
-
-    Map<String, Integer> membersforRoles = new HashMap<>();
-    bindings.forEach(bindingValue -> {
-      Map<String, Value> bindingMap = bindingValue.getStructValue().getFieldsMap();
-      membersforRoles.put(bindingMap.get("role").getStringValue(),
-          bindingMap.get("members").getListValue().getValuesList().size());
-    });
-    return membersforRoles;
+  @VisibleForTesting
+  protected int getIamBindings(Map<String, Integer> membersForRoles, String projectId) throws IOException {
+    int iamBindings = 0;
+    for (Map.Entry<String, Integer> roleMembers : membersForRoles.entrySet()) {
+      iamBindings += getPermissionCount(roleMembers.getKey(), projectId) * roleMembers.getValue();
+    }
+    return iamBindings;
   }
 
   /**
-   * Returns all organization ids associated with organization-level roles in 
-   * the map of roles to members. 
+   * Returns the number of permissions in {@code role}, which is either a predefined role, a
+   * custom role of the project {@code projectId} or a custom role of an organization. Unknown
+   * roles have no permissions. Predefined roles are read from the catalog as of its latest
+   * refresh. Custom roles are fetched from the IAM API once per project and organization, and
+   * again once they are older than {@code CUSTOM_ROLE_EXPIRY_HOURS}.
    */
-  private List<String> getUnknownOrganizationIds(Map<String, Integer> membersForRoles) {
-    return membersForRoles.keySet().stream()
-        .filter(role ->
-            !roles.stream().reduce(false, (accumulator, knownRole) ->
-                accumulator || role.equals(knownRole.getName()), Boolean::logicalOr))
-        .map(role -> {
-          List<String> items = Arrays.asList(role.split("\\s*/\\s*"));
-          if (!items.get(0).equals("organizations")) {
-            return "";
-          }
-          return items.get(1);
-        })
-        .filter(role -> !role.equals(""))
-        .collect(Collectors.toList());
+  @VisibleForTesting
+  protected int getPermissionCount(String role, String projectId) throws IOException {
+    Integer permissionCount = getPredefinedPermissionCounts().get(role);
+    if (permissionCount != null) {
+      return permissionCount;
+    }
+
+    Map<String, Integer> projectPermissionCounts = getCached(projectCustomPermissionCounts,
+        projectId, () -> getPermissionCounts(getProjectCustomRoles(projectId)));
+    permissionCount = projectPermissionCounts.get(role);
+    if (permissionCount != null) {
+      return permissionCount;
+    }
+
+    List<String> items = Arrays.asList(role.split("\\s*/\\s*"));
+    if (items.size() < 2 || !items.get(0).equals("organizations")) {
+      return 0;
+    }
+    String organizationId = items.get(1);
+    Map<String, Integer> organizationPermissionCounts = getCached(
+        organizationCustomPermissionCounts, organizationId,
+        () -> getPermissionCounts(getOrganizationCustomRoles(organizationId)));
+    return organizationPermissionCounts.getOrDefault(role, 0);
   }
 
   /**
-   * Calls IAM API to get all roles for a project and then calculate the IAM bindings for the given map.
-   * @param membersForRoles map of membersPerRole to calculate the number of total bindings.
-   * @return Total number of IAMBindings for the given map
+   * Returns a map of predefined role names to the number of permissions in that role, from
+   * the catalog as of its latest refresh.
    */
-  @VisibleForTesting
-  protected int getIamBindings(Map<String, Integer> membersForRoles, String projectId) throws IOException {
-    int iamBindings = roles.stream().filter(role -> membersForRoles.containsKey(role.getName()))
-        .mapToInt(role -> {
-          if(role.getIncludedPermissions() != null) {
-            return role.getIncludedPermissions().size() * membersForRoles.get(role.getName());
-          } else {
-            return 0;
-          }
-        }).sum();
-
-    iamBindings += getProjectCustomRoles(projectId).stream()
-        .filter(role -> membersForRoles.containsKey(role.getName())).mapToInt(role -> {
-          if(role.getIncludedPermissions() != null) {
-            return role.getIncludedPermissions().size() * membersForRoles.get(role.getName());
-          } else {
-            return 0;
-          }
-        }).sum();
+  private Map<String, Integer> getPredefinedPermissionCounts() throws IOException {
+    try {
+      return predefinedRoleCatalog.getPermissionCounts();
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Predefined roles not received: " + e.getMessage(), e);
+    }
+  }
 
-    iamBindings += getUnknownOrganizationIds(membersForRoles).stream().reduce(0, 
-        (accumulator, organizationId) -> accumulator + 
-            getOrganizationCustomRoles(organizationId).stream()
-                .filter(role -> membersForRoles.containsKey(role.getName()))
-                .mapToInt(role -> {
-                    if(role.getIncludedPermissions() != null) {
-                    return role.getIncludedPermissions().size() * 
-                        membersForRoles.get(role.getName());
-                    } else {
-                      return 0;
-                    }
-                })
-                .sum(), 
-        Math::addExact);
+  /**
+   * Returns the permission counts cached in {@code cache} for {@code id}, loading them with
+   * {@code loader} if they are missing or expired. Failures of the loader are rethrown as is.
+   */
+  private static Map<String, Integer> getCached(Cache<String, Map<String, Integer>> cache,
+      String id, Callable<Map<String, Integer>> loader) throws IOException {
+    try {
+      return cache.get(id, loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Custom roles not received for " + id + ": " +
+          cause.getMessage());
+    }
+  }
 
-    return iamBindings;
+  /** Returns a map of the names of {@code roles} to the number of permissions in that role. */
+  static Map<String, Integer> getPermissionCounts(List<Role> roles) {
+    return roles.stream().collect(Collectors.toMap(Role::getName,
+        role -> role.getIncludedPermissions() == null ? 0 : role.getIncludedPermissions().size(),
+        Integer::sum));
   }
 
   /**
@@ -200,11 +255,13 @@ public class IamBindingRetriever {
     do {
       ListRolesResponse rolesResponse;
       if(projectPageToken == null) {
-        rolesResponse = iamService.projects().roles().list("projects/" + projectId)
-            .setView("full").execute();
+        rolesResponse = ApiRateLimiter.IAM.call("projects.roles.list",
+            iamService.projects().roles().list("projects/" + projectId)
+                .setView("full")::execute);
       } else {
-        rolesResponse = iamService.projects().roles().list("projects/" + projectId)
-            .setView("full").setPageToken(projectPageToken).execute();
+        rolesResponse = ApiRateLimiter.IAM.call("projects.roles.list",
+            iamService.projects().roles().list("projects/" + projectId)
+                .setView("full").setPageToken(projectPageToken)::execute);
       }
       if (rolesResponse != null && !rolesResponse.isEmpty()) {
         projectCustomRoles.addAll(rolesResponse.getRoles());
@@ -227,11 +284,13 @@ public class IamBindingRetriever {
       do {
         ListRolesResponse rolesResponse;
         if(projectPageToken == null) {
-          rolesResponse = iamService.organizations().roles().list("organizations/" + organizationId)
-              .setView("full").execute();
+          rolesResponse = ApiRateLimiter.IAM.call("organizations.roles.list",
+              iamService.organizations().roles().list("organizations/" + organizationId)
+                  .setView("full")::execute);
         } else {
-          rolesResponse = iamService.projects().roles().list("organizations/" + organizationId)
-              .setView("full").setPageToken(projectPageToken).execute();
+          rolesResponse = ApiRateLimiter.IAM.call("organizations.roles.list",
+              iamService.projects().roles().list("organizations/" + organizationId)
+                  .setView("full").setPageToken(projectPageToken)::execute);
         }
         if (rolesResponse != null && !rolesResponse.isEmpty()) {
           organizationCustomRoles.addAll(rolesResponse.getRoles());
@@ -257,10 +316,12 @@ public class IamBindingRetriever {
   public int getActionImpact(List<RecommendationAction> actions){
     return actions.stream().mapToInt(action -> {
       try {
-        Role previousRole = iamService.roles().get(action.getPreviousRole()).execute();
+        Role previousRole = ApiRateLimiter.IAM.call("roles.get",
+            iamService.roles().get(action.getPreviousRole())::execute);
         String newRoleString = action.getNewRole();
         if (!newRoleString.isEmpty()) {
-          Role newRole = iamService.roles().get(newRoleString).execute();
+          Role newRole = ApiRateLimiter.IAM.call("roles.get",
+              iamService.roles().get(newRoleString)::execute);
           return Math.abs(previousRole.getIncludedPermissions().size() -
               newRole.getIncludedPermissions().size());
         }
@@ -0,0 +1,60 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class that calculates the total number of IAM bindings of each policy in a sequence of
+ * policies set on one project, given in timestamp order. Instead of recounting every role in
+ * each policy, the total of the previous policy is adjusted by the roles whose number of
+ * members changed, so the permission count of a role is only looked up once.
+ */
+public class IncrementalBindingsCalculator {
+
+  /** Resolves the number of permissions in a role. */
+  public interface PermissionCountResolver {
+    int getPermissionCount(String role) throws IOException;
+  }
+
+  private final PermissionCountResolver resolver;
+  private final Map<String, Integer> permissionCounts = new HashMap<>();
+  private Map<String, Integer> previousMembersForRoles = new HashMap<>();
+  private int iamBindings = 0;
+
+  public IncrementalBindingsCalculator(PermissionCountResolver resolver) {
+    this.resolver = resolver;
+  }
+
+  /**
+   * Returns the total number of IAM bindings of the policy that maps every role to
+   * {@code membersForRoles}, which must be the policy set after the one passed to the
+   * previous call.
+   */
+  public int getIamBindings(Map<String, Integer> membersForRoles) throws IOException {
+    for (Map.Entry<String, Integer> previous : previousMembersForRoles.entrySet()) {
+      if (!membersForRoles.containsKey(previous.getKey())) {
+        iamBindings -= getPermissionCount(previous.getKey()) * previous.getValue();
+      }
+    }
+    for (Map.Entry<String, Integer> current : membersForRoles.entrySet()) {
+      int change = current.getValue() -
+          previousMembersForRoles.getOrDefault(current.getKey(), 0);
+      if (change != 0) {
+        iamBindings += getPermissionCount(current.getKey()) * change;
+      }
+    }
+    previousMembersForRoles = membersForRoles;
+    return iamBindings;
+  }
+
+  /** Returns the number of permissions in {@code role}, resolving it on first use. */
+  private int getPermissionCount(String role) throws IOException {
+    Integer permissionCount = permissionCounts.get(role);
+    if (permissionCount == null) {
+      permissionCount = resolver.getPermissionCount(role);
+      permissionCounts.put(role, permissionCount);
+    }
+    return permissionCount;
+  }
+}
@@ -1,28 +1,92 @@
 package com.google.impactdashboard.server.api_utilities;
 
+import com.google.api.gax.grpc.GrpcCallContext;
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.PermissionDeniedException;
 import com.google.cloud.logging.v2.LoggingClient;
-import com.google.cloud.logging.v2.LoggingClient.ListLogEntriesPagedResponse;
 import com.google.cloud.logging.v2.LoggingSettings;
 import com.google.cloud.logging.v2.stub.LoggingServiceV2StubSettings;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
-import com.google.impactdashboard.Credentials;
+import com.google.common.collect.Lists;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.tracing.Tracer;
 import com.google.logging.v2.ListLogEntriesRequest;
+import com.google.logging.v2.ListLogEntriesResponse;
+import com.google.logging.v2.LogEntry;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 
 /** Class that handles all the retrieval of logs stored on the cloud logging API. */
-public class LogRetriever {
+public class LogRetriever implements LogSource {
+
+  /** Page size for requests covering more than a couple of days, such as backfills. */
+  public static final int BACKFILL_PAGE_SIZE = 1000;
+
+  /** Page size for requests covering the last day or so of logs. */
+  public static final int DAILY_PAGE_SIZE = 100;
+
+  /** Page size for requests that only need the latest matching entry. */
+  public static final int PROBE_PAGE_SIZE = 10;
+
+  /**
+   * The lengths of the successive windows searched, back from the end of the search, 
+   * when looking for the latest audit log. Admin Activity audit logs are kept for 
+   * 400 days, so there is no point in looking further back.
+   */
+  private static final Duration[] PROBE_WINDOWS = {Duration.ofDays(1), Duration.ofDays(7),
+      Duration.ofDays(30), Duration.ofDays(90), Duration.ofDays(400)};
+
+  /** The maximum number of requests made when looking for the latest audit log. */
+  public static final int MAX_PROBE_CALLS = 10;
+
+  /** The maximum number of projects whose logs are retrieved with a single request. */
+  public static final int MAX_PROJECTS_PER_REQUEST = 50;
+
+  /** The prefix of the name of every log that belongs to a project. */
+  private static final String PROJECT_LOG_PREFIX = "projects/";
+
+  /** Header used to ask the API to only return the listed response fields. */
+  private static final String FIELD_MASK_HEADER = "x-goog-fieldmask";
+
+  /** The fields of an audit log response that are parsed by IamBindingRetriever. */
+  private static final String AUDIT_LOG_FIELDS = "nextPageToken,entries.logName," +
+      "entries.resource.labels,entries.timestamp,entries.protoPayload";
+
+  /** The fields of a recommendation log response that are parsed by RecommendationRetriever. */
+  private static final String RECOMMENDATION_LOG_FIELDS = "nextPageToken,entries.logName," +
+      "entries.resource.labels,entries.timestamp,entries.jsonPayload";
 
   /** Cloud Logging client used to retrieve Audit logs and Recommendation logs */
   private LoggingClient logger;
 
   /**
-   * Static factory method for creating a new LogRetriever with a new instance of Logging client.
+   * Static factory method for creating a new LogRetriever with a new instance of Logging client,
+   * using the channels shared by every client. The client connects to
+   * {@code Configuration.loggingEndpoint} instead of the Logging API if it is set. It doesn't
+   * retry failed calls itself, since ApiRateLimiter.LOGGING does.
    * @return A new instance of {@code LogRetriever}
    */
   public static LogRetriever create() throws IOException{
-    LoggingServiceV2StubSettings stub = LoggingServiceV2StubSettings.newBuilder()
-        .setCredentialsProvider(Credentials::getCredentials)
+    LoggingServiceV2StubSettings.Builder stubBuilder = LoggingServiceV2StubSettings.newBuilder();
+    stubBuilder.listLogEntriesSettings().setRetryableCodes(Collections.emptySet());
+    LoggingServiceV2StubSettings stub = stubBuilder
+        .setCredentialsProvider(
+            ApiTransports.getCredentialsProvider(Configuration.loggingEndpoint))
+        .setTransportChannelProvider(ApiTransports.getChannelProvider(
+            LoggingServiceV2StubSettings.getDefaultEndpoint(), Configuration.loggingEndpoint,
+            LoggingServiceV2StubSettings.defaultApiClientHeaderProviderBuilder().build()
+                .getHeaders()))
+        .setExecutorProvider(ApiTransports.getExecutorProvider())
         .build();
     return new LogRetriever(LoggingClient.create(LoggingSettings.create(stub)));
   }
@@ -32,44 +96,170 @@ public class LogRetriever {
   }
 
   /**
-   * Creates a {@code ListLogEntriesRequest} and retrieves all the relevant audit logs.
+   * Retrieves all the audit logs that set IAM policy on a project in the time window given,
+   * newest first. The page size is chosen from the length of the window, and only the fields
+   * that are parsed are requested.
    * @param projectId ID of the project that the audit logs will be retrieved for.
-   * @param timeFrom The earliest time to retrieve logs for.
-   * @param timeTo The latest time to retrieve logs for.
-   * @return A response that contains all the relevant audit log entries that are stored by the logging API
+   * @param timeFrom The earliest time to retrieve logs for, or the empty string for no limit.
+   * @param timeTo The latest time to retrieve logs for, or the empty string for no limit.
+   * @return A list of all the relevant audit log entries that are stored by the logging API.
    */
-  public ListLogEntriesPagedResponse listAuditLogsResponse(String projectId, String timeFrom,
-                                                           String timeTo, int pageSize,
-                                                           String pageToken) {
-    StringBuilder resourceNameStringBuilder = new StringBuilder();
-    resourceNameStringBuilder.append("projects/");
-    resourceNameStringBuilder.append(projectId);
+  @Override
+  public List<LogEntry> listAuditLogs(String projectId, String timeFrom, String timeTo) {
+    ListLogEntriesRequest request = ListLogEntriesRequest.newBuilder()
+        .setFilter(getAuditLogFilter(timeFrom, timeTo)).setOrderBy("timestamp desc")
+        .addResourceNames("projects/" + projectId)
+        .setPageSize(choosePageSize(timeFrom, timeTo)).build();
 
-    StringBuilder filterStringBuilder = new StringBuilder();
-    filterStringBuilder.append("resource.type = project AND severity = NOTICE");
-    filterStringBuilder.append(" AND protoPayload.methodName:SetIamPolicy");
+    return listAllPages(request, AUDIT_LOG_FIELDS);
+  }
 
-    if (!timeFrom.equals("")) {
-      filterStringBuilder.append(" AND timestamp > \"");
-      filterStringBuilder.append(timeFrom);
-      filterStringBuilder.append("\"");
-    }
-    if (!timeTo.equals("")) {
-      filterStringBuilder.append(" AND timestamp < \"");
-      filterStringBuilder.append(timeTo);
-      filterStringBuilder.append("\"");
-    }
+  /**
+   * Retrieves all the audit logs that set IAM policy on the projects in {@code projectIds}
+   * in the time window given, with up to {@code MAX_PROJECTS_PER_REQUEST} projects per 
+   * request.
+   * @param projectIds IDs of the projects that the audit logs will be retrieved for.
+   * @param timeFrom The earliest time to retrieve logs for, or the empty string for no limit.
+   * @param timeTo The latest time to retrieve logs for, or the empty string for no limit.
+   * @return A map of project ids to the audit log entries of that project, newest first.
+   *     Projects without any entries, or that could not be read, are left out.
+   */
+  @Override
+  public Map<String, List<LogEntry>> listAuditLogsForProjects(List<String> projectIds,
+      String timeFrom, String timeTo) {
+    return listLogsForProjects(projectIds, getAuditLogFilter(timeFrom, timeTo), 
+        AUDIT_LOG_FIELDS);
+  }
 
-    ListLogEntriesRequest.Builder builder = ListLogEntriesRequest.newBuilder()
-        .setOrderBy("timestamp desc").addResourceNames(resourceNameStringBuilder.toString());
+  /**
+   * Retrieves all the Recommendation logs of the projects in {@code projectIds} in the time
+   * window given, with up to {@code MAX_PROJECTS_PER_REQUEST} projects per request.
+   * @param projectIds IDs of the projects that the recommendation logs will be retrieved for.
+   * @param timeFrom Earliest time to retrieve logs for
+   * @param timeTo Latest time to retrieve logs for.
+   * @return A map of project ids to the recommendation log entries of that project, newest
+   *     first. Projects without any entries, or that could not be read, are left out.
+   */
+  @Override
+  public Map<String, List<LogEntry>> listRecommendationLogsForProjects(List<String> projectIds,
+      String timeFrom, String timeTo) {
+    return listLogsForProjects(projectIds, getRecommendationLogFilter(timeFrom, timeTo), 
+        RECOMMENDATION_LOG_FIELDS);
+  }
+
+  /**
+   * Retrieves the entries matching {@code filter} for {@code projectIds}, grouping the 
+   * projects into multi-resource requests. If a request is denied because one of its 
+   * projects can't be read, the projects of that request are retried one at a time.
+   */
+  private Map<String, List<LogEntry>> listLogsForProjects(List<String> projectIds, 
+      String filter, String fieldMask) {
+    Map<String, List<LogEntry>> entriesByProject = new ConcurrentHashMap<>();
+    Lists.partition(projectIds, MAX_PROJECTS_PER_REQUEST).parallelStream()
+        .forEach(Tracer.getInstance().wrap(batch -> {
+      try {
+        entriesByProject.putAll(groupByProject(listLogs(batch, filter, fieldMask)));
+      } catch (PermissionDeniedException e) {
+        batch.forEach(projectId -> {
+          try {
+            List<LogEntry> entries = listLogs(Collections.singletonList(projectId), filter,
+                fieldMask);
+            if (!entries.isEmpty()) {
+              entriesByProject.put(projectId, entries);
+            }
+          } catch (PermissionDeniedException deniedProject) {
+            System.err.println("WARNING: Could not read the logs of project " + projectId);
+          }
+        });
+      }
+    }));
+    return entriesByProject;
+  }
 
-    if(!Strings.isNullOrEmpty(pageToken)) {
-      builder.setPageToken(pageToken);
+  /** Returns every entry matching {@code filter} in the logs of {@code projectIds}. */
+  private List<LogEntry> listLogs(List<String> projectIds, String filter, String fieldMask) {
+    ListLogEntriesRequest request = ListLogEntriesRequest.newBuilder()
+        .setFilter(filter).setOrderBy("timestamp desc")
+        .addAllResourceNames(projectIds.stream().map(projectId -> "projects/" + projectId)
+            .collect(Collectors.toList()))
+        .setPageSize(BACKFILL_PAGE_SIZE).build();
+
+    return listAllPages(request, fieldMask);
+  }
+
+  /** 
+   * Returns {@code entries} grouped by the project whose log they were written to, keeping
+   * the order of the entries within each project.
+   */
+  @VisibleForTesting
+  static Map<String, List<LogEntry>> groupByProject(List<LogEntry> entries) {
+    return entries.stream().collect(Collectors.groupingBy(LogRetriever::getProjectId, 
+        LinkedHashMap::new, Collectors.toList()));
+  }
+
+  /** 
+   * Returns the id of the project whose log {@code entry} was written to, from its log 
+   * name ("projects/[PROJECT_ID]/logs/[LOG_ID]"), or from its resource if the log name is 
+   * not that of a project log.
+   */
+  static String getProjectId(LogEntry entry) {
+    String logName = entry.getLogName();
+    if (logName.startsWith(PROJECT_LOG_PREFIX)) {
+      int end = logName.indexOf('/', PROJECT_LOG_PREFIX.length());
+      return logName.substring(PROJECT_LOG_PREFIX.length(), end == -1 ? logName.length() : end);
     }
+    return entry.getResource().getLabelsOrDefault("project_id", "");
+  }
 
-    ListLogEntriesRequest request = builder.setFilter(filterStringBuilder.toString())
-        .setPageSize(pageSize).build();
-    return logger.listLogEntries(request);
+  /**
+   * Retrieves the latest audit log that set IAM policy on a project before {@code timeTo}. 
+   * The search starts with the last day before {@code timeTo} and widens step by step, up 
+   * to {@code MAX_PROBE_CALLS} requests, so that projects with recent changes are found 
+   * with a single request.
+   * @param projectId ID of the project that the audit log will be retrieved for.
+   * @param timeFrom The earliest time to look for a log, or the empty string to search 
+   *     as far back as audit logs are kept.
+   * @param timeTo The time to look for the latest log before, or the empty string for now.
+   * @return A list containing the latest audit log, or an empty list if none was found.
+   */
+  @Override
+  public List<LogEntry> getLatestAuditLog(String projectId, String timeFrom, String timeTo) {
+    Instant end = timeTo.equals("") ? Instant.now() : Instant.parse(timeTo);
+    Instant earliest = timeFrom.equals("") ? 
+        end.minus(PROBE_WINDOWS[PROBE_WINDOWS.length - 1]) : Instant.parse(timeFrom);
+    ApiCallContext context = getFieldMaskContext(AUDIT_LOG_FIELDS);
+
+    int calls = 0;
+    Instant windowEnd = end;
+    for (int step = 0; step < PROBE_WINDOWS.length && windowEnd.isAfter(earliest); step++) {
+      Instant windowStart = end.minus(PROBE_WINDOWS[step]);
+      if (windowStart.isBefore(earliest)) {
+        windowStart = earliest;
+      }
+      ListLogEntriesRequest request = ListLogEntriesRequest.newBuilder()
+          .setFilter(getAuditLogFilter(windowStart.toString(), windowEnd.toString()))
+          .setOrderBy("timestamp desc").addResourceNames("projects/" + projectId)
+          .setPageSize(PROBE_PAGE_SIZE).build();
+
+      String pageToken = "";
+      do {
+        if (calls == MAX_PROBE_CALLS) {
+          System.err.println("WARNING: Gave up looking for the latest audit log of project " + 
+              projectId + " after " + calls + " requests.");
+          return new ArrayList<>();
+        }
+        calls++;
+        ListLogEntriesRequest pageRequest = request.toBuilder().setPageToken(pageToken).build();
+        ListLogEntriesResponse page = ApiRateLimiter.LOGGING.call("ListLogEntries", () ->
+            logger.listLogEntriesCallable().call(pageRequest, context));
+        if (page.getEntriesCount() > 0) {
+          return Collections.singletonList(page.getEntries(0));
+        }
+        pageToken = page.getNextPageToken();
+      } while (!Strings.isNullOrEmpty(pageToken));
+      windowEnd = windowStart;
+    }
+    return new ArrayList<>();
   }
 
   /**
@@ -79,33 +269,88 @@ public class LogRetriever {
    * @param timeTo Latest time to retrieve logs for.
    * @return A list of all the relevant recommendation log entries that are stored by the logging API.
    */
-  public ListLogEntriesPagedResponse listRecommendationLogs(String projectId, 
+  @Override
+  public List<LogEntry> listRecommendationLogs(String projectId,
     String timeFrom, String timeTo) {
-    StringBuilder resourceNameStringBuilder = new StringBuilder();
-    resourceNameStringBuilder.append("projects/");
-    resourceNameStringBuilder.append(projectId);
+    ListLogEntriesRequest request = ListLogEntriesRequest.newBuilder()
+      .setFilter(getRecommendationLogFilter(timeFrom, timeTo)).setOrderBy("timestamp desc")
+      .addResourceNames("projects/" + projectId)
+      .setPageSize(choosePageSize(timeFrom, timeTo)).build();
+
+    return listAllPages(request, RECOMMENDATION_LOG_FIELDS);
+  }
+
+  /**
+   * Returns the page size to use for a request covering {@code timeFrom} to {@code timeTo}:
+   * large pages for backfills, so that they take fewer round trips, and smaller pages for
+   * the daily update, where most projects only have a handful of entries.
+   */
+  @VisibleForTesting
+  static int choosePageSize(String timeFrom, String timeTo) {
+    if (timeFrom.equals("")) {
+      return BACKFILL_PAGE_SIZE;
+    }
+    Instant end = timeTo.equals("") ? Instant.now() : Instant.parse(timeTo);
+    Duration window = Duration.between(Instant.parse(timeFrom), end);
+    return window.compareTo(Duration.ofDays(2)) > 0 ? BACKFILL_PAGE_SIZE : DAILY_PAGE_SIZE;
+  }
+
+  /**
+   * Returns the entries of every page returned by {@code request}, in order. Requests are
+   * rate limited, and a page that fails with a quota error is requested again.
+   * @param fieldMask The response fields to request from the API.
+   */
+  private List<LogEntry> listAllPages(ListLogEntriesRequest request, String fieldMask) {
+    ApiCallContext context = getFieldMaskContext(fieldMask);
+    List<LogEntry> entries = new ArrayList<>();
+    String pageToken = "";
+    do {
+      ListLogEntriesRequest pageRequest = request.toBuilder().setPageToken(pageToken).build();
+      ListLogEntriesResponse page = ApiRateLimiter.LOGGING.call("ListLogEntries", () ->
+          logger.listLogEntriesCallable().call(pageRequest, context));
+      entries.addAll(page.getEntriesList());
+      pageToken = page.getNextPageToken();
+    } while (!Strings.isNullOrEmpty(pageToken));
+    return entries;
+  }
 
+  /** Returns a call context asking the API to only return the fields in {@code fieldMask}. */
+  private static ApiCallContext getFieldMaskContext(String fieldMask) {
+    return GrpcCallContext.createDefault().withExtraHeaders(
+        Collections.singletonMap(FIELD_MASK_HEADER, Collections.singletonList(fieldMask)));
+  }
+
+  /** Returns the filter matching audit logs that set IAM policy in the time window given. */
+  private static String getAuditLogFilter(String timeFrom, String timeTo) {
+    StringBuilder filterStringBuilder = new StringBuilder();
+    filterStringBuilder.append("resource.type = project AND severity = NOTICE");
+    filterStringBuilder.append(" AND protoPayload.methodName:SetIamPolicy");
+    appendTimeWindow(filterStringBuilder, timeFrom, timeTo);
+    return filterStringBuilder.toString();
+  }
+
+  /** Returns the filter matching accepted IAM recommendations in the time window given. */
+  private static String getRecommendationLogFilter(String timeFrom, String timeTo) {
     StringBuilder filterStringBuilder = new StringBuilder();
     filterStringBuilder.append("resource.type = recommender AND ");
     filterStringBuilder.append("resource.labels.recommender_id= google.iam.policy.Recommender ");
     filterStringBuilder.append(" AND jsonPayload.state = SUCCEEDED");
+    appendTimeWindow(filterStringBuilder, timeFrom, timeTo);
+    return filterStringBuilder.toString();
+  }
 
+  /** Appends the bounds of the time window given to {@code filterStringBuilder}. */
+  private static void appendTimeWindow(StringBuilder filterStringBuilder, String timeFrom,
+      String timeTo) {
     if (!timeFrom.equals("")) {
       filterStringBuilder.append(" AND timestamp > \"");
       filterStringBuilder.append(timeFrom);
       filterStringBuilder.append("\"");
     }
-
     if (!timeTo.equals("")) {
       filterStringBuilder.append(" AND timestamp < \"");
       filterStringBuilder.append(timeTo);
       filterStringBuilder.append("\"");
     }
-
-    ListLogEntriesRequest request = ListLogEntriesRequest.newBuilder()
-      .setFilter(filterStringBuilder.toString()).setOrderBy("timestamp desc")
-      .addResourceNames(resourceNameStringBuilder.toString()).build();
-
-    return logger.listLogEntries(request);
   }
 }
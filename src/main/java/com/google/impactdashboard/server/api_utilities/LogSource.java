@@ -0,0 +1,40 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.logging.v2.LogEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for retrieving the audit logs that set IAM policy on a project and the logs of
+ * accepted IAM recommendations. Times are RFC 3339 strings, and the empty string leaves that
+ * end of the time window open. Entries are always returned newest first.
+ */
+public interface LogSource {
+
+  /** Returns the audit logs that set IAM policy on {@code projectId} in the time window given. */
+  public List<LogEntry> listAuditLogs(String projectId, String timeFrom, String timeTo);
+
+  /**
+   * Returns a list containing the latest audit log that set IAM policy on {@code projectId}
+   * in the time window given, or an empty list if there is none.
+   */
+  public List<LogEntry> getLatestAuditLog(String projectId, String timeFrom, String timeTo);
+
+  /** Returns the accepted recommendation logs of {@code projectId} in the time window given. */
+  public List<LogEntry> listRecommendationLogs(String projectId, String timeFrom, String timeTo);
+
+  /**
+   * Returns a map of project ids to the audit logs that set IAM policy on that project in
+   * the time window given. Projects without any entries may be left out.
+   */
+  public Map<String, List<LogEntry>> listAuditLogsForProjects(List<String> projectIds,
+      String timeFrom, String timeTo);
+
+  /**
+   * Returns a map of project ids to the accepted recommendation logs of that project in
+   * the time window given. Projects without any entries may be left out.
+   */
+  public Map<String, List<LogEntry>> listRecommendationLogsForProjects(List<String> projectIds,
+      String timeFrom, String timeTo);
+}
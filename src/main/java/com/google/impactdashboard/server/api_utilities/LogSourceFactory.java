@@ -0,0 +1,25 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.common.base.Strings;
+import com.google.impactdashboard.configuration.Configuration;
+
+import java.io.IOException;
+
+/** 
+ * Class for returning either a LogSource that calls the logging API or one that reads 
+ * exported logs, depending on configuration flags. 
+ */
+public class LogSourceFactory {
+
+  /** 
+   * If {@code exportedLogsDirectory} is set, returns a LogSource that reads the logs 
+   * exported to that directory, otherwise returns a LogRetriever that calls the logging API.
+   */
+  public static LogSource create() throws IOException {
+    if (!Strings.isNullOrEmpty(Configuration.exportedLogsDirectory)) {
+      return ExportedLogSource.create(Configuration.exportedLogsDirectory);
+    } else {
+      return LogRetriever.create();
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.services.iam.v1.Iam;
+import com.google.api.services.iam.v1.model.ListRolesResponse;
+import com.google.api.services.iam.v1.model.Role;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The number of permissions in each predefined IAM role, shared by every
+ * IamBindingRetriever created on the instance, which read it on every lookup so that they
+ * see the latest refresh. The catalog is cached in {@code Configuration.roleCatalogFile},
+ * so that it is read from disk instead of downloaded when the file already holds it, and is
+ * downloaded again in the background every {@code Configuration.roleCatalogRefreshHours}
+ * hours. Predefined roles all report the
+ * same etag, so a refresh downloads the roles with their permissions and compares a hash
+ * of the permissions of every role with the cached one to tell whether any changed.
+ */
+public class PredefinedRoleCatalog {
+  private static final Gson GSON = new Gson();
+  private static PredefinedRoleCatalog instance = null;
+
+  /** The file the catalog is cached in, or null if it is only kept in memory. */
+  private final Path file;
+  private final long refreshMillis;
+  private final IamServiceFactory iamServiceFactory;
+  private volatile CatalogSnapshot snapshot = null;
+  private ScheduledExecutorService refreshExecutor = null;
+
+  /** Returns the catalog shared by the whole instance. */
+  public static synchronized PredefinedRoleCatalog getInstance() {
+    if (instance == null) {
+      Path file = Configuration.roleCatalogFile.isEmpty() ? null
+          : Paths.get(Configuration.roleCatalogFile);
+      instance = new PredefinedRoleCatalog(file,
+          TimeUnit.HOURS.toMillis(Configuration.roleCatalogRefreshHours),
+          IamBindingRetriever::createIamService);
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a catalog cached in {@code file}, or only in memory if it is null, that is
+   * refreshed every {@code refreshMillis} milliseconds, or never if it is not positive,
+   * with the IAM clients returned by {@code iamServiceFactory}.
+   */
+  @VisibleForTesting
+  PredefinedRoleCatalog(Path file, long refreshMillis, IamServiceFactory iamServiceFactory) {
+    this.file = file;
+    this.refreshMillis = refreshMillis;
+    this.iamServiceFactory = iamServiceFactory;
+  }
+
+  /**
+   * Returns a map of predefined role names to the number of permissions in that role. The
+   * first call reads the cached catalog, or downloads it if there is none, and starts its
+   * background refresh. Calls made meanwhile wait for it, and a failed download is tried
+   * again by the next call.
+   */
+  public Map<String, Integer> getPermissionCounts()
+      throws IOException, GeneralSecurityException {
+    CatalogSnapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          CatalogSnapshot loaded = load();
+          if (loaded == null) {
+            loaded = fetch(iamServiceFactory.create());
+            save(loaded);
+          }
+          snapshot = loaded;
+          scheduleRefresh(loaded.fetchTimestamp);
+        }
+        current = snapshot;
+      }
+    }
+    return current.permissionCounts;
+  }
+
+  /**
+   * Downloads the catalog again, recording whether the permissions of any predefined role
+   * changed since it was last fetched. The time of the download is saved either way.
+   * Failures are logged and leave the catalog as it was.
+   */
+  @VisibleForTesting
+  void refresh() {
+    try (Span span = Tracer.getInstance().startSpan("PredefinedRoleCatalog.refresh", null)) {
+      try {
+        CatalogSnapshot current = snapshot;
+        CatalogSnapshot refreshed = fetch(iamServiceFactory.create());
+        span.setAttribute("changed",
+            current == null || !refreshed.permissionsHash.equals(current.permissionsHash));
+        snapshot = refreshed;
+        save(refreshed);
+      } catch (IOException | GeneralSecurityException | RuntimeException e) {
+        span.recordError(e);
+        System.err.println("WARNING: Could not refresh the predefined role catalog: " +
+            e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Schedules the refreshes of the catalog, the first one {@code refreshMillis} after
+   * {@code fetchTimestamp}.
+   */
+  private void scheduleRefresh(long fetchTimestamp) {
+    if (refreshMillis <= 0 || refreshExecutor != null) {
+      return;
+    }
+    refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setDaemon(true).setNameFormat("role-catalog-refresh").build());
+    long initialDelay = Math.max(0,
+        fetchTimestamp + refreshMillis - System.currentTimeMillis());
+    refreshExecutor.scheduleWithFixedDelay(this::refresh, initialDelay, refreshMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** Returns the catalog cached in the file, or null if there is none or it is unreadable. */
+  private CatalogSnapshot load() {
+    if (file == null || !Files.exists(file)) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      CatalogSnapshot loaded = GSON.fromJson(reader, CatalogSnapshot.class);
+      if (loaded == null || loaded.permissionCounts == null || loaded.permissionsHash == null) {
+        return null;
+      }
+      return new CatalogSnapshot(loaded.permissionCounts, loaded.permissionsHash,
+          loaded.fetchTimestamp);
+    } catch (IOException | JsonParseException e) {
+      System.err.println("WARNING: Could not read the predefined role catalog from " + file +
+          ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes {@code catalog} to the file, replacing its previous content at once so that a
+   * reader never sees part of it. Failures are logged, since the catalog is still in memory.
+   */
+  private void save(CatalogSnapshot catalog) {
+    if (file == null) {
+      return;
+    }
+    Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+        GSON.toJson(catalog, writer);
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      System.err.println("WARNING: Could not write the predefined role catalog to " + file +
+          ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Pages through the predefined roles of {@code iamService} with their permissions, only
+   * keeping the number of permissions of each role and a hash of the permissions of all
+   * of them.
+   */
+  private static CatalogSnapshot fetch(Iam iamService) throws IOException {
+    try (Span span = Tracer.getInstance().startSpan("PredefinedRoleCatalog.fetch")) {
+      long fetchTimestamp = System.currentTimeMillis();
+      Map<String, Integer> permissionCounts = new HashMap<>();
+      Map<String, String> roleHashes = new TreeMap<>();
+      String pageToken = null;
+      do {
+        ListRolesResponse rolesResponse;
+        if(pageToken == null) {
+          rolesResponse = ApiRateLimiter.IAM.call("roles.list",
+              iamService.roles().list().setView("full")::execute);
+        } else {
+          rolesResponse = ApiRateLimiter.IAM.call("roles.list", iamService.roles().list()
+              .setView("full").setPageToken(pageToken)::execute);
+        }
+        if (rolesResponse.getRoles() != null) {
+          IamBindingRetriever.getPermissionCounts(rolesResponse.getRoles())
+              .forEach((role, count) -> permissionCounts.merge(role, count, Integer::sum));
+        }
+        addPermissionHashes(rolesResponse, roleHashes);
+        pageToken = rolesResponse.getNextPageToken();
+      } while(pageToken != null);
+
+      span.setAttribute("roles", permissionCounts.size());
+      return new CatalogSnapshot(permissionCounts, hashRoles(roleHashes), fetchTimestamp);
+    }
+  }
+
+  /**
+   * Adds a hash of the permissions of each role of {@code rolesResponse}, in name order, to
+   * {@code roleHashes}, by role name.
+   */
+  private static void addPermissionHashes(ListRolesResponse rolesResponse,
+      Map<String, String> roleHashes) {
+    if (rolesResponse.getRoles() == null) {
+      return;
+    }
+    for (Role role : rolesResponse.getRoles()) {
+      List<String> permissions = role.getIncludedPermissions() == null
+          ? new ArrayList<>() : new ArrayList<>(role.getIncludedPermissions());
+      Collections.sort(permissions);
+      Hasher hasher = Hashing.sha256().newHasher();
+      permissions.forEach(permission ->
+          hasher.putString(permission, StandardCharsets.UTF_8).putByte((byte) 0));
+      roleHashes.put(role.getName(), hasher.hash().toString());
+    }
+  }
+
+  /** Returns a hash of the role names and hashes of {@code roleHashes}, in name order. */
+  private static String hashRoles(Map<String, String> roleHashes) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    roleHashes.forEach((role, hash) -> hasher.putString(role, StandardCharsets.UTF_8)
+        .putByte((byte) 0).putString(hash, StandardCharsets.UTF_8).putByte((byte) 0));
+    return hasher.hash().toString();
+  }
+
+  /** Creates the IAM clients that the catalog is downloaded with. */
+  @VisibleForTesting
+  interface IamServiceFactory {
+    Iam create() throws IOException, GeneralSecurityException;
+  }
+
+  /**
+   * The catalog as it is cached in the file: the permission counts of the roles, a hash of
+   * the permissions of every role, and when it was last fetched, in UTC milliseconds since
+   * the epoch.
+   */
+  private static class CatalogSnapshot {
+    private final Map<String, Integer> permissionCounts;
+    private final String permissionsHash;
+    private final long fetchTimestamp;
+
+    CatalogSnapshot(Map<String, Integer> permissionCounts, String permissionsHash,
+        long fetchTimestamp) {
+      this.permissionCounts = Collections.unmodifiableMap(new HashMap<>(permissionCounts));
+      this.permissionsHash = permissionsHash;
+      this.fetchTimestamp = fetchTimestamp;
+    }
+  }
+}
@@ -3,59 +3,148 @@ package com.google.impactdashboard.server.api_utilities;
 import com.google.cloud.recommender.v1.RecommenderClient;
 import com.google.cloud.recommender.v1.RecommenderSettings;
 import com.google.cloud.recommender.v1.stub.RecommenderStubSettings;
-import com.google.impactdashboard.Credentials;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.impactdashboard.configuration.Configuration;
 import com.google.impactdashboard.data.recommendation.IAMRecommenderMetadata;
 import com.google.impactdashboard.data.recommendation.Recommendation;
 import com.google.impactdashboard.data.recommendation.RecommendationAction;
+import com.google.impactdashboard.tracing.Tracer;
 import com.google.logging.v2.LogEntry;
 import com.google.protobuf.Value;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /** Class that calls the Recommender API to get the full information for recommendations. */
 public class RecommendationRetriever {
 
+  /** The maximum number of recommendations fetched from the Recommender API at once. */
+  public static final int MAX_CONCURRENT_FETCHES = 8;
+
+  /** The maximum number of recommendations kept in the cache. */
+  private static final long MAX_CACHED_RECOMMENDATIONS = 10000;
+
   private RecommenderClient recommender;
   private ResourceRetriever resourceRetriever;
 
-  private RecommendationRetriever(RecommenderClient recommender, ResourceRetriever resourceRetriever) {
+  /** 
+   * The actions and impact of recommendations that have already been fetched, by name. 
+   * An accepted recommendation shows up in several logs (for example on retries or state 
+   * transitions), and its content doesn't change, so it only needs to be fetched and 
+   * its impact computed once per run.
+   */
+  private final Cache<String, FetchedRecommendation> recommendations =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_RECOMMENDATIONS)
+          .expireAfterWrite(1, TimeUnit.DAYS).build();
+
+  /** Executor shared by every call, so the number of concurrent fetches is capped overall. */
+  private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(
+      MAX_CONCURRENT_FETCHES, new ThreadFactoryBuilder().setDaemon(true)
+          .setNameFormat("recommendation-fetch-%d").build());
+
+  @VisibleForTesting
+  protected RecommendationRetriever(RecommenderClient recommender, 
+      ResourceRetriever resourceRetriever) {
     this.recommender = recommender;
     this.resourceRetriever = resourceRetriever;
   }
 
   /**
    * Static factory method for creating a RecommendationRetriever with a new
-   * RecommenderClient.
+   * RecommenderClient, using the channels shared by every client. The client connects to
+   * {@code Configuration.recommenderEndpoint} instead of the Recommender API if it is set.
+   * It doesn't retry failed calls itself, since ApiRateLimiter.RECOMMENDER does.
    * @return A new instance of a {@code RecommendationRetriever}
    */
   public static RecommendationRetriever create() throws IOException {
-    RecommenderStubSettings stub = RecommenderStubSettings.newBuilder()
-        .setCredentialsProvider(Credentials::getCredentials).build();
+    RecommenderStubSettings.Builder stubBuilder = RecommenderStubSettings.newBuilder();
+    stubBuilder.getRecommendationSettings().setRetryableCodes(Collections.emptySet());
+    RecommenderStubSettings stub = stubBuilder
+        .setCredentialsProvider(
+            ApiTransports.getCredentialsProvider(Configuration.recommenderEndpoint))
+        .setTransportChannelProvider(ApiTransports.getChannelProvider(
+            RecommenderStubSettings.getDefaultEndpoint(), Configuration.recommenderEndpoint,
+            RecommenderStubSettings.defaultApiClientHeaderProviderBuilder().build().getHeaders()))
+        .setExecutorProvider(ApiTransports.getExecutorProvider())
+        .build();
     return new RecommendationRetriever(RecommenderClient.create(RecommenderSettings.create(stub)),
         ResourceRetriever.getInstance());
   }
 
   /**
    * Helper method to be called to retrieve all recommendations in the last 90 days
-   * from recommender for a certain project.
+   * from recommender for a certain project. Each distinct recommendation is fetched, 
+   * and its impact computed, once, concurrently with the others.
    * @return collection of recommendations for the project specified
    */
   public List<Recommendation> listRecommendations(Collection<LogEntry> recommendationLogs,
                                 String projectId, Recommendation.RecommenderType type,
                                 IamBindingRetriever iamRetriever) {
+    Map<String, Future<FetchedRecommendation>> fetches = new HashMap<>();
+    recommendationLogs.stream().map(RecommendationRetriever::getRecommendationName).distinct()
+        .forEach(name -> fetches.put(name, fetchExecutor.submit(Tracer.getInstance().wrap(() ->
+            recommendations.get(name, () -> {
+              List<RecommendationAction> actions = getRecommendationActions(
+                  ApiRateLimiter.RECOMMENDER.call("GetRecommendation", 
+                      () -> recommender.getRecommendation(name)));
+              return new FetchedRecommendation(actions, iamRetriever.getActionImpact(actions));
+            })))));
+
+    Map<String, FetchedRecommendation> fetched = new HashMap<>();
+    fetches.forEach((name, fetch) -> fetched.put(name, getFetchResult(fetch)));
+
+    String organizationId = recommendationLogs.isEmpty() ? 
+        "" : resourceRetriever.getOrganizationId(projectId);
     return recommendationLogs.stream().map(recommendationLog -> {
       Map<String, Value> recommendationDataMap = recommendationLog.getJsonPayload().getFieldsMap();
-      com.google.cloud.recommender.v1.Recommendation recommendation = recommender
-          .getRecommendation(recommendationDataMap.get("recommendationName").getStringValue());
-      List<RecommendationAction> actions = getRecommendationActions(recommendation);
-      return Recommendation.create(projectId, resourceRetriever.getOrganizationId(projectId), recommendationDataMap.get("actor").getStringValue(),
-          actions, type, recommendationLog.getTimestamp().getSeconds() * 1000,
-          IAMRecommenderMetadata.create(iamRetriever.getActionImpact(actions)));
+      String name = getRecommendationName(recommendationLog);
+      return Recommendation.create(projectId, organizationId, 
+          recommendationDataMap.get("actor").getStringValue(),
+          fetched.get(name).actions, type, recommendationLog.getTimestamp().getSeconds() * 1000,
+          IAMRecommenderMetadata.create(fetched.get(name).impact));
     }).collect(Collectors.toList());
   }
 
+  /** Returns the name of the recommendation that {@code recommendationLog} is about. */
+  private static String getRecommendationName(LogEntry recommendationLog) {
+    return recommendationLog.getJsonPayload().getFieldsMap().get("recommendationName")
+        .getStringValue();
+  }
+
+  /**
+   * Waits for {@code fetch} and returns its result. If the fetch failed, the exception 
+   * thrown by the Recommender API is rethrown, so callers can handle API errors such as 
+   * {@code PermissionDeniedException} as before.
+   */
+  private static FetchedRecommendation getFetchResult(Future<FetchedRecommendation> fetch) {
+    try {
+      return fetch.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while retrieving recommendations");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      while ((cause instanceof ExecutionException || cause instanceof UncheckedExecutionException)
+          && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Could not retrieve recommendation: " + cause.getMessage());
+    }
+  }
+
   /**
    * Takes the information in a recommendation and compiles it into an Action list.
    * @param recommendation the recommendation the description is coming from
@@ -90,4 +179,15 @@ public class RecommendationRetriever {
         }).collect(Collectors.toList());
     return actions;
   }
+
+  /** The actions of a fetched recommendation and the impact of accepting them. */
+  private static class FetchedRecommendation {
+    private final List<RecommendationAction> actions;
+    private final int impact;
+
+    FetchedRecommendation(List<RecommendationAction> actions, int impact) {
+      this.actions = actions;
+      this.impact = impact;
+    }
+  }
 }
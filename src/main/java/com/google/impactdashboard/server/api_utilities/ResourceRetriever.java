@@ -1,6 +1,6 @@
 package com.google.impactdashboard.server.api_utilities;
 
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
@@ -11,8 +11,7 @@ import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.*;
 
-import com.google.auth.http.HttpCredentialsAdapter;
-import com.google.impactdashboard.Credentials;
+import com.google.impactdashboard.configuration.Configuration;
 
 import  com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.common.annotations.VisibleForTesting;
@@ -58,7 +57,7 @@ public class ResourceRetriever {
 
     ListProjectsResponse response;
     do {
-      response = request.execute();
+      response = ApiRateLimiter.RESOURCE_MANAGER.call("projects.list", request::execute);
       if (response.getProjects() != null) {
         response.getProjects().stream().forEach(project -> {
           String projectName = project.getName();
@@ -100,7 +99,8 @@ public class ResourceRetriever {
   private List<Ancestor> getProjectAncestry(String projectId) throws IOException {
     CloudResourceManager.Projects.GetAncestry ancestry = cloudResourceManagerService.
         projects().getAncestry(projectId, new GetAncestryRequest());
-    GetAncestryResponse response = ancestry.execute();
+    GetAncestryResponse response = ApiRateLimiter.RESOURCE_MANAGER.call("projects.getAncestry",
+        ancestry::execute);
     return response.getAncestor();
   }
 
@@ -127,17 +127,18 @@ public class ResourceRetriever {
   private Organization searchOrganizationIds(String organizationId) throws IOException {
     CloudResourceManager.Organizations.Get orgGet = cloudResourceManagerService.organizations()
         .get("organizations/" + organizationId);
-    return orgGet.execute();
+    return ApiRateLimiter.RESOURCE_MANAGER.call("organizations.get", orgGet::execute);
   }
 
   /**
    * Returns a CloudResourceManager with the proper credentials to retrieve the 
-   * list of projects that the dashboard has access to.
+   * list of projects that the dashboard has access to. Requests are sent to
+   * {@code Configuration.resourceManagerRootUrl} instead of the API if it is set.
    */
   private static CloudResourceManager createCloudResourceManagerService() {
     HttpTransport httpTransport = null;
     try {
-      httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+      httpTransport = ApiTransports.getHttpTransport();
     } catch (IOException io) {
       throw new RuntimeException(
         "Failed to access Resource Manager: could not create HttpTransport, " + io.getMessage());
@@ -147,12 +148,16 @@ public class ResourceRetriever {
     }
     JsonFactory jsonFactory = JacksonFactory.getDefaultInstance();
 
-    HttpCredentialsAdapter credentials = new HttpCredentialsAdapter(
-      Credentials.getCredentials()
-        .createScoped(Arrays.asList("https://www.googleapis.com/auth/cloud-platform")));
+    HttpRequestInitializer credentials = ApiTransports.getHttpRequestInitializer(
+      Configuration.resourceManagerRootUrl,
+      Arrays.asList("https://www.googleapis.com/auth/cloud-platform"));
 
-    return new CloudResourceManager.Builder(httpTransport, jsonFactory, credentials)
-      .setApplicationName("Recommendations Impact Dashboard")
-      .build();
+    CloudResourceManager.Builder builder =
+      new CloudResourceManager.Builder(httpTransport, jsonFactory, credentials)
+        .setApplicationName("Recommendations Impact Dashboard");
+    if (!Configuration.resourceManagerRootUrl.isEmpty()) {
+      builder.setRootUrl(Configuration.resourceManagerRootUrl);
+    }
+    return builder.build();
   }
 }
@@ -9,7 +9,8 @@ import com.google.impactdashboard.database_manager.data_read.DataReadManagerFact
 import com.google.impactdashboard.database_manager.data_update.DataUpdateManager;
 import com.google.impactdashboard.database_manager.data_update.DataUpdateManagerFactory;
 import com.google.impactdashboard.server.api_utilities.IamBindingRetriever;
-import com.google.impactdashboard.server.api_utilities.LogRetriever;
+import com.google.impactdashboard.server.api_utilities.LogSource;
+import com.google.impactdashboard.server.api_utilities.LogSourceFactory;
 import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
 import com.google.impactdashboard.server.api_utilities.RecommendationRetriever;
 import java.io.IOException;
@@ -17,7 +18,7 @@ import java.security.GeneralSecurityException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /** 
  * Class that carries out data update that retrieves 30 days of data for new 
@@ -27,11 +28,11 @@ import java.util.stream.Collectors;
 public class AutomaticDataUpdater extends DataUpdater {
 
   @VisibleForTesting
-  protected AutomaticDataUpdater(LogRetriever logRetriever, 
+  protected AutomaticDataUpdater(LogSource logSource, 
       RecommendationRetriever recommendationRetriever,
       DataUpdateManager updateManager, DataReadManager readManager,
       IamBindingRetriever iamRetriever, ResourceRetriever projectRetriever) {
-    super(logRetriever, recommendationRetriever, updateManager, readManager, 
+    super(logSource, recommendationRetriever, updateManager, readManager, 
         iamRetriever, projectRetriever);
   }
 
@@ -41,7 +42,7 @@ public class AutomaticDataUpdater extends DataUpdater {
    */
   public static AutomaticDataUpdater create() 
       throws IOException, GeneralSecurityException {
-    return new AutomaticDataUpdater(LogRetriever.create(), RecommendationRetriever.create(),
+    return new AutomaticDataUpdater(LogSourceFactory.create(), RecommendationRetriever.create(),
         DataUpdateManagerFactory.create(), DataReadManagerFactory.create(),
         IamBindingRetriever.create(), ResourceRetriever.getInstance());
   }
@@ -56,16 +57,17 @@ public class AutomaticDataUpdater extends DataUpdater {
   @VisibleForTesting
   @Override
   protected List<Recommendation> listUpdatedRecommendations(
-      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects) {
+      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects,
+      UpdateRunRecorder run) {
     String yesterdayAtMidnight = Instant.ofEpochMilli(System.currentTimeMillis())
       .truncatedTo(ChronoUnit.DAYS)
       .minus(1L, ChronoUnit.DAYS)
       .toString();
 
     List<Recommendation> newProjectRecommendations = getRecommendationsForProjects(
-      newProjects, "", "");
+      newProjects, "", "", run);
     List<Recommendation> knownProjectRecommendations = getRecommendationsForProjects(
-      knownProjects, yesterdayAtMidnight, "");
+      knownProjects, yesterdayAtMidnight, "", run);
 
     newProjectRecommendations.addAll(knownProjectRecommendations);
     return newProjectRecommendations;  
@@ -73,20 +75,23 @@ public class AutomaticDataUpdater extends DataUpdater {
 
   /**
    * For new projects, gets the past 30 days of IAM Bindings; for old projects, 
-   * gets the IAM Bindings for the previous day.
+   * gets the IAM Bindings for the previous day, reusing the newest stored entry 
+   * when the policy has not changed since it was recorded.
    * @return A List of IAMBindingDatabaseEntry
    */
   @VisibleForTesting
   @Override
   protected List<IAMBindingDatabaseEntry> listUpdatedIAMBindingData(
-      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects) {
+      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects,
+      UpdateRunRecorder run) {
     Instant midnight30DaysAgo = Instant.ofEpochMilli(System.currentTimeMillis())
         .truncatedTo(ChronoUnit.DAYS)
         .minus(30L, ChronoUnit.DAYS);
     List<IAMBindingDatabaseEntry> entries = getIAMBindingsDataEntries(
-        newProjects, midnight30DaysAgo, null);
-    entries.addAll(knownProjects.parallelStream().flatMap(project -> 
-        getLastIamEntry(project, "").stream()).collect(Collectors.toList()));
+        newProjects, midnight30DaysAgo, null, run);
+    Map<String, IAMBindingDatabaseEntry> storedEntries = 
+        readManager.getLatestIAMBindingsEntries();
+    entries.addAll(getTodaysIamEntries(knownProjects, storedEntries, run));
     return entries;  
   }
 }
@@ -0,0 +1,79 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.cloud.tasks.v2.AppEngineHttpRequest;
+import com.google.cloud.tasks.v2.CloudTasksClient;
+import com.google.cloud.tasks.v2.CloudTasksSettings;
+import com.google.cloud.tasks.v2.HttpMethod;
+import com.google.cloud.tasks.v2.QueueName;
+import com.google.cloud.tasks.v2.Task;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.impactdashboard.Credentials;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.configuration.Constants;
+import com.google.impactdashboard.data.update.ShardStatus;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/** 
+ * Dispatches each shard as a Cloud Tasks task to {@code /update-data} on App Engine, 
+ * so that the shards are spread across instances and each gets its own deadline. 
+ * Unlike the bundled App Engine task queue, Cloud Tasks also reaches the flexible 
+ * environment that the app is deployed to.
+ */
+public class CloudTasksUpdateTaskQueue implements UpdateTaskQueue {
+
+  /** The path of the servlet that runs a single shard. */
+  private static final String UPDATE_DATA_PATH = "/update-data";
+
+  private final CloudTasksClient client;
+  private final String queueName;
+
+  @VisibleForTesting
+  CloudTasksUpdateTaskQueue(CloudTasksClient client, String queueName) {
+    this.client = client;
+    this.queueName = queueName;
+  }
+
+  /** 
+   * Creates a task queue that adds tasks to {@code Configuration.updateTaskQueue} in 
+   * {@code Configuration.updateTaskQueueLocation}.
+   * @throws RuntimeException if the Cloud Tasks client cannot be created.
+   */
+  public static CloudTasksUpdateTaskQueue create() {
+    try {
+      CloudTasksClient client = CloudTasksClient.create(CloudTasksSettings.newBuilder()
+          .setCredentialsProvider(FixedCredentialsProvider.create(Credentials.getCredentials()))
+          .build());
+      return new CloudTasksUpdateTaskQueue(client, QueueName.of(Constants.PROJECT_ID,
+          Configuration.updateTaskQueueLocation, Configuration.updateTaskQueue).toString());
+    } catch (IOException e) {
+      throw new RuntimeException("Could not create Cloud Tasks client: " + e.getMessage());
+    }
+  }
+
+  /** 
+   * Adds a task running shard {@code shard} out of {@code shardCount} of the update 
+   * {@code runId} to the queue, which App Engine routes to the default service.
+   * @return A status in the DISPATCHED state, since the shard runs asynchronously. Its 
+   *     outcome is stored in the Update Runs table under {@code runId}.
+   */
+  @Override
+  public ShardStatus dispatch(String runId, int shard, int shardCount, int projectCount) {
+    String relativeUri;
+    try {
+      relativeUri = UPDATE_DATA_PATH + "?shard=" + shard + "&of=" + shardCount + 
+          "&run=" + URLEncoder.encode(runId, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+    client.createTask(queueName, Task.newBuilder()
+        .setAppEngineHttpRequest(AppEngineHttpRequest.newBuilder()
+            .setHttpMethod(HttpMethod.GET)
+            .setRelativeUri(relativeUri))
+        .build());
+    return ShardStatus.create(shard, shardCount, projectCount, ShardStatus.State.DISPATCHED, "");
+  }
+}
@@ -1,43 +1,49 @@
 package com.google.impactdashboard.server.data_update;
 
 import com.google.api.gax.rpc.PermissionDeniedException;
-import com.google.cloud.logging.v2.LoggingClient.ListLogEntriesPagedResponse;
-import com.google.cloud.logging.v2.LoggingClient;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Strings;
+import com.google.impactdashboard.configuration.Configuration;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.database_manager.data_read.DataReadManager;
 import com.google.impactdashboard.database_manager.data_update.DataUpdateManager;
 import com.google.impactdashboard.server.api_utilities.IamBindingRetriever;
-import com.google.impactdashboard.server.api_utilities.LogRetriever;
+import com.google.impactdashboard.server.api_utilities.LogSource;
 import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
 import com.google.impactdashboard.server.api_utilities.RecommendationRetriever;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
 import com.google.logging.v2.LogEntry;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /** Class for updating the information in the database from the API. */
 public class DataUpdater {
 
-  protected final LogRetriever logRetriever;
+  protected final LogSource logSource;
   protected final RecommendationRetriever recommendationRetriever;
   protected final IamBindingRetriever iamRetriever;
   protected final DataUpdateManager updateManager;
   protected final DataReadManager readManager;
   protected final ResourceRetriever projectRetriever;
 
+  private final Tracer tracer = Tracer.getInstance();
+
   @VisibleForTesting
-  protected DataUpdater(LogRetriever logRetriever, RecommendationRetriever recommendationRetriever,
+  protected DataUpdater(LogSource logSource, RecommendationRetriever recommendationRetriever,
                       DataUpdateManager updateManager, DataReadManager readManager,
                       IamBindingRetriever iamRetriever, ResourceRetriever projectRetriever) {
-    this.logRetriever = logRetriever;
+    this.logSource = logSource;
     this.recommendationRetriever = recommendationRetriever;
     this.updateManager = updateManager;
     this.readManager = readManager;
@@ -47,73 +53,217 @@ public class DataUpdater {
 
   /**
    * Updates the database with any new information about recommendations and IAMBinding logging.
+   * @return The report of the update, which is also stored in the Update Runs table.
+   */
+  public UpdateRunReport updateDatabase() {
+    return updateDatabase(0, 1);
+  }
+
+  /**
+   * Updates the database with any new information about recommendations and IAMBinding logging,
+   * for only the projects that belong to shard {@code shard} out of {@code shardCount}, as 
+   * assigned by {@code ShardedUpdateCoordinator.getShard}.
+   * @return The report of the update of the shard, which is also stored in the Update Runs 
+   *     table.
+   */
+  public UpdateRunReport updateDatabase(int shard, int shardCount) {
+    return updateDatabase(shard, shardCount, "");
+  }
+
+  /**
+   * Updates the database with any new information about recommendations and IAMBinding logging,
+   * for only the projects that belong to shard {@code shard} out of {@code shardCount} of the 
+   * sharded update {@code runId}, as assigned by {@code ShardedUpdateCoordinator.getShard}. 
+   * Year old data is deleted by shard 0. Each run is recorded on its own, so runs of the same 
+   * updater can overlap, and its report only counts the API calls made for it. If the run 
+   * fails, a report holding the cause is stored before the exception is rethrown, so that 
+   * the outcome of every attempt at a shard is in the Update Runs table. The run is traced 
+   * as a span with one span per phase, and one per project within the phases that retrieve 
+   * data.
+   * @return The report of the update of the shard, which is also stored in the Update Runs 
+   *     table.
    */
-  public void updateDatabase() {
-    List<ProjectIdentification> knownProjects = readManager.listProjects();
-    List<ProjectIdentification> newProjects = projectRetriever.listResourceManagerProjects();
-    ArrayList<ProjectIdentification> deprecatedProjects = new ArrayList<>(knownProjects);
-    deprecatedProjects.removeAll(newProjects); // projects that are in the database that 
-                                               // the user no longer has acces to
-    knownProjects.removeAll(deprecatedProjects); //knownProjects now a subset of newProjects
-    newProjects.removeAll(knownProjects);
+  public UpdateRunReport updateDatabase(int shard, int shardCount, String runId) {
+    if (shard < 0 || shard >= shardCount) {
+      throw new IllegalArgumentException("Invalid shard " + shard + " of " + shardCount);
+    }
+    try (Span span = tracer.startSpan("DataUpdater.updateDatabase");
+        UpdateRunRecorder run = new UpdateRunRecorder(span)) {
+      span.setAttribute("shard", shard).setAttribute("shard_count", shardCount);
+      List<ProjectIdentification> knownProjects = new ArrayList<>();
+      List<ProjectIdentification> newProjects = new ArrayList<>();
+      int recommendationRowsWritten = 0;
+      int bindingRowsWritten = 0;
+      try {
+        timePhase(run, "list_projects", () -> {
+          knownProjects.addAll(inShard(readManager.listProjects(), shard, shardCount));
+          newProjects.addAll(inShard(projectRetriever.listResourceManagerProjects(), 
+              shard, shardCount));
+          ArrayList<ProjectIdentification> deprecatedProjects = new ArrayList<>(knownProjects);
+          deprecatedProjects.removeAll(newProjects); // projects that are in the database that 
+                                                     // the user no longer has acces to
+          knownProjects.removeAll(deprecatedProjects); //knownProjects now a subset of newProjects
+          newProjects.removeAll(knownProjects);
+        });
+
+        List<Recommendation> recommendations = timePhase(run, "retrieve_recommendations",
+            () -> listUpdatedRecommendations(knownProjects, newProjects, run));
+        timePhase(run, "write_recommendations", 
+            () -> updateManager.updateRecommendations(recommendations));
+        recommendationRowsWritten = recommendations.size();
+        List<IAMBindingDatabaseEntry> bindings = timePhase(run, "retrieve_bindings",
+            () -> listUpdatedIAMBindingData(knownProjects, newProjects, run));
+        timePhase(run, "write_bindings", () -> updateManager.updateIAMBindings(bindings));
+        bindingRowsWritten = bindings.size();
+        if (shard == 0) {
+          timePhase(run, "delete_old_data", updateManager::deleteYearOldData);
+        }
+      } catch (RuntimeException e) {
+        storeUpdateRunReport(run.createReport(runId, shard, shardCount, 
+            knownProjects.size() + newProjects.size(), recommendationRowsWritten, 
+            bindingRowsWritten, String.valueOf(e.getMessage())));
+        throw e;
+      }
 
-    updateManager.updateRecommendations(listUpdatedRecommendations(knownProjects, newProjects));
-    updateManager.updateIAMBindings(listUpdatedIAMBindingData(knownProjects, newProjects));
-    updateManager.deleteYearOldData();
+      UpdateRunReport report = run.createReport(runId, shard, shardCount, 
+          knownProjects.size() + newProjects.size(), recommendationRowsWritten, 
+          bindingRowsWritten, "");
+      span.setAttribute("project_count", report.getProjectCount());
+      storeUpdateRunReport(report);
+      return report;
+    }
+  }
+
+  /** 
+   * Stores {@code report} in the Update Runs table. Failures are only logged, since they
+   * do not affect the data that was updated.
+   */
+  private void storeUpdateRunReport(UpdateRunReport report) {
+    try {
+      updateManager.storeUpdateRunReport(report);
+    } catch (RuntimeException e) {
+      System.err.println("WARNING: Could not store the update run report: " + 
+          e.getMessage());
+    }
+  }
+
+  /** 
+   * Returns the result of {@code phase}, recording how long it took under {@code name} 
+   * in {@code run} and tracing it as a span. 
+   */
+  private <T> T timePhase(UpdateRunRecorder run, String name, Supplier<T> phase) {
+    long start = System.nanoTime();
+    try (Span span = tracer.startSpan("DataUpdater." + name)) {
+      run.setPhaseSpan(span);
+      return phase.get();
+    } finally {
+      run.setPhaseSpan(null);
+      run.recordPhase(name, start);
+    }
+  }
+
+  /** Runs {@code phase}, recording how long it took under {@code name} in {@code run}. */
+  private void timePhase(UpdateRunRecorder run, String name, Runnable phase) {
+    timePhase(run, name, () -> {
+      phase.run();
+      return null;
+    });
+  }
+
+  /** 
+   * Starts the span of retrieving the data of {@code project} in the current phase of
+   * {@code run}, which is the current span of the thread until it is closed.
+   */
+  private Span startProjectSpan(ProjectIdentification project, UpdateRunRecorder run) {
+    return tracer.startSpan("DataUpdater.project", run.getPhaseSpan())
+        .setAttribute("project_id", project.getProjectId());
+  }
+
+  /** Returns the projects in {@code projects} that belong to shard {@code shard}. */
+  private static List<ProjectIdentification> inShard(List<ProjectIdentification> projects, 
+      int shard, int shardCount) {
+    return projects.stream()
+        .filter(project -> 
+            ShardedUpdateCoordinator.getShard(project.getProjectId(), shardCount) == shard)
+        .collect(Collectors.toCollection(ArrayList::new));
   }
 
   @VisibleForTesting
   protected List<Recommendation> listUpdatedRecommendations(
-      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects) {
+      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects,
+      UpdateRunRecorder run) {
     throw new UnsupportedOperationException("Must be overriden.");
   } 
 
   @VisibleForTesting
   protected List<IAMBindingDatabaseEntry> listUpdatedIAMBindingData(
-    List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects) {
+    List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects,
+    UpdateRunRecorder run) {
     throw new UnsupportedOperationException("Must be overriden.");
   }
 
   /**
    * Returns the list of recommendations for the projects in {@code projects} 
-   * within the time window specified.
+   * within the time window specified, recording the projects in {@code run}.
    */
   protected List<Recommendation> getRecommendationsForProjects(
-    List<ProjectIdentification> projects, String timeFrom, String timeTo) {
+    List<ProjectIdentification> projects, String timeFrom, String timeTo,
+    UpdateRunRecorder run) {
+    Map<String, List<LogEntry>> batchedLogs = Configuration.useBatchedLogRetrieval ? 
+        logSource.listRecommendationLogsForProjects(getProjectIds(projects), 
+            timeFrom, timeTo) : 
+        null;
     return projects.parallelStream()
       .map(project -> {
+        long projectStart = System.nanoTime();
+        Span span = startProjectSpan(project, run);
         try {
-          ListLogEntriesPagedResponse response = logRetriever.listRecommendationLogs(
-              project.getProjectId(), timeFrom, timeTo);
-          List<LogEntry> entries = StreamSupport.stream(response.iterateAll().spliterator(), false)
-              .collect(Collectors.toList());
+          List<LogEntry> entries = batchedLogs == null ? 
+              logSource.listRecommendationLogs(project.getProjectId(), timeFrom, timeTo) :
+              batchedLogs.getOrDefault(project.getProjectId(), new ArrayList<>());
           return recommendationRetriever.listRecommendations(
               entries, project.getProjectId(),
               Recommendation.RecommenderType.IAM_BINDING, iamRetriever);
         } catch (PermissionDeniedException e) {
+          run.recordSkippedProject(project.getProjectId(), 
+              "Recommendations: " + e.getMessage());
+          span.recordError(e);
           return new ArrayList<Recommendation>();
+        } finally {
+          span.close();
+          run.recordProject(project.getProjectId(), projectStart);
         }
       }).flatMap(List::stream).collect(Collectors.toList());
   }
 
-  /** Returns all IAM Bindings data for {@code projects} in the time range given. */
+  /** 
+   * Returns all IAM Bindings data for {@code projects} in the time range given, recording
+   * the projects in {@code run}. 
+   */
   protected List<IAMBindingDatabaseEntry> getIAMBindingsDataEntries(
-      List<ProjectIdentification> projects, Instant timeFrom, Instant timeTo) {
+      List<ProjectIdentification> projects, Instant timeFrom, Instant timeTo,
+      UpdateRunRecorder run) {
+    Map<String, List<LogEntry>> batchedLogs = Configuration.useBatchedLogRetrieval ? 
+        logSource.listAuditLogsForProjects(getProjectIds(projects), timeFrom.toString(), 
+            timeTo == null ? "" : timeTo.toString()) : 
+        null;
     return projects.parallelStream().flatMap(project -> {
+      long projectStart = System.nanoTime();
+      Span span = startProjectSpan(project, run);
       try {
         List<IAMBindingDatabaseEntry> iamBindingDatabaseEntries = new ArrayList<>();
 
-        LoggingClient.ListLogEntriesPagedResponse response = logRetriever
-            .listAuditLogsResponse(project.getProjectId(), timeFrom.toString(),
-                timeTo == null ? "" : timeTo.toString(), 50, "");
-        List<LogEntry> iamBindingsLogs = StreamSupport
-            .stream(response.iterateAll().spliterator(), false).collect(Collectors.toList());
+        List<LogEntry> iamBindingsLogs = batchedLogs == null ? 
+            logSource.listAuditLogs(project.getProjectId(), timeFrom.toString(), 
+                timeTo == null ? "" : timeTo.toString()) :
+            batchedLogs.getOrDefault(project.getProjectId(), new ArrayList<>());
 
+        // The entry from before the time range goes first, so that the entries stay oldest first.
+        iamBindingDatabaseEntries.addAll(getLastIamEntry(project, timeFrom.toString(), run));
         iamBindingDatabaseEntries.addAll(iamRetriever.listIAMBindingData(iamBindingsLogs,
             project.getProjectId(), project.getName(),
             String.valueOf(project.getProjectNumber()),
             null));
-        iamBindingDatabaseEntries.addAll(getLastIamEntry(project, timeFrom.toString()));
 
         return createListWithOneEntryPerDay(iamBindingDatabaseEntries, timeFrom,
             timeTo == null ?
@@ -122,88 +272,204 @@ public class DataUpdater {
                 timeTo)
             .stream();
       } catch (PermissionDeniedException e) {
+        run.recordSkippedProject(project.getProjectId(), "IAM bindings: " + e.getMessage());
+        span.recordError(e);
         return new ArrayList<IAMBindingDatabaseEntry>().stream();
+      } finally {
+        span.close();
+        run.recordProject(project.getProjectId(), projectStart);
       }
     }).collect(Collectors.toList());
   }
 
+  /** Returns the ids of {@code projects}. */
+  private static List<String> getProjectIds(List<ProjectIdentification> projects) {
+    return projects.stream().map(ProjectIdentification::getProjectId)
+        .collect(Collectors.toList());
+  }
+
   /**
    * Helper method for getting the newest info for projects that are not new. Retrieves only the
    * last log for the Iam data since we only needed the latest IAM data. Even if the Iam data is
    * old this creates a new Database entry for the day.
    * @param project the project that needs the last days of data
    * @param timeTo the earliest day to look for an entry.
-   * @return the most recent IamBindingData
+   * @param run the run that skipped projects are recorded in.
+   * @return the most recent IamBindingData, or an empty list if the logs of the project can't
+   *     be read.
    */
   protected List<IAMBindingDatabaseEntry> getLastIamEntry(
-      ProjectIdentification project, String timeTo) {
+      ProjectIdentification project, String timeTo, UpdateRunRecorder run) {
     try {
       long todayMidnight = Instant.ofEpochMilli(System.currentTimeMillis())
           .truncatedTo(ChronoUnit.DAYS).toEpochMilli();
 
-      String pageToken = "";
-      List<LogEntry> entry = new ArrayList<>();;
-      do {
-        LoggingClient.ListLogEntriesPagedResponse response = logRetriever.listAuditLogsResponse(
-            project.getProjectId(), "", timeTo, 1, pageToken);
-        entry = response.getPage().getResponse().getEntriesList();
-        pageToken = response.getNextPageToken();
-      } while (entry.isEmpty() && !Strings.isNullOrEmpty(pageToken));
+      List<LogEntry> entry = logSource.getLatestAuditLog(project.getProjectId(), "", timeTo);
 
       List<IAMBindingDatabaseEntry> lastEntry = iamRetriever
           .listIAMBindingData(entry, project.getProjectId(), project.getName(),
               String.valueOf(project.getProjectNumber()),
               timeTo.equals("") ? todayMidnight : null);
       return lastEntry;
-    } catch (Exception e) {
+    } catch (PermissionDeniedException e) {
+      run.recordSkippedProject(project.getProjectId(), 
+          "Latest IAM bindings: " + e.getMessage());
+      Span span = tracer.getCurrentSpan();
+      if (span != null) {
+        span.recordError(e);
+      }
       return new ArrayList<>();
     }
   }
 
+  /**
+   * Returns today's entry for a project that already has data in the database. The audit 
+   * logs are only searched since {@code storedEntry} was recorded; if the policy has not 
+   * been set since then, {@code storedEntry} is copied to today instead.
+   * @param project the project that needs today's data
+   * @param storedEntry the newest entry stored for the project, or null if there is none.
+   * @param run the run that the project is recorded in.
+   */
+  protected List<IAMBindingDatabaseEntry> getTodaysIamEntry(
+      ProjectIdentification project, IAMBindingDatabaseEntry storedEntry, 
+      UpdateRunRecorder run) {
+    return getTodaysIamEntry(project, storedEntry, run, () -> logSource.getLatestAuditLog(
+        project.getProjectId(), Instant.ofEpochMilli(storedEntry.getTimestamp()).toString(), 
+        ""));
+  }
+
+  /**
+   * Returns today's entries for {@code projects}, projects that already have data in the
+   * database, as {@code getTodaysIamEntry} does for each of them, in the order of 
+   * {@code projects}. If {@code Configuration.useBatchedLogRetrieval} is set, the audit 
+   * logs of the projects whose newest stored entries are from the same day are listed with
+   * multi-resource requests instead of one search per project, and a project whose logs 
+   * could not be read keeps its stored entry. Projects without a stored entry are still 
+   * searched one at a time, since their latest log can be up to 400 days old.
+   * @param storedEntries the newest entry stored for each project, by project id.
+   */
+  protected List<IAMBindingDatabaseEntry> getTodaysIamEntries(
+      List<ProjectIdentification> projects, Map<String, IAMBindingDatabaseEntry> storedEntries,
+      UpdateRunRecorder run) {
+    Map<String, List<IAMBindingDatabaseEntry>> entriesByProject = new ConcurrentHashMap<>();
+    if (Configuration.useBatchedLogRetrieval) {
+      Map<Instant, List<ProjectIdentification>> projectsByStoredDay = projects.stream()
+          .filter(project -> storedEntries.containsKey(project.getProjectId()))
+          .collect(Collectors.groupingBy(project -> Instant.ofEpochMilli(
+              storedEntries.get(project.getProjectId()).getTimestamp())
+              .truncatedTo(ChronoUnit.DAYS)));
+      projectsByStoredDay.forEach((day, dayProjects) -> {
+        Map<String, List<LogEntry>> logs = logSource.listAuditLogsForProjects(
+            getProjectIds(dayProjects), day.toString(), "");
+        dayProjects.parallelStream().forEach(project -> {
+          IAMBindingDatabaseEntry storedEntry = storedEntries.get(project.getProjectId());
+          // The logs are newest first, so the first one after the stored entry is the latest.
+          List<LogEntry> latestLog = logs.getOrDefault(project.getProjectId(), 
+              Collections.emptyList()).stream()
+              .filter(entry -> getTimestampMillis(entry) > storedEntry.getTimestamp())
+              .limit(1)
+              .collect(Collectors.toList());
+          entriesByProject.put(project.getProjectId(), 
+              getTodaysIamEntry(project, storedEntry, run, () -> latestLog));
+        });
+      });
+    }
+    projects.parallelStream()
+        .filter(project -> !entriesByProject.containsKey(project.getProjectId()))
+        .forEach(project -> entriesByProject.put(project.getProjectId(), 
+            getTodaysIamEntry(project, storedEntries.get(project.getProjectId()), run)));
+    return projects.stream()
+        .flatMap(project -> entriesByProject.get(project.getProjectId()).stream())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns today's entry for {@code project} like {@code getTodaysIamEntry}, where 
+   * {@code latestLog} returns the latest audit log written since {@code storedEntry}, if 
+   * any.
+   */
+  private List<IAMBindingDatabaseEntry> getTodaysIamEntry(ProjectIdentification project, 
+      IAMBindingDatabaseEntry storedEntry, UpdateRunRecorder run, 
+      Supplier<List<LogEntry>> latestLog) {
+    long projectStart = System.nanoTime();
+    Span span = startProjectSpan(project, run);
+    try {
+      if (storedEntry == null) {
+        return getLastIamEntry(project, "", run);
+      }
+      long todayMidnight = Instant.ofEpochMilli(System.currentTimeMillis())
+          .truncatedTo(ChronoUnit.DAYS).toEpochMilli();
+
+      List<LogEntry> entry = latestLog.get();
+      if (entry.isEmpty()) {
+        return Collections.singletonList(copyWithNewTimestamp(storedEntry, todayMidnight));
+      }
+      return iamRetriever.listIAMBindingData(entry, project.getProjectId(), project.getName(),
+          String.valueOf(project.getProjectNumber()), todayMidnight);
+    } catch (PermissionDeniedException e) {
+      run.recordSkippedProject(project.getProjectId(), "IAM bindings: " + e.getMessage());
+      span.recordError(e);
+      return new ArrayList<>();
+    } finally {
+      span.close();
+      run.recordProject(project.getProjectId(), projectStart);
+    }
+  }
+
+  /** Returns the time {@code entry} was written, in UTC milliseconds since the epoch. */
+  private static long getTimestampMillis(LogEntry entry) {
+    return entry.getTimestamp().getSeconds() * 1000 + entry.getTimestamp().getNanos() / 1000000;
+  }
+
   /**
    * Returns the data contained in {@code bindingsData}, such that there is 
    * exactly one entry for each day in the range from {@code timeFrom} to 
    * {@code timeTo}. If there are multiple entries for a single day in 
    * {@code bindingsData}, the latest entry will be recorded in the output.
-   * @param bindingsData All logs entry bindings data for one project.
+   * @param bindingsData All logs entry bindings data for one project, oldest first. Entries
+   *     in any other order are sorted first.
    * @param timeFrom A date (at midnight) to start the time range.
    * @param timeTo A date (at midnight) to end the time range.
    * @return The data collapsed so that there is exactly one entry per day.
    */
-  private List<IAMBindingDatabaseEntry> createListWithOneEntryPerDay(
+  @VisibleForTesting
+  protected static List<IAMBindingDatabaseEntry> createListWithOneEntryPerDay(
       List<IAMBindingDatabaseEntry> bindingsData, Instant timeFrom, Instant timeTo) {
-    if (bindingsData.size() == 0) {
-      return bindingsData;
+    List<IAMBindingDatabaseEntry> sortedBindings = bindingsData;
+    if (!isOldestFirst(bindingsData)) {
+      sortedBindings = bindingsData.stream()
+          .sorted((a,b) -> Long.compare(a.getTimestamp(), b.getTimestamp()))
+          .collect(Collectors.toCollection(ArrayList::new));
     }
-
-    List<IAMBindingDatabaseEntry> sortedBindings = bindingsData.stream()
-        .sorted((a,b) -> Long.compare(a.getTimestamp(), b.getTimestamp()))
-        .collect(Collectors.toCollection(ArrayList::new));
     List<IAMBindingDatabaseEntry> oneEntryPerDay = new ArrayList<IAMBindingDatabaseEntry>();
 
-    int sortedBindingsIndex = 0;
-    while (timeFrom.toEpochMilli() < timeTo.toEpochMilli()) {
-      Instant nextDay = timeFrom.plus(1L, ChronoUnit.DAYS);
-      if (sortedBindings.get(sortedBindingsIndex).getTimestamp() >= nextDay.toEpochMilli()) {
-        if (sortedBindingsIndex != 0) {
-          oneEntryPerDay.add(copyWithNewTimestamp(
-              sortedBindings.get(sortedBindingsIndex - 1), nextDay.toEpochMilli()));
-        }
-        timeFrom = nextDay;
-      } else if (sortedBindingsIndex == sortedBindings.size() - 1 &&
-          nextDay.toEpochMilli() > sortedBindings.get(sortedBindingsIndex).getTimestamp()) {
-        oneEntryPerDay.add(copyWithNewTimestamp(
-            sortedBindings.get(sortedBindingsIndex), nextDay.toEpochMilli()));
-        timeFrom = nextDay;
-      } else if (sortedBindingsIndex < sortedBindings.size() - 1) {
-        sortedBindingsIndex += 1;
+    // Index of the latest entry before the end of the current day, or -1 if there is none.
+    int latestIndex = -1;
+    for (Instant day = timeFrom; day.isBefore(timeTo); day = day.plus(1L, ChronoUnit.DAYS)) {
+      long nextDay = day.plus(1L, ChronoUnit.DAYS).toEpochMilli();
+      while (latestIndex < sortedBindings.size() - 1 &&
+          sortedBindings.get(latestIndex + 1).getTimestamp() < nextDay) {
+        latestIndex += 1;
+      }
+      if (latestIndex >= 0) {
+        oneEntryPerDay.add(copyWithNewTimestamp(sortedBindings.get(latestIndex), nextDay));
       }
     }
     return oneEntryPerDay;
   }
 
+  /** Returns true if the entries of {@code bindingsData} are in timestamp order. */
+  private static boolean isOldestFirst(List<IAMBindingDatabaseEntry> bindingsData) {
+    for (int i = 1; i < bindingsData.size(); i++) {
+      if (bindingsData.get(i - 1).getTimestamp() > bindingsData.get(i).getTimestamp()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /** Returns a copy of {@code entry} with timestamp {@code timestamp}. */
-  private IAMBindingDatabaseEntry copyWithNewTimestamp(IAMBindingDatabaseEntry entry, 
+  private static IAMBindingDatabaseEntry copyWithNewTimestamp(IAMBindingDatabaseEntry entry, 
       long timestamp) {
     return IAMBindingDatabaseEntry.create(entry.getProjectId(), 
         entry.getProjectName(), entry.getProjectNumber(),
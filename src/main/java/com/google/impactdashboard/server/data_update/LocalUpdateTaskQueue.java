@@ -0,0 +1,34 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.data.update.ShardStatus;
+
+/** 
+ * Stand-in for a task queue that runs every shard synchronously on the current 
+ * instance. Intended for tests and local development. 
+ */
+public class LocalUpdateTaskQueue implements UpdateTaskQueue {
+
+  private final DataUpdater dataUpdater;
+
+  public LocalUpdateTaskQueue(DataUpdater dataUpdater) {
+    this.dataUpdater = dataUpdater;
+  }
+
+  /** 
+   * Runs shard {@code shard} out of {@code shardCount} of the update {@code runId} 
+   * with the data updater.
+   * @return A status in the COMPLETED state, or in the FAILED state with the 
+   *     cause of the failure if the shard threw an exception.
+   */
+  @Override
+  public ShardStatus dispatch(String runId, int shard, int shardCount, int projectCount) {
+    try {
+      dataUpdater.updateDatabase(shard, shardCount, runId);
+      return ShardStatus.create(shard, shardCount, projectCount, 
+          ShardStatus.State.COMPLETED, "");
+    } catch (RuntimeException e) {
+      return ShardStatus.create(shard, shardCount, projectCount, ShardStatus.State.FAILED, 
+          String.valueOf(e.getMessage()));
+    }
+  }
+}
@@ -9,7 +9,8 @@ import com.google.impactdashboard.database_manager.data_read.DataReadManagerFact
 import com.google.impactdashboard.database_manager.data_update.DataUpdateManager;
 import com.google.impactdashboard.database_manager.data_update.DataUpdateManagerFactory;
 import com.google.impactdashboard.server.api_utilities.IamBindingRetriever;
-import com.google.impactdashboard.server.api_utilities.LogRetriever;
+import com.google.impactdashboard.server.api_utilities.LogSource;
+import com.google.impactdashboard.server.api_utilities.LogSourceFactory;
 import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
 import com.google.impactdashboard.server.api_utilities.RecommendationRetriever;
 
@@ -27,11 +28,11 @@ import java.util.List;
 public class ManualDataUpdater extends DataUpdater {
 
   @VisibleForTesting
-  protected ManualDataUpdater(LogRetriever logRetriever, 
+  protected ManualDataUpdater(LogSource logSource, 
       RecommendationRetriever recommendationRetriever,
       DataUpdateManager updateManager, DataReadManager readManager,
       IamBindingRetriever iamRetriever, ResourceRetriever projectRetriever) {
-    super(logRetriever, recommendationRetriever, updateManager, readManager, 
+    super(logSource, recommendationRetriever, updateManager, readManager, 
         iamRetriever, projectRetriever);
   }
 
@@ -41,7 +42,7 @@ public class ManualDataUpdater extends DataUpdater {
    */
   public static ManualDataUpdater create() 
       throws IOException, GeneralSecurityException {
-    return new ManualDataUpdater(LogRetriever.create(), RecommendationRetriever.create(),
+    return new ManualDataUpdater(LogSourceFactory.create(), RecommendationRetriever.create(),
         DataUpdateManagerFactory.create(), DataReadManagerFactory.create(),
         IamBindingRetriever.create(), ResourceRetriever.getInstance());
   }
@@ -55,11 +56,12 @@ public class ManualDataUpdater extends DataUpdater {
   @VisibleForTesting
   @Override
   protected List<Recommendation> listUpdatedRecommendations(
-      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects) {
+      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects,
+      UpdateRunRecorder run) {
     String todayAtMidnight = Instant.ofEpochMilli(System.currentTimeMillis())
       .truncatedTo(ChronoUnit.DAYS).toString();
     List<Recommendation> newProjectRecommendations = getRecommendationsForProjects(
-      newProjects, "", todayAtMidnight);
+      newProjects, "", todayAtMidnight, run);
     return newProjectRecommendations;  
   }
 
@@ -71,14 +73,15 @@ public class ManualDataUpdater extends DataUpdater {
   @VisibleForTesting
   @Override
   protected List<IAMBindingDatabaseEntry> listUpdatedIAMBindingData(
-      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects) {
+      List<ProjectIdentification> knownProjects, List<ProjectIdentification> newProjects,
+      UpdateRunRecorder run) {
     Instant midnight30DaysAgo = Instant.ofEpochMilli(System.currentTimeMillis())
         .truncatedTo(ChronoUnit.DAYS)
         .minus(30L, ChronoUnit.DAYS);
     Instant midnightToday = Instant.ofEpochMilli(System.currentTimeMillis())
       .truncatedTo(ChronoUnit.DAYS);
     List<IAMBindingDatabaseEntry> entries =  
-        getIAMBindingsDataEntries(newProjects, midnight30DaysAgo, midnightToday);
+        getIAMBindingsDataEntries(newProjects, midnight30DaysAgo, midnightToday, run);
     return entries;  
   }
 }
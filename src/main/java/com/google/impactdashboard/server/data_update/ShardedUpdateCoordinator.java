@@ -0,0 +1,66 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.common.hash.Hashing;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.update.ShardStatus;
+import com.google.impactdashboard.data.update.UpdateRunSummary;
+import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/** 
+ * Class that splits a database update into shards by project id and dispatches 
+ * each shard to a task queue, so that no single request has to update every 
+ * project. 
+ */
+public class ShardedUpdateCoordinator {
+
+  private final ResourceRetriever projectRetriever;
+  private final UpdateTaskQueue taskQueue;
+
+  public ShardedUpdateCoordinator(ResourceRetriever projectRetriever, 
+      UpdateTaskQueue taskQueue) {
+    this.projectRetriever = projectRetriever;
+    this.taskQueue = taskQueue;
+  }
+
+  /**
+   * Returns the shard, out of {@code shardCount}, that the project with id 
+   * {@code projectId} belongs to. The result only depends on the project id, so 
+   * every instance assigns a project to the same shard.
+   */
+  public static int getShard(String projectId, int shardCount) {
+    return Math.floorMod(
+        Hashing.murmur3_32().hashString(projectId, StandardCharsets.UTF_8).asInt(), shardCount);
+  }
+
+  /**
+   * Splits the projects that the credentials in use have access to into 
+   * {@code shardCount} shards and dispatches each shard to the task queue, under a new 
+   * run id. Each shard stores the report of every attempt at it in the Update Runs 
+   * table under that id, which {@code UpdateRunSummary.fromReports} rolls up.
+   * @return A summary of the run holding the status of every shard once dispatched.
+   */
+  public UpdateRunSummary runUpdate(int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+    }
+    String runId = UUID.randomUUID().toString();
+    long startTimestamp = System.currentTimeMillis();
+    List<ProjectIdentification> projects = projectRetriever.listResourceManagerProjects();
+    int[] projectsPerShard = new int[shardCount];
+    projects.forEach(project -> 
+        projectsPerShard[getShard(project.getProjectId(), shardCount)]++);
+
+    List<ShardStatus> shardStatuses = IntStream.range(0, shardCount)
+        .mapToObj(shard -> 
+            taskQueue.dispatch(runId, shard, shardCount, projectsPerShard[shard]))
+        .collect(Collectors.toList());
+    return UpdateRunSummary.create(runId, startTimestamp, System.currentTimeMillis(), 
+        shardStatuses);
+  }
+}
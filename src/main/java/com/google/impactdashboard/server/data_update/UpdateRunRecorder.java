@@ -0,0 +1,107 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.impactdashboard.metrics.Metrics;
+import com.google.impactdashboard.server.api_utilities.ApiCallCounter;
+import com.google.impactdashboard.tracing.Span;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records what happens during one run of a DataUpdater, from the threads that retrieve
+ * the data of its projects, and builds the report of the run once it is done. Each run
+ * has its own recorder, so runs of the same updater can overlap. The API calls of the run
+ * are the ones made as part of the trace of its span.
+ */
+class UpdateRunRecorder implements AutoCloseable {
+
+  /** The number of projects listed in the slowest projects of a report. */
+  static final int SLOWEST_PROJECTS = 20;
+
+  private final long startTimestamp = System.currentTimeMillis();
+  private final ApiCallCounter apiCalls;
+  private final Map<String, Long> phaseMillis =
+      Collections.synchronizedMap(new LinkedHashMap<>());
+  private final Map<String, LongAdder> projectNanos = new ConcurrentHashMap<>();
+  private final Map<String, String> skippedProjects = new ConcurrentHashMap<>();
+
+  /**
+   * The span of the phase in progress, which the spans of the projects retrieved on the
+   * threads of parallel streams are part of.
+   */
+  private volatile Span phaseSpan;
+
+  /** Creates the recorder of the run traced as {@code runSpan}. */
+  UpdateRunRecorder(Span runSpan) {
+    apiCalls = ApiCallCounter.start(runSpan);
+  }
+
+  /** Returns the span of the phase in progress, or null if there is none. */
+  Span getPhaseSpan() {
+    return phaseSpan;
+  }
+
+  /** Sets the span of the phase in progress, or null once the phase is over. */
+  void setPhaseSpan(Span span) {
+    phaseSpan = span;
+  }
+
+  /** Records that the phase {@code phase} of the run started at {@code startNanos}. */
+  void recordPhase(String phase, long startNanos) {
+    Metrics.UPDATE_PHASE_DURATION.observeSince(startNanos, phase);
+    phaseMillis.merge(phase,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), Long::sum);
+  }
+
+  /**
+   * Records that retrieving data for the project with id {@code projectId} took from
+   * {@code startNanos} until now, on top of what was already recorded for it.
+   */
+  void recordProject(String projectId, long startNanos) {
+    projectNanos.computeIfAbsent(projectId, id -> new LongAdder())
+        .add(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Records that some data of the project with id {@code projectId} was skipped because
+   * of {@code reason}. Every reason given for a project is kept.
+   */
+  void recordSkippedProject(String projectId, String reason) {
+    skippedProjects.merge(projectId, reason, (first, second) -> first + "; " + second);
+  }
+
+  /**
+   * Returns the report of the run, which ends now, and failed because of {@code failure}
+   * unless it is empty.
+   */
+  UpdateRunReport createReport(String runId, int shard, int shardCount, int projectCount,
+      int recommendationRowsWritten, int bindingRowsWritten, String failure) {
+    Map<String, Long> slowestProjectMillis = new LinkedHashMap<>();
+    projectNanos.entrySet().stream()
+        .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+        .limit(SLOWEST_PROJECTS)
+        .forEach(entry -> slowestProjectMillis.put(entry.getKey(),
+            TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum())));
+
+    Map<String, Long> phases;
+    synchronized (phaseMillis) {
+      phases = new LinkedHashMap<>(phaseMillis);
+    }
+    return UpdateRunReport.create(runId, startTimestamp, System.currentTimeMillis(), shard,
+        shardCount, projectCount, phases, slowestProjectMillis, apiCalls.getCounts(),
+        recommendationRowsWritten, bindingRowsWritten, new TreeMap<>(skippedProjects),
+        failure);
+  }
+
+  /** Stops counting the API calls of the run. */
+  @Override
+  public void close() {
+    apiCalls.close();
+  }
+}
@@ -0,0 +1,14 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.data.update.ShardStatus;
+
+/** Interface for dispatching the shards of a sharded database update. */
+public interface UpdateTaskQueue {
+
+  /** 
+   * Dispatches the update of shard {@code shard} out of {@code shardCount} of the 
+   * sharded update {@code runId}, which covers {@code projectCount} projects.
+   * @return The status of the shard once it has been dispatched.
+   */
+  public ShardStatus dispatch(String runId, int shard, int shardCount, int projectCount);
+}
@@ -0,0 +1,22 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.configuration.Configuration;
+
+/** 
+ * Class that returns either a task queue that dispatches shards through Cloud Tasks, 
+ * or a local one that runs them in process for testing purposes. 
+ */
+public class UpdateTaskQueueFactory {
+  /** 
+   * If useLocalTaskQueue is set to true, returns a task queue that runs shards 
+   * with {@code dataUpdater} on the current instance. Otherwise returns a task 
+   * queue that dispatches shards to App Engine through Cloud Tasks. 
+   */
+  public static UpdateTaskQueue create(DataUpdater dataUpdater) {
+    if (Configuration.useLocalTaskQueue) {
+      return new LocalUpdateTaskQueue(dataUpdater);
+    } else {
+      return CloudTasksUpdateTaskQueue.create();
+    }
+  }
+}
@@ -5,6 +5,8 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.gson.Gson;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.server.data_update.*;
 
 import java.io.IOException;
@@ -30,9 +32,12 @@ public class ManualUpdateServlet extends HttpServlet {
   /**
    * Method called from the appengine cron job to update the database with newest information
    * about IAM bindings and Recommendations.
+   * @param response contains json representation of the report of the update.
    */
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    dataUpdater.updateDatabase();
+    UpdateRunReport report = dataUpdater.updateDatabase();
+    response.setContentType("application/json;");
+    response.getWriter().println(new Gson().toJson(report));
   }
 }
@@ -0,0 +1,28 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.impactdashboard.metrics.MetricsRegistry;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet for exposing the metrics of the instance, such as query, API call and request
+ * latencies, in the Prometheus text format.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+  /**
+   * Method called by a metrics scraper to collect the metrics recorded since the instance
+   * started.
+   * @param response contains every metric in the Prometheus text format.
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+    response.getWriter().print(MetricsRegistry.getInstance().toPrometheusText());
+  }
+}
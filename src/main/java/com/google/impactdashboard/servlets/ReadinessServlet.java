@@ -0,0 +1,31 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.impactdashboard.server.InstanceWarmUp;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet for the readiness check of App Engine, which only sends traffic to the instance
+ * once its warm-up has finished.
+ */
+@WebServlet("/readiness_check")
+public class ReadinessServlet extends HttpServlet {
+
+  /**
+   * Method called by App Engine to find out whether the instance can serve requests.
+   * @param response has status 200 once the warm-up has finished and 503 until then, and
+   *     contains the status of each step of the warm-up as json.
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    InstanceWarmUp warmUp = InstanceWarmUp.getInstance();
+    response.setStatus(warmUp.isReady() ? HttpServletResponse.SC_OK
+        : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setContentType("application/json;");
+    response.getWriter().println(warmUp.toJson());
+  }
+}
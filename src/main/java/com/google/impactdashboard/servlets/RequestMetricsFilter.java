@@ -0,0 +1,92 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.impactdashboard.metrics.Metrics;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Filter that records how long each request to the servlets takes, by path and response
+ * status, and starts the span that the work done for the request is part of. Requests 
+ * that throw are recorded with status 500. When the request carries the trace context of
+ * the caller, such as the one added by the App Engine load balancer, the span continues
+ * that trace.
+ */
+@WebFilter({"/list-summaries", "/get-project-data", "/get-organization-data",
+    "/update-data", "/manual-update", "/update-runs"})
+public class RequestMetricsFilter implements Filter {
+
+  /** The W3C trace context header: version, trace id, parent span id and flags. */
+  private static final Pattern TRACEPARENT =
+      Pattern.compile("[0-9a-f]{2}-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+
+  /** The Google Cloud trace header: trace id, then the decimal parent span id. */
+  private static final Pattern CLOUD_TRACE_CONTEXT =
+      Pattern.compile("([0-9a-f]{32})/([0-9]{1,20})(;.*)?");
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    HttpServletRequest httpRequest = (HttpServletRequest) request;
+    long start = System.nanoTime();
+    String status = "500";
+    try (Span span = startRequestSpan(httpRequest)) {
+      span.setAttribute("http.method", httpRequest.getMethod());
+      span.setAttribute("http.path", httpRequest.getServletPath());
+      try {
+        chain.doFilter(request, response);
+        status = String.valueOf(((HttpServletResponse) response).getStatus());
+      } catch (IOException | ServletException | RuntimeException e) {
+        span.recordError(e);
+        throw e;
+      } finally {
+        span.setAttribute("http.status", status);
+        Metrics.HTTP_REQUEST_DURATION.observeSince(start, httpRequest.getServletPath(),
+            status);
+      }
+    }
+  }
+
+  /**
+   * Starts the span of {@code request}, as part of the trace given by its
+   * {@code traceparent} or {@code X-Cloud-Trace-Context} header if it has one.
+   */
+  private static Span startRequestSpan(HttpServletRequest request) {
+    String name = request.getMethod() + " " + request.getServletPath();
+    Tracer tracer = Tracer.getInstance();
+
+    String traceparent = request.getHeader("traceparent");
+    if (traceparent != null) {
+      Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+      if (matcher.matches()) {
+        return tracer.startSpan(name, matcher.group(1), matcher.group(2));
+      }
+    }
+
+    String cloudTraceContext = request.getHeader("X-Cloud-Trace-Context");
+    if (cloudTraceContext != null) {
+      Matcher matcher = CLOUD_TRACE_CONTEXT.matcher(cloudTraceContext.trim());
+      if (matcher.matches()) {
+        try {
+          String spanId = Long.toHexString(Long.parseUnsignedLong(matcher.group(2)));
+          return tracer.startSpan(name, matcher.group(1),
+              "0000000000000000".substring(spanId.length()) + spanId);
+        } catch (NumberFormatException e) {
+          // The span id does not fit in 64 bits, so the request starts a new trace.
+        }
+      }
+    }
+    return tracer.startSpan(name, null);
+  }
+}
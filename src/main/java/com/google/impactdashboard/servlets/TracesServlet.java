@@ -0,0 +1,55 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.gson.JsonArray;
+import com.google.impactdashboard.tracing.InMemorySpanExporter;
+import com.google.impactdashboard.tracing.Span;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Servlet for looking at the most recent traces of the instance, when the spans are kept
+ * in memory because {@code Configuration.traceExporter} is "memory".
+ */
+@WebServlet("/traces")
+public class TracesServlet extends HttpServlet {
+
+  /** The number of traces returned when the request does not set {@code limit}. */
+  private static final int DEFAULT_LIMIT = 20;
+
+  /**
+   * Method called to see where the time of recent requests and updates went. The optional
+   * parameter {@code limit} sets how many traces are returned.
+   * @param response contains json representation of the traces, most recent first, each
+   *     as the list of its spans in the order they started.
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    int limit = DEFAULT_LIMIT;
+    String limitParameter = request.getParameter("limit");
+    if (limitParameter != null) {
+      try {
+        limit = Integer.parseInt(limitParameter);
+      } catch (NumberFormatException e) {
+        limit = -1;
+      }
+      if (limit <= 0) {
+        throw new IllegalArgumentException(
+            "Parameter limit is not a positive number: " + limitParameter);
+      }
+    }
+
+    JsonArray traces = new JsonArray();
+    for (List<Span> trace : InMemorySpanExporter.getInstance().getRecentTraces(limit)) {
+      JsonArray spans = new JsonArray();
+      trace.forEach(span -> spans.add(span.toJson()));
+      traces.add(spans);
+    }
+    response.setContentType("application/json;");
+    response.getWriter().println(traces);
+  }
+}
@@ -5,6 +5,12 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.gson.Gson;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.data.update.ShardStatus;
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.impactdashboard.data.update.UpdateRunSummary;
+import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
 import com.google.impactdashboard.server.data_update.*;
 
 import java.io.IOException;
@@ -17,6 +23,7 @@ import java.io.IOException;
 public class UpdateDataServlet extends HttpServlet {
 
   private DataUpdater dataUpdater;
+  private ShardedUpdateCoordinator coordinator;
 
   @Override
   public void init() {
@@ -25,14 +32,74 @@ public class UpdateDataServlet extends HttpServlet {
     } catch (Exception e) {
       throw new RuntimeException("Could not create data updater: " + e.getMessage());
     }
+    coordinator = new ShardedUpdateCoordinator(ResourceRetriever.getInstance(),
+        UpdateTaskQueueFactory.create(dataUpdater));
   }
 
   /**
    * Method called from the appengine cron job to update the database with newest information
-   * about IAM bindings and Recommendations.
+   * about IAM bindings and Recommendations. If the request names a shard with the parameters
+   * {@code shard} and {@code of}, only the projects in that shard are updated, as part of the
+   * sharded update named by the parameter {@code run}. Otherwise, if the update is configured
+   * to be sharded, one task is dispatched per shard and the summary of the run is returned,
+   * which /update-runs returns again, given the id of the run, once the shards have run.
+   * Otherwise every project is updated and the report of the update is returned.
+   * @param response has status 400 if {@code shard} or {@code of} do not name a shard.
    */
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    dataUpdater.updateDatabase();
+    String shard = request.getParameter("shard");
+    String shardCount = request.getParameter("of");
+    Gson gson = new Gson();
+
+    if (shard != null && shardCount != null) {
+      int shardNumber;
+      int shardTotal;
+      try {
+        shardNumber = parseShardParameter("shard", shard);
+        shardTotal = parseShardParameter("of", shardCount);
+        if (shardNumber < 0 || shardNumber >= shardTotal) {
+          throw new IllegalArgumentException("Invalid shard " + shard + " of " + shardCount);
+        }
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        return;
+      }
+      String runId = request.getParameter("run");
+      ShardStatus status = runShard(shardNumber, shardTotal, runId == null ? "" : runId);
+      response.setContentType("application/json;");
+      response.getWriter().println(gson.toJson(status));
+    } else if (Configuration.updateShardCount > 1) {
+      UpdateRunSummary summary = coordinator.runUpdate(Configuration.updateShardCount);
+      response.setContentType("application/json;");
+      response.getWriter().println(gson.toJson(summary));
+    } else {
+      UpdateRunReport report = dataUpdater.updateDatabase();
+      response.setContentType("application/json;");
+      response.getWriter().println(gson.toJson(report));
+    }
+  }
+
+  /**
+   * Updates the projects in shard {@code shard} out of {@code shardCount} of the update
+   * {@code runId}. Its outcome is stored in the Update Runs table either way.
+   * @throws RuntimeException if the shard fails, so the task queue retries it.
+   */
+  private ShardStatus runShard(int shard, int shardCount, String runId) {
+    UpdateRunReport report = dataUpdater.updateDatabase(shard, shardCount, runId);
+    return ShardStatus.create(shard, shardCount, report.getProjectCount(), 
+        ShardStatus.State.COMPLETED, "");
+  }
+
+  /**
+   * Returns {@code value} as an integer.
+   * @throws IllegalArgumentException if the parameter {@code name} is not a number.
+   */
+  private static int parseShardParameter(String name, String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+    }
   }
 }
@@ -0,0 +1,84 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.gson.Gson;
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.impactdashboard.data.update.UpdateRunSummary;
+import com.google.impactdashboard.database_manager.data_read.DataReadManager;
+import com.google.impactdashboard.database_manager.data_read.DataReadManagerFactory;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Servlet for retrieving the reports of the most recent database updates from the 
+ * Update Runs table.
+ */
+@WebServlet("/update-runs")
+public class UpdateRunsServlet extends HttpServlet {
+
+  /** The number of reports returned when the request does not set {@code limit}. */
+  private static final int DEFAULT_LIMIT = 10;
+
+  private DataReadManager readManager;
+
+  @Override
+  public void init() {
+    readManager = DataReadManagerFactory.create();
+  }
+
+  /**
+   * Method called to see how recent updates went: how long their phases took, which 
+   * projects were slowest or skipped and which API calls they made. The optional 
+   * parameter {@code limit} sets how many reports are returned. If the parameter 
+   * {@code run} names a sharded update instead, the summary of that update is returned, 
+   * rolled up from the reports its shards stored.
+   * @param response contains json representation of the reports, newest first, or of 
+   *     the summary, and has status 400 if {@code limit} is not a positive number.
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+    String runId = request.getParameter("run");
+    if (runId != null) {
+      UpdateRunSummary summary = UpdateRunSummary.fromReports(runId, 
+          readManager.listUpdateRunReports(runId));
+      response.setContentType("application/json;");
+      response.getWriter().println(gson.toJson(summary));
+      return;
+    }
+
+    int limit;
+    try {
+      limit = parseLimit(request.getParameter("limit"));
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    List<UpdateRunReport> reports = readManager.listUpdateRunReports(limit);
+
+    response.setContentType("application/json;");
+    response.getWriter().println(gson.toJson(reports));
+  }
+
+  /**
+   * Returns {@code value} as a number of reports, or the default if it is null.
+   * @throws IllegalArgumentException if {@code value} is not a positive number.
+   */
+  private static int parseLimit(String value) {
+    if (value == null) {
+      return DEFAULT_LIMIT;
+    }
+    try {
+      int limit = Integer.parseInt(value);
+      if (limit > 0) {
+        return limit;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new IllegalArgumentException("Parameter limit is not a positive number: " + value);
+  }
+}
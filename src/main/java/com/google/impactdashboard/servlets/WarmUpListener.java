@@ -0,0 +1,23 @@
+package com.google.impactdashboard.servlets;
+
+import com.google.impactdashboard.server.InstanceWarmUp;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Listener that starts the warm-up of the instance in the background as soon as the
+ * servlets are deployed, so that the first requests do not pay for it.
+ */
+@WebListener
+public class WarmUpListener implements ServletContextListener {
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    InstanceWarmUp.getInstance().start();
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {}
+}
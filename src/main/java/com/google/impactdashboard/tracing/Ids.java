@@ -0,0 +1,25 @@
+package com.google.impactdashboard.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Generates random trace and span ids in the hexadecimal format of W3C trace context. */
+class Ids {
+
+  private Ids() {}
+
+  /** Returns a new 128-bit trace id as 32 hexadecimal digits. */
+  static String newTraceId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return toHex(random.nextLong()) + toHex(random.nextLong());
+  }
+
+  /** Returns a new 64-bit span id as 16 hexadecimal digits. */
+  static String newSpanId() {
+    return toHex(ThreadLocalRandom.current().nextLong());
+  }
+
+  private static String toHex(long value) {
+    String hex = Long.toHexString(value);
+    return "0000000000000000".substring(hex.length()) + hex;
+  }
+}
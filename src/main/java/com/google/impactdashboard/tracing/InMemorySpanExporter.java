@@ -0,0 +1,66 @@
+package com.google.impactdashboard.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stand-in for a trace collector that keeps the most recent spans of the instance in 
+ * memory, so that traces can be looked at without a tracing backend.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+  private static final InMemorySpanExporter INSTANCE = new InMemorySpanExporter(10000);
+
+  private final int maxSpans;
+
+  /** The most recently ended spans, oldest first. */
+  private final Deque<Span> spans = new ArrayDeque<>();
+
+  /** Returns the only instance of the class. */
+  public static InMemorySpanExporter getInstance() {
+    return INSTANCE;
+  }
+
+  /** Creates a collector that keeps the last {@code maxSpans} spans. */
+  InMemorySpanExporter(int maxSpans) {
+    this.maxSpans = maxSpans;
+  }
+
+  @Override
+  public synchronized void export(Span span) {
+    if (spans.size() == maxSpans) {
+      spans.removeFirst();
+    }
+    spans.addLast(span);
+  }
+
+  /**
+   * Returns the spans kept of the {@code limit} traces that ended a span last, most 
+   * recent first, each with its spans in the order they started. Spans of long traces 
+   * may already have been dropped.
+   */
+  public synchronized List<List<Span>> getRecentTraces(int limit) {
+    Map<String, List<Span>> traces = new LinkedHashMap<>();
+    Iterator<Span> newestFirst = spans.descendingIterator();
+    while (newestFirst.hasNext()) {
+      Span span = newestFirst.next();
+      List<Span> trace = traces.get(span.getTraceId());
+      if (trace == null) {
+        if (traces.size() == limit) {
+          continue;
+        }
+        trace = new ArrayList<>();
+        traces.put(span.getTraceId(), trace);
+      }
+      trace.add(span);
+    }
+    traces.values().forEach(
+        trace -> trace.sort(Comparator.comparingLong(Span::getStartEpochNanos)));
+    return new ArrayList<>(traces.values());
+  }
+}
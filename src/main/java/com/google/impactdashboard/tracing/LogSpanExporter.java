@@ -0,0 +1,26 @@
+package com.google.impactdashboard.tracing;
+
+import com.google.gson.JsonObject;
+import com.google.impactdashboard.configuration.Constants;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporter that writes each span to standard output as a structured log entry. App 
+ * Engine sends these lines to Cloud Logging, which groups the entries of a trace by 
+ * their trace and span id fields.
+ */
+public class LogSpanExporter implements SpanExporter {
+
+  @Override
+  public void export(Span span) {
+    JsonObject entry = new JsonObject();
+    entry.addProperty("severity", span.getStatus().equals("OK") ? "DEBUG" : "WARNING");
+    entry.addProperty("message", span.getName() + " took " + 
+        TimeUnit.NANOSECONDS.toMillis(span.getDurationNanos()) + " ms");
+    entry.addProperty("logging.googleapis.com/trace", 
+        "projects/" + Constants.PROJECT_ID + "/traces/" + span.getTraceId());
+    entry.addProperty("logging.googleapis.com/spanId", span.getSpanId());
+    entry.add("span", span.toJson());
+    System.out.println(entry);
+  }
+}
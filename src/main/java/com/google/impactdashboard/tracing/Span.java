@@ -0,0 +1,148 @@
+package com.google.impactdashboard.tracing;
+
+import com.google.gson.JsonObject;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed operation of a trace, such as a servlet request, a database job or an API call.
+ * Spans of the same trace share its trace id and point to the span they are part of. A
+ * span is exported when it ends, and ending it again has no effect.
+ */
+public class Span implements AutoCloseable {
+
+  /** 
+   * The time since the epoch at {@code System.nanoTime()} zero, so that the start times of 
+   * spans keep the order of their nanosecond clock values. 
+   */
+  private static final long EPOCH_NANOS_AT_NANO_TIME_ZERO = 
+      TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+  private final Tracer tracer;
+  private final String name;
+  private final String traceId;
+  private final String spanId;
+  private final String parentSpanId;
+  private final long startEpochNanos;
+  private final long startNanos;
+  private final Map<String, String> attributes = new LinkedHashMap<>();
+  private final boolean scoped;
+  private final Span previousSpan;
+  private String status = "OK";
+  private long durationNanos = -1;
+
+  /**
+   * Creates a span named {@code name} that started at {@code startNanos}, a value of
+   * {@code System.nanoTime()}, in the trace {@code traceId} as part of the span
+   * {@code parentSpanId}, or as the root of the trace if {@code parentSpanId} is null. A
+   * scoped span is the current span of the thread that created it until it is closed,
+   * when {@code previousSpan} becomes current again.
+   */
+  Span(Tracer tracer, String name, String traceId, String parentSpanId, long startNanos,
+      boolean scoped, Span previousSpan) {
+    this.tracer = tracer;
+    this.name = name;
+    this.traceId = traceId;
+    this.spanId = Ids.newSpanId();
+    this.parentSpanId = parentSpanId;
+    this.startNanos = startNanos;
+    this.startEpochNanos = EPOCH_NANOS_AT_NANO_TIME_ZERO + startNanos;
+    this.scoped = scoped;
+    this.previousSpan = previousSpan;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  /** Returns the id of the span this span is part of, or null if it is a root span. */
+  public String getParentSpanId() {
+    return parentSpanId;
+  }
+
+  /** Returns the time the span started at, in nanoseconds since the epoch. */
+  public long getStartEpochNanos() {
+    return startEpochNanos;
+  }
+
+  /** Returns how long the span took in nanoseconds, or -1 if it has not ended. */
+  public synchronized long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /** Returns "OK", or "ERROR" if the operation of the span failed. */
+  public synchronized String getStatus() {
+    return status;
+  }
+
+  public synchronized Map<String, String> getAttributes() {
+    return Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+  }
+
+  /**
+   * Returns the span as a JSON object with its ids, name, start time and duration in
+   * microseconds, status and attributes.
+   */
+  public synchronized JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    json.addProperty("traceId", traceId);
+    json.addProperty("spanId", spanId);
+    if (parentSpanId != null) {
+      json.addProperty("parentSpanId", parentSpanId);
+    }
+    json.addProperty("name", name);
+    json.addProperty("startTimeMicros", TimeUnit.NANOSECONDS.toMicros(startEpochNanos));
+    json.addProperty("durationMicros", TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    json.addProperty("status", status);
+    JsonObject attributesJson = new JsonObject();
+    attributes.forEach(attributesJson::addProperty);
+    json.add("attributes", attributesJson);
+    return json;
+  }
+
+  /** Sets the attribute {@code key} of the span to {@code value}, and returns the span. */
+  public synchronized Span setAttribute(String key, Object value) {
+    attributes.put(key, String.valueOf(value));
+    return this;
+  }
+
+  /** Records that the operation of the span failed with {@code error}. */
+  public synchronized Span recordError(Throwable error) {
+    status = "ERROR";
+    attributes.put("error", error.getClass().getSimpleName() + ": " + error.getMessage());
+    return this;
+  }
+
+  /** Ends the span and exports it. The span stays the current span of its thread. */
+  public void end() {
+    synchronized (this) {
+      if (durationNanos >= 0) {
+        return;
+      }
+      durationNanos = System.nanoTime() - startNanos;
+    }
+    tracer.export(this);
+  }
+
+  /**
+   * Ends the span and, if it is scoped, makes the span that was current when it was
+   * created the current span of the thread again.
+   */
+  @Override
+  public void close() {
+    end();
+    if (scoped) {
+      tracer.setCurrentSpan(previousSpan);
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package com.google.impactdashboard.tracing;
+
+/** Interface for sending the spans that have ended to where they are collected. */
+public interface SpanExporter {
+  /** 
+   * Exports {@code span}, which has ended. Called on the thread that ended the span, 
+   * so it should not block. 
+   */
+  public void export(Span span);
+}
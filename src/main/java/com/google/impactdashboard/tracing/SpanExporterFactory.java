@@ -0,0 +1,25 @@
+package com.google.impactdashboard.tracing;
+
+import com.google.impactdashboard.configuration.Configuration;
+
+/** 
+ * Class that returns the span exporter chosen by {@code Configuration.traceExporter}. 
+ */
+public class SpanExporterFactory {
+
+  /** 
+   * Returns an exporter that writes spans to the log if {@code traceExporter} is 
+   * "log", the in-memory collector if it is "memory", and otherwise an exporter that 
+   * drops every span. 
+   */
+  public static SpanExporter create() {
+    switch (Configuration.traceExporter) {
+      case "log":
+        return new LogSpanExporter();
+      case "memory":
+        return InMemorySpanExporter.getInstance();
+      default:
+        return span -> {};
+    }
+  }
+}
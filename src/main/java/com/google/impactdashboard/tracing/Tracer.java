@@ -0,0 +1,129 @@
+package com.google.impactdashboard.tracing;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Creates the spans of the dashboard and hands them to the span exporter when they end.
+ * Each thread has a current span, which new spans are part of unless they are given a
+ * parent, so that the work done on other threads, such as in parallel streams, can still
+ * be attached to the right trace.
+ */
+public class Tracer {
+  private static final Tracer INSTANCE = new Tracer(SpanExporterFactory.create());
+
+  private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+  private final SpanExporter exporter;
+
+  /** Returns the tracer shared by the whole instance. */
+  public static Tracer getInstance() {
+    return INSTANCE;
+  }
+
+  @VisibleForTesting
+  Tracer(SpanExporter exporter) {
+    this.exporter = exporter;
+  }
+
+  /** Returns the current span of the thread, or null if there is none. */
+  public Span getCurrentSpan() {
+    return currentSpan.get();
+  }
+
+  /**
+   * Starts a span named {@code name} as part of the current span of the thread, which it
+   * replaces as the current span until it is closed.
+   */
+  public Span startSpan(String name) {
+    return startSpan(name, getCurrentSpan());
+  }
+
+  /**
+   * Starts a span named {@code name} as part of {@code parent}, or of a new trace if
+   * {@code parent} is null. It is the current span of the thread until it is closed.
+   */
+  public Span startSpan(String name, Span parent) {
+    return parent == null ? startSpan(name, Ids.newTraceId(), null)
+        : startSpan(name, parent.getTraceId(), parent.getSpanId());
+  }
+
+  /**
+   * Starts a span named {@code name} in the trace {@code traceId} as part of the span
+   * {@code parentSpanId}, which may have been started by another service, such as the
+   * load balancer in front of the servlets. It is the current span of the thread until
+   * it is closed.
+   */
+  public Span startSpan(String name, String traceId, String parentSpanId) {
+    Span span = new Span(this, name, traceId, parentSpanId, System.nanoTime(), true,
+        getCurrentSpan());
+    currentSpan.set(span);
+    return span;
+  }
+
+  /**
+   * Returns a span named {@code name} that started at {@code startNanos}, a value of
+   * {@code System.nanoTime()}, as part of {@code parent}, or of a new trace if
+   * {@code parent} is null. The span never becomes the current span, so it can be
+   * ended on any thread, such as when an asynchronous call completes.
+   */
+  public Span startDetachedSpan(String name, Span parent, long startNanos) {
+    return parent == null
+        ? new Span(this, name, Ids.newTraceId(), null, startNanos, false, null)
+        : new Span(this, name, parent.getTraceId(), parent.getSpanId(), startNanos, false,
+            null);
+  }
+
+  /**
+   * Returns {@code task} made to run with the current span of the calling thread as the
+   * current span of whichever thread runs it, such as a thread of an executor, so that
+   * its spans and API calls are part of the caller's trace.
+   */
+  public <T> Callable<T> wrap(Callable<T> task) {
+    Span span = getCurrentSpan();
+    return () -> {
+      Span previousSpan = getCurrentSpan();
+      setCurrentSpan(span);
+      try {
+        return task.call();
+      } finally {
+        setCurrentSpan(previousSpan);
+      }
+    };
+  }
+
+  /**
+   * Returns {@code action} made to run with the current span of the calling thread as the
+   * current span of whichever thread runs it, such as the threads of a parallel stream.
+   */
+  public <T> Consumer<T> wrap(Consumer<T> action) {
+    Span span = getCurrentSpan();
+    return value -> {
+      Span previousSpan = getCurrentSpan();
+      setCurrentSpan(span);
+      try {
+        action.accept(value);
+      } finally {
+        setCurrentSpan(previousSpan);
+      }
+    };
+  }
+
+  void setCurrentSpan(Span span) {
+    if (span == null) {
+      currentSpan.remove();
+    } else {
+      currentSpan.set(span);
+    }
+  }
+
+  void export(Span span) {
+    try {
+      exporter.export(span);
+    } catch (RuntimeException e) {
+      System.err.println("WARNING: Could not export span " + span.getName() + ": " +
+          e.getMessage());
+    }
+  }
+}
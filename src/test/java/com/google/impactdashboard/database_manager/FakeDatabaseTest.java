@@ -0,0 +1,104 @@
+package com.google.impactdashboard.database_manager;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.recommendation.*;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Tests the indexes of the FakeDatabase. The database is shared by every test, so
+ * each test uses projects and organizations of its own.
+ */
+@RunWith(JUnit4.class)
+public class FakeDatabaseTest {
+
+  private static final long DAY_1 = 1590883200000L;
+  private static final long DAY_2 = DAY_1 + 86400000L;
+
+  /** Creates an entry of the bindings table for {@code projectId}. */
+  private static IAMBindingDatabaseEntry createEntry(String projectId,
+    OrganizationIdentification organization, long timestamp, int bindings) {
+    return IAMBindingDatabaseEntry.create(projectId, projectId + "-name", "1234",
+      organization, timestamp, bindings);
+  }
+
+  /** Creates a recommendation for {@code projectId} accepted by {@code actor}. */
+  private static Recommendation createRecommendation(String projectId,
+    String organizationId, String actor, long timestamp, int impact) {
+    return Recommendation.create(projectId, organizationId, actor,
+      Arrays.asList(
+        RecommendationAction.create(
+          "affected@example.com", "roles/owner", "",
+          RecommendationAction.ActionType.REMOVE_ROLE)),
+      Recommendation.RecommenderType.IAM_BINDING, timestamp,
+      IAMRecommenderMetadata.create(impact));
+  }
+
+  @Test
+  public void testOrganizationTotalsFollowProjectUpdates() {
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Totals Org", "totals-org-id");
+    FakeDatabase.addIAMBindingsData(Arrays.asList(
+      createEntry("totals-project-1", organization, DAY_1, 100),
+      createEntry("totals-project-1", organization, DAY_2, 200),
+      createEntry("totals-project-2", organization, DAY_1, 10)));
+    FakeDatabase.addIAMBindingsData(Arrays.asList(
+      createEntry("totals-project-1", organization, DAY_1, 50)));
+
+    Map<Long, Integer> totals =
+      FakeDatabase.getDatesToBindingsForOrganization("totals-org-id");
+
+    assertEquals(2, totals.size());
+    assertEquals(60, (int) totals.get(DAY_1));
+    assertEquals(200, (int) totals.get(DAY_2));
+    assertEquals(130, FakeDatabase.getAvgBindingsForOrganization("totals-org-id"), 0);
+    assertEquals(125, FakeDatabase.getAvgBindingsForProject("totals-project-1"), 0);
+    assertTrue(FakeDatabase.listOrganizations().contains(organization));
+  }
+
+  @Test
+  public void testProjectIdentificationIsStoredAsGiven() {
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Identity Org", "identity-org-id");
+    FakeDatabase.addIAMBindingsData(Arrays.asList(
+      createEntry("identity-project", organization, DAY_1, 5)));
+
+    assertTrue(FakeDatabase.listProjects().contains(
+      ProjectIdentification.create("identity-project-name", "identity-project", 1234L)));
+    assertEquals(5, FakeDatabase.getLatestBindingsEntries().get("identity-project")
+      .getBindingsNumber());
+  }
+
+  @Test
+  public void testRecommendationWithSameActorAndTimestampIsReplaced() {
+    Recommendation first = createRecommendation("same-time-project", "same-time-org",
+      "first@example.com", DAY_1, 100);
+    Recommendation second = createRecommendation("same-time-project", "same-time-org",
+      "second@example.com", DAY_1, 200);
+    Recommendation replacement = createRecommendation("same-time-project", "same-time-org",
+      "first@example.com", DAY_1, 300);
+    FakeDatabase.addRecommendations(Arrays.asList(first, second, replacement));
+
+    Map<Long, Recommendation> datesToRecommendations =
+      FakeDatabase.getDatesToRecommendationsForOrganization("same-time-org");
+
+    assertEquals(1, datesToRecommendations.size());
+    assertEquals(replacement, datesToRecommendations.get(DAY_1));
+  }
+
+  @Test
+  public void testUnknownIdsHaveNoData() {
+    assertTrue(FakeDatabase.getDatesToBindingsForProject("unknown-project").isEmpty());
+    assertTrue(FakeDatabase.getDatesToBindingsForOrganization("unknown-org").isEmpty());
+    assertTrue(FakeDatabase.getDatesToRecommendationsForProject("unknown-project").isEmpty());
+    assertEquals(0, FakeDatabase.getAvgBindingsForProject("unknown-project"), 0);
+  }
+}
@@ -0,0 +1,263 @@
+package com.google.impactdashboard.database_manager;
+
+import static org.junit.Assert.*;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import com.google.impactdashboard.configuration.Configuration;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.recommendation.*;
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.impactdashboard.database_manager.bigquery.LocalDatabaseAccessor;
+import com.google.impactdashboard.database_manager.bigquery.QueryConfigurationBuilder;
+import com.google.impactdashboard.database_manager.bigquery.QueryConfigurationBuilderFactory;
+import com.google.impactdashboard.database_manager.data_read.DataReadManager;
+import com.google.impactdashboard.database_manager.data_read.DataReadManagerImpl;
+import com.google.impactdashboard.database_manager.data_update.DataUpdateManager;
+import com.google.impactdashboard.database_manager.data_update.DataUpdateManagerImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the real data read and update managers against the local database. The
+ * local database is shared with the FakeDatabase, so these tests use projects
+ * and organizations of their own and only delete data older than any other.
+ */
+@RunWith(JUnit4.class)
+public class LocalDatabaseAccessorTest {
+
+  private static final long MILLISECONDS_ONE_DAY = 86400000L;
+  private static final long TODAY =
+    System.currentTimeMillis() / MILLISECONDS_ONE_DAY * MILLISECONDS_ONE_DAY;
+  private static final long YESTERDAY = TODAY - MILLISECONDS_ONE_DAY;
+  /** January 1st 1990, before the data of the FakeDatabase and of the other tests. */
+  private static final long FIRST_DAY = 631152000000L;
+
+  private static final OrganizationIdentification ORGANIZATION =
+    OrganizationIdentification.create("Local Org", "local-org-id");
+
+  private static DataReadManager dataReadManager;
+  private static DataUpdateManager dataUpdateManager;
+
+  @BeforeClass
+  public static void setUp() {
+    Configuration.useLocalDatabase = true;
+    dataReadManager = new DataReadManagerImpl();
+    dataUpdateManager = new DataUpdateManagerImpl();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    Configuration.useLocalDatabase = false;
+  }
+
+  /**
+   * Deletes the bindings from before {@code cutoff} and subtracts them from the
+   * summaries, with the same transaction as {@code DataUpdateManager.deleteYearOldData}.
+   */
+  private static void deleteBindingsBefore(long cutoff) {
+    QueryConfigurationBuilder builder = QueryConfigurationBuilderFactory.create();
+    QueryParameterValue cutoffParameter = QueryParameterValue.int64(cutoff);
+    LocalDatabaseAccessor.getInstance().updateDatabase(builder
+      .transactionConfiguration(Arrays.asList(
+        builder.subtractOldDataFromSummariesConfiguration()
+          .addNamedParameter("cutoff", cutoffParameter).build(),
+        builder.deleteOldDataIAMTableConfiguration()
+          .addNamedParameter("cutoff", cutoffParameter).build(),
+        builder.deleteOldDataOrgDailyBindingsConfiguration()
+          .addNamedParameter("cutoff", cutoffParameter).build()))
+      .build());
+  }
+
+  /** Creates an entry of the bindings table for {@code projectId}. */
+  private static IAMBindingDatabaseEntry createEntry(String projectId, long timestamp,
+    int bindings) {
+    return IAMBindingDatabaseEntry.create(projectId, projectId + "-name", "1234",
+      ORGANIZATION, timestamp, bindings);
+  }
+
+  @Test
+  public void testBindingsRoundTrip() {
+    dataUpdateManager.updateIAMBindings(Arrays.asList(
+      createEntry("local-project-1", YESTERDAY, 100),
+      createEntry("local-project-1", TODAY, 300),
+      createEntry("local-project-2", TODAY, 20)));
+
+    Map<Long, Integer> datesToBindings =
+      dataReadManager.getMapOfDatesToIAMBindings("local-project-1");
+
+    assertEquals(2, datesToBindings.size());
+    assertEquals(100, (int) datesToBindings.get(YESTERDAY));
+    assertEquals(300, (int) datesToBindings.get(TODAY));
+    assertEquals(200, dataReadManager.getAverageIAMBindingsInPastYear("local-project-1"), 0);
+    assertEquals(320, (int) dataReadManager.getOrganizationDatesToBindings("local-org-id")
+      .get(TODAY));
+    assertTrue(dataReadManager.listProjects().contains(
+      ProjectIdentification.create("local-project-1-name", "local-project-1", 1234L)));
+    assertTrue(dataReadManager.listOrganizations().contains(ORGANIZATION));
+    assertEquals(createEntry("local-project-2", TODAY, 20),
+      dataReadManager.getLatestIAMBindingsEntries().get("local-project-2"));
+    assertTrue(dataReadManager.getMostRecentTimestamp() >= TODAY);
+  }
+
+  @Test
+  public void testOrganizationTotalsFollowReplacedRows() {
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Rollup Org", "local-rollup-org-id");
+    dataUpdateManager.updateIAMBindings(Arrays.asList(
+      IAMBindingDatabaseEntry.create("local-rollup-project-1", "name", "1234", organization,
+        YESTERDAY, 10),
+      IAMBindingDatabaseEntry.create("local-rollup-project-2", "name", "1234", organization,
+        YESTERDAY, 5)));
+    dataUpdateManager.updateIAMBindings(Arrays.asList(
+      IAMBindingDatabaseEntry.create("local-rollup-project-1", "name", "1234", organization,
+        YESTERDAY, 30),
+      IAMBindingDatabaseEntry.create("local-rollup-project-1", "name", "1234", organization,
+        TODAY, 45)));
+
+    Map<Long, Integer> datesToBindings =
+      dataReadManager.getOrganizationDatesToBindings("local-rollup-org-id");
+
+    assertEquals(2, datesToBindings.size());
+    assertEquals(35, (int) datesToBindings.get(YESTERDAY));
+    assertEquals(45, (int) datesToBindings.get(TODAY));
+    assertEquals(40,
+      dataReadManager.getOrganizationAvgBindingsInPastYear("local-rollup-org-id"), 0);
+  }
+
+  @Test
+  public void testAllAveragesAreListed() {
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Summary Org", "local-summary-org-id");
+    dataUpdateManager.updateIAMBindings(Arrays.asList(
+      IAMBindingDatabaseEntry.create("local-summary-project-1", "name", "1234", organization,
+        YESTERDAY, 8),
+      IAMBindingDatabaseEntry.create("local-summary-project-1", "name", "1234", organization,
+        TODAY, 12),
+      IAMBindingDatabaseEntry.create("local-summary-project-2", "name", "1234", organization,
+        TODAY, 4)));
+
+    Map<String, Double> projectAverages = dataReadManager.listAverageIAMBindingsInPastYear();
+    Map<String, Double> organizationAverages =
+      dataReadManager.listOrganizationAvgBindingsInPastYear();
+
+    assertEquals(10, projectAverages.get("local-summary-project-1"), 0);
+    assertEquals(4, projectAverages.get("local-summary-project-2"), 0);
+    assertEquals(12, organizationAverages.get("local-summary-org-id"), 0);
+    assertFalse(projectAverages.containsKey("local-summary-org-id"));
+  }
+
+  @Test
+  public void testWritesLargerThanOneTransactionAreStoredInOrder() {
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Chunk Org", "local-chunk-org-id");
+    List<IAMBindingDatabaseEntry> entries = new ArrayList<>();
+    for (int i = 0; i < DataUpdateManagerImpl.MAX_STAGED_ROWS; i++) {
+      entries.add(IAMBindingDatabaseEntry.create("local-chunk-project-" + i, "name", "1234",
+        organization, TODAY, 1));
+    }
+    entries.add(IAMBindingDatabaseEntry.create("local-chunk-project-0", "name", "1234",
+      organization, TODAY, 5));
+
+    dataUpdateManager.updateIAMBindings(entries);
+
+    assertEquals(5, dataReadManager.getAverageIAMBindingsInPastYear("local-chunk-project-0"), 0);
+    assertEquals(DataUpdateManagerImpl.MAX_STAGED_ROWS + 4,
+      (int) dataReadManager.getOrganizationDatesToBindings("local-chunk-org-id").get(TODAY));
+    assertEquals(DataUpdateManagerImpl.MAX_STAGED_ROWS + 4,
+      dataReadManager.getOrganizationAvgBindingsInPastYear("local-chunk-org-id"), 0);
+  }
+
+  @Test
+  public void testSummariesFollowReplacedAndDeletedRows() {
+    OrganizationIdentification organization =
+      OrganizationIdentification.create("Old Org", "local-old-org-id");
+    long secondDay = FIRST_DAY + MILLISECONDS_ONE_DAY;
+    long thirdDay = secondDay + MILLISECONDS_ONE_DAY;
+    dataUpdateManager.updateIAMBindings(Arrays.asList(
+      IAMBindingDatabaseEntry.create("local-old-project-1", "name", "1234", organization,
+        FIRST_DAY, 10),
+      IAMBindingDatabaseEntry.create("local-old-project-1", "name", "1234", organization,
+        secondDay, 20),
+      IAMBindingDatabaseEntry.create("local-old-project-2", "name", "1234", organization,
+        secondDay, 6)));
+
+    assertEquals(15, dataReadManager.getAverageIAMBindingsInPastYear("local-old-project-1"), 0);
+    assertEquals(18,
+      dataReadManager.getOrganizationAvgBindingsInPastYear("local-old-org-id"), 0);
+
+    dataUpdateManager.updateIAMBindings(Arrays.asList(
+      IAMBindingDatabaseEntry.create("local-old-project-1", "name", "1234", organization,
+        secondDay, 40),
+      IAMBindingDatabaseEntry.create("local-old-project-2", "name", "1234", organization,
+        thirdDay, 9)));
+
+    assertEquals(25, dataReadManager.getAverageIAMBindingsInPastYear("local-old-project-1"), 0);
+    assertEquals(7.5, dataReadManager.getAverageIAMBindingsInPastYear("local-old-project-2"),
+      0);
+    assertEquals(65 / 3.0,
+      dataReadManager.getOrganizationAvgBindingsInPastYear("local-old-org-id"), 0.0001);
+
+    deleteBindingsBefore(secondDay);
+
+    assertEquals(40, dataReadManager.getAverageIAMBindingsInPastYear("local-old-project-1"), 0);
+    assertEquals(27.5,
+      dataReadManager.getOrganizationAvgBindingsInPastYear("local-old-org-id"), 0);
+
+    deleteBindingsBefore(thirdDay);
+
+    assertFalse(dataReadManager.listAverageIAMBindingsInPastYear()
+      .containsKey("local-old-project-1"));
+    assertEquals(9, dataReadManager.getAverageIAMBindingsInPastYear("local-old-project-2"), 0);
+    assertEquals(9, dataReadManager.getOrganizationAvgBindingsInPastYear("local-old-org-id"), 0);
+    assertEquals(1, dataReadManager.getOrganizationDatesToBindings("local-old-org-id").size());
+  }
+
+  @Test
+  public void testRecommendationsRoundTrip() {
+    Recommendation recommendation = Recommendation.create("local-project-3", "local-org-id",
+      "test@example.com",
+      Arrays.asList(
+        RecommendationAction.create(
+          "affected@example.com", "roles/owner", "roles/viewer",
+          RecommendationAction.ActionType.REPLACE_ROLE),
+        RecommendationAction.create(
+          "affected@example.com", "roles/editor", "",
+          RecommendationAction.ActionType.REMOVE_ROLE)),
+      Recommendation.RecommenderType.IAM_BINDING, TODAY, IAMRecommenderMetadata.create(50));
+
+    dataUpdateManager.updateRecommendations(Arrays.asList(recommendation));
+
+    assertEquals(recommendation,
+      dataReadManager.getMapOfDatesToRecommendationTaken("local-project-3").get(TODAY));
+  }
+
+  @Test
+  public void testUpdateRunReportRoundTrip() {
+    Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    phaseMillis.put("list_projects", 120L);
+    phaseMillis.put("retrieve_recommendations", 4500L);
+    // Starts after any update run by other tests, so that it is the newest report.
+    UpdateRunReport report = UpdateRunReport.create("local-run", 
+      TODAY + 10 * MILLISECONDS_ONE_DAY, TODAY + 10 * MILLISECONDS_ONE_DAY + 5000, 1, 4, 2, 
+      phaseMillis, Collections.singletonMap("local-project-1", 3000L),
+      Collections.singletonMap("Logging ListLogEntries", 6L), 3, 60,
+      Collections.singletonMap("local-project-2", "Recommendations: \"denied\""), "");
+
+    dataUpdateManager.storeUpdateRunReport(report);
+
+    assertEquals(Arrays.asList(report), dataReadManager.listUpdateRunReports(1));
+    assertEquals(Arrays.asList(report), dataReadManager.listUpdateRunReports("local-run"));
+  }
+}
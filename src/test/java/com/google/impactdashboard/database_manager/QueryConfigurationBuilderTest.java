@@ -0,0 +1,110 @@
+package com.google.impactdashboard.database_manager;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.impactdashboard.data.organization.OrganizationIdentification;
+import com.google.impactdashboard.data.recommendation.*;
+import com.google.impactdashboard.database_manager.bigquery.*;
+
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class QueryConfigurationBuilderTest {
+
+  private static final OrganizationIdentification ORG_1_IDENTIFICATION =
+    OrganizationIdentification.create("Org 1", "test-org-1");
+
+  private static final IAMBindingDatabaseEntry PROJECT_1_BINDINGS_ON_20200620 =
+    IAMBindingDatabaseEntry.create("project-id-1", "project-1", "123456789123",
+      ORG_1_IDENTIFICATION, 1592611200000L, 1000);
+  private static final IAMBindingDatabaseEntry PROJECT_1_BINDINGS_ON_20200620_RERUN =
+    IAMBindingDatabaseEntry.create("project-id-1", "project-1", "123456789123",
+      ORG_1_IDENTIFICATION, 1592611200000L, 1200);
+  private static final IAMBindingDatabaseEntry PROJECT_1_BINDINGS_ON_20200621 =
+    IAMBindingDatabaseEntry.create("project-id-1", "project-1", "123456789123",
+      ORG_1_IDENTIFICATION, 1592697600000L, 1300);
+
+  private static final Recommendation PROJECT_1_RECOMMENDATION =
+    Recommendation.create("project-id-1", "test-org-1", "test@example.com",
+      Arrays.asList(
+        RecommendationAction.create(
+          "affected@example.com", "roles/owner", "",
+          RecommendationAction.ActionType.REMOVE_ROLE)),
+      Recommendation.RecommenderType.IAM_BINDING, 1592611200000L,
+      IAMRecommenderMetadata.create(500));
+
+  private final QueryConfigurationBuilder queryConfigurationBuilder =
+    QueryConfigurationBuilderImpl.getInstance();
+
+  @Test
+  public void testBindingsAreMergedOnProjectAndTimestamp() {
+    String staging = queryConfigurationBuilder.createIAMStagingTableConfiguration(Arrays.asList(
+      PROJECT_1_BINDINGS_ON_20200620, PROJECT_1_BINDINGS_ON_20200621)).build().getQuery();
+    String query = queryConfigurationBuilder.mergeStagingIntoIAMTableConfiguration()
+      .build().getQuery();
+
+    assertTrue("Rows are staged in a temporary table",
+      staging.startsWith("CREATE TEMP TABLE Staging "));
+    assertEquals("Both days are staged", 2, countOccurrences(staging, "STRUCT('project-id-1'"));
+    assertTrue("Writes go through a MERGE", query.startsWith("MERGE "));
+    assertTrue("Rows are merged from the staging table", query.contains(" USING Staging "));
+    assertTrue("Rows are matched on project id",
+      query.contains("Target.ProjectId = Staging.ProjectId"));
+    assertTrue("Rows are matched on timestamp",
+      query.contains("Target.Timestamp = Staging.Timestamp"));
+  }
+
+  @Test
+  public void testDuplicateBindingsAreStagedOnce() {
+    String query = queryConfigurationBuilder.createIAMStagingTableConfiguration(Arrays.asList(
+      PROJECT_1_BINDINGS_ON_20200620, PROJECT_1_BINDINGS_ON_20200620_RERUN))
+      .build().getQuery();
+
+    assertEquals("Only one row is staged", 1, countOccurrences(query, "STRUCT('project-id-1'"));
+    assertTrue("The last value for the key is kept", query.contains("SECOND), 1200)"));
+  }
+
+  @Test
+  public void testDuplicateRecommendationsAreStagedOnce() {
+    String query = queryConfigurationBuilder.insertValuesRecommendationsTableConfiguration(
+      Arrays.asList(PROJECT_1_RECOMMENDATION, PROJECT_1_RECOMMENDATION)).build().getQuery();
+
+    assertTrue("Writes go through a MERGE", query.startsWith("MERGE "));
+    assertTrue("Rows are matched on actor", query.contains("Target.Actor = Staging.Actor"));
+    assertEquals("Only one row is staged", 1, countOccurrences(query, "STRUCT('project-id-1'"));
+  }
+
+  @Test
+  public void testTransactionRunsEveryStatementInOrder() {
+    QueryJobConfiguration staging = queryConfigurationBuilder
+      .createIAMStagingTableConfiguration(Arrays.asList(PROJECT_1_BINDINGS_ON_20200620)).build();
+    QueryJobConfiguration summaries = queryConfigurationBuilder
+      .mergeStagingIntoProjectSummariesConfiguration().build();
+    QueryJobConfiguration bindings = queryConfigurationBuilder
+      .mergeStagingIntoIAMTableConfiguration().build();
+    QueryJobConfiguration rollup = queryConfigurationBuilder
+      .mergeDaysIntoOrgDailyBindingsConfiguration(
+        Arrays.asList(PROJECT_1_BINDINGS_ON_20200620)).build();
+
+    QueryJobConfiguration transaction = queryConfigurationBuilder
+      .transactionConfiguration(Arrays.asList(staging, summaries, bindings, rollup)).build();
+
+    assertEquals(String.join(Queries.STATEMENT_SEPARATOR, Queries.BEGIN_TRANSACTION,
+      staging.getQuery(), summaries.getQuery(), bindings.getQuery(), rollup.getQuery(),
+      Queries.COMMIT_TRANSACTION), transaction.getQuery());
+    assertEquals("The rows are written into the transaction once", 1,
+      countOccurrences(transaction.getQuery(), "STRUCT('project-id-1'"));
+    assertEquals(rollup.getNamedParameters().get("days"),
+      transaction.getNamedParameters().get("days"));
+  }
+
+  /** Returns the number of times {@code target} occurs in {@code query}. */
+  private static int countOccurrences(String query, String target) {
+    return query.split(java.util.regex.Pattern.quote(target), -1).length - 1;
+  }
+}
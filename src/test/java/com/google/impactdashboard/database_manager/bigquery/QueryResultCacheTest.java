@@ -0,0 +1,167 @@
+package com.google.impactdashboard.database_manager.bigquery;
+
+import com.google.cloud.PageImpl;
+import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.TableResult;
+import com.google.common.base.Ticker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JUnit4.class)
+public class QueryResultCacheTest {
+
+  private static final QueryJobConfiguration QUERY = QueryJobConfiguration
+      .newBuilder("SELECT * FROM table WHERE ProjectId = @projectId")
+      .addNamedParameter("projectId", QueryParameterValue.string("project-1"))
+      .build();
+
+  private AtomicLong nanos;
+  private QueryResultCache cache;
+  private AtomicInteger reads;
+  private List<QueryResultCache.Reuse> reuses;
+
+  @Before
+  public void setup() {
+    nanos = new AtomicLong();
+    cache = new QueryResultCache(new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    });
+    reads = new AtomicInteger();
+    reuses = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  private TableResult read() {
+    return cache.read(QUERY, key -> {
+      reads.incrementAndGet();
+      return newResult();
+    }, reuses::add);
+  }
+
+  private static TableResult newResult() {
+    return new TableResult(Schema.of(), 0, 
+        new PageImpl<FieldValueList>(null, null, Collections.emptyList()));
+  }
+
+  @Test
+  public void testResultIsReusedUntilInvalidated() {
+    TableResult first = read();
+    Assert.assertSame(first, read());
+    Assert.assertEquals(1, reads.get());
+
+    cache.invalidate();
+    Assert.assertNotSame(first, read());
+    Assert.assertEquals(2, reads.get());
+    Assert.assertEquals(Arrays.asList(QueryResultCache.Reuse.NONE, 
+        QueryResultCache.Reuse.CACHED, QueryResultCache.Reuse.NONE), reuses);
+  }
+
+  @Test
+  public void testJobKeyLeavesOutTheGenerationOfThisInstance() {
+    List<String> keys = new ArrayList<>();
+    cache.read(QUERY, key -> {
+      keys.add(key);
+      return newResult();
+    }, reuses::add);
+    cache.invalidate();
+    cache.read(QUERY, key -> {
+      keys.add(key);
+      return newResult();
+    }, reuses::add);
+
+    Assert.assertEquals(Arrays.asList(QueryResultCache.getQueryKey(QUERY),
+        QueryResultCache.getQueryKey(QUERY)), keys);
+  }
+
+  @Test
+  public void testResultExpires() {
+    read();
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(QueryResultCache.TTL_MILLIS));
+    read();
+
+    Assert.assertEquals(2, reads.get());
+  }
+
+  @Test
+  public void testIdenticalReadsWaitForTheRunningRead() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    TableResult result = newResult();
+    CompletableFuture<TableResult> first = CompletableFuture.supplyAsync(() -> 
+        cache.read(QUERY, key -> {
+          started.countDown();
+          try {
+            finish.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          return result;
+        }, reuses::add));
+    started.await();
+
+    CompletableFuture<TableResult> second = CompletableFuture.supplyAsync(this::read);
+    while (reuses.size() < 2) {
+      Thread.sleep(1);
+    }
+    finish.countDown();
+
+    Assert.assertSame(result, first.get(10, TimeUnit.SECONDS));
+    Assert.assertSame(result, second.get(10, TimeUnit.SECONDS));
+    Assert.assertEquals(0, reads.get());
+    Assert.assertEquals(QueryResultCache.Reuse.COALESCED, reuses.get(1));
+  }
+
+  @Test
+  public void testFailedReadIsNotReused() {
+    try {
+      cache.read(QUERY, key -> {
+        throw new RuntimeException("Query Error!");
+      }, reuses::add);
+      Assert.fail();
+    } catch (RuntimeException e) {
+      Assert.assertEquals("Query Error!", e.getMessage());
+    }
+
+    read();
+    Assert.assertEquals(1, reads.get());
+  }
+
+  @Test
+  public void testKeyDoesNotDependOnParameterOrder() {
+    QueryJobConfiguration first = QueryJobConfiguration.newBuilder("SELECT @a, @b")
+        .addNamedParameter("a", QueryParameterValue.int64(1))
+        .addNamedParameter("b", QueryParameterValue.int64(2))
+        .build();
+    QueryJobConfiguration second = QueryJobConfiguration.newBuilder("SELECT @a, @b")
+        .addNamedParameter("b", QueryParameterValue.int64(2))
+        .addNamedParameter("a", QueryParameterValue.int64(1))
+        .build();
+    QueryJobConfiguration other = QueryJobConfiguration.newBuilder("SELECT @a, @b")
+        .addNamedParameter("a", QueryParameterValue.int64(2))
+        .addNamedParameter("b", QueryParameterValue.int64(1))
+        .build();
+
+    Assert.assertEquals(QueryResultCache.getQueryKey(first), 
+        QueryResultCache.getQueryKey(second));
+    Assert.assertNotEquals(QueryResultCache.getQueryKey(first), 
+        QueryResultCache.getQueryKey(other));
+  }
+}
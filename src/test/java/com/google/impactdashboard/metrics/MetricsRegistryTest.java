@@ -0,0 +1,69 @@
+package com.google.impactdashboard.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MetricsRegistryTest {
+
+  private MetricsRegistry registry;
+
+  @Before
+  public void setup() {
+    registry = new MetricsRegistry();
+  }
+
+  @Test
+  public void testCounterIsWrittenByLabelValues() {
+    Counter counter = registry.counter("calls_total", "Calls.", "method");
+    counter.increment("get");
+    counter.add(2.5, "get");
+
+    Assert.assertEquals(3.5, counter.get("get"), 0);
+    Assert.assertEquals("# HELP calls_total Calls.\n" +
+        "# TYPE calls_total counter\n" +
+        "calls_total{method=\"get\"} 3.5\n", registry.toPrometheusText());
+  }
+
+  @Test
+  public void testHistogramBucketsAreCumulative() {
+    Histogram histogram = registry.histogram("duration_seconds", "Durations.",
+        new double[] {1, 10});
+    histogram.observe(0.5);
+    histogram.observe(1);
+    histogram.observe(5);
+    histogram.observe(20);
+
+    Assert.assertEquals(4, histogram.getCount());
+    Assert.assertEquals(26.5, histogram.getSum(), 0);
+    Assert.assertEquals("# HELP duration_seconds Durations.\n" +
+        "# TYPE duration_seconds histogram\n" +
+        "duration_seconds_bucket{le=\"1\"} 2\n" +
+        "duration_seconds_bucket{le=\"10\"} 3\n" +
+        "duration_seconds_bucket{le=\"+Inf\"} 4\n" +
+        "duration_seconds_sum 26.5\n" +
+        "duration_seconds_count 4\n", registry.toPrometheusText());
+  }
+
+  @Test
+  public void testLabelValuesAreEscaped() {
+    registry.counter("errors_total", "Errors.", "message").increment("a \"quoted\"\\\nvalue");
+
+    Assert.assertTrue(registry.toPrometheusText()
+        .contains("errors_total{message=\"a \\\"quoted\\\"\\\\\\nvalue\"} 1\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongNumberOfLabelValuesIsRejected() {
+    registry.counter("calls_total", "Calls.", "api", "method").increment("IAM");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateNamesAreRejected() {
+    registry.counter("calls_total", "Calls.");
+    registry.histogram("calls_total", "Calls.", Histogram.LATENCY_BUCKETS);
+  }
+}
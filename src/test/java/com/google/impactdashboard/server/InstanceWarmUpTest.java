@@ -0,0 +1,56 @@
+package com.google.impactdashboard.server;
+
+import com.google.gson.JsonObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+@RunWith(JUnit4.class)
+public class InstanceWarmUpTest {
+
+  @Test
+  public void testStepsRunInOrderAndTheInstanceIsReadyAfterwards() {
+    List<String> ranSteps = new ArrayList<>();
+    Map<String, Callable<?>> steps = new LinkedHashMap<>();
+    steps.put("first", () -> ranSteps.add("first"));
+    steps.put("second", () -> ranSteps.add("second"));
+    InstanceWarmUp warmUp = new InstanceWarmUp(steps);
+    Assert.assertFalse(warmUp.isReady());
+    Assert.assertEquals("pending",
+        warmUp.toJson().getAsJsonObject("steps").get("first").getAsString());
+
+    warmUp.run();
+
+    Assert.assertTrue(warmUp.isReady());
+    Assert.assertEquals(Arrays.asList("first", "second"), ranSteps);
+    JsonObject json = warmUp.toJson();
+    Assert.assertTrue(json.get("ready").getAsBoolean());
+    Assert.assertEquals("done", json.getAsJsonObject("steps").get("second").getAsString());
+  }
+
+  @Test
+  public void testFailedStepsDoNotStopTheWarmUp() {
+    List<String> ranSteps = new ArrayList<>();
+    Map<String, Callable<?>> steps = new LinkedHashMap<>();
+    steps.put("failing", () -> {
+      throw new IllegalStateException("no credentials");
+    });
+    steps.put("next", () -> ranSteps.add("next"));
+    InstanceWarmUp warmUp = new InstanceWarmUp(steps);
+
+    warmUp.run();
+
+    Assert.assertTrue(warmUp.isReady());
+    Assert.assertEquals(Arrays.asList("next"), ranSteps);
+    Assert.assertEquals("failed: IllegalStateException: no credentials",
+        warmUp.toJson().getAsJsonObject("steps").get("failing").getAsString());
+  }
+}
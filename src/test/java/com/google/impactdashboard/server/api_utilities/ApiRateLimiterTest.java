@@ -0,0 +1,142 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.impactdashboard.tracing.Span;
+import com.google.impactdashboard.tracing.Tracer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class ApiRateLimiterTest {
+
+  private List<Long> backoffs;
+  private ApiRateLimiter rateLimiter;
+
+  @Before
+  public void setup() {
+    backoffs = new ArrayList<>();
+    rateLimiter = new ApiRateLimiter("Test", 100, 200, backoffs::add, new Random(0));
+  }
+
+  @Test
+  public void testQuotaErrorsAreRetriedWithBackoff() throws IOException {
+    int[] attempts = {0};
+    String actual = rateLimiter.call("test", () -> {
+      attempts[0]++;
+      if (attempts[0] < 3) {
+        throw createHttpError(429);
+      }
+      return "result";
+    });
+
+    Assert.assertEquals("result", actual);
+    Assert.assertEquals(3, attempts[0]);
+    Assert.assertEquals(2, backoffs.size());
+    Assert.assertTrue(backoffs.get(0) < 500);
+    Assert.assertTrue(backoffs.get(1) < 1000);
+    Assert.assertTrue(rateLimiter.getRate() < 100);
+  }
+
+  @Test
+  public void testUnavailableErrorsAreRetriedWithoutLoweringTheRate() throws IOException {
+    int[] attempts = {0};
+    String actual = rateLimiter.call("test", () -> {
+      attempts[0]++;
+      if (attempts[0] < 3) {
+        throw createHttpError(503);
+      }
+      return "result";
+    });
+
+    Assert.assertEquals("result", actual);
+    Assert.assertEquals(3, attempts[0]);
+    Assert.assertEquals(2, backoffs.size());
+    Assert.assertTrue(rateLimiter.getRate() >= 100);
+  }
+
+  @Test
+  public void testOtherErrorsAreNotRetried() {
+    int[] attempts = {0};
+    try {
+      rateLimiter.call("test", () -> {
+        attempts[0]++;
+        throw createHttpError(403);
+      });
+      Assert.fail("Expected the error to be rethrown");
+    } catch (HttpResponseException e) {
+      Assert.assertEquals(403, e.getStatusCode());
+    }
+
+    Assert.assertEquals(1, attempts[0]);
+    Assert.assertTrue(backoffs.isEmpty());
+    Assert.assertEquals(100, rateLimiter.getRate(), 0);
+  }
+
+  @Test
+  public void testCallFailsAfterMaxAttempts() {
+    int[] attempts = {0};
+    try {
+      rateLimiter.call("test", () -> {
+        attempts[0]++;
+        throw createHttpError(503);
+      });
+      Assert.fail("Expected the error to be rethrown");
+    } catch (HttpResponseException e) {
+      Assert.assertEquals(503, e.getStatusCode());
+    }
+
+    Assert.assertEquals(ApiRateLimiter.MAX_ATTEMPTS, attempts[0]);
+    Assert.assertEquals(ApiRateLimiter.MAX_ATTEMPTS - 1, backoffs.size());
+  }
+
+  @Test
+  public void testRateIncreasesAdditivelyAndDecreasesMultiplicatively() {
+    rateLimiter.onSuccess();
+    Assert.assertEquals(100.01, rateLimiter.getRate(), 1e-9);
+
+    rateLimiter.onQuotaError();
+    Assert.assertEquals(50.005, rateLimiter.getRate(), 1e-9);
+
+    // Errors of calls that were in flight together only lower the rate once.
+    rateLimiter.onQuotaError();
+    Assert.assertEquals(50.005, rateLimiter.getRate(), 1e-9);
+  }
+
+  @Test
+  public void testAttemptsAreOnlyCountedForTheTraceTheyAreMadeIn() throws IOException {
+    Tracer tracer = Tracer.getInstance();
+    Map<String, Long> counts;
+    try (Span run = tracer.startSpan("run", null);
+        ApiCallCounter counter = ApiCallCounter.start(run)) {
+      int[] attempts = {0};
+      rateLimiter.call("counted", () -> {
+        attempts[0]++;
+        if (attempts[0] < 2) {
+          throw createHttpError(429);
+        }
+        return "result";
+      });
+      try (Span otherRun = tracer.startSpan("other run", null)) {
+        rateLimiter.call("not counted", () -> "result");
+      }
+      counts = counter.getCounts();
+    }
+
+    Assert.assertEquals(Collections.singletonMap("Test counted", 2L), counts);
+  }
+
+  private static HttpResponseException createHttpError(int statusCode) {
+    return new HttpResponseException.Builder(statusCode, "", new HttpHeaders()).build();
+  }
+}
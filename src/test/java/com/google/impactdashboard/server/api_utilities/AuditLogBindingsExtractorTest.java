@@ -0,0 +1,72 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.cloud.audit.AuditLog;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class AuditLogBindingsExtractorTest {
+
+  @Test
+  public void testMembersAreCountedForEveryRole() {
+    ByteString payload = AuditLog.newBuilder()
+        .setMethodName("SetIamPolicy")
+        .setRequest(Struct.newBuilder()
+            .putFields("policy", Value.newBuilder().setStringValue("ignored").build()))
+        .setResponse(Struct.newBuilder()
+            .putFields("etag", Value.newBuilder().setStringValue("BwWqqCyn1l4=").build())
+            .putFields("bindings", Value.newBuilder().setListValue(ListValue.newBuilder()
+                .addValues(createBinding("roles/owner", "user:a@example.com",
+                    "user:b@example.com"))
+                .addValues(createBinding("roles/viewer", "user:a@example.com"))
+                .addValues(createBinding("roles/editor"))
+                .addValues(createBinding("roles/owner", "user:c@example.com"))).build()))
+        .build().toByteString();
+
+    Map<String, Integer> expected = new HashMap<>();
+    expected.put("roles/owner", 1);
+    expected.put("roles/viewer", 1);
+    expected.put("roles/editor", 0);
+
+    Assert.assertEquals(expected, AuditLogBindingsExtractor.getMembersForRoles(payload));
+    Assert.assertEquals(expected,
+        FullAuditLogBindingsParser.getMembersForRoles(payload));
+  }
+
+  @Test
+  public void testAuditLogWithoutBindings() {
+    ByteString payload = AuditLog.newBuilder().setMethodName("SetIamPolicy")
+        .setResponse(Struct.newBuilder()
+            .putFields("etag", Value.newBuilder().setStringValue("BwWqqCyn1l4=").build()))
+        .build().toByteString();
+
+    Assert.assertTrue(AuditLogBindingsExtractor.getMembersForRoles(payload).isEmpty());
+    Assert.assertTrue(FullAuditLogBindingsParser.getMembersForRoles(payload).isEmpty());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testInvalidPayload() {
+    AuditLogBindingsExtractor.getMembersForRoles(ByteString.copyFrom(new byte[] {(byte) 0x8a}));
+  }
+
+  /** Returns a binding of {@code members} to {@code role}, as held in the policy struct. */
+  private static Value createBinding(String role, String... members) {
+    ListValue.Builder memberList = ListValue.newBuilder();
+    for (String member : members) {
+      memberList.addValues(Value.newBuilder().setStringValue(member));
+    }
+    return Value.newBuilder().setStructValue(Struct.newBuilder()
+        .putFields("role", Value.newBuilder().setStringValue(role).build())
+        .putFields("members", Value.newBuilder().setListValue(memberList).build()))
+        .build();
+  }
+}
@@ -0,0 +1,71 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.cloud.audit.AuditLog;
+import com.google.logging.v2.LogEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class ExportedLogSourceTest {
+
+  private LogSource exportedLogSource;
+
+  @Before
+  public void setup() throws Exception {
+    exportedLogSource = ExportedLogSource.create(
+        Paths.get(getClass().getResource("/exported_logs").toURI()).toString());
+  }
+
+  @Test
+  public void testOnlySetIamPolicyLogsAreReturnedNewestFirst() throws Exception {
+    List<LogEntry> actual = exportedLogSource.listAuditLogs("project-id-1", "", "");
+
+    Assert.assertEquals(2, actual.size());
+    Assert.assertEquals("audit-1", actual.get(0).getInsertId());
+    Assert.assertEquals("audit-2", actual.get(1).getInsertId());
+
+    // The payload is unpacked the same way as the payloads returned by the logging API.
+    AuditLog auditLog = AuditLog.parseFrom(actual.get(0).getProtoPayload().getValue());
+    Assert.assertEquals(2, auditLog.getResponse().getFieldsMap().get("bindings")
+        .getListValue().getValuesCount());
+  }
+
+  @Test
+  public void testAuditLogsAreFilteredByTime() {
+    List<LogEntry> actual = exportedLogSource.listAuditLogs("project-id-1",
+        "2020-07-19T09:00:00Z", "");
+    List<LogEntry> latest = exportedLogSource.getLatestAuditLog("project-id-1", "",
+        "2020-07-19T09:00:00Z");
+
+    Assert.assertEquals(1, actual.size());
+    Assert.assertEquals("audit-1", actual.get(0).getInsertId());
+    Assert.assertEquals(1, latest.size());
+    Assert.assertEquals("audit-2", latest.get(0).getInsertId());
+  }
+
+  @Test
+  public void testOnlySucceededRecommendationLogsAreReturned() {
+    List<LogEntry> actual = exportedLogSource.listRecommendationLogs("project-id-1", "", "");
+
+    Assert.assertEquals(1, actual.size());
+    Assert.assertEquals("recommendation-1", actual.get(0).getInsertId());
+  }
+
+  @Test
+  public void testLogsAreReturnedForEveryProject() {
+    Map<String, List<LogEntry>> actual = exportedLogSource.listAuditLogsForProjects(
+        Arrays.asList("project-id-1", "project-id-2", "project-id-3"), "", "");
+
+    Assert.assertEquals(2, actual.get("project-id-1").size());
+    Assert.assertEquals(1, actual.get("project-id-2").size());
+    Assert.assertEquals(0, actual.get("project-id-3").size());
+  }
+}
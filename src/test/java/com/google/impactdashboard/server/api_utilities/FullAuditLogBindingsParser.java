@@ -0,0 +1,42 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.cloud.audit.AuditLog;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Value;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the number of members of every role in the policy set by a SetIamPolicy audit log
+ * by parsing the whole {@code AuditLog}, as IamBindingRetriever used to. Kept to check the
+ * results of, and benchmark, {@code AuditLogBindingsExtractor}.
+ */
+final class FullAuditLogBindingsParser {
+
+  private FullAuditLogBindingsParser() {}
+
+  /** Returns the same map as {@code AuditLogBindingsExtractor.getMembersForRoles}. */
+  static Map<String, Integer> getMembersForRoles(ByteString auditLogPayload) {
+    AuditLog auditLog;
+    try {
+      auditLog = AuditLog.parseFrom(auditLogPayload);
+    } catch (InvalidProtocolBufferException e) {
+      throw new RuntimeException("Invalid Protocol Buffer used");
+    }
+    Map<String, Integer> membersForRoles = new HashMap<>();
+    Value bindings = auditLog.getResponse().getFieldsMap().get("bindings");
+    if (bindings == null) {
+      return membersForRoles;
+    }
+    List<Value> bindingValues = bindings.getListValue().getValuesList();
+    bindingValues.forEach(bindingValue -> {
+      Map<String, Value> bindingMap = bindingValue.getStructValue().getFieldsMap();
+      membersForRoles.put(bindingMap.get("role").getStringValue(),
+          bindingMap.get("members").getListValue().getValuesList().size());
+    });
+    return membersForRoles;
+  }
+}
@@ -3,6 +3,14 @@ package com.google.impactdashboard.server.api_utilities;
 import com.google.api.services.iam.v1.Iam;
 import com.google.api.services.iam.v1.model.ListRolesResponse;
 import com.google.api.services.iam.v1.model.Role;
+import com.google.cloud.audit.AuditLog;
+import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
+import com.google.logging.v2.LogEntry;
+import com.google.protobuf.Any;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.Value;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -126,4 +134,97 @@ public class IamBindingRetrieverTest extends Mockito {
 
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void testRetrieverReadsTheRefreshedCatalog() throws IOException {
+    PredefinedRoleCatalog catalog = new PredefinedRoleCatalog(null, 0, () -> mockIamService);
+    IamBindingRetriever retriever =
+        new IamBindingRetriever(mockIamService, mockResourceRetriever, catalog);
+    Assert.assertEquals(INCLUDED_PERMISSIONS_GENERIC.size(),
+        retriever.getPermissionCount(GENERIC_ROLE_NAME, TEST_PROJECT_ID));
+
+    ListRolesResponse refreshedResponse = mock(ListRolesResponse.class);
+    when(mockIamService.roles().list().setView(eq("full")).execute())
+        .thenReturn(refreshedResponse);
+    when(refreshedResponse.getRoles()).thenReturn(Collections.singletonList(new Role()
+        .setIncludedPermissions(Arrays.asList("genericRole1")).setName(GENERIC_ROLE_NAME)));
+    catalog.refresh();
+
+    Assert.assertEquals(1, retriever.getPermissionCount(GENERIC_ROLE_NAME, TEST_PROJECT_ID));
+  }
+
+  @Test
+  public void testLogsWithSameTimestampAreReturnedLatestLast() {
+    when(mockResourceRetriever.getOrganizationId(TEST_PROJECT_ID)).thenReturn("org-1-id");
+    when(mockResourceRetriever.getOrganizationName("org-1-id")).thenReturn("org-1");
+
+    // Listed newest first, as the logging API does.
+    List<IAMBindingDatabaseEntry> actual = iamBindingRetriever.listIAMBindingData(
+        Arrays.asList(createLog(1595131200L, 3), createLog(1595131200L, 2),
+            createLog(1595131100L, 1)),
+        TEST_PROJECT_ID, TEST_PROJECT_ID, "123456789123", null);
+
+    Assert.assertEquals(3, actual.size());
+    Assert.assertEquals(1595131100000L, actual.get(0).getTimestamp());
+    Assert.assertEquals(1595131200000L, actual.get(1).getTimestamp());
+    Assert.assertEquals(1595131200000L, actual.get(2).getTimestamp());
+    Assert.assertEquals(1 * INCLUDED_PERMISSIONS_GENERIC.size(),
+        actual.get(0).getBindingsNumber());
+    Assert.assertEquals(2 * INCLUDED_PERMISSIONS_GENERIC.size(),
+        actual.get(1).getBindingsNumber());
+    Assert.assertEquals(3 * INCLUDED_PERMISSIONS_GENERIC.size(),
+        actual.get(2).getBindingsNumber());
+  }
+
+  @Test
+  public void testLogsWithSameTimestampAreOrderedByReceiveTimestamp() {
+    when(mockResourceRetriever.getOrganizationId(TEST_PROJECT_ID)).thenReturn("org-1-id");
+    when(mockResourceRetriever.getOrganizationName("org-1-id")).thenReturn("org-1");
+
+    List<IAMBindingDatabaseEntry> actual = iamBindingRetriever.listIAMBindingData(
+        Arrays.asList(
+            createLog(1595131200L, 2).toBuilder()
+                .setReceiveTimestamp(Timestamp.newBuilder().setSeconds(1595131201L)).build(),
+            createLog(1595131200L, 3).toBuilder()
+                .setReceiveTimestamp(Timestamp.newBuilder().setSeconds(1595131202L)).build()),
+        TEST_PROJECT_ID, TEST_PROJECT_ID, "123456789123", null);
+
+    Assert.assertEquals(2, actual.size());
+    Assert.assertEquals(2 * INCLUDED_PERMISSIONS_GENERIC.size(),
+        actual.get(0).getBindingsNumber());
+    Assert.assertEquals(3 * INCLUDED_PERMISSIONS_GENERIC.size(),
+        actual.get(1).getBindingsNumber());
+  }
+
+  @Test
+  public void testNoLogsDoesNotLookUpTheOrganization() {
+    List<IAMBindingDatabaseEntry> actual = iamBindingRetriever.listIAMBindingData(
+        Collections.emptyList(), TEST_PROJECT_ID, TEST_PROJECT_ID, "123456789123", null);
+
+    Assert.assertTrue(actual.isEmpty());
+    verifyZeroInteractions(mockResourceRetriever);
+  }
+
+  /**
+   * Returns an audit log written at {@code seconds} that gives {@code members} members the
+   * generic role.
+   */
+  private static LogEntry createLog(long seconds, int members) {
+    ListValue.Builder memberList = ListValue.newBuilder();
+    for (int i = 0; i < members; i++) {
+      memberList.addValues(Value.newBuilder().setStringValue("user:" + i + "@example.com"));
+    }
+    Value binding = Value.newBuilder().setStructValue(Struct.newBuilder()
+        .putFields("role", Value.newBuilder().setStringValue(GENERIC_ROLE_NAME).build())
+        .putFields("members", Value.newBuilder().setListValue(memberList).build()))
+        .build();
+    AuditLog auditLog = AuditLog.newBuilder().setMethodName("SetIamPolicy")
+        .setResponse(Struct.newBuilder().putFields("bindings",
+            Value.newBuilder().setListValue(ListValue.newBuilder().addValues(binding)).build()))
+        .build();
+    return LogEntry.newBuilder()
+        .setTimestamp(Timestamp.newBuilder().setSeconds(seconds))
+        .setProtoPayload(Any.pack(auditLog))
+        .build();
+  }
 }
@@ -0,0 +1,77 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class IncrementalBindingsCalculatorTest {
+
+  private static final Map<String, Integer> PERMISSION_COUNTS = new HashMap<>();
+
+  private List<String> resolvedRoles;
+  private IncrementalBindingsCalculator calculator;
+
+  @Before
+  public void setup() {
+    PERMISSION_COUNTS.put("roles/owner", 3000);
+    PERMISSION_COUNTS.put("roles/editor", 2500);
+    PERMISSION_COUNTS.put("roles/viewer", 1000);
+    PERMISSION_COUNTS.put("projects/project-id-1/roles/custom", 4);
+
+    resolvedRoles = new ArrayList<>();
+    calculator = new IncrementalBindingsCalculator(role -> {
+      resolvedRoles.add(role);
+      return PERMISSION_COUNTS.getOrDefault(role, 0);
+    });
+  }
+
+  @Test
+  public void testTotalsMatchRecountingEveryPolicy() throws IOException {
+    List<Map<String, Integer>> policies = Arrays.asList(
+        createPolicy("roles/owner", 2, "roles/viewer", 5),
+        createPolicy("roles/owner", 2, "roles/viewer", 6),
+        createPolicy("roles/owner", 1, "roles/viewer", 6, "projects/project-id-1/roles/custom", 3),
+        createPolicy("roles/editor", 4, "projects/project-id-1/roles/custom", 3),
+        createPolicy(),
+        createPolicy("roles/owner", 1, "roles/unknown", 7));
+
+    for (Map<String, Integer> policy : policies) {
+      Assert.assertEquals(recount(policy), calculator.getIamBindings(policy));
+    }
+  }
+
+  @Test
+  public void testEachRoleIsResolvedOnce() throws IOException {
+    calculator.getIamBindings(createPolicy("roles/owner", 2, "roles/viewer", 5));
+    calculator.getIamBindings(createPolicy("roles/owner", 3, "roles/viewer", 5));
+    calculator.getIamBindings(createPolicy("roles/owner", 3));
+    calculator.getIamBindings(createPolicy("roles/owner", 3, "roles/viewer", 1));
+
+    Assert.assertEquals(Arrays.asList("roles/owner", "roles/viewer"), resolvedRoles);
+  }
+
+  /** Returns the total number of bindings of {@code policy}, counting every role. */
+  private static int recount(Map<String, Integer> policy) {
+    return policy.entrySet().stream().mapToInt(roleMembers ->
+        PERMISSION_COUNTS.getOrDefault(roleMembers.getKey(), 0) * roleMembers.getValue()).sum();
+  }
+
+  /** Returns a map of roles to members from alternating role names and member counts. */
+  private static Map<String, Integer> createPolicy(Object... rolesAndMembers) {
+    Map<String, Integer> policy = new HashMap<>();
+    for (int i = 0; i < rolesAndMembers.length; i += 2) {
+      policy.put((String) rolesAndMembers[i], (Integer) rolesAndMembers[i + 1]);
+    }
+    return policy;
+  }
+}
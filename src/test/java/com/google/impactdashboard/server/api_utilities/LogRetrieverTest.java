@@ -0,0 +1,57 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.MonitoredResource;
+import com.google.logging.v2.LogEntry;
+import com.google.protobuf.Timestamp;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class LogRetrieverTest {
+
+  private static final LogEntry PROJECT_1_NEWER_LOG = LogEntry.newBuilder()
+      .setLogName("projects/project-id-1/logs/cloudaudit.googleapis.com%2Factivity")
+      .setTimestamp(Timestamp.newBuilder().setSeconds(1595131200L)).build();
+  private static final LogEntry PROJECT_2_LOG = LogEntry.newBuilder()
+      .setLogName("projects/project-id-2/logs/cloudaudit.googleapis.com%2Factivity")
+      .setTimestamp(Timestamp.newBuilder().setSeconds(1595131100L)).build();
+  private static final LogEntry PROJECT_1_OLDER_LOG = LogEntry.newBuilder()
+      .setLogName("projects/project-id-1/logs/cloudaudit.googleapis.com%2Factivity")
+      .setTimestamp(Timestamp.newBuilder().setSeconds(1595131000L)).build();
+  private static final LogEntry PROJECT_3_RECOMMENDER_LOG = LogEntry.newBuilder()
+      .setLogName("organizations/123/logs/recommendations")
+      .setResource(MonitoredResource.newBuilder().setType("recommender")
+          .putLabels("project_id", "project-id-3"))
+      .build();
+
+  @Test
+  public void testEntriesAreGroupedByProjectInOrder() {
+    Map<String, List<LogEntry>> actual = LogRetriever.groupByProject(Arrays.asList(
+        PROJECT_1_NEWER_LOG, PROJECT_2_LOG, PROJECT_1_OLDER_LOG, PROJECT_3_RECOMMENDER_LOG));
+
+    Assert.assertEquals(3, actual.size());
+    Assert.assertEquals(Arrays.asList(PROJECT_1_NEWER_LOG, PROJECT_1_OLDER_LOG),
+        actual.get("project-id-1"));
+    Assert.assertEquals(Arrays.asList(PROJECT_2_LOG), actual.get("project-id-2"));
+    Assert.assertEquals(Arrays.asList(PROJECT_3_RECOMMENDER_LOG), actual.get("project-id-3"));
+  }
+
+  @Test
+  public void testPageSizeDependsOnWindow() {
+    Instant midnight = Instant.now().truncatedTo(ChronoUnit.DAYS);
+
+    Assert.assertEquals(LogRetriever.BACKFILL_PAGE_SIZE, LogRetriever.choosePageSize("", ""));
+    Assert.assertEquals(LogRetriever.BACKFILL_PAGE_SIZE, LogRetriever.choosePageSize(
+        midnight.minus(30L, ChronoUnit.DAYS).toString(), ""));
+    Assert.assertEquals(LogRetriever.DAILY_PAGE_SIZE, LogRetriever.choosePageSize(
+        midnight.minus(1L, ChronoUnit.DAYS).toString(), ""));
+  }
+}
@@ -0,0 +1,115 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.api.services.iam.v1.Iam;
+import com.google.api.services.iam.v1.model.ListRolesResponse;
+import com.google.api.services.iam.v1.model.Role;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class PredefinedRoleCatalogTest extends Mockito {
+
+  /** The etag that every predefined role reports, whatever its permissions. */
+  private static final String PREDEFINED_ETAG = "AA==";
+
+  private static final Role VIEWER = new Role().setName("roles/viewer").setEtag(PREDEFINED_ETAG)
+      .setIncludedPermissions(Arrays.asList("resourcemanager.projects.get", "iam.roles.get"));
+  private static final Role EDITOR = new Role().setName("roles/editor").setEtag(PREDEFINED_ETAG)
+      .setIncludedPermissions(Arrays.asList("resourcemanager.projects.get", "iam.roles.get",
+          "iam.roles.list"));
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Iam mockIamService;
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    mockIamService = mock(Iam.class, Mockito.RETURNS_DEEP_STUBS);
+    file = temporaryFolder.getRoot().toPath().resolve("catalog.json");
+  }
+
+  @Test
+  public void testCatalogIsReadFromTheFileOnceDownloaded() throws Exception {
+    when(mockIamService.roles().list().setView(eq("full")).execute())
+        .thenReturn(new ListRolesResponse().setRoles(Arrays.asList(VIEWER, EDITOR)));
+    Map<String, Integer> downloaded =
+        new PredefinedRoleCatalog(file, 0, () -> mockIamService).getPermissionCounts();
+
+    Map<String, Integer> loaded = new PredefinedRoleCatalog(file, 0, () -> {
+      throw new IOException("The catalog should be read from the file.");
+    }).getPermissionCounts();
+
+    Assert.assertEquals(Integer.valueOf(2), downloaded.get("roles/viewer"));
+    Assert.assertEquals(Integer.valueOf(3), downloaded.get("roles/editor"));
+    Assert.assertEquals(downloaded, loaded);
+  }
+
+  @Test
+  public void testRefreshKeepsTheCatalogWhenNoRoleChanged() throws Exception {
+    Role reorderedViewer = VIEWER.clone()
+        .setIncludedPermissions(Arrays.asList("iam.roles.get", "resourcemanager.projects.get"));
+    when(mockIamService.roles().list().setView(eq("full")).execute())
+        .thenReturn(new ListRolesResponse().setRoles(Collections.singletonList(VIEWER)))
+        .thenReturn(new ListRolesResponse().setRoles(Collections.singletonList(reorderedViewer)));
+    PredefinedRoleCatalog catalog = new PredefinedRoleCatalog(file, 0, () -> mockIamService);
+    Map<String, Integer> before = catalog.getPermissionCounts();
+
+    catalog.refresh();
+
+    Assert.assertEquals(before, catalog.getPermissionCounts());
+    Assert.assertEquals(Integer.valueOf(2), catalog.getPermissionCounts().get("roles/viewer"));
+  }
+
+  @Test
+  public void testRefreshDownloadsTheCatalogWhenARoleChanged() throws Exception {
+    Role changedViewer = VIEWER.clone()
+        .setIncludedPermissions(Collections.singletonList("resourcemanager.projects.get"));
+    when(mockIamService.roles().list().setView(eq("full")).execute())
+        .thenReturn(new ListRolesResponse().setRoles(Collections.singletonList(VIEWER)))
+        .thenReturn(new ListRolesResponse().setRoles(Arrays.asList(changedViewer, EDITOR)));
+    PredefinedRoleCatalog catalog = new PredefinedRoleCatalog(file, 0, () -> mockIamService);
+    catalog.getPermissionCounts();
+
+    catalog.refresh();
+
+    Map<String, Integer> refreshed = catalog.getPermissionCounts();
+    Assert.assertEquals(Integer.valueOf(1), refreshed.get("roles/viewer"));
+    Assert.assertEquals(Integer.valueOf(3), refreshed.get("roles/editor"));
+    Assert.assertEquals(refreshed, new PredefinedRoleCatalog(file, 0, () -> {
+      throw new IOException("The catalog should be read from the file.");
+    }).getPermissionCounts());
+  }
+
+  @Test
+  public void testRefreshFindsChangedPermissionsOfARoleWithTheSameEtag() throws Exception {
+    Role changedViewer = VIEWER.clone().setIncludedPermissions(Arrays.asList(
+        "resourcemanager.projects.get", "iam.roles.get", "iam.roles.list"));
+    when(mockIamService.roles().list().setView(eq("full")).execute())
+        .thenReturn(new ListRolesResponse().setRoles(Collections.singletonList(VIEWER)))
+        .thenReturn(new ListRolesResponse().setRoles(Collections.singletonList(changedViewer)));
+    PredefinedRoleCatalog catalog = new PredefinedRoleCatalog(file, 0, () -> mockIamService);
+    Assert.assertEquals(Integer.valueOf(2), catalog.getPermissionCounts().get("roles/viewer"));
+
+    catalog.refresh();
+
+    Assert.assertEquals(PREDEFINED_ETAG, changedViewer.getEtag());
+    Assert.assertEquals(Integer.valueOf(3), catalog.getPermissionCounts().get("roles/viewer"));
+    Assert.assertEquals(Integer.valueOf(3), new PredefinedRoleCatalog(file, 0, () -> {
+      throw new IOException("The catalog should be read from the file.");
+    }).getPermissionCounts().get("roles/viewer"));
+  }
+}
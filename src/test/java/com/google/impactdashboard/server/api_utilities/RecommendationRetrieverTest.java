@@ -0,0 +1,101 @@
+package com.google.impactdashboard.server.api_utilities;
+
+import com.google.cloud.recommender.v1.Operation;
+import com.google.cloud.recommender.v1.OperationGroup;
+import com.google.cloud.recommender.v1.RecommendationContent;
+import com.google.cloud.recommender.v1.RecommenderClient;
+import com.google.impactdashboard.data.recommendation.IAMRecommenderMetadata;
+import com.google.impactdashboard.data.recommendation.Recommendation;
+import com.google.impactdashboard.data.recommendation.RecommendationAction;
+import com.google.logging.v2.LogEntry;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.Value;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class RecommendationRetrieverTest extends Mockito {
+
+  private static final String PROJECT_ID = "project-id-1";
+  private static final String RECOMMENDATION_NAME = "projects/123456789123/locations/global/" +
+      "recommenders/google.iam.policy.Recommender/recommendations/recommendation-1";
+  private static final List<RecommendationAction> ACTIONS = Arrays.asList(
+      RecommendationAction.create("user:affected@example.com", "roles/owner", "",
+          RecommendationAction.ActionType.REMOVE_ROLE));
+
+  private RecommenderClient mockRecommender;
+  private IamBindingRetriever mockIamRetriever;
+  private RecommendationRetriever recommendationRetriever;
+
+  @Before
+  public void setup() {
+    mockRecommender = mock(RecommenderClient.class);
+    mockIamRetriever = mock(IamBindingRetriever.class);
+    ResourceRetriever mockResourceRetriever = mock(ResourceRetriever.class);
+    when(mockResourceRetriever.getOrganizationId(PROJECT_ID)).thenReturn("org-1-id");
+    when(mockIamRetriever.getActionImpact(ACTIONS)).thenReturn(500);
+    when(mockRecommender.getRecommendation(RECOMMENDATION_NAME)).thenReturn(
+        com.google.cloud.recommender.v1.Recommendation.newBuilder()
+            .setName(RECOMMENDATION_NAME)
+            .setRecommenderSubtype("REMOVE_ROLE")
+            .setContent(RecommendationContent.newBuilder().addOperationGroups(
+                OperationGroup.newBuilder().addOperations(Operation.newBuilder()
+                    .setAction("remove")
+                    .putPathFilters("/iamPolicy/bindings/*/role",
+                        Value.newBuilder().setStringValue("roles/owner").build())
+                    .putPathFilters("/iamPolicy/bindings/*/members/*",
+                        Value.newBuilder().setStringValue("user:affected@example.com").build()))))
+            .build());
+
+    recommendationRetriever = new RecommendationRetriever(mockRecommender, mockResourceRetriever);
+  }
+
+  @Test
+  public void testRepeatedRecommendationIsFetchedOnce() {
+    List<Recommendation> actual = recommendationRetriever.listRecommendations(
+        Arrays.asList(createLog(1595131200L), createLog(1595131260L)), PROJECT_ID,
+        Recommendation.RecommenderType.IAM_BINDING, mockIamRetriever);
+
+    List<Recommendation> expected = Arrays.asList(
+        Recommendation.create(PROJECT_ID, "org-1-id", "test@example.com", ACTIONS,
+            Recommendation.RecommenderType.IAM_BINDING, 1595131200000L,
+            IAMRecommenderMetadata.create(500)),
+        Recommendation.create(PROJECT_ID, "org-1-id", "test@example.com", ACTIONS,
+            Recommendation.RecommenderType.IAM_BINDING, 1595131260000L,
+            IAMRecommenderMetadata.create(500)));
+    Assert.assertEquals(expected, actual);
+    verify(mockRecommender, times(1)).getRecommendation(RECOMMENDATION_NAME);
+    verify(mockIamRetriever, times(1)).getActionImpact(ACTIONS);
+  }
+
+  @Test
+  public void testRecommendationIsCachedAcrossCalls() {
+    recommendationRetriever.listRecommendations(Arrays.asList(createLog(1595131200L)),
+        PROJECT_ID, Recommendation.RecommenderType.IAM_BINDING, mockIamRetriever);
+    recommendationRetriever.listRecommendations(Arrays.asList(createLog(1595131260L)),
+        PROJECT_ID, Recommendation.RecommenderType.IAM_BINDING, mockIamRetriever);
+
+    verify(mockRecommender, times(1)).getRecommendation(RECOMMENDATION_NAME);
+    verify(mockIamRetriever, times(1)).getActionImpact(ACTIONS);
+  }
+
+  /** Returns a log of the recommendation being accepted at {@code seconds}. */
+  private static LogEntry createLog(long seconds) {
+    return LogEntry.newBuilder()
+        .setTimestamp(Timestamp.newBuilder().setSeconds(seconds))
+        .setJsonPayload(Struct.newBuilder()
+            .putFields("recommendationName",
+                Value.newBuilder().setStringValue(RECOMMENDATION_NAME).build())
+            .putFields("actor", Value.newBuilder().setStringValue("test@example.com").build())
+            .putFields("state", Value.newBuilder().setStringValue("SUCCEEDED").build()))
+        .build();
+  }
+}
@@ -0,0 +1,34 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.cloud.tasks.v2.CloudTasksClient;
+import com.google.cloud.tasks.v2.HttpMethod;
+import com.google.cloud.tasks.v2.Task;
+import com.google.impactdashboard.data.update.ShardStatus;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+@RunWith(JUnit4.class)
+public class CloudTasksUpdateTaskQueueTest extends Mockito {
+
+  private static final String QUEUE = "projects/project/locations/us-central1/queues/default";
+
+  @Test
+  public void testDispatchAddsATaskRunningTheShard() {
+    CloudTasksClient mockClient = mock(CloudTasksClient.class);
+    CloudTasksUpdateTaskQueue queue = new CloudTasksUpdateTaskQueue(mockClient, QUEUE);
+
+    ShardStatus status = queue.dispatch("run 1", 2, 5, 40);
+
+    ArgumentCaptor<Task> task = ArgumentCaptor.forClass(Task.class);
+    verify(mockClient).createTask(eq(QUEUE), task.capture());
+    Assert.assertEquals(HttpMethod.GET, task.getValue().getAppEngineHttpRequest().getHttpMethod());
+    Assert.assertEquals("/update-data?shard=2&of=5&run=run+1",
+        task.getValue().getAppEngineHttpRequest().getRelativeUri());
+    Assert.assertEquals(ShardStatus.create(2, 5, 40, ShardStatus.State.DISPATCHED, ""), status);
+  }
+}
@@ -2,16 +2,20 @@ package com.google.impactdashboard.server.data_update;
 
 import java.util.Arrays;
 
-import com.google.cloud.logging.v2.LoggingClient;
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.cloud.recommender.v1.RecommenderClient;
 import com.google.impactdashboard.data.organization.OrganizationIdentification;
 import com.google.logging.v2.LogEntry;
-import com.google.cloud.logging.v2.LoggingClient.ListLogEntriesPagedResponse;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.Value;
 import com.google.impactdashboard.configuration.Configuration;
 import com.google.impactdashboard.data.IAMBindingDatabaseEntry;
 import com.google.impactdashboard.data.project.ProjectIdentification;
 import com.google.impactdashboard.data.recommendation.IAMRecommenderMetadata;
 import com.google.impactdashboard.data.recommendation.Recommendation;
 import com.google.impactdashboard.data.recommendation.RecommendationAction;
+import com.google.impactdashboard.data.update.UpdateRunReport;
 import com.google.impactdashboard.database_manager.data_read.DataReadManager;
 import com.google.impactdashboard.database_manager.data_read.DataReadManagerFactory;
 import com.google.impactdashboard.database_manager.data_update.DataUpdateManager;
@@ -20,16 +24,24 @@ import com.google.impactdashboard.server.api_utilities.IamBindingRetriever;
 import com.google.impactdashboard.server.api_utilities.LogRetriever;
 import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
 import com.google.impactdashboard.server.api_utilities.RecommendationRetriever;
+import com.google.impactdashboard.tracing.Tracer;
 
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RunWith(JUnit4.class)
 public class DataUpdaterTest extends Mockito {
@@ -56,11 +68,8 @@ public class DataUpdaterTest extends Mockito {
   private ResourceRetriever mockResourceRetriever;
   private DataUpdater manualDataUpdater;
   private DataUpdater automaticDataUpdater;
-
-  private ListLogEntriesPagedResponse project3RecommendationResponse;
-  private ListLogEntriesPagedResponse project3RecommendationResponseManual;
-  private ListLogEntriesPagedResponse project2RecommendationResponse;
-  private ListLogEntriesPagedResponse project1RecommendationResponse;
+  private List<LogEntry> project1RecommendationLogs;
+  private UpdateRunRecorder run;
 
   private static final ProjectIdentification PROJECT_1 =
       ProjectIdentification.create("project-1", "project-id-1", 123456789123L);
@@ -118,19 +127,20 @@ public class DataUpdaterTest extends Mockito {
         fakeDataReadManager, mockIamBindingRetriever, mockResourceRetriever);
 
     initializeRecommendationFakes();
+    run = new UpdateRunRecorder(
+        Tracer.getInstance().startDetachedSpan("DataUpdaterTest", null, System.nanoTime()));
+  }
+
+  @After
+  public void tearDown() {
+    run.close();
   }
 
   /** Sets up all mock object behavior necessary for Recommendations tests. */
   private void initializeRecommendationFakes() {
-    project3RecommendationResponse = mock(ListLogEntriesPagedResponse.class);
-    project3RecommendationResponseManual = mock(ListLogEntriesPagedResponse.class);
-    project2RecommendationResponse = mock(ListLogEntriesPagedResponse.class);
-    project1RecommendationResponse = mock(ListLogEntriesPagedResponse.class);
-
     List<LogEntry> project3RecommendationLogs =
         Arrays.asList(mock(LogEntry.class), mock(LogEntry.class));
-    List<LogEntry> project1RecommendationLogs =
-        Arrays.asList(mock(LogEntry.class));
+    project1RecommendationLogs = Arrays.asList(mock(LogEntry.class));
     List<LogEntry> project3RecommendationLogsManual = Arrays.asList(mock(LogEntry.class));
     List<Recommendation> project3Recommendations =
         Arrays.asList(PROJECT_3_RECOMMENDATION_1, PROJECT_3_RECOMMENDATION_2);
@@ -141,23 +151,17 @@ public class DataUpdaterTest extends Mockito {
         Arrays.asList(PROJECT_3_RECOMMENDATION_1);
 
     when(mockLogRetriever.listRecommendationLogs(PROJECT_3.getProjectId(), "", ""))
-        .thenReturn(project3RecommendationResponse);
+        .thenReturn(project3RecommendationLogs);
     when(
         mockLogRetriever.listRecommendationLogs(
             eq(PROJECT_3.getProjectId()), eq(""), argThat(time -> !time.equals(""))))
-        .thenReturn(project3RecommendationResponseManual);
+        .thenReturn(project3RecommendationLogsManual);
     when(mockLogRetriever.listRecommendationLogs(
             eq(PROJECT_1.getProjectId()), argThat(time -> !time.equals("")), eq("")))
-        .thenReturn(project1RecommendationResponse);
+        .thenReturn(project1RecommendationLogs);
     when(mockLogRetriever.listRecommendationLogs(
             eq(PROJECT_2.getProjectId()), argThat(time -> !time.equals("")), eq("")))
-        .thenReturn(project2RecommendationResponse);
-
-    when(project1RecommendationResponse.iterateAll()).thenReturn(project1RecommendationLogs);
-    when(project3RecommendationResponse.iterateAll()).thenReturn(project3RecommendationLogs);
-    when(project3RecommendationResponseManual.iterateAll())
-        .thenReturn(project3RecommendationLogsManual);
-    when(project2RecommendationResponse.iterateAll()).thenReturn(Arrays.asList());
+        .thenReturn(Arrays.asList());
 
     when(
         mockRecommendationRetriever.listRecommendations(
@@ -182,12 +186,6 @@ public class DataUpdaterTest extends Mockito {
   }
 
   private void initializeIamFakes() {
-    LoggingClient.ListLogEntriesPagedResponse project3Response =
-        mock(LoggingClient.ListLogEntriesPagedResponse.class, Mockito.RETURNS_DEEP_STUBS);
-    LoggingClient.ListLogEntriesPagedResponse project2Response =
-        mock(LoggingClient.ListLogEntriesPagedResponse.class, Mockito.RETURNS_DEEP_STUBS);
-    LoggingClient.ListLogEntriesPagedResponse project1Response =
-        mock(LoggingClient.ListLogEntriesPagedResponse.class, Mockito.RETURNS_DEEP_STUBS);
     List<LogEntry> project3AuditLogs =
         Collections.singletonList(mock(LogEntry.class));
     List<LogEntry> project2AuditLogs =
@@ -195,29 +193,20 @@ public class DataUpdaterTest extends Mockito {
     List<LogEntry> project1AuditLogs =
         Collections.singletonList(mock(LogEntry.class));
 
-    when(mockLogRetriever.listAuditLogsResponse(eq(PROJECT_3.getProjectId()), anyString(),
-        anyString(), anyInt(), anyString())).thenReturn(project3Response);
-
-    when(mockLogRetriever.listAuditLogsResponse(eq(PROJECT_2.getProjectId()), anyString(),
-        anyString(), anyInt(), anyString())).thenReturn(project2Response);
-
-    when(mockLogRetriever.listAuditLogsResponse(eq(PROJECT_1.getProjectId()), anyString(),
-        anyString(), anyInt(), anyString())).thenReturn(project1Response);
-
-    when(project3Response.iterateAll()).thenReturn(project3AuditLogs);
-
-    when(project3Response.getPage().getResponse().getEntriesList())
-        .thenReturn(project3AuditLogs);
-
-    when(project2Response.iterateAll()).thenReturn(project2AuditLogs);
+    when(mockLogRetriever.listAuditLogs(eq(PROJECT_3.getProjectId()), anyString(),
+        anyString())).thenReturn(project3AuditLogs);
+    when(mockLogRetriever.getLatestAuditLog(eq(PROJECT_3.getProjectId()), anyString(),
+        anyString())).thenReturn(project3AuditLogs);
 
-    when(project2Response.getPage().getResponse().getEntriesList())
-        .thenReturn(project2AuditLogs);
+    when(mockLogRetriever.listAuditLogs(eq(PROJECT_2.getProjectId()), anyString(),
+        anyString())).thenReturn(project2AuditLogs);
+    when(mockLogRetriever.getLatestAuditLog(eq(PROJECT_2.getProjectId()), anyString(),
+        anyString())).thenReturn(project2AuditLogs);
 
-    when(project1Response.iterateAll()).thenReturn(project1AuditLogs);
-
-    when(project1Response.getPage().getResponse().getEntriesList())
-        .thenReturn(project1AuditLogs);
+    when(mockLogRetriever.listAuditLogs(eq(PROJECT_1.getProjectId()), anyString(),
+        anyString())).thenReturn(project1AuditLogs);
+    when(mockLogRetriever.getLatestAuditLog(eq(PROJECT_1.getProjectId()), anyString(),
+        anyString())).thenReturn(project1AuditLogs);
 
     when(mockIamBindingRetriever.listIAMBindingData(any(), eq(PROJECT_3.getProjectId()), any(),
         any(), any())).thenReturn(PROJECT_3_IAM_BINDING_SINGLE_ENTRY);
@@ -232,7 +221,7 @@ public class DataUpdaterTest extends Mockito {
   @Test
   public void testAutomaticUpdateRecommendationsWith1NewProject2Old() {
     List<Recommendation> actual = automaticDataUpdater.listUpdatedRecommendations(
-        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3));
+        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3), run);
     List<Recommendation> expected = Arrays.asList(
         PROJECT_1_RECOMMENDATION, PROJECT_3_RECOMMENDATION_1, PROJECT_3_RECOMMENDATION_2);
 
@@ -245,7 +234,7 @@ public class DataUpdaterTest extends Mockito {
   @Test
   public void testManualUpdateRecommendations() {
     List<Recommendation> actual = manualDataUpdater.listUpdatedRecommendations(
-        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3));
+        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3), run);
     List<Recommendation> expected = Arrays.asList(PROJECT_3_RECOMMENDATION_1);
 
     Assert.assertEquals("Returned lists have the same size", expected.size(), actual.size());
@@ -253,6 +242,31 @@ public class DataUpdaterTest extends Mockito {
     Assert.assertEquals("Lists are equal", Arrays.asList(), actual);
   }
 
+  @Test
+  public void testBatchedUpdateRecommendations() {
+    Map<String, List<LogEntry>> batchedLogs = new HashMap<>();
+    batchedLogs.put(PROJECT_1.getProjectId(), project1RecommendationLogs);
+    when(mockLogRetriever.listRecommendationLogsForProjects(any(), anyString(), anyString()))
+        .thenReturn(batchedLogs);
+
+    Configuration.useBatchedLogRetrieval = true;
+    List<Recommendation> actual;
+    try {
+      actual = automaticDataUpdater.getRecommendationsForProjects(
+          Arrays.asList(PROJECT_1, PROJECT_2), "2020-07-19T00:00:00Z", "", run);
+    } finally {
+      Configuration.useBatchedLogRetrieval = false;
+    }
+
+    // Only project 1 has logs, project 2 is left out of the batched response.
+    Assert.assertEquals(Arrays.asList(PROJECT_1_RECOMMENDATION), actual);
+    verify(mockLogRetriever).listRecommendationLogsForProjects(
+        Arrays.asList(PROJECT_1.getProjectId(), PROJECT_2.getProjectId()), 
+        "2020-07-19T00:00:00Z", "");
+    verify(mockLogRetriever, never()).listRecommendationLogs(anyString(), anyString(), 
+        anyString());
+  }
+
   @Test
   public void manualIAMUpdate1NewProject1OldProject() {
     // Testing the functionality for manually updating a new project,
@@ -262,7 +276,7 @@ public class DataUpdaterTest extends Mockito {
     initializeIamFakes();
 
     List<IAMBindingDatabaseEntry> actual = manualDataUpdater.listUpdatedIAMBindingData(
-        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3));
+        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3), run);
     // Testing size because should always return 30 long List and creating the expected list would be too large
     int expectedSize = 30;
     Assert.assertEquals(expectedSize, actual.size());
@@ -280,7 +294,7 @@ public class DataUpdaterTest extends Mockito {
     initializeIamFakes();
 
     List<IAMBindingDatabaseEntry> actual = automaticDataUpdater.listUpdatedIAMBindingData(
-        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3));
+        Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(PROJECT_3), run);
     // Testing size because should always return 30 long List and creating the expected list would be too large
     int expectedSize = 33;
     Assert.assertEquals(expectedSize, actual.size());
@@ -308,4 +322,176 @@ public class DataUpdaterTest extends Mockito {
         .getBindingsNumber());
     Assert.assertEquals(expectedProjectId, actualEntryOldProject2.getProjectId());
   }
+
+  @Test
+  public void automaticIAMUpdateCopiesStoredEntryWhenPolicyUnchanged() {
+    // The fake database's last entry for project-id-1 has 1350 bindings and
+    // no audit log has been written since, so it is carried over to today.
+    initializeIamFakes();
+    when(mockLogRetriever.getLatestAuditLog(eq(PROJECT_1.getProjectId()), anyString(),
+        anyString())).thenReturn(Collections.emptyList());
+
+    List<IAMBindingDatabaseEntry> actual = automaticDataUpdater.listUpdatedIAMBindingData(
+        Arrays.asList(PROJECT_1), Arrays.asList(), run);
+
+    long todayMidnight = Instant.now().truncatedTo(ChronoUnit.DAYS).toEpochMilli();
+    Assert.assertEquals(1, actual.size());
+    Assert.assertEquals(1350, actual.get(0).getBindingsNumber());
+    Assert.assertEquals(todayMidnight, actual.get(0).getTimestamp());
+    verify(mockIamBindingRetriever, never()).listIAMBindingData(any(), 
+        eq(PROJECT_1.getProjectId()), any(), any(), any());
+  }
+
+  @Test
+  public void batchedAutomaticIAMUpdateListsTheLogsOfKnownProjectsTogether() {
+    initializeIamFakes();
+    LogEntry project1Log = LogEntry.newBuilder().setTimestamp(
+        Timestamp.newBuilder().setSeconds(Instant.now().getEpochSecond())).build();
+    when(mockLogRetriever.listAuditLogsForProjects(any(), anyString(), anyString()))
+        .thenReturn(Collections.singletonMap(PROJECT_1.getProjectId(), 
+            Collections.singletonList(project1Log)));
+
+    Configuration.useBatchedLogRetrieval = true;
+    List<IAMBindingDatabaseEntry> actual;
+    try {
+      actual = automaticDataUpdater.listUpdatedIAMBindingData(
+          Arrays.asList(PROJECT_1, PROJECT_2), Arrays.asList(), run);
+    } finally {
+      Configuration.useBatchedLogRetrieval = false;
+    }
+
+    // Project 1 changed its policy today, project 2 has no new log so keeps its entry.
+    long todayMidnight = Instant.now().truncatedTo(ChronoUnit.DAYS).toEpochMilli();
+    Assert.assertEquals(2, actual.size());
+    Assert.assertEquals(13456, actual.get(0).getBindingsNumber());
+    Assert.assertEquals(PROJECT_2.getProjectId(), actual.get(1).getProjectId());
+    Assert.assertEquals(todayMidnight, actual.get(1).getTimestamp());
+    verify(mockIamBindingRetriever).listIAMBindingData(
+        eq(Collections.singletonList(project1Log)), eq(PROJECT_1.getProjectId()), any(), 
+        any(), any());
+    // Both stored entries are from the same day, so one request covers both projects.
+    verify(mockLogRetriever).listAuditLogsForProjects(
+        eq(Arrays.asList(PROJECT_1.getProjectId(), PROJECT_2.getProjectId())), anyString(), 
+        eq(""));
+    verify(mockLogRetriever, never()).getLatestAuditLog(anyString(), anyString(), 
+        anyString());
+  }
+
+  @Test
+  public void updateReportsSkippedProjectsAndRowsWritten() {
+    initializeIamFakes();
+    PermissionDeniedException permissionDenied = mock(PermissionDeniedException.class);
+    when(permissionDenied.getMessage()).thenReturn("Permission denied");
+    when(mockLogRetriever.listAuditLogs(eq(PROJECT_3.getProjectId()), anyString(),
+        anyString())).thenThrow(permissionDenied);
+    when(mockResourceRetriever.listResourceManagerProjects())
+        .thenReturn(Arrays.asList(PROJECT_1, PROJECT_2, PROJECT_3));
+    // The update deletes old data, so it writes to a mock rather than the fake database.
+    DataUpdateManager mockDataUpdateManager = mock(DataUpdateManager.class);
+    DataUpdater dataUpdater = new ManualDataUpdater(
+        mockLogRetriever, mockRecommendationRetriever, mockDataUpdateManager, 
+        fakeDataReadManager, mockIamBindingRetriever, mockResourceRetriever);
+
+    UpdateRunReport report = dataUpdater.updateDatabase();
+
+    // Projects 1 and 2 are already in the database, so only project 3 is updated.
+    Assert.assertEquals(1, report.getProjectCount());
+    Assert.assertEquals(1, report.getRecommendationRowsWritten());
+    Assert.assertEquals(0, report.getBindingRowsWritten());
+    Assert.assertEquals(
+        Collections.singletonMap(PROJECT_3.getProjectId(), "IAM bindings: Permission denied"),
+        report.getSkippedProjects());
+    Assert.assertEquals(Collections.singleton(PROJECT_3.getProjectId()),
+        report.getSlowestProjectMillis().keySet());
+    Assert.assertEquals(Arrays.asList("list_projects", "retrieve_recommendations", 
+        "write_recommendations", "retrieve_bindings", "write_bindings", "delete_old_data"),
+        new ArrayList<>(report.getPhaseMillis().keySet()));
+    verify(mockDataUpdateManager).storeUpdateRunReport(report);
+  }
+
+  @Test
+  public void updateReportCountsTheRecommenderCallsOfEveryProject() {
+    initializeIamFakes();
+    String recommendationName = "projects/345678901234/locations/global/recommenders/" +
+        "google.iam.policy.Recommender/recommendations/recommendation-1";
+    when(mockLogRetriever.listRecommendationLogs(eq(PROJECT_3.getProjectId()), anyString(),
+        anyString())).thenReturn(Collections.singletonList(LogEntry.newBuilder()
+            .setTimestamp(Timestamp.newBuilder().setSeconds(1593072412L))
+            .setJsonPayload(Struct.newBuilder()
+                .putFields("recommendationName",
+                    Value.newBuilder().setStringValue(recommendationName).build())
+                .putFields("actor", Value.newBuilder().setStringValue("test@example.com").build()))
+            .build()));
+    when(mockResourceRetriever.listResourceManagerProjects())
+        .thenReturn(Arrays.asList(PROJECT_1, PROJECT_2, PROJECT_3));
+    when(mockResourceRetriever.getOrganizationId(anyString())).thenReturn("");
+    RecommenderClient mockRecommender = mock(RecommenderClient.class);
+    when(mockRecommender.getRecommendation(recommendationName)).thenReturn(
+        com.google.cloud.recommender.v1.Recommendation.newBuilder()
+            .setName(recommendationName).setRecommenderSubtype("REMOVE_ROLE").build());
+    // The recommendation is fetched on a thread of the retriever's own executor.
+    RecommendationRetriever recommendationRetriever = 
+        new RecommendationRetriever(mockRecommender, mockResourceRetriever) {};
+    DataUpdater dataUpdater = new ManualDataUpdater(
+        mockLogRetriever, recommendationRetriever, mock(DataUpdateManager.class), 
+        fakeDataReadManager, mockIamBindingRetriever, mockResourceRetriever);
+
+    UpdateRunReport report = dataUpdater.updateDatabase();
+
+    Assert.assertEquals(Long.valueOf(1), 
+        report.getApiCalls().get("Recommender GetRecommendation"));
+  }
+
+  @Test
+  public void failedUpdateStoresTheCauseBeforeRethrowing() {
+    initializeIamFakes();
+    when(mockResourceRetriever.listResourceManagerProjects())
+        .thenReturn(Arrays.asList(PROJECT_1, PROJECT_2, PROJECT_3));
+    DataUpdateManager mockDataUpdateManager = mock(DataUpdateManager.class);
+    doThrow(new RuntimeException("Query Error!")).when(mockDataUpdateManager)
+        .deleteYearOldData();
+    DataUpdater dataUpdater = new ManualDataUpdater(
+        mockLogRetriever, mockRecommendationRetriever, mockDataUpdateManager, 
+        fakeDataReadManager, mockIamBindingRetriever, mockResourceRetriever);
+
+    try {
+      dataUpdater.updateDatabase(0, 1, "run-1");
+      Assert.fail("The update should have failed.");
+    } catch (RuntimeException e) {
+      Assert.assertEquals("Query Error!", e.getMessage());
+    }
+
+    ArgumentCaptor<UpdateRunReport> report = ArgumentCaptor.forClass(UpdateRunReport.class);
+    verify(mockDataUpdateManager).storeUpdateRunReport(report.capture());
+    Assert.assertEquals("run-1", report.getValue().getRunId());
+    Assert.assertFalse(report.getValue().isCompleted());
+    Assert.assertEquals("Query Error!", report.getValue().getFailure());
+    Assert.assertEquals(1, report.getValue().getRecommendationRowsWritten());
+  }
+
+  @Test
+  public void oneEntryPerDayKeepsLatestEntryOfEachDay() {
+    Instant dayOne = Instant.parse("2020-07-19T00:00:00Z");
+    List<IAMBindingDatabaseEntry> bindingsData = Arrays.asList(
+        createProject1Entry(dayOne.minus(3L, ChronoUnit.DAYS), 100),
+        createProject1Entry(dayOne.plus(2L, ChronoUnit.HOURS), 200),
+        createProject1Entry(dayOne.plus(2L, ChronoUnit.HOURS), 300),
+        createProject1Entry(dayOne.plus(50L, ChronoUnit.HOURS), 400));
+
+    List<IAMBindingDatabaseEntry> actual = DataUpdater.createListWithOneEntryPerDay(
+        bindingsData, dayOne, dayOne.plus(4L, ChronoUnit.DAYS));
+
+    List<IAMBindingDatabaseEntry> expected = Arrays.asList(
+        createProject1Entry(dayOne.plus(1L, ChronoUnit.DAYS), 300),
+        createProject1Entry(dayOne.plus(2L, ChronoUnit.DAYS), 300),
+        createProject1Entry(dayOne.plus(3L, ChronoUnit.DAYS), 400),
+        createProject1Entry(dayOne.plus(4L, ChronoUnit.DAYS), 400));
+    Assert.assertEquals(expected, actual);
+  }
+
+  /** Returns an entry for project-id-1 with {@code bindings} bindings at {@code time}. */
+  private static IAMBindingDatabaseEntry createProject1Entry(Instant time, int bindings) {
+    return IAMBindingDatabaseEntry.create("project-id-1", "project-1", "123456789123",
+        OrganizationIdentification.create("", ""), time.toEpochMilli(), bindings);
+  }
 }
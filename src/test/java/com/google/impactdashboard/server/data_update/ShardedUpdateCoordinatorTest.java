@@ -0,0 +1,114 @@
+package com.google.impactdashboard.server.data_update;
+
+import com.google.impactdashboard.data.project.ProjectIdentification;
+import com.google.impactdashboard.data.update.ShardStatus;
+import com.google.impactdashboard.data.update.UpdateRunReport;
+import com.google.impactdashboard.data.update.UpdateRunSummary;
+import com.google.impactdashboard.server.api_utilities.ResourceRetriever;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class ShardedUpdateCoordinatorTest extends Mockito {
+
+  private static final int PROJECT_COUNT = 20;
+  private static final int SHARD_COUNT = 3;
+
+  private ResourceRetriever mockResourceRetriever;
+  private DataUpdater mockDataUpdater;
+  private ShardedUpdateCoordinator coordinator;
+
+  @Before
+  public void setup() {
+    List<ProjectIdentification> projects = new ArrayList<>();
+    for (int i = 0; i < PROJECT_COUNT; i++) {
+      projects.add(ProjectIdentification.create("project-" + i, "project-id-" + i, i));
+    }
+
+    mockResourceRetriever = mock(ResourceRetriever.class);
+    mockDataUpdater = mock(DataUpdater.class);
+    when(mockResourceRetriever.listResourceManagerProjects()).thenReturn(projects);
+
+    coordinator = new ShardedUpdateCoordinator(mockResourceRetriever,
+        new LocalUpdateTaskQueue(mockDataUpdater));
+  }
+
+  @Test
+  public void testShardIsStableAndInRange() {
+    for (int i = 0; i < PROJECT_COUNT; i++) {
+      int shard = ShardedUpdateCoordinator.getShard("project-id-" + i, SHARD_COUNT);
+      Assert.assertTrue(shard >= 0 && shard < SHARD_COUNT);
+      Assert.assertEquals(shard, ShardedUpdateCoordinator.getShard("project-id-" + i,
+          SHARD_COUNT));
+    }
+  }
+
+  @Test
+  public void testEveryShardIsDispatchedAndRolledUp() {
+    UpdateRunSummary summary = coordinator.runUpdate(SHARD_COUNT);
+
+    for (int shard = 0; shard < SHARD_COUNT; shard++) {
+      verify(mockDataUpdater).updateDatabase(shard, SHARD_COUNT, summary.getRunId());
+    }
+    Assert.assertEquals(SHARD_COUNT, summary.getShardStatuses().size());
+    Assert.assertEquals(PROJECT_COUNT, summary.getProjectCount());
+    Assert.assertEquals(SHARD_COUNT, summary.getCompletedShards());
+    Assert.assertEquals(0, summary.getFailedShards());
+  }
+
+  @Test
+  public void testFailedShardIsReported() {
+    when(mockDataUpdater.updateDatabase(eq(1), eq(SHARD_COUNT), anyString()))
+        .thenThrow(new RuntimeException("Quota exceeded"));
+
+    UpdateRunSummary summary = coordinator.runUpdate(SHARD_COUNT);
+
+    ShardStatus failedShard = summary.getShardStatuses().get(1);
+    Assert.assertEquals(ShardStatus.State.FAILED, failedShard.getState());
+    Assert.assertEquals("Quota exceeded", failedShard.getMessage());
+    Assert.assertEquals(SHARD_COUNT - 1, summary.getCompletedShards());
+    Assert.assertEquals(1, summary.getFailedShards());
+  }
+
+  @Test
+  public void testSummaryIsRolledUpFromTheLatestReportOfEachShard() {
+    List<UpdateRunReport> reports = Arrays.asList(
+        createReport(0, 1000, 7, ""),
+        createReport(1, 1000, 6, "Quota exceeded"),
+        createReport(1, 5000, 6, ""));
+
+    UpdateRunSummary summary = UpdateRunSummary.fromReports("run-1", reports);
+
+    Assert.assertEquals(Arrays.asList(
+        ShardStatus.create(0, SHARD_COUNT, 7, ShardStatus.State.COMPLETED, ""),
+        ShardStatus.create(1, SHARD_COUNT, 6, ShardStatus.State.COMPLETED, ""),
+        ShardStatus.create(2, SHARD_COUNT, 0, ShardStatus.State.DISPATCHED, "")),
+        summary.getShardStatuses());
+    Assert.assertEquals(13, summary.getProjectCount());
+    Assert.assertEquals(2, summary.getCompletedShards());
+    Assert.assertEquals(0, summary.getFailedShards());
+    Assert.assertEquals(1000, summary.getStartTimestamp());
+    Assert.assertEquals(5100, summary.getEndTimestamp());
+  }
+
+  /** 
+   * Returns the report of an attempt at shard {@code shard} of run-1 that started at 
+   * {@code startTimestamp} and failed because of {@code failure} unless it is empty. 
+   */
+  private static UpdateRunReport createReport(int shard, long startTimestamp, 
+      int projectCount, String failure) {
+    return UpdateRunReport.create("run-1", startTimestamp, startTimestamp + 100, shard, 
+        SHARD_COUNT, projectCount, Collections.emptyMap(), Collections.emptyMap(), 
+        Collections.emptyMap(), 0, 0, Collections.emptyMap(), failure);
+  }
+}
@@ -0,0 +1,125 @@
+package com.google.impactdashboard.tracing;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RunWith(JUnit4.class)
+public class TracerTest {
+
+  private InMemorySpanExporter exporter;
+  private Tracer tracer;
+
+  @Before
+  public void setup() {
+    exporter = new InMemorySpanExporter(10);
+    tracer = new Tracer(exporter);
+  }
+
+  @Test
+  public void testChildSpansArePartOfTheCurrentSpan() {
+    Span root;
+    Span child;
+    try (Span span = tracer.startSpan("root")) {
+      root = span;
+      try (Span childSpan = tracer.startSpan("child")) {
+        child = childSpan;
+        Assert.assertSame(child, tracer.getCurrentSpan());
+      }
+      Assert.assertSame(root, tracer.getCurrentSpan());
+    }
+
+    Assert.assertNull(tracer.getCurrentSpan());
+    Assert.assertNull(root.getParentSpanId());
+    Assert.assertEquals(32, root.getTraceId().length());
+    Assert.assertEquals(16, root.getSpanId().length());
+    Assert.assertEquals(root.getTraceId(), child.getTraceId());
+    Assert.assertEquals(root.getSpanId(), child.getParentSpanId());
+    Assert.assertNotEquals(root.getSpanId(), child.getSpanId());
+  }
+
+  @Test
+  public void testSpansAreExportedOnceWhenTheyEnd() {
+    Span span = tracer.startSpan("request").setAttribute("path", "/list-summaries");
+    Assert.assertTrue(exporter.getRecentTraces(10).isEmpty());
+
+    span.close();
+    span.end();
+
+    List<List<Span>> traces = exporter.getRecentTraces(10);
+    Assert.assertEquals(1, traces.size());
+    Assert.assertEquals(1, traces.get(0).size());
+    Assert.assertTrue(span.getDurationNanos() >= 0);
+    Assert.assertEquals("OK", span.getStatus());
+    Assert.assertEquals("/list-summaries", span.getAttributes().get("path"));
+  }
+
+  @Test
+  public void testDetachedSpansDoNotBecomeCurrent() {
+    try (Span parent = tracer.startSpan("update")) {
+      Span call = tracer.startDetachedSpan("Logging ListLogEntries", parent, System.nanoTime());
+      Assert.assertSame(parent, tracer.getCurrentSpan());
+
+      call.recordError(new IllegalStateException("quota"));
+      call.end();
+      Assert.assertEquals(parent.getSpanId(), call.getParentSpanId());
+      Assert.assertEquals("ERROR", call.getStatus());
+      Assert.assertEquals("IllegalStateException: quota", call.getAttributes().get("error"));
+    }
+  }
+
+  @Test
+  public void testRecentTracesAreGroupedNewestFirst() {
+    try (Span first = tracer.startSpan("first")) {
+      tracer.startSpan("first child").close();
+    }
+    Span second = tracer.startSpan("second");
+    second.close();
+
+    List<List<Span>> traces = exporter.getRecentTraces(10);
+    Assert.assertEquals(2, traces.size());
+    Assert.assertEquals("second", traces.get(0).get(0).getName());
+    Assert.assertEquals("first", traces.get(1).get(0).getName());
+    Assert.assertEquals("first child", traces.get(1).get(1).getName());
+    Assert.assertEquals(1, exporter.getRecentTraces(1).size());
+  }
+
+  @Test
+  public void testWrappedTasksRunInTheSpanTheyWereWrappedIn() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Span child;
+    try (Span root = tracer.startSpan("root")) {
+      child = executor.submit(tracer.wrap(() -> {
+        try (Span span = tracer.startSpan("child")) {
+          return span;
+        }
+      })).get();
+      Assert.assertEquals(root.getSpanId(), child.getParentSpanId());
+      Assert.assertEquals(root.getTraceId(), child.getTraceId());
+      // The thread of the executor gets its own current span back once the task is done.
+      Assert.assertNull(executor.submit(tracer::getCurrentSpan).get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testOldestSpansAreDroppedWhenFull() {
+    InMemorySpanExporter smallExporter = new InMemorySpanExporter(2);
+    Tracer smallTracer = new Tracer(smallExporter);
+    smallTracer.startSpan("a").close();
+    smallTracer.startSpan("b").close();
+    smallTracer.startSpan("c").close();
+
+    List<List<Span>> traces = smallExporter.getRecentTraces(10);
+    Assert.assertEquals(2, traces.size());
+    Assert.assertEquals("c", traces.get(0).get(0).getName());
+    Assert.assertEquals("b", traces.get(1).get(0).getName());
+  }
+}